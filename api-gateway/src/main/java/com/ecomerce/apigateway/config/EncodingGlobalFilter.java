@@ -40,8 +40,10 @@ public class EncodingGlobalFilter implements GlobalFilter, Ordered {
         }
 
         // Đặc biệt xử lý cho JSON responses (Swagger API docs)
+        // Bỏ qua SSE: text/event-stream phải giữ nguyên để NettyWriteResponseFilter flush từng event
         String requestPath = exchange.getRequest().getURI().getPath();
-        if (requestPath != null && (requestPath.contains("/v3/api-docs") || 
+        boolean eventStream = exchange.getRequest().getHeaders().getAccept().contains(MediaType.TEXT_EVENT_STREAM);
+        if (!eventStream && requestPath != null && (requestPath.contains("/v3/api-docs") || 
                                     requestPath.contains("/swagger-ui") ||
                                     requestPath.contains("/api/"))) {
             if (headers.getContentType() == null || 
@@ -1,12 +1,14 @@
 package com.ecomerce.authservice.controller;
 
 import com.ecomerce.authservice.annontaton.ApiMessage;
+import com.ecomerce.authservice.dto.request.user.AvatarPresignedUploadRequestDto;
 import com.ecomerce.authservice.dto.request.user.SelfUpdatePasswordRequestDto;
 import com.ecomerce.authservice.dto.request.user.SelfUserUpdateProfileRequestDto;
 import com.ecomerce.authservice.dto.request.user.UserCreateRequestDto;
 import com.ecomerce.authservice.dto.request.user.UserUpdateRequestDto;
 import com.ecomerce.authservice.dto.response.PageResponseDto;
 import com.ecomerce.authservice.dto.response.user.DefaultUserResponseDto;
+import com.ecomerce.authservice.dto.response.user.PresignedUploadResponseDto;
 import com.ecomerce.authservice.model.User;
 import com.ecomerce.authservice.service.UserService;
 import com.turkraft.springfilter.boot.Filter;
@@ -133,4 +135,23 @@ public class UserController {
         userService.updateSelfUserAvatar(avatarFile);
     }
 
+    @PostMapping("/me/avatar/presigned-upload")
+    @ApiMessage(value = "Tạo presigned URL upload Avatar của người dùng hiện tại")
+    @Operation(
+            summary = "Tạo presigned URL upload Avatar",
+            description = "Client PUT file trực tiếp lên uploadUrl (Content-Type khớp contentType), sau đó gọi /me/avatar/confirm"
+    )
+    public ResponseEntity<PresignedUploadResponseDto> createSelfUserAvatarUploadUrl(
+            @Valid @RequestBody AvatarPresignedUploadRequestDto avatarPresignedUploadRequestDto
+    ) {
+        return ResponseEntity.ok(userService.createSelfUserAvatarUploadUrl(avatarPresignedUploadRequestDto));
+    }
+
+    @PostMapping("/me/avatar/confirm")
+    @ApiMessage(value = "Cập nhật Avatar của người dùng hiện tại")
+    @Operation(summary = "Xác nhận Avatar đã upload qua presigned URL")
+    public ResponseEntity<DefaultUserResponseDto> confirmSelfUserAvatarUpload() {
+        return ResponseEntity.ok(userService.confirmSelfUserAvatarUpload());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.ecomerce.authservice.dto.request.user;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class AvatarPresignedUploadRequestDto {
+    @NotBlank(message = "content type không được để trống")
+    @Pattern(regexp = "^image/[a-zA-Z0-9.+-]+$", message = "chỉ hỗ trợ upload file ảnh")
+    private String contentType;
+}
@@ -0,0 +1,22 @@
+package com.ecomerce.authservice.dto.response.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Presigned PUT URL để client upload avatar trực tiếp lên S3
+ * Client PUT file lên uploadUrl (header Content-Type phải khớp contentType), sau đó gọi confirm
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PresignedUploadResponseDto {
+    private String uploadUrl;
+    private String fileUrl;
+    private String key;
+    private String contentType;
+    private Instant expiresAt;
+}
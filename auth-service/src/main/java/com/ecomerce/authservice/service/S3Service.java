@@ -1,11 +1,18 @@
 package com.ecomerce.authservice.service;
 
+import com.ecomerce.authservice.dto.response.user.PresignedUploadResponseDto;
 import org.springframework.web.multipart.MultipartFile;
 
 
 public interface S3Service {
     String uploadFile(MultipartFile file,String folder,String fileName,boolean getUrl);
 
+    PresignedUploadResponseDto generatePresignedUploadUrl(String folder, String fileName, String contentType);
+
+    boolean existsFile(String folder, String fileName);
+
+    String getFileUrl(String folder, String fileName);
+
 //    String uploadFile(MultipartFile file, String key, boolean getUrl);
 //
 //    String generatePresignedUrl(String key, Duration expireDuration);
@@ -1,11 +1,13 @@
 package com.ecomerce.authservice.service;
 
+import com.ecomerce.authservice.dto.request.user.AvatarPresignedUploadRequestDto;
 import com.ecomerce.authservice.dto.request.user.SelfUpdatePasswordRequestDto;
 import com.ecomerce.authservice.dto.request.user.SelfUserUpdateProfileRequestDto;
 import com.ecomerce.authservice.dto.request.user.UserCreateRequestDto;
 import com.ecomerce.authservice.dto.request.user.UserUpdateRequestDto;
 import com.ecomerce.authservice.dto.response.user.DefaultUserResponseDto;
 import com.ecomerce.authservice.dto.response.user.InternalUserResponseDto;
+import com.ecomerce.authservice.dto.response.user.PresignedUploadResponseDto;
 import com.ecomerce.authservice.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -23,6 +25,8 @@ public interface UserService {
     DefaultUserResponseDto updateSelfUserProfile(SelfUserUpdateProfileRequestDto selfUserUpdateProfileRequestDto);
     DefaultUserResponseDto updateSelfUserPassword(SelfUpdatePasswordRequestDto selfUserUpdatePasswordRequestDto);
     void updateSelfUserAvatar(MultipartFile avatarFile);
+    PresignedUploadResponseDto createSelfUserAvatarUploadUrl(AvatarPresignedUploadRequestDto avatarPresignedUploadRequestDto);
+    DefaultUserResponseDto confirmSelfUserAvatarUpload();
     
     /**
      * Lấy thông tin user cho internal calls (inter-service communication)
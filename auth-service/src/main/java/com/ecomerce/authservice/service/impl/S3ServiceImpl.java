@@ -1,22 +1,37 @@
 package com.ecomerce.authservice.service.impl;
 
 import com.ecomerce.authservice.advice.exeption.S3UploadException;
+import com.ecomerce.authservice.dto.response.user.PresignedUploadResponseDto;
 import com.ecomerce.authservice.service.S3Service;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 
 @Service
 @RequiredArgsConstructor
 public class S3ServiceImpl implements S3Service {
     private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
     private final String awsBucketName;
-    private final String awsRegion;
+    private final String s3ObjectBaseUrl;
+
+    @Value("${aws.s3.presign-expiration:10m}")
+    private Duration presignExpiration;
+
     @Override
     public String uploadFile(MultipartFile file, String folder, String fileName, boolean getUrl) {
 
@@ -30,19 +45,79 @@ public class S3ServiceImpl implements S3Service {
                     .bucket(awsBucketName)
                     .key(key)
                     .contentType(file.getContentType())
+                    .contentLength(file.getSize())
                     .build();
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+            // stream từ MultipartFile lên S3, không copy toàn bộ file vào heap (SDK retry sẽ mở lại stream)
+            s3Client.putObject(putObjectRequest, RequestBody.fromContentProvider(() -> {
+                try {
+                    return file.getInputStream();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, file.getSize(), file.getContentType()));
             if (getUrl)
-                return String.format("https://%s.s3.%s.amazonaws.com/%s", awsBucketName, awsRegion, key);
+                return getFileUrl(folder, fileName);
             else return key;
-        } catch (IOException e) {
+        } catch (S3UploadException e) {
+            throw e;
+        } catch (UncheckedIOException e) {
             throw new S3UploadException("Lỗi khi cung cấp dữ liệu");
         } catch (Exception e) {
             throw new S3UploadException("Lỗi khi upload file lên S3");
         }
     }
 
+    @Override
+    public PresignedUploadResponseDto generatePresignedUploadUrl(String folder, String fileName, String contentType) {
+        String key = String.format("%s/%s", folder, fileName);
+
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(awsBucketName)
+                .key(key)
+                .contentType(contentType)
+                .build();
+
+        PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
+                .putObjectRequest(putObjectRequest)
+                .signatureDuration(presignExpiration)
+                .build();
+
+        PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(presignRequest);
+        return new PresignedUploadResponseDto(
+                presigned.url().toString(),
+                s3ObjectBaseUrl + key,
+                key,
+                contentType,
+                presigned.expiration()
+        );
+    }
+
+    @Override
+    public String getFileUrl(String folder, String fileName) {
+        return s3ObjectBaseUrl + String.format("%s/%s", folder, fileName);
+    }
+
+    @Override
+    public boolean existsFile(String folder, String fileName) {
+        try {
+            s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(awsBucketName)
+                    .key(String.format("%s/%s", folder, fileName))
+                    .build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw new S3UploadException("Lỗi khi kiểm tra file trên S3");
+        } catch (Exception e) {
+            throw new S3UploadException("Lỗi khi kiểm tra file trên S3");
+        }
+    }
+
 //    @Override
 //    public String uploadFile(MultipartFile file, String key, boolean getUrl) {
 //        try {
@@ -1,11 +1,14 @@
 package com.ecomerce.authservice.service.impl;
 
+import com.ecomerce.authservice.advice.exeption.S3UploadException;
+import com.ecomerce.authservice.dto.request.user.AvatarPresignedUploadRequestDto;
 import com.ecomerce.authservice.dto.request.user.SelfUpdatePasswordRequestDto;
 import com.ecomerce.authservice.dto.request.user.SelfUserUpdateProfileRequestDto;
 import com.ecomerce.authservice.dto.request.user.UserCreateRequestDto;
 import com.ecomerce.authservice.dto.request.user.UserUpdateRequestDto;
 import com.ecomerce.authservice.dto.response.user.DefaultUserResponseDto;
 import com.ecomerce.authservice.dto.response.user.InternalUserResponseDto;
+import com.ecomerce.authservice.dto.response.user.PresignedUploadResponseDto;
 import com.ecomerce.authservice.model.Role;
 import com.ecomerce.authservice.model.User;
 import com.ecomerce.authservice.repository.RoleRepository;
@@ -146,6 +149,31 @@ public class UserServiceImpl implements UserService {
 
     }
 
+    @Override
+    public PresignedUploadResponseDto createSelfUserAvatarUploadUrl(AvatarPresignedUploadRequestDto avatarPresignedUploadRequestDto) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = findByEmail(email);
+        // cùng key với upload qua service (avatar/{userId}) - client PUT trực tiếp lên S3
+        return s3Service.generatePresignedUploadUrl(
+                "avatar",
+                user.getId().toString(),
+                avatarPresignedUploadRequestDto.getContentType()
+        );
+    }
+
+    @Override
+    public DefaultUserResponseDto confirmSelfUserAvatarUpload() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = findByEmail(email);
+        if(!s3Service.existsFile("avatar", user.getId().toString())) {
+            throw new S3UploadException("avatar chưa được upload lên S3");
+        }
+        user.setLogoUrl(s3Service.getFileUrl("avatar", user.getId().toString()));
+        user.setUpdatedAt(Instant.now());
+        User savedUser = userRepository.saveAndFlush(user);
+        return mapToResponseDto(savedUser);
+    }
+
     @Override
     public InternalUserResponseDto findUserByIdForInternal(Long id) {
         return userRepository
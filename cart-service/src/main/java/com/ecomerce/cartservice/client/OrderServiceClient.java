@@ -3,9 +3,11 @@ package com.ecomerce.cartservice.client;
 import com.ecomerce.cartservice.client.dto.OrderCreateRequest;
 import com.ecomerce.cartservice.client.dto.OrderResponse;
 import com.ecomerce.cartservice.config.feign.OrderServiceFallbackFactory;
+import com.ecomerce.cartservice.idempotency.IdempotencyInterceptor;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 /**
  * Feign Client để gọi order-service
@@ -30,8 +32,10 @@ public interface OrderServiceClient {
     /**
      * Tạo đơn hàng mới
      * Gateway Secret và JWT token được tự động thêm bởi FeignConfig
+     * Idempotency-Key giữ nguyên giữa các lần Retry => order-service không tạo trùng đơn hàng
      */
     @PostMapping
-    OrderResponse createOrder(@RequestBody OrderCreateRequest request);
+    OrderResponse createOrder(@RequestHeader(IdempotencyInterceptor.IDEMPOTENCY_KEY_HEADER) String idempotencyKey,
+                              @RequestBody OrderCreateRequest request);
 }
 
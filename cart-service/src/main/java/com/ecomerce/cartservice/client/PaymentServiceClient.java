@@ -3,9 +3,11 @@ package com.ecomerce.cartservice.client;
 import com.ecomerce.cartservice.client.dto.PaymentCreateResponse;
 import com.ecomerce.cartservice.config.feign.FeignConfig;
 import com.ecomerce.cartservice.config.feign.PaymentServiceFallbackFactory;
+import com.ecomerce.cartservice.idempotency.IdempotencyInterceptor;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 @FeignClient(
         name = "payment-service",
@@ -16,7 +18,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 public interface PaymentServiceClient {
     
     @PostMapping("/create")
-    PaymentCreateResponse createPayment(@RequestBody PaymentCreateRequest request);
+    PaymentCreateResponse createPayment(@RequestHeader(IdempotencyInterceptor.IDEMPOTENCY_KEY_HEADER) String idempotencyKey,
+                                        @RequestBody PaymentCreateRequest request);
     
     // Inner class for request
     class PaymentCreateRequest {
@@ -5,6 +5,9 @@ import com.ecomerce.cartservice.config.feign.ProductServiceFallbackFactory;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 /**
  * Feign Client để gọi product-service
@@ -31,5 +34,12 @@ public interface ProductServiceClient {
      */
     @GetMapping("/{id}")
     ProductDetailResponse getProductById(@PathVariable("id") Long id);
+
+    /**
+     * Lấy thông tin chi tiết nhiều sản phẩm trong 1 request (public endpoint)
+     * Chỉ trả về sản phẩm active - ID không tồn tại hoặc đã bị vô hiệu hóa sẽ không có trong kết quả
+     */
+    @GetMapping("/batch")
+    List<ProductDetailResponse> getProductsByIds(@RequestParam("ids") List<Long> ids);
 }
 
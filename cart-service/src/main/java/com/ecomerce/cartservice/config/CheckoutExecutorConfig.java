@@ -0,0 +1,22 @@
+package com.ecomerce.cartservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor cho các lời gọi Feign song song khi checkout
+ * - Virtual thread: mỗi lời gọi HTTP 1 thread, không giới hạn bởi pool size
+ * - Truyền SecurityContext sang thread con để FeignConfig vẫn gắn được JWT token
+ */
+@Configuration
+public class CheckoutExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService checkoutExecutor() {
+        return new DelegatingSecurityContextExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -0,0 +1,84 @@
+package com.ecomerce.cartservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    // consumerFactory tự dựng props nên phải tự đọc type mapping (__TypeId__ header -> class)
+    @Value("${spring.kafka.consumer.properties.spring.json.type.mapping:}")
+    private String typeMappings;
+
+    @Bean
+    public ConsumerFactory<String, Object> consumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "cart-service-group");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        if (!typeMappings.isBlank()) {
+            props.put(JsonDeserializer.TYPE_MAPPINGS, typeMappings);
+        }
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Value("${kafka.consumer.retry.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${kafka.consumer.retry.initial-interval-ms:500}")
+    private long initialIntervalMs;
+
+    @Value("${kafka.consumer.retry.max-interval-ms:10000}")
+    private long maxIntervalMs;
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(errorHandler());
+        return factory;
+    }
+
+    /**
+     * Listener ném lỗi => seek lại record lỗi và xử lý lại với exponential backoff
+     * Hết số lần retry => log + commit offset để không chặn partition (checkout saga quá hạn sẽ tự bù trừ)
+     */
+    @Bean
+    public DefaultErrorHandler errorHandler() {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(maxRetries);
+        backOff.setInitialInterval(initialIntervalMs);
+        backOff.setMultiplier(2);
+        backOff.setMaxInterval(maxIntervalMs);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler((record, exception) ->
+                log.error("❌ Bỏ qua message topic={}, partition={}, offset={} sau {} lần retry: {}",
+                        record.topic(), record.partition(), record.offset(), maxRetries, exception.getMessage()),
+                backOff);
+        errorHandler.setCommitRecovered(true);
+        return errorHandler;
+    }
+}
@@ -78,7 +78,8 @@ public class FeignResponseDecoder implements Decoder {
             
             // Convert data field to target class
             String dataJson = objectMapper.writeValueAsString(apiResponse.getData());
-            T result = objectMapper.readValue(dataJson, targetClass);
+            // Dùng kiểu khai báo của method (vd: List<ProductDetailResponse> cho batch endpoint)
+            T result = objectMapper.readValue(dataJson, objectMapper.constructType(type));
             
             log.debug("✅ Unwrapped {} from {} - {}", targetClass.getSimpleName(), serviceName, result);
             
@@ -26,7 +26,7 @@ public class OrderServiceFallbackFactory implements FallbackFactory<OrderService
         }
 
         @Override
-        public OrderResponse createOrder(OrderCreateRequest request) {
+        public OrderResponse createOrder(String idempotencyKey, OrderCreateRequest request) {
             log.warn("⚠️ Circuit breaker opened or service unavailable. Fallback for createOrder(). Cause: {}",
                     cause != null ? cause.getMessage() : "Unknown");
             throw new RuntimeException("Order-service hiện không khả dụng. Vui lòng thử lại sau.");
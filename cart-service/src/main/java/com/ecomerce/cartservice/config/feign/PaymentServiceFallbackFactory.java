@@ -14,7 +14,7 @@ public class PaymentServiceFallbackFactory implements FallbackFactory<PaymentSer
     public PaymentServiceClient create(Throwable cause) {
         return new PaymentServiceClient() {
             @Override
-            public PaymentCreateResponse createPayment(PaymentServiceClient.PaymentCreateRequest request) {
+            public PaymentCreateResponse createPayment(String idempotencyKey, PaymentServiceClient.PaymentCreateRequest request) {
                 log.error("❌ Payment service unavailable. Cannot create payment for order: {}", 
                         request != null ? request.getOrderId() : "unknown", cause);
                 throw new RuntimeException("Payment service không khả dụng. Vui lòng thử lại sau.");
@@ -6,6 +6,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Slf4j
 @Component
 public class ProductServiceFallbackFactory implements FallbackFactory<ProductServiceClient> {
@@ -30,6 +32,13 @@ public class ProductServiceFallbackFactory implements FallbackFactory<ProductSer
                     id, cause != null ? cause.getMessage() : "Unknown");
             return null;
         }
+
+        @Override
+        public List<ProductDetailResponse> getProductsByIds(List<Long> ids) {
+            log.warn("⚠️ Circuit breaker opened or service unavailable. Fallback for getProductsByIds({}). Cause: {}",
+                    ids, cause != null ? cause.getMessage() : "Unknown");
+            return null;
+        }
     }
 }
 
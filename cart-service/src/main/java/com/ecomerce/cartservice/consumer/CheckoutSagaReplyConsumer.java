@@ -0,0 +1,88 @@
+package com.ecomerce.cartservice.consumer;
+
+import com.ecomerce.cartservice.event.InventoryReservationFailedEvent;
+import com.ecomerce.cartservice.event.InventoryReservedEvent;
+import com.ecomerce.cartservice.event.OrderCreateReply;
+import com.ecomerce.cartservice.event.PaymentCreateReply;
+import com.ecomerce.cartservice.saga.CheckoutSagaCoordinator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Nhận reply/event cho checkout saga và chuyển cho {@link CheckoutSagaCoordinator}
+ * Lỗi (Redis / gửi command) => ném lại cho DefaultErrorHandler (seek + backoff, xem KafkaConsumerConfig),
+ * message được xử lý lại; transition idempotent nên xử lý lại an toàn
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckoutSagaReplyConsumer {
+
+    private final CheckoutSagaCoordinator coordinator;
+
+    @KafkaListener(
+            topics = "order-create-reply",
+            groupId = "cart-service-group",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeOrderCreateReply(@Payload OrderCreateReply reply, Acknowledgment acknowledgment) {
+        try {
+            log.info("📨 Received OrderCreateReply for checkout: {}, success: {}", reply.getCheckoutId(), reply.isSuccess());
+            coordinator.onOrderCreateReply(reply);
+            acknowledgment.acknowledge();
+        } catch (RuntimeException e) {
+            log.error("❌ Error processing OrderCreateReply for checkout {}: {}", reply.getCheckoutId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @KafkaListener(
+            topics = "inventory-reserved",
+            groupId = "cart-service-group",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeInventoryReserved(@Payload InventoryReservedEvent event, Acknowledgment acknowledgment) {
+        try {
+            coordinator.onInventoryReserved(event.getOrderId());
+            acknowledgment.acknowledge();
+        } catch (RuntimeException e) {
+            log.error("❌ Error processing InventoryReservedEvent for order {}: {}", event.getOrderId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @KafkaListener(
+            topics = "inventory-reservation-failed",
+            groupId = "cart-service-group",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeInventoryReservationFailed(@Payload InventoryReservationFailedEvent event, Acknowledgment acknowledgment) {
+        try {
+            coordinator.onInventoryReservationFailed(event.getOrderId(), event.getReason());
+            acknowledgment.acknowledge();
+        } catch (RuntimeException e) {
+            log.error("❌ Error processing InventoryReservationFailedEvent for order {}: {}", event.getOrderId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @KafkaListener(
+            topics = "payment-create-reply",
+            groupId = "cart-service-group",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumePaymentCreateReply(@Payload PaymentCreateReply reply, Acknowledgment acknowledgment) {
+        try {
+            log.info("📨 Received PaymentCreateReply for checkout: {}, success: {}", reply.getCheckoutId(), reply.isSuccess());
+            coordinator.onPaymentCreateReply(reply);
+            acknowledgment.acknowledge();
+        } catch (RuntimeException e) {
+            log.error("❌ Error processing PaymentCreateReply for checkout {}: {}", reply.getCheckoutId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+}
@@ -8,23 +8,30 @@ import com.ecomerce.cartservice.dto.response.ApiResponse;
 import com.ecomerce.cartservice.dto.response.CartItemResponse;
 import com.ecomerce.cartservice.dto.response.CartResponse;
 import com.ecomerce.cartservice.dto.response.CheckoutResponse;
+import com.ecomerce.cartservice.dto.response.CheckoutStatusResponse;
 import com.ecomerce.cartservice.dto.response.PageResponseDto;
+import com.ecomerce.cartservice.idempotency.IdempotencyInterceptor;
+import com.ecomerce.cartservice.idempotency.Idempotent;
 import com.ecomerce.cartservice.model.Cart;
 import com.ecomerce.cartservice.service.CartService;
 import com.ecomerce.cartservice.util.JwtUtil;
 import com.turkraft.springfilter.boot.Filter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+
 @Tag(name = "Cart", description = "Quản lý giỏ hàng")
 @RestController
 @RequestMapping("/api/carts")
@@ -94,17 +101,58 @@ public class CartController {
         return ResponseEntity.ok(item);
     }
 
+    /**
+     * Checkout đồng bộ (mặc định): trả về đơn hàng + thanh toán đã tạo
+     * ?async=true: trả 202 + checkoutId ngay, theo dõi kết quả qua GET /api/carts/checkout/{checkoutId}
+     */
     @PostMapping("/checkout")
+    @Idempotent
     @ApiMessage(value = "Checkout thành công")
-    @Operation(summary = "Checkout một hoặc nhiều sản phẩm từ giỏ hàng để tạo đơn hàng")
-    public ResponseEntity<CheckoutResponse> checkout(
-            @Valid @RequestBody CheckoutRequest request
+    @Operation(summary = "Checkout một hoặc nhiều sản phẩm từ giỏ hàng để tạo đơn hàng",
+            description = "async=true: xử lý bất đồng bộ, trả về 202 kèm checkoutId để polling trạng thái")
+    public ResponseEntity<?> checkout(
+            @Valid @RequestBody CheckoutRequest request,
+            @RequestParam(defaultValue = "false") boolean async,
+            @RequestHeader(value = IdempotencyInterceptor.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest
     ) {
         Long userId = JwtUtil.getCurrentUserId();
-        CheckoutResponse response = cartService.checkout(userId, request);
+        if (async) {
+            CheckoutStatusResponse status = cartService.startCheckout(userId, request, clientIp(httpRequest));
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/carts/checkout/" + status.getCheckoutId()))
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new ApiResponse<>("Đang xử lý checkout", null, status));
+        }
+        CheckoutResponse response = cartService.checkout(userId, request, idempotencyKey);
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/checkout/{checkoutId}")
+    @ApiMessage(value = "Lấy trạng thái checkout thành công")
+    @Operation(summary = "Lấy trạng thái checkout bất đồng bộ",
+            description = "STARTED/ORDER_CREATED/INVENTORY_RESERVED: đang xử lý; COMPLETED: có đơn hàng (và payment nếu chọn phương thức thanh toán); FAILED: xem failureReason")
+    public ResponseEntity<CheckoutStatusResponse> getCheckoutStatus(@PathVariable String checkoutId) {
+        Long userId = JwtUtil.getCurrentUserId();
+        CheckoutStatusResponse status = cartService.getCheckoutStatus(userId, checkoutId);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (!status.getStatus().isTerminal()) {
+            builder.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return builder.body(status);
+    }
+
+    /**
+     * IP của client (VNPay yêu cầu vnp_IpAddr) - request đi qua api-gateway nên ưu tiên X-Forwarded-For
+     */
+    private static String clientIp(HttpServletRequest request) {
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor != null && !forwardedFor.isBlank()) {
+            return forwardedFor.split(",")[0].trim();
+        }
+        return request.getRemoteAddr();
+    }
+
     /**
      * Lấy danh sách tất cả giỏ hàng cho admin với filtering (PROTECTED - cần permission GET /api/carts/admin/all)
      * Hỗ trợ filtering qua query string: ?userId=1&isActive=true&totalAmount>1000&createdAt>2024-01-01
@@ -0,0 +1,38 @@
+package com.ecomerce.cartservice.dto.response;
+
+import com.ecomerce.cartservice.client.dto.PaymentCreateResponse;
+import com.ecomerce.cartservice.saga.CheckoutSagaStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Trạng thái checkout bất đồng bộ (response 202 và GET /api/carts/checkout/{checkoutId})
+ * removedItemIds chỉ có khi COMPLETED (items được xóa khỏi cart khi saga hoàn tất)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutStatusResponse {
+    private String checkoutId;
+    private CheckoutSagaStatus status;
+    private Long orderId;
+    private String orderNumber;
+    private BigDecimal totalAmount;
+    private PaymentCreateResponse payment;
+    private List<Long> removedItemIds;
+    private String failureReason;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "Asia/Ho_Chi_Minh")
+    private Instant createdAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "Asia/Ho_Chi_Minh")
+    private Instant updatedAt;
+}
@@ -0,0 +1,23 @@
+package com.ecomerce.cartservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Command bù trừ gửi order-service (topic order-cancel-command): hủy đơn của saga thất bại
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancelOrderCommand {
+    private String checkoutId;
+    private Long orderId;
+    private Long userId;
+    private String reason;
+    private Instant timestamp;
+}
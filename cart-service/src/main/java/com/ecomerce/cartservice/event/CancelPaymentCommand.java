@@ -0,0 +1,23 @@
+package com.ecomerce.cartservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Command bù trừ gửi payment-service (topic payment-cancel-command): hủy payment được tạo sau khi saga đã thất bại / quá hạn
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancelPaymentCommand {
+    private String checkoutId;
+    private Long orderId;
+    private Long paymentId;
+    private String reason;
+    private Instant timestamp;
+}
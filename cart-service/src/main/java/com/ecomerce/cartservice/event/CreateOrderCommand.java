@@ -0,0 +1,39 @@
+package com.ecomerce.cartservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Command gửi order-service (topic order-create-command): tạo đơn cho 1 checkout bất đồng bộ
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateOrderCommand {
+    private String checkoutId;
+    private Long userId;
+    private String shippingAddress;
+    private String phone;
+    private String notes;
+    private List<OrderItem> items;
+    private Instant timestamp;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderItem {
+        private Long productId;
+        private String productName;
+        private String productImage;
+        private BigDecimal price;
+        private Integer quantity;
+    }
+}
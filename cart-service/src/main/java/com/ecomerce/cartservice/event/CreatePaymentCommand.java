@@ -0,0 +1,28 @@
+package com.ecomerce.cartservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Command gửi payment-service (topic payment-create-command) sau khi đơn đã reserve kho
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreatePaymentCommand {
+    private String checkoutId;
+    private Long orderId;
+    private String orderNumber;
+    private Long userId;
+    private BigDecimal totalAmount;
+    private String paymentMethod;
+    private String orderDescription;
+    private String clientIp;
+    private Instant timestamp;
+}
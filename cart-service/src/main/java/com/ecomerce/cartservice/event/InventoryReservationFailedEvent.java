@@ -0,0 +1,22 @@
+package com.ecomerce.cartservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Event của inventory-service: order không reserve được (không item nào bị reserve)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservationFailedEvent {
+    private Long orderId;
+    private String orderNumber;
+    private String reason;
+    private Instant timestamp;
+}
@@ -0,0 +1,21 @@
+package com.ecomerce.cartservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Event của inventory-service: toàn bộ items của order đã được reserve
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservedEvent {
+    private Long orderId;
+    private String orderNumber;
+    private Instant timestamp;
+}
@@ -0,0 +1,27 @@
+package com.ecomerce.cartservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Reply của order-service cho {@link CreateOrderCommand} (topic order-create-reply)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCreateReply {
+    private String checkoutId;
+    private boolean success;
+    private Long orderId;
+    private String orderNumber;
+    private Long userId;
+    private BigDecimal totalAmount;
+    private String reason;
+    private Instant timestamp;
+}
@@ -0,0 +1,28 @@
+package com.ecomerce.cartservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Reply của payment-service cho {@link CreatePaymentCommand} (topic payment-create-reply)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentCreateReply {
+    private String checkoutId;
+    private boolean success;
+    private Long orderId;
+    private Long paymentId;
+    private String paymentMethod;
+    private String paymentStatus;
+    private String paymentUrl;
+    private String message;
+    private String reason;
+    private Instant timestamp;
+}
@@ -7,8 +7,10 @@ import lombok.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "cart_items", indexes = {
-    @Index(name = "idx_cart_item_cart_id", columnList = "cart_id"), // Foreign key
+@Table(name = "cart_items", uniqueConstraints = {
+    // Mỗi sản phẩm chỉ có 1 dòng trong cart - nền tảng cho INSERT ... ON DUPLICATE KEY UPDATE
+    @UniqueConstraint(name = "uk_cart_item_cart_product", columnNames = {"cart_id", "product_id"})
+}, indexes = {
     @Index(name = "idx_cart_item_product_id", columnList = "product_id"), // Product lookup
     @Index(name = "idx_cart_item_created_at", columnList = "created_at") // For sorting
 })
@@ -0,0 +1,34 @@
+package com.ecomerce.cartservice.saga;
+
+import com.ecomerce.cartservice.client.dto.PaymentCreateResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Trạng thái 1 checkout bất đồng bộ, lưu trong Redis bởi {@link CheckoutSagaStore}
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutSaga {
+    private String checkoutId;
+    private Long userId;
+    private CheckoutSagaStatus status;
+    private List<Long> itemIds;
+    private String paymentMethod;
+    private String clientIp;
+    private Long orderId;
+    private String orderNumber;
+    private BigDecimal totalAmount;
+    private PaymentCreateResponse payment;
+    private String failureReason;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,336 @@
+package com.ecomerce.cartservice.saga;
+
+import com.ecomerce.cartservice.client.dto.PaymentCreateResponse;
+import com.ecomerce.cartservice.dto.request.CheckoutRequest;
+import com.ecomerce.cartservice.event.CancelOrderCommand;
+import com.ecomerce.cartservice.event.CancelPaymentCommand;
+import com.ecomerce.cartservice.event.CreateOrderCommand;
+import com.ecomerce.cartservice.event.CreatePaymentCommand;
+import com.ecomerce.cartservice.event.OrderCreateReply;
+import com.ecomerce.cartservice.event.PaymentCreateReply;
+import com.ecomerce.cartservice.service.KafkaProducerService;
+import com.ecomerce.cartservice.store.CartLine;
+import com.ecomerce.cartservice.store.RedisCartStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Điều phối checkout bất đồng bộ (orchestration saga) qua Kafka command/reply
+ *
+ * 1. {@link #start}: lưu saga STARTED, request trả 202 ngay
+ * 2. {@link #requestOrder}: gửi CreateOrderCommand -> order-service reply (order-create-reply)
+ * 3. order-service publish order-created -> inventory-service reserve kho -> inventory-reserved / inventory-reservation-failed
+ * 4. Có phương thức thanh toán: gửi CreatePaymentCommand -> payment-service reply (payment-create-reply)
+ * 5. COMPLETED: xóa các item đã checkout khỏi cart
+ *
+ * Bù trừ: bước sau lỗi hoặc saga quá hạn => FAILED + CancelOrderCommand (hủy đơn => inventory release phần đã reserve);
+ * payment được tạo sau khi saga đã FAILED => CancelPaymentCommand.
+ * Saga FAILED đã có đơn chỉ rời deadline ZSET sau khi CancelOrderCommand gửi xong => lỗi giữa chừng được {@link #expireOverdueSagas} làm lại.
+ * Mọi transition là compare-and-set trên trạng thái hiện tại => reply/event lặp lại không có tác dụng.
+ * Xử lý lỗi (Redis / gửi command) => listener ném lỗi, DefaultErrorHandler seek lại và xử lý lại với backoff;
+ * hết số lần retry thì message bị bỏ qua và saga được bù trừ khi quá hạn ({@link #expireOverdueSagas}).
+ * - CancelOrderCommand gửi TRƯỚC khi chuyển FAILED: lần xử lý lại vẫn thấy trạng thái cũ nên gửi lại
+ * - CreatePaymentCommand gửi SAU khi chuyển INVENTORY_RESERVED (payment reply đến sớm vẫn được nhận);
+ *   lần xử lý lại thấy vẫn INVENTORY_RESERVED (chưa có payment reply) => gửi lại (payment-service dedupe theo orderId)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckoutSagaCoordinator {
+
+    private static final int EXPIRE_BATCH_SIZE = 100;
+    private static final String TIMEOUT_REASON = "Checkout quá thời gian xử lý";
+
+    private final CheckoutSagaStore sagaStore;
+    private final RedisCartStore cartStore;
+    private final KafkaProducerService kafkaProducerService;
+
+    @Value("${checkout.saga.timeout:2m}")
+    private Duration timeout;
+
+    // Xử lý saga quá hạn lỗi (Redis / Kafka) => nhận lại sau khoảng này
+    @Value("${checkout.saga.expire-retry-delay:30s}")
+    private Duration expireRetryDelay;
+
+    public CheckoutSaga start(Long userId, CheckoutRequest request, String clientIp) {
+        Instant now = Instant.now();
+        CheckoutSaga saga = CheckoutSaga.builder()
+                .checkoutId(UUID.randomUUID().toString())
+                .userId(userId)
+                .status(CheckoutSagaStatus.STARTED)
+                .itemIds(List.copyOf(request.getItemIds()))
+                .paymentMethod(request.getPaymentMethod())
+                .clientIp(clientIp)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        sagaStore.create(saga, now.plus(timeout));
+        log.info("🚀 Started checkout saga {} for user: {}", saga.getCheckoutId(), userId);
+        return saga;
+    }
+
+    public Optional<CheckoutSaga> find(String checkoutId) {
+        return sagaStore.find(checkoutId);
+    }
+
+    /**
+     * Gửi CreateOrderCommand với các dòng cart đã validate
+     */
+    public void requestOrder(CheckoutSaga saga, CheckoutRequest request, List<CartLine> lines) {
+        kafkaProducerService.publishCreateOrderCommand(CreateOrderCommand.builder()
+                .checkoutId(saga.getCheckoutId())
+                .userId(saga.getUserId())
+                .shippingAddress(request.getShippingAddress())
+                .phone(request.getPhone())
+                .notes(request.getNotes())
+                .items(lines.stream()
+                        .map(line -> CreateOrderCommand.OrderItem.builder()
+                                .productId(line.getProductId())
+                                .productName(line.getProductName())
+                                .productImage(line.getProductImage())
+                                .price(line.getPrice())
+                                .quantity(line.getQuantity())
+                                .build())
+                        .toList())
+                .timestamp(Instant.now())
+                .build());
+    }
+
+    /**
+     * Saga lỗi trước khi tạo đơn (validate / gửi command) => không có gì cần bù trừ
+     */
+    public void fail(String checkoutId, String reason) {
+        sagaStore.update(checkoutId, saga -> saga.getStatus() == CheckoutSagaStatus.STARTED
+                ? failed(saga, reason)
+                : null);
+        log.warn("⚠️ Checkout saga {} failed: {}", checkoutId, reason);
+    }
+
+    public void onOrderCreateReply(OrderCreateReply reply) {
+        String checkoutId = reply.getCheckoutId();
+        if (!reply.isSuccess()) {
+            fail(checkoutId, reply.getReason());
+            return;
+        }
+
+        Optional<CheckoutSaga> current = sagaStore.find(checkoutId);
+        if (current.isEmpty() || current.get().getStatus() == CheckoutSagaStatus.FAILED && current.get().getOrderId() == null) {
+            // Saga đã quá hạn / hết TTL trước khi đơn được tạo => hủy đơn vừa tạo
+            cancelOrder(checkoutId, reply.getOrderId(), reply.getUserId(), "Checkout đã hết hạn");
+            return;
+        }
+
+        Optional<CheckoutSaga> updated = sagaStore.update(checkoutId, saga -> saga.getStatus() == CheckoutSagaStatus.STARTED
+                ? saga.toBuilder()
+                        .status(CheckoutSagaStatus.ORDER_CREATED)
+                        .orderId(reply.getOrderId())
+                        .orderNumber(reply.getOrderNumber())
+                        .totalAmount(reply.getTotalAmount())
+                        .build()
+                : null);
+        if (updated.isEmpty()) {
+            // Reply lặp lại: lần xử lý trước lỗi sau khi đã chuyển trạng thái => chạy tiếp các bước còn dang dở
+            CheckoutSagaStatus status = current.get().getStatus();
+            if (status == CheckoutSagaStatus.INVENTORY_RESERVED) {
+                applyInventoryOutcome(checkoutId, CheckoutSagaStore.INVENTORY_RESERVED);
+                return;
+            }
+            if (status != CheckoutSagaStatus.ORDER_CREATED) {
+                return;
+            }
+        } else {
+            log.info("✅ Checkout saga {}: order {} created", checkoutId, reply.getOrderNumber());
+        }
+
+        sagaStore.linkOrder(reply.getOrderId(), checkoutId)
+                .ifPresent(outcome -> applyInventoryOutcome(checkoutId, outcome));
+    }
+
+    public void onInventoryReserved(Long orderId) {
+        sagaStore.recordInventoryOutcome(orderId, CheckoutSagaStore.INVENTORY_RESERVED)
+                .ifPresent(checkoutId -> applyInventoryOutcome(checkoutId, CheckoutSagaStore.INVENTORY_RESERVED));
+    }
+
+    public void onInventoryReservationFailed(Long orderId, String reason) {
+        String outcome = CheckoutSagaStore.INVENTORY_FAILED_PREFIX + (reason != null ? reason : "");
+        sagaStore.recordInventoryOutcome(orderId, outcome)
+                .ifPresent(checkoutId -> applyInventoryOutcome(checkoutId, outcome));
+    }
+
+    public void onPaymentCreateReply(PaymentCreateReply reply) {
+        String checkoutId = reply.getCheckoutId();
+        CheckoutSaga saga = sagaStore.find(checkoutId).orElse(null);
+        if (saga == null || saga.getStatus() != CheckoutSagaStatus.INVENTORY_RESERVED) {
+            boolean sagaFailed = saga == null || saga.getStatus() == CheckoutSagaStatus.FAILED;
+            if (sagaFailed && reply.isSuccess() && reply.getPaymentId() != null) {
+                // Saga đã quá hạn / thất bại (đơn bị hủy) => hủy payment vừa tạo, không để user thanh toán cho đơn đã hủy
+                log.warn("⚠️ Payment {} created for failed checkout saga {} (order {} đã bị hủy)",
+                        reply.getPaymentId(), checkoutId, reply.getOrderId());
+                cancelPayment(checkoutId, reply, saga != null ? saga.getFailureReason() : "Checkout đã hết hạn");
+            }
+            return;
+        }
+
+        if (!reply.isSuccess()) {
+            cancelOrder(checkoutId, saga.getOrderId(), saga.getUserId(), reply.getReason());
+            sagaStore.update(checkoutId, current -> current.getStatus() == CheckoutSagaStatus.INVENTORY_RESERVED
+                            ? failed(current, "Không thể tạo thanh toán: " + reply.getReason())
+                            : null)
+                    .ifPresent(failed -> sagaStore.removeDeadline(checkoutId));
+            return;
+        }
+
+        PaymentCreateResponse payment = PaymentCreateResponse.builder()
+                .paymentId(reply.getPaymentId())
+                .paymentUrl(reply.getPaymentUrl())
+                .paymentMethod(reply.getPaymentMethod())
+                .paymentStatus(reply.getPaymentStatus())
+                .message(reply.getMessage())
+                .build();
+        sagaStore.update(checkoutId, current -> current.getStatus() == CheckoutSagaStatus.INVENTORY_RESERVED
+                        ? current.toBuilder().status(CheckoutSagaStatus.COMPLETED).payment(payment).build()
+                        : null)
+                .ifPresent(this::removeCheckedOutItems);
+    }
+
+    /**
+     * Saga quá hạn (command/reply bị mất, service phía sau ngừng hoạt động...) => FAILED + hủy đơn nếu đã tạo
+     */
+    @Scheduled(fixedDelayString = "${checkout.saga.expire-interval-ms:5000}")
+    public void expireOverdueSagas() {
+        try {
+            List<String> overdue;
+            do {
+                overdue = sagaStore.claimOverdue(Instant.now(), expireRetryDelay, EXPIRE_BATCH_SIZE);
+                for (String checkoutId : overdue) {
+                    expire(checkoutId);
+                }
+            } while (overdue.size() == EXPIRE_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("❌ Checkout saga expiry error: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Saga được nhận lại (lần trước lỗi) có thể đã FAILED nhưng chưa gửi được CancelOrderCommand => gửi lại
+     * Deadline chỉ bị xóa sau khi bù trừ xong; lỗi => claimOverdue nhận lại sau expireRetryDelay
+     */
+    private void expire(String checkoutId) {
+        try {
+            CheckoutSaga saga = sagaStore.update(checkoutId, current -> current.getStatus().isTerminal()
+                            ? null
+                            : failed(current, TIMEOUT_REASON))
+                    .map(expired -> {
+                        log.warn("⏱️ Checkout saga {} expired", checkoutId);
+                        return expired;
+                    })
+                    .or(() -> sagaStore.find(checkoutId))
+                    .orElse(null);
+            if (saga != null && saga.getStatus() == CheckoutSagaStatus.FAILED && saga.getOrderId() != null) {
+                cancelOrder(checkoutId, saga.getOrderId(), saga.getUserId(), saga.getFailureReason());
+            }
+            sagaStore.removeDeadline(checkoutId);
+        } catch (Exception e) {
+            log.error("❌ Error expiring checkout saga {} (thử lại sau {}): {}",
+                    checkoutId, expireRetryDelay, e.getMessage(), e);
+        }
+    }
+
+    private void applyInventoryOutcome(String checkoutId, String outcome) {
+        CheckoutSaga saga = sagaStore.find(checkoutId).orElse(null);
+        if (saga == null) {
+            return;
+        }
+
+        if (saga.getStatus() == CheckoutSagaStatus.ORDER_CREATED) {
+            if (outcome.startsWith(CheckoutSagaStore.INVENTORY_FAILED_PREFIX)) {
+                String reason = outcome.substring(CheckoutSagaStore.INVENTORY_FAILED_PREFIX.length());
+                cancelOrder(checkoutId, saga.getOrderId(), saga.getUserId(), reason);
+                sagaStore.update(checkoutId, current -> current.getStatus() == CheckoutSagaStatus.ORDER_CREATED
+                                ? failed(current, "Không đủ hàng trong kho: " + reason)
+                                : null)
+                        .ifPresent(failed -> sagaStore.removeDeadline(checkoutId));
+                return;
+            }
+
+            if (saga.getPaymentMethod() == null || saga.getPaymentMethod().isEmpty()) {
+                // Không chọn phương thức thanh toán => payment được tạo riêng sau (như checkout đồng bộ)
+                sagaStore.update(checkoutId, current -> current.getStatus() == CheckoutSagaStatus.ORDER_CREATED
+                                ? current.toBuilder().status(CheckoutSagaStatus.COMPLETED).build()
+                                : null)
+                        .ifPresent(this::removeCheckedOutItems);
+                return;
+            }
+
+            // Chuyển trạng thái trước khi gửi command => PaymentCreateReply đến sớm không bị bỏ qua
+            saga = sagaStore.update(checkoutId, current -> current.getStatus() == CheckoutSagaStatus.ORDER_CREATED
+                            ? current.toBuilder().status(CheckoutSagaStatus.INVENTORY_RESERVED).build()
+                            : null)
+                    .or(() -> sagaStore.find(checkoutId))
+                    .orElse(null);
+        }
+
+        if (saga == null || saga.getStatus() != CheckoutSagaStatus.INVENTORY_RESERVED) {
+            return;
+        }
+        kafkaProducerService.publishCreatePaymentCommand(CreatePaymentCommand.builder()
+                .checkoutId(checkoutId)
+                .orderId(saga.getOrderId())
+                .orderNumber(saga.getOrderNumber())
+                .userId(saga.getUserId())
+                .totalAmount(saga.getTotalAmount())
+                .paymentMethod(saga.getPaymentMethod())
+                .orderDescription("Thanh toan don hang #" + saga.getOrderNumber())
+                .clientIp(saga.getClientIp())
+                .timestamp(Instant.now())
+                .build());
+    }
+
+    private void cancelOrder(String checkoutId, Long orderId, Long userId, String reason) {
+        kafkaProducerService.publishCancelOrderCommand(CancelOrderCommand.builder()
+                .checkoutId(checkoutId)
+                .orderId(orderId)
+                .userId(userId)
+                .reason(reason)
+                .timestamp(Instant.now())
+                .build());
+        log.info("↩️ Checkout saga {}: requested cancellation of order {} ({})", checkoutId, orderId, reason);
+    }
+
+    private void cancelPayment(String checkoutId, PaymentCreateReply reply, String reason) {
+        kafkaProducerService.publishCancelPaymentCommand(CancelPaymentCommand.builder()
+                .checkoutId(checkoutId)
+                .orderId(reply.getOrderId())
+                .paymentId(reply.getPaymentId())
+                .reason(reason)
+                .timestamp(Instant.now())
+                .build());
+        log.info("↩️ Checkout saga {}: requested cancellation of payment {} ({})", checkoutId, reply.getPaymentId(), reason);
+    }
+
+    private void removeCheckedOutItems(CheckoutSaga saga) {
+        // Lỗi Redis ở bước này không làm saga thất bại: đơn đã hoàn tất, user có thể tự xóa item
+        try {
+            cartStore.removeLines(saga.getUserId(), saga.getItemIds());
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể xóa items khỏi cart sau checkout {}: {}", saga.getCheckoutId(), e.getMessage());
+        }
+        log.info("✅ Checkout saga {} completed, order: {}", saga.getCheckoutId(), saga.getOrderNumber());
+    }
+
+    private static CheckoutSaga failed(CheckoutSaga saga, String reason) {
+        return saga.toBuilder()
+                .status(CheckoutSagaStatus.FAILED)
+                .failureReason(reason)
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecomerce.cartservice.saga;
+
+/**
+ * Trạng thái checkout bất đồng bộ
+ * STARTED -> ORDER_CREATED -> INVENTORY_RESERVED -> COMPLETED (không chọn phương thức thanh toán: ORDER_CREATED -> COMPLETED)
+ * INVENTORY_RESERVED: kho đã reserve, đã / đang gửi CreatePaymentCommand và chờ payment reply
+ * Bất kỳ bước nào lỗi / quá hạn => FAILED (đơn đã tạo bị hủy bằng CancelOrderCommand)
+ */
+public enum CheckoutSagaStatus {
+    STARTED,
+    ORDER_CREATED,
+    INVENTORY_RESERVED,
+    COMPLETED,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
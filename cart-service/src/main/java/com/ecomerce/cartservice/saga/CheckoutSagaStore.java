@@ -0,0 +1,191 @@
+package com.ecomerce.cartservice.saga;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lưu trạng thái checkout saga trong Redis
+ * - checkout:saga:{checkoutId}           JSON {@link CheckoutSaga} (TTL), cập nhật bằng compare-and-set
+ * - checkout:saga:deadlines              ZSET checkoutId -> hạn hoàn tất (ms), dùng cho {@link CheckoutSagaCoordinator#expireOverdueSagas}
+ * - checkout:order:{orderId}             orderId -> checkoutId (event của inventory-service chỉ có orderId)
+ * - checkout:order:{orderId}:inventory   kết quả reserve kho đến trước reply tạo đơn (khác topic nên không đảm bảo thứ tự)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckoutSagaStore {
+
+    public static final String INVENTORY_RESERVED = "RESERVED";
+    public static final String INVENTORY_FAILED_PREFIX = "FAILED:";
+
+    private static final String SAGA_KEY_PREFIX = "checkout:saga:";
+    private static final String DEADLINES_KEY = "checkout:saga:deadlines";
+    private static final String ORDER_KEY_PREFIX = "checkout:order:";
+    private static final int UPDATE_MAX_ATTEMPTS = 5;
+
+    /**
+     * ARGV: expectedJson, newJson - compare-and-set, giữ nguyên TTL
+     */
+    private static final RedisScript<Long> REPLACE_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end
+            redis.call('SET', KEYS[1], ARGV[2], 'KEEPTTL')
+            return 1
+            """, Long.class);
+
+    /**
+     * KEYS: orderKey, pendingInventoryKey; ARGV: checkoutId, ttlSeconds
+     * Ghi liên kết orderId -> checkoutId và lấy kết quả reserve kho đã đến trước (nếu có)
+     */
+    private static final RedisScript<String> LINK_ORDER_SCRIPT = RedisScript.of("""
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+            local pending = redis.call('GET', KEYS[2])
+            if pending then redis.call('DEL', KEYS[2]) end
+            return pending
+            """, String.class);
+
+    /**
+     * KEYS: orderKey, pendingInventoryKey; ARGV: outcome, ttlSeconds
+     * Đã có liên kết => trả checkoutId; chưa có => giữ outcome lại cho {@link #linkOrder}
+     */
+    private static final RedisScript<String> RECORD_INVENTORY_SCRIPT = RedisScript.of("""
+            local checkoutId = redis.call('GET', KEYS[1])
+            if checkoutId then return checkoutId end
+            redis.call('SET', KEYS[2], ARGV[1], 'EX', ARGV[2])
+            return nil
+            """, String.class);
+
+    /**
+     * KEYS: deadlines; ARGV: now, retryAt, limit
+     * Lấy các saga quá hạn và dời hạn sang retryAt trong cùng 1 script => nhiều instance không xử lý trùng,
+     * saga chỉ rời ZSET khi đã kết thúc và bù trừ xong ({@link #update} / {@link #removeDeadline}); lỗi giữa chừng => retryAt nhận lại
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_OVERDUE_SCRIPT = RedisScript.of("""
+            local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[3])
+            for _, id in ipairs(ids) do
+              redis.call('ZADD', KEYS[1], 'XX', ARGV[2], id)
+            end
+            return ids
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${checkout.saga.ttl:24h}")
+    private Duration ttl;
+
+    // Kết quả kho chờ reply chỉ cần giữ tới khi saga quá hạn (đa số là đơn checkout đồng bộ, không có saga)
+    @Value("${checkout.saga.timeout:2m}")
+    private Duration pendingOutcomeTtl;
+
+    public void create(CheckoutSaga saga, Instant deadline) {
+        redisTemplate.opsForValue().set(sagaKey(saga.getCheckoutId()), write(saga), ttl);
+        redisTemplate.opsForZSet().add(DEADLINES_KEY, saga.getCheckoutId(), deadline.toEpochMilli());
+    }
+
+    public Optional<CheckoutSaga> find(String checkoutId) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(sagaKey(checkoutId))).map(this::read);
+    }
+
+    /**
+     * Cập nhật saga bằng compare-and-set (retry khi bị ghi đồng thời)
+     * @param change trả về null nếu trạng thái hiện tại không cho phép chuyển => không ghi
+     * @return saga sau khi cập nhật, empty nếu không tồn tại / không chuyển trạng thái
+     */
+    public Optional<CheckoutSaga> update(String checkoutId, UnaryOperator<CheckoutSaga> change) {
+        String key = sagaKey(checkoutId);
+        for (int attempt = 0; attempt < UPDATE_MAX_ATTEMPTS; attempt++) {
+            String current = redisTemplate.opsForValue().get(key);
+            if (current == null) {
+                return Optional.empty();
+            }
+            CheckoutSaga updated = change.apply(read(current));
+            if (updated == null) {
+                return Optional.empty();
+            }
+            updated.setUpdatedAt(Instant.now());
+            Long replaced = redisTemplate.execute(REPLACE_SCRIPT, List.of(key), current, write(updated));
+            if (replaced != null && replaced == 1) {
+                // FAILED khi đã có đơn: giữ hạn tới khi CancelOrderCommand gửi xong (coordinator gọi removeDeadline)
+                if (updated.getStatus() == CheckoutSagaStatus.COMPLETED
+                        || updated.getStatus() == CheckoutSagaStatus.FAILED && updated.getOrderId() == null) {
+                    redisTemplate.opsForZSet().remove(DEADLINES_KEY, checkoutId);
+                }
+                return Optional.of(updated);
+            }
+        }
+        throw new IllegalStateException("Không thể cập nhật checkout saga " + checkoutId + " do ghi đồng thời");
+    }
+
+    /**
+     * @return kết quả reserve kho đã đến trước reply tạo đơn (nếu có)
+     */
+    public Optional<String> linkOrder(Long orderId, String checkoutId) {
+        return Optional.ofNullable(redisTemplate.execute(LINK_ORDER_SCRIPT, orderKeys(orderId),
+                checkoutId, String.valueOf(ttl.toSeconds())));
+    }
+
+    /**
+     * @return checkoutId nếu order đã được liên kết; empty => outcome được giữ lại chờ reply tạo đơn
+     */
+    public Optional<String> recordInventoryOutcome(Long orderId, String outcome) {
+        return Optional.ofNullable(redisTemplate.execute(RECORD_INVENTORY_SCRIPT, orderKeys(orderId),
+                outcome, String.valueOf(pendingOutcomeTtl.toSeconds())));
+    }
+
+    /**
+     * Nhận các saga quá hạn; hạn được dời sang now + retryDelay (không xóa) cho tới khi saga kết thúc
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> claimOverdue(Instant now, Duration retryDelay, int limit) {
+        List<String> claimed = redisTemplate.execute(CLAIM_OVERDUE_SCRIPT, List.of(DEADLINES_KEY),
+                String.valueOf(now.toEpochMilli()),
+                String.valueOf(now.plus(retryDelay).toEpochMilli()),
+                String.valueOf(limit));
+        return claimed != null ? claimed : List.of();
+    }
+
+    /**
+     * Bỏ hạn của saga đã kết thúc và đã gửi xong lệnh bù trừ (hoặc không còn tồn tại)
+     */
+    public void removeDeadline(String checkoutId) {
+        redisTemplate.opsForZSet().remove(DEADLINES_KEY, checkoutId);
+    }
+
+    private static String sagaKey(String checkoutId) {
+        return SAGA_KEY_PREFIX + checkoutId;
+    }
+
+    private static List<String> orderKeys(Long orderId) {
+        String orderKey = ORDER_KEY_PREFIX + orderId;
+        return List.of(orderKey, orderKey + ":inventory");
+    }
+
+    private String write(CheckoutSaga saga) {
+        try {
+            return objectMapper.writeValueAsString(saga);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể serialize checkout saga " + saga.getCheckoutId(), e);
+        }
+    }
+
+    private CheckoutSaga read(String json) {
+        try {
+            return objectMapper.readValue(json, CheckoutSaga.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Checkout saga không hợp lệ: " + e.getMessage(), e);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.ecomerce.cartservice.dto.request.CheckoutRequest;
 import com.ecomerce.cartservice.dto.response.CartItemResponse;
 import com.ecomerce.cartservice.dto.response.CartResponse;
 import com.ecomerce.cartservice.dto.response.CheckoutResponse;
+import com.ecomerce.cartservice.dto.response.CheckoutStatusResponse;
 import com.ecomerce.cartservice.dto.response.PageResponseDto;
 import com.ecomerce.cartservice.model.Cart;
 import org.springframework.data.domain.Pageable;
@@ -29,6 +30,13 @@ public interface CartService {
     
     CartItemResponse getCartItemById(Long userId, Long itemId);
     
-    CheckoutResponse checkout(Long userId, CheckoutRequest request);
+    CheckoutResponse checkout(Long userId, CheckoutRequest request, String idempotencyKey);
+
+    /**
+     * Checkout bất đồng bộ: trả về ngay (saga STARTED), đơn hàng / thanh toán được tạo qua Kafka
+     */
+    CheckoutStatusResponse startCheckout(Long userId, CheckoutRequest request, String clientIp);
+
+    CheckoutStatusResponse getCheckoutStatus(Long userId, String checkoutId);
 }
 
@@ -1,7 +1,22 @@
 package com.ecomerce.cartservice.service;
 
+import com.ecomerce.cartservice.event.CancelOrderCommand;
+import com.ecomerce.cartservice.event.CancelPaymentCommand;
 import com.ecomerce.cartservice.event.CartItemAddedEvent;
+import com.ecomerce.cartservice.event.CreateOrderCommand;
+import com.ecomerce.cartservice.event.CreatePaymentCommand;
 
 public interface KafkaProducerService {
     void publishCartItemAddedEvent(CartItemAddedEvent event);
+
+    /**
+     * Command của checkout saga: chờ broker ack, lỗi => throw để caller không chuyển trạng thái saga
+     */
+    void publishCreateOrderCommand(CreateOrderCommand command);
+
+    void publishCancelOrderCommand(CancelOrderCommand command);
+
+    void publishCreatePaymentCommand(CreatePaymentCommand command);
+
+    void publishCancelPaymentCommand(CancelPaymentCommand command);
 }
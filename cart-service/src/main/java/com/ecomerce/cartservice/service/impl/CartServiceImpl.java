@@ -16,55 +16,72 @@ import com.ecomerce.cartservice.dto.request.CheckoutRequest;
 import com.ecomerce.cartservice.dto.response.CartItemResponse;
 import com.ecomerce.cartservice.dto.response.CartResponse;
 import com.ecomerce.cartservice.dto.response.CheckoutResponse;
+import com.ecomerce.cartservice.dto.response.CheckoutStatusResponse;
 import com.ecomerce.cartservice.dto.response.PageResponseDto;
 import org.springframework.data.jpa.domain.Specification;
 import com.ecomerce.cartservice.event.CartItemAddedEvent;
 import com.ecomerce.cartservice.model.Cart;
 import com.ecomerce.cartservice.model.CartItem;
-import com.ecomerce.cartservice.repository.CartItemRepository;
 import com.ecomerce.cartservice.repository.CartRepository;
+import com.ecomerce.cartservice.saga.CheckoutSaga;
+import com.ecomerce.cartservice.saga.CheckoutSagaCoordinator;
+import com.ecomerce.cartservice.saga.CheckoutSagaStatus;
 import com.ecomerce.cartservice.service.CartService;
 import com.ecomerce.cartservice.service.KafkaProducerService;
+import com.ecomerce.cartservice.store.CartLine;
+import com.ecomerce.cartservice.store.CartSnapshot;
+import com.ecomerce.cartservice.store.CartWriteBehindFlusher;
+import com.ecomerce.cartservice.store.RedisCartStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Cart của user được đọc/ghi qua {@link RedisCartStore} (Redis hash + write-behind xuống MySQL)
+ * => các thao tác giỏ hàng không mở transaction/connection DB.
+ * ID của cart item trả về cho client chính là productId (mỗi sản phẩm chỉ có 1 dòng trong cart).
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class CartServiceImpl implements CartService {
 
     private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
+    private final RedisCartStore cartStore;
+    private final CartWriteBehindFlusher cartWriteBehindFlusher;
     private final ProductServiceClient productServiceClient;
     private final InventoryServiceClient inventoryServiceClient;
     private final OrderServiceClient orderServiceClient;
     private final PaymentServiceClient paymentServiceClient;
     private final KafkaProducerService kafkaProducerService;
+    private final ExecutorService checkoutExecutor;
+    private final CheckoutSagaCoordinator checkoutSagaCoordinator;
 
-    /**
-     * Tìm hoặc tạo cart mới cho user
-     */
-    private Cart getOrCreateCart(Long userId) {
-        return cartRepository.findByUserIdAndIsActiveTrueWithItems(userId)
-                .orElseGet(() -> {
-                    log.info("Creating new cart for user: {}", userId);
-                    Cart newCart = Cart.builder()
-                            .userId(userId)
-                            .isActive(true)
-                            .build();
-                    return cartRepository.save(newCart);
-                });
-    }
+    @Value("${checkout.validation.timeout:3s}")
+    private Duration validationTimeout;
 
     /**
      * Kiểm tra số lượng hàng có sẵn trong kho
@@ -73,192 +90,176 @@ public class CartServiceImpl implements CartService {
      * @throws IllegalStateException nếu không đủ hàng
      */
     private void validateInventoryAvailability(Long productId, Integer requestedQuantity) {
+        InventoryResponse inventory;
         try {
-            InventoryResponse inventory = inventoryServiceClient.getInventoryByProductId(productId);
-            
-            // Nếu inventory service down (circuit breaker), cho phép add to cart
-            // Business decision: ưu tiên UX, sẽ validate lại khi checkout
-            if (inventory == null) {
-                log.warn("⚠️ Inventory service unavailable for productId: {}. Allowing add to cart, will validate at checkout.", productId);
-                return;
-            }
-            
-            // Kiểm tra inventory có active không
-            if (inventory.getIsActive() == null || !inventory.getIsActive()) {
-                throw new IllegalStateException("Sản phẩm này hiện không có trong kho");
-            }
-            
-            // Kiểm tra số lượng có đủ không
-            Integer availableQuantity = inventory.getAvailableQuantity();
-            if (availableQuantity == null || availableQuantity < requestedQuantity) {
-                throw new IllegalStateException(
-                    String.format("Không đủ hàng trong kho. Số lượng có sẵn: %d, số lượng yêu cầu: %d", 
-                        availableQuantity != null ? availableQuantity : 0, requestedQuantity)
-                );
-            }
-            
-            log.debug("✅ Inventory check passed - ProductId: {}, Available: {}, Requested: {}", 
-                    productId, availableQuantity, requestedQuantity);
-        } catch (IllegalStateException e) {
-            // Re-throw business exceptions
-            throw e;
+            inventory = inventoryServiceClient.getInventoryByProductId(productId);
         } catch (Exception e) {
             // Nếu có lỗi khác (network, timeout, etc.), log và cho phép add to cart
             // Sẽ validate lại khi checkout
             log.warn("⚠️ Error checking inventory for productId: {}. Error: {}. Allowing add to cart, will validate at checkout.", 
                     productId, e.getMessage());
+            return;
         }
+        validateInventory(productId, requestedQuantity, inventory);
+    }
+
+    /**
+     * Kiểm tra response của inventory-service đã lấy sẵn
+     * @throws IllegalStateException nếu không đủ hàng
+     */
+    private void validateInventory(Long productId, Integer requestedQuantity, InventoryResponse inventory) {
+        // Nếu inventory service down (circuit breaker), cho phép add to cart
+        // Business decision: ưu tiên UX, sẽ validate lại khi checkout
+        if (inventory == null) {
+            log.warn("⚠️ Inventory service unavailable for productId: {}. Allowing add to cart, will validate at checkout.", productId);
+            return;
+        }
+        
+        // Kiểm tra inventory có active không
+        if (inventory.getIsActive() == null || !inventory.getIsActive()) {
+            throw new IllegalStateException("Sản phẩm này hiện không có trong kho");
+        }
+        
+        // Kiểm tra số lượng có đủ không
+        Integer availableQuantity = inventory.getAvailableQuantity();
+        if (availableQuantity == null || availableQuantity < requestedQuantity) {
+            throw new IllegalStateException(
+                String.format("Không đủ hàng trong kho. Số lượng có sẵn: %d, số lượng yêu cầu: %d", 
+                    availableQuantity != null ? availableQuantity : 0, requestedQuantity)
+            );
+        }
+        
+        log.debug("✅ Inventory check passed - ProductId: {}, Available: {}, Requested: {}", 
+                productId, availableQuantity, requestedQuantity);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public CartResponse getCartByUserId(Long userId) {
-        Cart cart = getOrCreateCart(userId);
-        return mapToCartResponse(cart);
+        // User chưa có cart => trả về cart rỗng virtual, không insert row
+        return mapToCartResponse(cartStore.getCart(userId));
     }
 
     @Override
     public CartResponse addItemToCart(Long userId, CartItemRequest request) {
-        Cart cart = getOrCreateCart(userId);
-
-        // Check if item already exists
-        cartItemRepository.findByCartIdAndProductId(cart.getId(), request.getProductId())
-                .ifPresentOrElse(
-                        existingItem -> {
-                            // Tính tổng số lượng sau khi cập nhật
-                            Integer newQuantity = existingItem.getQuantity() + request.getQuantity();
-                            
-                            // Kiểm tra inventory availability
-                            validateInventoryAvailability(request.getProductId(), newQuantity);
-                            
-                            // Update quantity
-                            existingItem.setQuantity(newQuantity);
-                            cartItemRepository.save(existingItem);
-                            log.info("Updated cart item quantity for product: {} to {}", 
-                                    request.getProductId(), newQuantity);
-                        },
-                        () -> {
-                            // Create new item - Get product info from product-service via Feign Client
-                            ProductDetailResponse product = productServiceClient.getProductById(request.getProductId());
-                            
-                            if (product == null) {
-                                throw new ResourceNotFoundException("Không tìm thấy sản phẩm với ID: " + request.getProductId());
-                            }
-                            
-                            // Log product details for debugging
-                            log.debug("Product details from product-service - ID: {}, Name: {}, Active: {}", 
-                                    product.getId(), product.getName(), product.isActive());
-                            
-                            if (!product.isActive()) {
-                                log.warn("⚠️ Attempted to add inactive product to cart - Product ID: {}, User ID: {}", 
-                                        request.getProductId(), userId);
-                                throw new IllegalStateException("Sản phẩm này không còn hoạt động");
-                            }
-                            
-                            // Kiểm tra inventory availability trước khi thêm vào cart
-                            validateInventoryAvailability(request.getProductId(), request.getQuantity());
-                            
-                            // Sử dụng giá discount nếu có, ngược lại dùng giá gốc
-                            BigDecimal productPrice = product.getDiscountPrice() != null 
-                                    ? product.getDiscountPrice() 
-                                    : product.getPrice();
-                            
-                            CartItem newItem = CartItem.builder()
-                                    .cart(cart)
-                                    .productId(product.getId())
-                                    .productName(product.getName())
-                                    .productImage(product.getThumbnail())
-                                    .price(productPrice)
-                                    .quantity(request.getQuantity())
-                                    .build();
-                            cartItemRepository.save(newItem);
-                            cart.addItem(newItem);
-                            log.info("✅ Added new cart item for product: {} ({}), price: {}", 
-                                    product.getId(), product.getName(), productPrice);
-                            
-                            // Publish event to Kafka for notification
-                            CartItemAddedEvent event = CartItemAddedEvent.builder()
-                                    .userId(userId)
-                                    .cartId(cart.getId())
-                                    .cartItemId(newItem.getId())
-                                    .productId(product.getId())
-                                    .productName(product.getName())
-                                    .productPrice(productPrice)
-                                    .quantity(newItem.getQuantity())
-                                    .timestamp(Instant.now())
-                                    .build();
-                            kafkaProducerService.publishCartItemAddedEvent(event);
-                        }
-                );
+        CartLine existingLine = cartStore.getLine(userId, request.getProductId()).orElse(null);
 
-        cart.calculateTotal();
-        cartRepository.save(cart);
+        if (existingLine != null) {
+            // Tính tổng số lượng sau khi cập nhật
+            Integer newQuantity = existingLine.getQuantity() + request.getQuantity();
 
-        return mapToCartResponse(cart);
-    }
+            // Kiểm tra inventory availability
+            validateInventoryAvailability(request.getProductId(), newQuantity);
 
-    @Override
-    public CartResponse updateCartItem(Long userId, Long itemId, CartItemUpdateRequest request) {
-        Cart cart = cartRepository.findByUserIdAndIsActiveTrueWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy giỏ hàng của user"));
+            // Tăng số lượng atomic (giữ giá lúc thêm vào cart)
+            int quantity = cartStore.addQuantity(userId, existingLine, request.getQuantity());
+            log.info("Updated cart item quantity for product: {} to {}", request.getProductId(), quantity);
+        } else {
+            // Create new item - Get product info from product-service via Feign Client
+            ProductDetailResponse product = productServiceClient.getProductById(request.getProductId());
 
-        CartItem item = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm trong giỏ hàng"));
+            if (product == null) {
+                throw new ResourceNotFoundException("Không tìm thấy sản phẩm với ID: " + request.getProductId());
+            }
 
-        if (!item.getCart().getId().equals(cart.getId())) {
-            throw new ResourceNotFoundException("Sản phẩm không thuộc giỏ hàng của bạn");
-        }
+            // Log product details for debugging
+            log.debug("Product details from product-service - ID: {}, Name: {}, Active: {}", 
+                    product.getId(), product.getName(), product.isActive());
 
-        // Kiểm tra inventory availability trước khi cập nhật
-        validateInventoryAvailability(item.getProductId(), request.getQuantity());
+            if (!product.isActive()) {
+                log.warn("⚠️ Attempted to add inactive product to cart - Product ID: {}, User ID: {}", 
+                        request.getProductId(), userId);
+                throw new IllegalStateException("Sản phẩm này không còn hoạt động");
+            }
 
-        item.setQuantity(request.getQuantity());
-        cartItemRepository.save(item);
+            // Kiểm tra inventory availability trước khi thêm vào cart
+            validateInventoryAvailability(request.getProductId(), request.getQuantity());
 
-        cart.calculateTotal();
-        cartRepository.save(cart);
+            // Sử dụng giá discount nếu có, ngược lại dùng giá gốc
+            BigDecimal productPrice = product.getDiscountPrice() != null 
+                    ? product.getDiscountPrice() 
+                    : product.getPrice();
+
+            CartLine newLine = CartLine.builder()
+                    .productId(product.getId())
+                    .productName(product.getName())
+                    .productImage(product.getThumbnail())
+                    .price(productPrice)
+                    .addedAt(Instant.now())
+                    .build();
+            int quantity = cartStore.addQuantity(userId, newLine, request.getQuantity());
+            log.info("✅ Added new cart item for product: {} ({}), price: {}", 
+                    product.getId(), product.getName(), productPrice);
+
+            CartSnapshot cart = cartStore.getCart(userId);
+
+            // Publish event to Kafka for notification (cartId null nếu cart chưa được flush xuống DB)
+            CartItemAddedEvent event = CartItemAddedEvent.builder()
+                    .userId(userId)
+                    .cartId(cart.getCartId())
+                    .cartItemId(product.getId())
+                    .productId(product.getId())
+                    .productName(product.getName())
+                    .productPrice(productPrice)
+                    .quantity(quantity)
+                    .timestamp(Instant.now())
+                    .build();
+            kafkaProducerService.publishCartItemAddedEvent(event);
+            return mapToCartResponse(cart);
+        }
 
-        return mapToCartResponse(cart);
+        return mapToCartResponse(cartStore.getCart(userId));
     }
 
     @Override
-    public CartResponse removeItemFromCart(Long userId, Long itemId) {
-        Cart cart = cartRepository.findByUserIdAndIsActiveTrueWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy giỏ hàng của user"));
-
-        CartItem item = cartItemRepository.findById(itemId)
+    public CartResponse updateCartItem(Long userId, Long itemId, CartItemUpdateRequest request) {
+        CartLine line = cartStore.getLine(userId, itemId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm trong giỏ hàng"));
 
-        if (!item.getCart().getId().equals(cart.getId())) {
-            throw new ResourceNotFoundException("Sản phẩm không thuộc giỏ hàng của bạn");
+        // Kiểm tra inventory availability trước khi cập nhật
+        validateInventoryAvailability(line.getProductId(), request.getQuantity());
+
+        if (!cartStore.setQuantity(userId, itemId, request.getQuantity())) {
+            throw new ResourceNotFoundException("Không tìm thấy sản phẩm trong giỏ hàng");
         }
 
-        cart.removeItem(item);
-        cartItemRepository.delete(item);
-        cartRepository.save(cart);
+        return mapToCartResponse(cartStore.getCart(userId));
+    }
+
+    @Override
+    public CartResponse removeItemFromCart(Long userId, Long itemId) {
+        if (cartStore.removeLines(userId, List.of(itemId)) == 0) {
+            throw new ResourceNotFoundException("Không tìm thấy sản phẩm trong giỏ hàng");
+        }
 
-        return mapToCartResponse(cart);
+        return mapToCartResponse(cartStore.getCart(userId));
     }
 
     @Override
     public CartResponse clearCart(Long userId) {
-        Cart cart = cartRepository.findByUserIdAndIsActiveTrueWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy giỏ hàng của user"));
+        cartStore.clear(userId);
 
-        cart.clear();
-        cartItemRepository.deleteByCartId(cart.getId());
-        cartRepository.save(cart);
-
-        return mapToCartResponse(cart);
+        return mapToCartResponse(cartStore.getCart(userId));
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deleteCart(Long userId) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy giỏ hàng của user"));
+        // Cart có thể chỉ nằm trong Redis (chưa flush / cart rỗng virtual) => kiểm tra Redis trước
+        boolean cached = cartStore.isCached(userId);
+
+        // Ghi nốt thay đổi đang chờ trước khi deactivate row trong DB
+        // Không giữ transaction: flush có thể chờ flush lock tới lock-wait, deactivate là transaction ngắn của save()
+        cartWriteBehindFlusher.flush(userId);
 
-        cart.setIsActive(false);
-        cartRepository.save(cart);
+        Optional<Cart> cart = cartRepository.findByUserIdAndIsActiveTrue(userId);
+        if (cart.isEmpty() && !cached) {
+            throw new ResourceNotFoundException("Không tìm thấy giỏ hàng của user");
+        }
+        cart.ifPresent(existing -> {
+            existing.setIsActive(false);
+            cartRepository.save(existing);
+        });
+        cartStore.evict(userId);
     }
 
     @Override
@@ -280,50 +281,23 @@ public class CartServiceImpl implements CartService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public CartItemResponse getCartItemById(Long userId, Long itemId) {
-        CartItem item = cartItemRepository.findByIdAndCartUserId(itemId, userId)
+        CartLine line = cartStore.getLine(userId, itemId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm trong giỏ hàng với ID: " + itemId));
         
-        return mapToCartItemResponse(item);
+        return mapToCartItemResponse(line);
     }
 
     @Override
-    public CheckoutResponse checkout(Long userId, CheckoutRequest request) {
-        Cart cart = cartRepository.findByUserIdAndIsActiveTrueWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy giỏ hàng của user"));
-
-        // Validate và lấy cart items
-        List<CartItem> itemsToCheckout = new java.util.ArrayList<>();
-        for (Long itemId : request.getItemIds()) {
-            CartItem item = cartItemRepository.findByIdAndCartUserId(itemId, userId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm trong giỏ hàng với ID: " + itemId));
-            
-            // Validate với product-service
-            ProductDetailResponse product = productServiceClient.getProductById(item.getProductId());
-            
-            if (product == null) {
-                throw new ResourceNotFoundException("Không tìm thấy sản phẩm với ID: " + item.getProductId());
-            }
-            
-            if (!product.isActive()) {
-                throw new IllegalStateException("Sản phẩm '" + product.getName() + "' không còn hoạt động");
-            }
-            
-            // Kiểm tra giá có thay đổi không
-            BigDecimal currentPrice = product.getDiscountPrice() != null 
-                    ? product.getDiscountPrice() 
-                    : product.getPrice();
-            
-            if (item.getPrice().compareTo(currentPrice) != 0) {
-                throw new IllegalStateException(
-                    String.format("Giá sản phẩm '%s' đã thay đổi từ %s thành %s. Vui lòng cập nhật giỏ hàng.",
-                        product.getName(), item.getPrice(), currentPrice)
-                );
-            }
-            
-            itemsToCheckout.add(item);
-        }
+    public CheckoutResponse checkout(Long userId, CheckoutRequest request, String idempotencyKey) {
+        // Key gửi kèm các lời gọi order/payment: giữ nguyên qua các lần Retry của Feign => không tạo trùng đơn/thanh toán
+        String downstreamKey = idempotencyKey != null && !idempotencyKey.isBlank()
+                ? idempotencyKey
+                : UUID.randomUUID().toString();
+
+        // Validate và lấy cart items (1 lần đọc Redis cho cả cart)
+        List<CartLine> itemsToCheckout = selectCheckoutLines(userId, request.getItemIds());
+        validateCheckoutLines(userId, itemsToCheckout);
 
         // Tạo OrderCreateRequest từ cart items (gửi kèm thông tin sản phẩm đã validate)
         List<OrderCreateRequest.OrderItemRequest> orderItems = itemsToCheckout.stream()
@@ -346,7 +320,7 @@ public class CartServiceImpl implements CartService {
         // Gọi order-service để tạo đơn hàng
         OrderResponse orderResponse;
         try {
-            orderResponse = orderServiceClient.createOrder(orderRequest);
+            orderResponse = orderServiceClient.createOrder(downstreamKey, orderRequest);
             
             if (orderResponse == null) {
                 log.error("❌ Order-service trả về null response");
@@ -374,7 +348,7 @@ public class CartServiceImpl implements CartService {
                                 "Thanh toan don hang #" + orderResponse.getOrderNumber()
                         );
                 
-                paymentResponse = paymentServiceClient.createPayment(paymentRequest);
+                paymentResponse = paymentServiceClient.createPayment(downstreamKey, paymentRequest);
                 log.info("✅ Created payment: {} for order: {} with method: {}", 
                         paymentResponse.getPaymentId(), orderResponse.getId(), request.getPaymentMethod());
             } catch (Exception e) {
@@ -384,17 +358,11 @@ public class CartServiceImpl implements CartService {
             }
         }
 
-        // Xóa các cart items đã checkout
-        List<Long> removedItemIds = new java.util.ArrayList<>();
-        for (CartItem item : itemsToCheckout) {
-            cart.removeItem(item);
-            cartItemRepository.delete(item);
-            removedItemIds.add(item.getId());
-        }
-
-        // Recalculate cart total
-        cart.calculateTotal();
-        cartRepository.save(cart);
+        // Xóa các cart items đã checkout (1 script Redis, DB được cập nhật bởi write-behind)
+        List<Long> removedItemIds = itemsToCheckout.stream()
+                .map(CartLine::getProductId)
+                .collect(Collectors.toList());
+        cartStore.removeLines(userId, removedItemIds);
 
         log.info("✅ Removed {} items from cart after checkout", removedItemIds.size());
 
@@ -405,6 +373,171 @@ public class CartServiceImpl implements CartService {
                 .build();
     }
 
+    @Override
+    public CheckoutStatusResponse startCheckout(Long userId, CheckoutRequest request, String clientIp) {
+        // Chỉ đọc Redis trên request thread; validate qua product/inventory-service chạy trên virtual thread
+        List<CartLine> itemsToCheckout = selectCheckoutLines(userId, request.getItemIds());
+        CheckoutSaga saga = checkoutSagaCoordinator.start(userId, request, clientIp);
+
+        checkoutExecutor.execute(() -> {
+            try {
+                validateCheckoutLines(userId, itemsToCheckout);
+                checkoutSagaCoordinator.requestOrder(saga, request, itemsToCheckout);
+            } catch (Exception e) {
+                checkoutSagaCoordinator.fail(saga.getCheckoutId(), e.getMessage());
+            }
+        });
+
+        return mapToCheckoutStatusResponse(saga);
+    }
+
+    @Override
+    public CheckoutStatusResponse getCheckoutStatus(Long userId, String checkoutId) {
+        CheckoutSaga saga = checkoutSagaCoordinator.find(checkoutId)
+                .filter(found -> found.getUserId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy checkout với ID: " + checkoutId));
+        return mapToCheckoutStatusResponse(saga);
+    }
+
+    /**
+     * Lấy các dòng cần checkout từ cart trong Redis (theo thứ tự request, bỏ trùng)
+     */
+    private List<CartLine> selectCheckoutLines(Long userId, List<Long> itemIds) {
+        Map<Long, CartLine> cartLines = cartStore.getCart(userId).getItems().stream()
+                .collect(Collectors.toMap(CartLine::getProductId, Function.identity()));
+        List<CartLine> itemsToCheckout = new ArrayList<>();
+        for (Long itemId : new LinkedHashSet<>(itemIds)) {
+            CartLine item = cartLines.get(itemId);
+            if (item == null) {
+                throw new ResourceNotFoundException("Không tìm thấy sản phẩm trong giỏ hàng với ID: " + itemId);
+            }
+            itemsToCheckout.add(item);
+        }
+        return itemsToCheckout;
+    }
+
+    /**
+     * Kiểm tra sản phẩm còn bán, giá không đổi và đủ hàng trong kho
+     */
+    private void validateCheckoutLines(Long userId, List<CartLine> itemsToCheckout) {
+        // Validate song song: 1 request batch tới product-service + kiểm tra kho từng sản phẩm trên virtual thread
+        // => thời gian chờ ~ lời gọi chậm nhất thay vì tổng các lời gọi
+        List<Long> productIds = itemsToCheckout.stream()
+                .map(CartLine::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        CompletableFuture<List<ProductDetailResponse>> productsFuture = CompletableFuture.supplyAsync(
+                () -> productServiceClient.getProductsByIds(productIds), checkoutExecutor);
+        Map<Long, CompletableFuture<InventoryResponse>> inventoryFutures = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            inventoryFutures.put(productId, CompletableFuture
+                    .supplyAsync(() -> inventoryServiceClient.getInventoryByProductId(productId), checkoutExecutor)
+                    // Inventory chậm/lỗi => bỏ qua pre-check, inventory-service sẽ kiểm tra lại khi reserve hàng
+                    .completeOnTimeout(null, validationTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .exceptionally(e -> {
+                        log.warn("⚠️ Error checking inventory for productId: {} at checkout: {}", productId, e.getMessage());
+                        return null;
+                    }));
+        }
+
+        List<ProductDetailResponse> products;
+        try {
+            products = productsFuture.get(validationTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            productsFuture.cancel(true);
+            log.warn("⚠️ Product validation timed out after {} for user: {}", validationTimeout, userId);
+            throw new IllegalStateException("Không thể kiểm tra thông tin sản phẩm. Vui lòng thử lại sau.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Không thể kiểm tra thông tin sản phẩm. Vui lòng thử lại sau.");
+        } catch (ExecutionException e) {
+            log.warn("⚠️ Product validation failed for user: {}: {}", userId, e.getCause().getMessage());
+            throw new IllegalStateException("Không thể kiểm tra thông tin sản phẩm. Vui lòng thử lại sau.");
+        }
+        if (products == null) {
+            throw new IllegalStateException("Không thể kiểm tra thông tin sản phẩm. Vui lòng thử lại sau.");
+        }
+        Map<Long, ProductDetailResponse> productsById = products.stream()
+                .collect(Collectors.toMap(ProductDetailResponse::getId, Function.identity(), (a, b) -> a));
+
+        for (CartLine item : itemsToCheckout) {
+            ProductDetailResponse product = productsById.get(item.getProductId());
+
+            // Batch endpoint chỉ trả về sản phẩm active
+            if (product == null) {
+                throw new IllegalStateException(
+                    String.format("Sản phẩm '%s' không tồn tại hoặc không còn hoạt động", item.getProductName())
+                );
+            }
+            
+            if (!product.isActive()) {
+                throw new IllegalStateException("Sản phẩm '" + product.getName() + "' không còn hoạt động");
+            }
+            
+            // Kiểm tra giá có thay đổi không
+            BigDecimal currentPrice = product.getDiscountPrice() != null 
+                    ? product.getDiscountPrice() 
+                    : product.getPrice();
+            
+            if (item.getPrice().compareTo(currentPrice) != 0) {
+                throw new IllegalStateException(
+                    String.format("Giá sản phẩm '%s' đã thay đổi từ %s thành %s. Vui lòng cập nhật giỏ hàng.",
+                        product.getName(), item.getPrice(), currentPrice)
+                );
+            }
+        }
+
+        // Kiểm tra kho (các future đã chạy song song với validate sản phẩm, luôn hoàn thành trước deadline)
+        for (CartLine item : itemsToCheckout) {
+            validateInventory(item.getProductId(), item.getQuantity(), inventoryFutures.get(item.getProductId()).join());
+        }
+    }
+
+    private CheckoutStatusResponse mapToCheckoutStatusResponse(CheckoutSaga saga) {
+        return CheckoutStatusResponse.builder()
+                .checkoutId(saga.getCheckoutId())
+                .status(saga.getStatus())
+                .orderId(saga.getOrderId())
+                .orderNumber(saga.getOrderNumber())
+                .totalAmount(saga.getTotalAmount())
+                .payment(saga.getPayment())
+                .removedItemIds(saga.getStatus() == CheckoutSagaStatus.COMPLETED ? saga.getItemIds() : null)
+                .failureReason(saga.getFailureReason())
+                .createdAt(saga.getCreatedAt())
+                .updatedAt(saga.getUpdatedAt())
+                .build();
+    }
+
+    private CartResponse mapToCartResponse(CartSnapshot cart) {
+        List<CartItemResponse> itemResponses = cart.getItems().stream()
+                .map(this::mapToCartItemResponse)
+                .collect(Collectors.toList());
+
+        return CartResponse.builder()
+                .id(cart.getCartId())
+                .userId(cart.getUserId())
+                .items(itemResponses)
+                .totalAmount(cart.getTotalAmount())
+                .totalItems(cart.getItems().size())
+                .isActive(true)
+                .createdAt(cart.getCreatedAt())
+                .updatedAt(cart.getUpdatedAt())
+                .build();
+    }
+
+    private CartItemResponse mapToCartItemResponse(CartLine line) {
+        return CartItemResponse.builder()
+                .id(line.getProductId())
+                .productId(line.getProductId())
+                .productName(line.getProductName())
+                .productImage(line.getProductImage())
+                .price(line.getPrice())
+                .quantity(line.getQuantity())
+                .subtotal(line.getSubtotal())
+                .createdAt(line.getAddedAt())
+                .build();
+    }
+
     private CartResponse mapToCartResponse(Cart cart) {
         List<CartItemResponse> itemResponses = cart.getItems().stream()
                 .map(this::mapToCartItemResponse)
@@ -423,8 +556,9 @@ public class CartServiceImpl implements CartService {
     }
 
     private CartItemResponse mapToCartItemResponse(CartItem item) {
+        // Cùng quy ước với API của user: ID của cart item là productId (không phải ID row DB)
         return CartItemResponse.builder()
-                .id(item.getId())
+                .id(item.getProductId())
                 .productId(item.getProductId())
                 .productName(item.getProductName())
                 .productImage(item.getProductImage())
@@ -436,4 +570,3 @@ public class CartServiceImpl implements CartService {
                 .build();
     }
 }
-
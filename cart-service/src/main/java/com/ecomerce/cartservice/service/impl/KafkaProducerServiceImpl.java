@@ -1,6 +1,10 @@
 package com.ecomerce.cartservice.service.impl;
 
+import com.ecomerce.cartservice.event.CancelOrderCommand;
+import com.ecomerce.cartservice.event.CancelPaymentCommand;
 import com.ecomerce.cartservice.event.CartItemAddedEvent;
+import com.ecomerce.cartservice.event.CreateOrderCommand;
+import com.ecomerce.cartservice.event.CreatePaymentCommand;
 import com.ecomerce.cartservice.service.KafkaProducerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +13,9 @@ import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
@@ -16,13 +23,18 @@ import java.util.concurrent.CompletableFuture;
 public class KafkaProducerServiceImpl implements KafkaProducerService {
 
     private static final String CART_ITEM_ADDED_TOPIC = "cart-item-added";
+    private static final String ORDER_CREATE_COMMAND_TOPIC = "order-create-command";
+    private static final String ORDER_CANCEL_COMMAND_TOPIC = "order-cancel-command";
+    private static final String PAYMENT_CREATE_COMMAND_TOPIC = "payment-create-command";
+    private static final String PAYMENT_CANCEL_COMMAND_TOPIC = "payment-cancel-command";
+    private static final long COMMAND_SEND_TIMEOUT_SECONDS = 10;
 
-    private final KafkaTemplate<String, CartItemAddedEvent> kafkaTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
 
     @Override
     public void publishCartItemAddedEvent(CartItemAddedEvent event) {
         try {
-            CompletableFuture<SendResult<String, CartItemAddedEvent>> future = 
+            CompletableFuture<SendResult<String, Object>> future = 
                     kafkaTemplate.send(CART_ITEM_ADDED_TOPIC, event);
 
             future.whenComplete((result, exception) -> {
@@ -38,5 +50,40 @@ public class KafkaProducerServiceImpl implements KafkaProducerService {
             log.error("❌ Error publishing CartItemAddedEvent: {}", e.getMessage(), e);
         }
     }
-}
 
+    @Override
+    public void publishCreateOrderCommand(CreateOrderCommand command) {
+        sendCommand(ORDER_CREATE_COMMAND_TOPIC, command.getCheckoutId(), command);
+    }
+
+    @Override
+    public void publishCancelOrderCommand(CancelOrderCommand command) {
+        sendCommand(ORDER_CANCEL_COMMAND_TOPIC, command.getCheckoutId(), command);
+    }
+
+    @Override
+    public void publishCreatePaymentCommand(CreatePaymentCommand command) {
+        sendCommand(PAYMENT_CREATE_COMMAND_TOPIC, command.getCheckoutId(), command);
+    }
+
+    @Override
+    public void publishCancelPaymentCommand(CancelPaymentCommand command) {
+        sendCommand(PAYMENT_CANCEL_COMMAND_TOPIC, command.getCheckoutId(), command);
+    }
+
+    /**
+     * Key = checkoutId => mọi command của 1 saga vào cùng partition (giữ thứ tự)
+     */
+    private void sendCommand(String topic, String checkoutId, Object command) {
+        try {
+            kafkaTemplate.send(topic, checkoutId, command).get(COMMAND_SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info("✅ Published {} to topic '{}' for checkout: {}", command.getClass().getSimpleName(), topic, checkoutId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing " + command.getClass().getSimpleName(), e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish " + command.getClass().getSimpleName()
+                    + " for checkout: " + checkoutId, e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecomerce.cartservice.store;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Đảm bảo bảng cart_items có unique key (cart_id, product_id) trước khi write-behind chạy
+ * - UPSERT_ITEM_SQL của {@link CartWriteBehindFlusher} dựa vào key này: thiếu key => mỗi lần flush INSERT thêm 1 dòng
+ *   và {@link RedisCartStore} cộng dồn các dòng trùng khi load lại cart
+ * - ddl-auto=update không thêm được constraint khi bảng cũ đã có dòng trùng => tự dedupe rồi ALTER TABLE:
+ *   dòng id lớn nhất nhận tổng quantity của nhóm (giống cách {@link RedisCartStore} cộng dồn khi load), sau đó xóa
+ *   các dòng còn lại; UPDATE + DELETE trong cùng transaction để không mất số lượng nếu lỗi giữa chừng
+ * - Không tạo được key => ném lỗi để service không khởi động (fail fast) thay vì ghi trùng
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class CartItemUniqueKeyMigration implements InitializingBean {
+
+    static final String UNIQUE_KEY_NAME = "uk_cart_item_cart_product";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String COUNT_UNIQUE_KEY_SQL =
+            "SELECT COUNT(*) FROM information_schema.statistics " +
+            "WHERE table_schema = DATABASE() AND table_name = 'cart_items' AND index_name = ? AND non_unique = 0";
+    // Dồn quantity của các dòng trùng (cart_id, product_id) vào dòng có id lớn nhất
+    private static final String MERGE_DUPLICATE_QUANTITIES_SQL =
+            "UPDATE cart_items kept JOIN (" +
+            "SELECT MAX(id) AS kept_id, SUM(quantity) AS total_quantity FROM cart_items " +
+            "GROUP BY cart_id, product_id HAVING COUNT(*) > 1) duplicates ON kept.id = duplicates.kept_id " +
+            "SET kept.quantity = duplicates.total_quantity, kept.subtotal = kept.price * duplicates.total_quantity";
+    // Xóa các dòng trùng (cart_id, product_id), chỉ giữ dòng có id lớn nhất (đã nhận tổng quantity)
+    private static final String DELETE_DUPLICATES_SQL =
+            "DELETE duplicate FROM cart_items duplicate " +
+            "JOIN cart_items newer ON newer.cart_id = duplicate.cart_id " +
+            "AND newer.product_id = duplicate.product_id AND newer.id > duplicate.id";
+    private static final String ADD_UNIQUE_KEY_SQL =
+            "ALTER TABLE cart_items ADD CONSTRAINT " + UNIQUE_KEY_NAME + " UNIQUE (cart_id, product_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        for (int attempt = 1; !hasUniqueKey(); attempt++) {
+            try {
+                Integer removed = transactionTemplate.execute(status -> {
+                    jdbcTemplate.update(MERGE_DUPLICATE_QUANTITIES_SQL);
+                    return jdbcTemplate.update(DELETE_DUPLICATES_SQL);
+                });
+                if (removed != null && removed > 0) {
+                    log.warn("⚠️ Merged {} duplicate cart_items rows before adding {}", removed, UNIQUE_KEY_NAME);
+                }
+                // ALTER TABLE tự commit (DDL) nên chạy sau khi transaction dedupe đã commit
+                jdbcTemplate.execute(ADD_UNIQUE_KEY_SQL);
+                log.info("✅ Added unique key {} on cart_items(cart_id, product_id)", UNIQUE_KEY_NAME);
+                return;
+            } catch (DataAccessException e) {
+                // Instance khác vừa thêm key, hoặc có dòng trùng mới chen vào giữa DELETE và ALTER => kiểm tra / thử lại
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new IllegalStateException(
+                            "Không thể tạo unique key " + UNIQUE_KEY_NAME + " cho cart_items: " + e.getMessage(), e);
+                }
+                log.warn("⚠️ Adding {} failed (attempt {}/{}): {}", UNIQUE_KEY_NAME, attempt, MAX_ATTEMPTS, e.getMessage());
+            }
+        }
+    }
+
+    private boolean hasUniqueKey() {
+        Integer count = jdbcTemplate.queryForObject(COUNT_UNIQUE_KEY_SQL, Integer.class, UNIQUE_KEY_NAME);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecomerce.cartservice.store;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * 1 dòng sản phẩm trong cart lưu ở Redis (mỗi sản phẩm chỉ có 1 dòng => productId là ID của dòng)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLine {
+    private Long productId;
+    private String productName;
+    private String productImage;
+    private BigDecimal price;
+    private Integer quantity;
+    private Instant addedAt;
+
+    public BigDecimal getSubtotal() {
+        return price.multiply(BigDecimal.valueOf(quantity));
+    }
+}
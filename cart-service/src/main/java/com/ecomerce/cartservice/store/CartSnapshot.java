@@ -0,0 +1,27 @@
+package com.ecomerce.cartservice.store;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Trạng thái cart đọc từ Redis
+ * cartId = null nghĩa là cart chưa có row trong DB (cart rỗng virtual hoặc chưa được flush)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSnapshot {
+    private Long cartId;
+    private Long userId;
+    private List<CartLine> items;
+    private BigDecimal totalAmount;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,260 @@
+package com.ecomerce.cartservice.store;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Write-behind: ghi các cart đã thay đổi trong Redis xuống bảng carts/cart_items theo JDBC batch
+ * - Mỗi lần ghi cart, {@link RedisCartStore} thêm userId vào set "cart:dirty"
+ * - Flusher SPOP theo batch, đọc snapshot mới nhất (pipeline) và ghi trong 1 transaction
+ * - Dòng sản phẩm được upsert theo unique key (cart_id, product_id) (đảm bảo bởi {@link CartItemUniqueKeyMigration}),
+ *   dòng đã bị xóa khỏi cart bị DELETE 1 lần cho cả batch
+ * - Lỗi => trả userId về dirty set để lần sau ghi lại
+ * - Chỉ 1 instance flush tại 1 thời điểm (Redis lock) để snapshot cũ không ghi đè snapshot mới
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartWriteBehindFlusher {
+
+    private static final String FLUSH_LOCK_KEY = "cart:flush-lock";
+    private static final long LOCK_POLL_INTERVAL_MS = 20;
+
+    private static final String SELECT_ACTIVE_CART_SQL =
+            "SELECT id FROM carts WHERE user_id = ? AND is_active = true ORDER BY id LIMIT 1";
+    private static final String INSERT_CART_SQL =
+            "INSERT INTO carts (user_id, total_amount, is_active, created_at, updated_at) VALUES (?, ?, true, ?, ?)";
+    private static final String UPDATE_CART_SQL =
+            "UPDATE carts SET total_amount = ?, updated_at = ? WHERE id = ?";
+    // Upsert theo unique key (cart_id, product_id): dòng đã có chỉ cập nhật số lượng, giữ nguyên id/created_at
+    private static final String UPSERT_ITEM_SQL =
+            "INSERT INTO cart_items (cart_id, product_id, product_name, product_image, price, quantity, subtotal, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), subtotal = VALUES(subtotal), updated_at = VALUES(updated_at)";
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final RedisCartStore cartStore;
+    private final StringRedisTemplate redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${cart.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${cart.write-behind.lock-ttl:30s}")
+    private Duration lockTtl;
+
+    @Value("${cart.write-behind.lock-wait:5s}")
+    private Duration lockWait;
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:500}")
+    public void flushDirtyCarts() {
+        if (!tryLock()) {
+            return;
+        }
+        try {
+            List<String> userIds;
+            do {
+                userIds = redisTemplate.opsForSet().pop(RedisCartStore.DIRTY_SET_KEY, batchSize);
+                if (userIds != null && !userIds.isEmpty()) {
+                    flushBatch(userIds);
+                }
+            } while (userIds != null && userIds.size() == batchSize);
+        } catch (Exception e) {
+            log.error("❌ Cart write-behind error: {}", e.getMessage(), e);
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Ghi ngay cart của 1 user (vd: trước khi deactivate cart)
+     * Giữ cùng flush lock với flusher định kỳ: chờ batch đang chạy (có thể đã SPOP user này) ghi xong,
+     * và snapshot ghi ở đây không bị batch khác ghi đè
+     * @throws IllegalStateException nếu không lấy được lock trong lock-wait
+     */
+    public void flush(Long userId) {
+        if (!waitForLock()) {
+            throw new IllegalStateException("Giỏ hàng đang được đồng bộ. Vui lòng thử lại sau.");
+        }
+        try {
+            String member = String.valueOf(userId);
+            Long removed = redisTemplate.opsForSet().remove(RedisCartStore.DIRTY_SET_KEY, member);
+            if (removed != null && removed > 0) {
+                flushBatch(List.of(member));
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Ghi nốt các cart chưa flush khi shutdown
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushDirtyCarts();
+    }
+
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(FLUSH_LOCK_KEY, instanceId, lockTtl));
+    }
+
+    private boolean waitForLock() {
+        long deadline = System.nanoTime() + lockWait.toNanos();
+        while (!tryLock()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(LOCK_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void unlock() {
+        if (instanceId.equals(redisTemplate.opsForValue().get(FLUSH_LOCK_KEY))) {
+            redisTemplate.delete(FLUSH_LOCK_KEY);
+        }
+    }
+
+    private void flushBatch(List<String> userIds) {
+        List<CartSnapshot> snapshots = cartStore.getCarts(userIds.stream().map(Long::valueOf).toList());
+        try {
+            Map<Long, Long> createdCartIds = transactionTemplate.execute(status -> persist(snapshots));
+            if (createdCartIds != null) {
+                createdCartIds.forEach(cartStore::assignCartId);
+            }
+            log.debug("Flushed {} carts to database", snapshots.size());
+        } catch (Exception e) {
+            // Trả lại dirty set => lần flush sau ghi lại (snapshot luôn là trạng thái mới nhất nên ghi lại an toàn)
+            redisTemplate.opsForSet().add(RedisCartStore.DIRTY_SET_KEY, userIds.toArray(String[]::new));
+            throw e;
+        }
+    }
+
+    /**
+     * @return userId -> cartId của các cart vừa được insert
+     */
+    private Map<Long, Long> persist(List<CartSnapshot> snapshots) {
+        Map<Long, Long> createdCartIds = new HashMap<>();
+        List<CartSnapshot> toWrite = new ArrayList<>(snapshots.size());
+
+        for (CartSnapshot snapshot : snapshots) {
+            if (snapshot.getCartId() == null) {
+                // Cart rỗng chưa có row => vẫn giữ virtual, không insert
+                if (snapshot.getItems().isEmpty()) {
+                    continue;
+                }
+                Long cartId = findOrCreateCart(snapshot);
+                createdCartIds.put(snapshot.getUserId(), cartId);
+                snapshot.setCartId(cartId);
+            }
+            toWrite.add(snapshot);
+        }
+        if (toWrite.isEmpty()) {
+            return createdCartIds;
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(UPDATE_CART_SQL, toWrite, batchSize, (ps, snapshot) -> {
+            ps.setBigDecimal(1, snapshot.getTotalAmount());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, snapshot.getCartId());
+        });
+
+        deleteRemovedItems(toWrite);
+
+        List<Object[]> itemRows = new ArrayList<>();
+        for (CartSnapshot snapshot : toWrite) {
+            for (CartLine line : snapshot.getItems()) {
+                itemRows.add(new Object[]{
+                        snapshot.getCartId(),
+                        line.getProductId(),
+                        line.getProductName(),
+                        line.getProductImage(),
+                        line.getPrice(),
+                        line.getQuantity(),
+                        line.getSubtotal(),
+                        line.getAddedAt() != null ? Timestamp.from(line.getAddedAt()) : now,
+                        now
+                });
+            }
+        }
+        if (!itemRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_ITEM_SQL, itemRows);
+        }
+        return createdCartIds;
+    }
+
+    /**
+     * Xóa các dòng không còn trong snapshot bằng 1 câu DELETE cho cả batch
+     */
+    private void deleteRemovedItems(List<CartSnapshot> snapshots) {
+        StringBuilder sql = new StringBuilder("DELETE FROM cart_items WHERE cart_id IN (");
+        List<Object> args = new ArrayList<>();
+        List<Object> keptArgs = new ArrayList<>();
+        for (CartSnapshot snapshot : snapshots) {
+            sql.append(args.isEmpty() ? "?" : ", ?");
+            args.add(snapshot.getCartId());
+            for (CartLine line : snapshot.getItems()) {
+                keptArgs.add(snapshot.getCartId());
+                keptArgs.add(line.getProductId());
+            }
+        }
+        sql.append(')');
+        if (!keptArgs.isEmpty()) {
+            sql.append(" AND (cart_id, product_id) NOT IN (");
+            for (int i = 0; i < keptArgs.size(); i += 2) {
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            }
+            sql.append(')');
+            args.addAll(keptArgs);
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private Long findOrCreateCart(CartSnapshot snapshot) {
+        List<Long> existing = jdbcTemplate.queryForList(SELECT_ACTIVE_CART_SQL, Long.class, snapshot.getUserId());
+        if (!existing.isEmpty()) {
+            return existing.get(0);
+        }
+
+        Timestamp createdAt = Timestamp.from(snapshot.getCreatedAt() != null ? snapshot.getCreatedAt() : Instant.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_CART_SQL, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, snapshot.getUserId());
+            ps.setBigDecimal(2, snapshot.getTotalAmount());
+            ps.setTimestamp(3, createdAt);
+            ps.setTimestamp(4, createdAt);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+}
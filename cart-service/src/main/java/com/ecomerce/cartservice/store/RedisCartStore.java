@@ -0,0 +1,446 @@
+package com.ecomerce.cartservice.store;
+
+import com.ecomerce.cartservice.model.Cart;
+import com.ecomerce.cartservice.model.CartItem;
+import com.ecomerce.cartservice.repository.CartRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cart storage engine trên Redis, key theo userId
+ *
+ * Mỗi cart là 1 Redis hash "cart:{userId}":
+ * - item:{productId}  JSON thông tin sản phẩm (tên, ảnh, thời điểm thêm)
+ * - price:{productId} giá (đơn vị xu - số nguyên để cộng trừ chính xác)
+ * - qty:{productId}   số lượng (HINCRBY => tăng số lượng atomic)
+ * - total             tổng tiền (xu), cập nhật theo delta - không tính lại toàn bộ
+ * - cartId, createdAt, updatedAt, loaded
+ *
+ * Mọi thao tác ghi là 1 Lua script (1 round-trip, atomic) và đánh dấu cart vào set "cart:dirty"
+ * để {@link CartWriteBehindFlusher} ghi xuống MySQL theo batch.
+ * Cart chưa có trong Redis được load từ DB 1 lần; user chưa có cart => cart rỗng virtual, không tạo row DB.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisCartStore {
+
+    public static final String DIRTY_SET_KEY = "cart:dirty";
+
+    private static final String KEY_PREFIX = "cart:";
+    private static final String ITEM_PREFIX = "item:";
+    private static final String PRICE_PREFIX = "price:";
+    private static final String QTY_PREFIX = "qty:";
+    private static final String CART_ID_FIELD = "cartId";
+    private static final String TOTAL_FIELD = "total";
+    private static final String CREATED_AT_FIELD = "createdAt";
+    private static final String UPDATED_AT_FIELD = "updatedAt";
+    private static final String LOADED_FIELD = "loaded";
+
+    // Script trả về NOT_LOADED khi cart chưa có trong Redis => load từ DB rồi chạy lại
+    private static final long NOT_LOADED = -2L;
+    private static final long LINE_NOT_FOUND = -1L;
+
+    /**
+     * ARGV: productId, itemJson, priceCents, delta, userId, ttlSeconds, nowMillis
+     * Dòng đã tồn tại thì giữ nguyên giá cũ, chỉ tăng số lượng
+     */
+    private static final RedisScript<Long> ADD_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local pid = ARGV[1]
+            if redis.call('HSETNX', KEYS[1], 'price:' .. pid, ARGV[3]) == 1 then
+              redis.call('HSET', KEYS[1], 'item:' .. pid, ARGV[2])
+            end
+            local price = tonumber(redis.call('HGET', KEYS[1], 'price:' .. pid))
+            local delta = tonumber(ARGV[4])
+            local qty = redis.call('HINCRBY', KEYS[1], 'qty:' .. pid, delta)
+            redis.call('HINCRBY', KEYS[1], 'total', string.format('%d', price * delta))
+            redis.call('HSET', KEYS[1], 'updatedAt', ARGV[7])
+            redis.call('EXPIRE', KEYS[1], ARGV[6])
+            redis.call('SADD', KEYS[2], ARGV[5])
+            return qty
+            """, Long.class);
+
+    /**
+     * ARGV: productId, quantity, userId, ttlSeconds, nowMillis
+     */
+    private static final RedisScript<Long> SET_QUANTITY_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local pid = ARGV[1]
+            local price = redis.call('HGET', KEYS[1], 'price:' .. pid)
+            if not price then return -1 end
+            local old = tonumber(redis.call('HGET', KEYS[1], 'qty:' .. pid) or '0')
+            local qty = tonumber(ARGV[2])
+            redis.call('HSET', KEYS[1], 'qty:' .. pid, qty, 'updatedAt', ARGV[5])
+            redis.call('HINCRBY', KEYS[1], 'total', string.format('%d', tonumber(price) * (qty - old)))
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            redis.call('SADD', KEYS[2], ARGV[3])
+            return qty
+            """, Long.class);
+
+    /**
+     * ARGV: userId, ttlSeconds, nowMillis, productId...
+     */
+    private static final RedisScript<Long> REMOVE_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local removed = 0
+            local delta = 0
+            for i = 4, #ARGV do
+              local pid = ARGV[i]
+              local price = redis.call('HGET', KEYS[1], 'price:' .. pid)
+              if price then
+                local qty = tonumber(redis.call('HGET', KEYS[1], 'qty:' .. pid) or '0')
+                delta = delta - tonumber(price) * qty
+                redis.call('HDEL', KEYS[1], 'item:' .. pid, 'price:' .. pid, 'qty:' .. pid)
+                removed = removed + 1
+              end
+            end
+            if removed > 0 then
+              redis.call('HINCRBY', KEYS[1], 'total', string.format('%d', delta))
+              redis.call('HSET', KEYS[1], 'updatedAt', ARGV[3])
+              redis.call('SADD', KEYS[2], ARGV[1])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return removed
+            """, Long.class);
+
+    /**
+     * ARGV: userId, ttlSeconds, nowMillis - giữ lại cartId/createdAt, xóa mọi dòng
+     */
+    private static final RedisScript<Long> CLEAR_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end
+            local cartId = redis.call('HGET', KEYS[1], 'cartId')
+            local createdAt = redis.call('HGET', KEYS[1], 'createdAt')
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'loaded', '1', 'total', '0', 'updatedAt', ARGV[3])
+            if cartId then redis.call('HSET', KEYS[1], 'cartId', cartId) end
+            if createdAt then redis.call('HSET', KEYS[1], 'createdAt', createdAt) end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            redis.call('SADD', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /**
+     * ARGV: ttlSeconds, field1, value1, ... - chỉ ghi khi cart chưa có trong Redis (không đè dữ liệu mới hơn)
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end
+            redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /**
+     * ARGV: cartId - gán ID row DB sau khi flusher insert cart mới
+     */
+    private static final RedisScript<Long> ASSIGN_CART_ID_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            redis.call('HSET', KEYS[1], 'cartId', ARGV[1])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CartRepository cartRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cart.redis.ttl:7d}")
+    private Duration ttl;
+
+    /**
+     * Thông tin sản phẩm lưu trong field item:{productId} (giá và số lượng nằm ở field riêng)
+     */
+    private record ItemMeta(Long productId, String productName, String productImage, Instant addedAt) {
+    }
+
+    // ==================== READ ====================
+
+    /**
+     * Lấy toàn bộ cart của user (1 HGETALL; lần đầu sẽ load từ DB)
+     */
+    public CartSnapshot getCart(Long userId) {
+        Map<String, String> hash = redisTemplate.<String, String>opsForHash().entries(key(userId));
+        if (hash.isEmpty()) {
+            loadFromDatabase(userId);
+            hash = redisTemplate.<String, String>opsForHash().entries(key(userId));
+        }
+        return toSnapshot(userId, hash);
+    }
+
+    /**
+     * Lấy 1 dòng của cart (1 HMGET)
+     */
+    public Optional<CartLine> getLine(Long userId, Long productId) {
+        Optional<CartLine> line = readLine(userId, productId);
+        if (line.isEmpty() && !Boolean.TRUE.equals(redisTemplate.hasKey(key(userId)))) {
+            loadFromDatabase(userId);
+            line = readLine(userId, productId);
+        }
+        return line;
+    }
+
+    /**
+     * Cart của user đang nằm trong Redis hay không (không load từ DB)
+     */
+    public boolean isCached(Long userId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key(userId)));
+    }
+
+    /**
+     * Đọc nhiều cart cùng lúc bằng pipeline (dùng cho flusher) - bỏ qua cart không còn trong Redis
+     */
+    @SuppressWarnings("unchecked")
+    public List<CartSnapshot> getCarts(List<Long> userIds) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : userIds) {
+                connection.hashCommands().hGetAll(key(userId).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+
+        List<CartSnapshot> snapshots = new ArrayList<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            Map<String, String> hash = (Map<String, String>) results.get(i);
+            if (hash != null && !hash.isEmpty()) {
+                snapshots.add(toSnapshot(userIds.get(i), hash));
+            }
+        }
+        return snapshots;
+    }
+
+    // ==================== WRITE ====================
+
+    /**
+     * Thêm sản phẩm (hoặc tăng số lượng nếu đã có) - atomic, cập nhật total theo delta
+     * @param line thông tin sản phẩm (price chỉ được dùng khi dòng chưa tồn tại)
+     * @return số lượng sau khi cộng
+     */
+    public int addQuantity(Long userId, CartLine line, int delta) {
+        String itemJson = writeItemMeta(new ItemMeta(
+                line.getProductId(), line.getProductName(), line.getProductImage(),
+                line.getAddedAt() != null ? line.getAddedAt() : Instant.now()));
+        return (int) executeWrite(userId, ADD_SCRIPT,
+                String.valueOf(line.getProductId()),
+                itemJson,
+                String.valueOf(toCents(line.getPrice())),
+                String.valueOf(delta),
+                String.valueOf(userId),
+                String.valueOf(ttl.toSeconds()),
+                String.valueOf(System.currentTimeMillis()));
+    }
+
+    /**
+     * Đặt số lượng mới cho 1 dòng
+     * @return false nếu dòng không tồn tại
+     */
+    public boolean setQuantity(Long userId, Long productId, int quantity) {
+        return executeWrite(userId, SET_QUANTITY_SCRIPT,
+                String.valueOf(productId),
+                String.valueOf(quantity),
+                String.valueOf(userId),
+                String.valueOf(ttl.toSeconds()),
+                String.valueOf(System.currentTimeMillis())) != LINE_NOT_FOUND;
+    }
+
+    /**
+     * Xóa nhiều dòng trong 1 script
+     * @return số dòng đã xóa
+     */
+    public int removeLines(Long userId, Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        List<String> args = new ArrayList<>(productIds.size() + 3);
+        args.add(String.valueOf(userId));
+        args.add(String.valueOf(ttl.toSeconds()));
+        args.add(String.valueOf(System.currentTimeMillis()));
+        productIds.forEach(productId -> args.add(String.valueOf(productId)));
+        return (int) executeWrite(userId, REMOVE_SCRIPT, args.toArray(String[]::new));
+    }
+
+    public void clear(Long userId) {
+        executeWrite(userId, CLEAR_SCRIPT,
+                String.valueOf(userId),
+                String.valueOf(ttl.toSeconds()),
+                String.valueOf(System.currentTimeMillis()));
+    }
+
+    /**
+     * Xóa cart khỏi Redis (cart bị deactivate) - lần đọc sau sẽ load lại từ DB
+     */
+    public void evict(Long userId) {
+        redisTemplate.delete(key(userId));
+        redisTemplate.opsForSet().remove(DIRTY_SET_KEY, String.valueOf(userId));
+    }
+
+    /**
+     * Gán ID row DB cho cart (sau khi flusher insert cart mới)
+     */
+    public void assignCartId(Long userId, Long cartId) {
+        redisTemplate.execute(ASSIGN_CART_ID_SCRIPT, List.of(key(userId)), String.valueOf(cartId));
+    }
+
+    // ==================== INTERNAL ====================
+
+    private long executeWrite(Long userId, RedisScript<Long> script, String... args) {
+        List<String> keys = List.of(key(userId), DIRTY_SET_KEY);
+        Long result = redisTemplate.execute(script, keys, (Object[]) args);
+        if (result != null && result == NOT_LOADED) {
+            loadFromDatabase(userId);
+            result = redisTemplate.execute(script, keys, (Object[]) args);
+        }
+        if (result == null || result == NOT_LOADED) {
+            throw new IllegalStateException("Không thể cập nhật giỏ hàng. Vui lòng thử lại sau.");
+        }
+        return result;
+    }
+
+    /**
+     * Load cart active từ DB vào Redis (không có cart => cart rỗng virtual, không insert row)
+     */
+    private void loadFromDatabase(Long userId) {
+        Optional<Cart> cart = cartRepository.findByUserIdAndIsActiveTrueWithItems(userId);
+        Instant now = Instant.now();
+
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttl.toSeconds()));
+        addField(args, LOADED_FIELD, "1");
+        addField(args, UPDATED_AT_FIELD, String.valueOf(now.toEpochMilli()));
+
+        long totalCents = 0;
+        if (cart.isPresent()) {
+            Cart existing = cart.get();
+            addField(args, CART_ID_FIELD, String.valueOf(existing.getId()));
+            addField(args, CREATED_AT_FIELD, String.valueOf(
+                    (existing.getCreatedAt() != null ? existing.getCreatedAt() : now).toEpochMilli()));
+            // Gộp các dòng trùng productId (dữ liệu cũ trước khi có unique key) => cộng dồn số lượng
+            Map<Long, CartItem> itemsByProduct = new LinkedHashMap<>();
+            Map<Long, Integer> quantities = new HashMap<>();
+            for (CartItem item : existing.getItems()) {
+                itemsByProduct.putIfAbsent(item.getProductId(), item);
+                quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+            for (CartItem item : itemsByProduct.values()) {
+                long priceCents = toCents(item.getPrice());
+                int quantity = quantities.get(item.getProductId());
+                String productId = String.valueOf(item.getProductId());
+                addField(args, ITEM_PREFIX + productId, writeItemMeta(new ItemMeta(
+                        item.getProductId(), item.getProductName(), item.getProductImage(),
+                        item.getCreatedAt() != null ? item.getCreatedAt() : now)));
+                addField(args, PRICE_PREFIX + productId, String.valueOf(priceCents));
+                addField(args, QTY_PREFIX + productId, String.valueOf(quantity));
+                totalCents += priceCents * quantity;
+            }
+        } else {
+            addField(args, CREATED_AT_FIELD, String.valueOf(now.toEpochMilli()));
+        }
+        addField(args, TOTAL_FIELD, String.valueOf(totalCents));
+
+        redisTemplate.execute(LOAD_SCRIPT, List.of(key(userId)), args.toArray());
+        log.debug("Loaded cart of user {} into Redis ({} items)", userId,
+                cart.map(c -> c.getItems().size()).orElse(0));
+    }
+
+    private Optional<CartLine> readLine(Long userId, Long productId) {
+        List<String> values = redisTemplate.<String, String>opsForHash().multiGet(key(userId), List.of(
+                ITEM_PREFIX + productId, PRICE_PREFIX + productId, QTY_PREFIX + productId));
+        if (values.get(0) == null || values.get(1) == null || values.get(2) == null) {
+            return Optional.empty();
+        }
+        return Optional.of(toLine(values.get(0), values.get(1), values.get(2)));
+    }
+
+    private CartSnapshot toSnapshot(Long userId, Map<String, String> hash) {
+        List<CartLine> items = new ArrayList<>();
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            if (entry.getKey().startsWith(ITEM_PREFIX)) {
+                String productId = entry.getKey().substring(ITEM_PREFIX.length());
+                String price = hash.get(PRICE_PREFIX + productId);
+                String quantity = hash.get(QTY_PREFIX + productId);
+                if (price != null && quantity != null) {
+                    items.add(toLine(entry.getValue(), price, quantity));
+                }
+            }
+        }
+        items.sort(Comparator.comparing(CartLine::getAddedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        String cartId = hash.get(CART_ID_FIELD);
+        return CartSnapshot.builder()
+                .cartId(cartId != null ? Long.valueOf(cartId) : null)
+                .userId(userId)
+                .items(items)
+                .totalAmount(fromCents(Long.parseLong(hash.getOrDefault(TOTAL_FIELD, "0"))))
+                .createdAt(toInstant(hash.get(CREATED_AT_FIELD)))
+                .updatedAt(toInstant(hash.get(UPDATED_AT_FIELD)))
+                .build();
+    }
+
+    private CartLine toLine(String itemJson, String priceCents, String quantity) {
+        ItemMeta meta = readItemMeta(itemJson);
+        return CartLine.builder()
+                .productId(meta.productId())
+                .productName(meta.productName())
+                .productImage(meta.productImage())
+                .price(fromCents(Long.parseLong(priceCents)))
+                .quantity(Integer.valueOf(quantity))
+                .addedAt(meta.addedAt())
+                .build();
+    }
+
+    private String writeItemMeta(ItemMeta meta) {
+        try {
+            return objectMapper.writeValueAsString(meta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể serialize cart item: " + e.getMessage(), e);
+        }
+    }
+
+    private ItemMeta readItemMeta(String json) {
+        try {
+            return objectMapper.readValue(json, ItemMeta.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể đọc cart item từ Redis: " + e.getMessage(), e);
+        }
+    }
+
+    private static void addField(List<String> args, String field, String value) {
+        args.add(field);
+        args.add(value);
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static Instant toInstant(String epochMillis) {
+        return epochMillis != null ? Instant.ofEpochMilli(Long.parseLong(epochMillis)) : null;
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
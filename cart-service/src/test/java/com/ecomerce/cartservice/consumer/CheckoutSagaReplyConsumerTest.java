@@ -0,0 +1,45 @@
+package com.ecomerce.cartservice.consumer;
+
+import com.ecomerce.cartservice.event.InventoryReservedEvent;
+import com.ecomerce.cartservice.saga.CheckoutSagaCoordinator;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Lỗi khi xử lý phải được ném lại cho DefaultErrorHandler (seek + retry), không ack
+ */
+class CheckoutSagaReplyConsumerTest {
+
+    private final CheckoutSagaCoordinator coordinator = mock(CheckoutSagaCoordinator.class);
+    private final CheckoutSagaReplyConsumer consumer = new CheckoutSagaReplyConsumer(coordinator);
+
+    @Test
+    void failureIsRethrownWithoutAck() {
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        doThrow(new IllegalStateException("Redis down")).when(coordinator).onInventoryReserved(500L);
+        InventoryReservedEvent event = new InventoryReservedEvent();
+        event.setOrderId(500L);
+
+        assertThrows(IllegalStateException.class, () -> consumer.consumeInventoryReserved(event, acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void successIsAcknowledged() {
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        InventoryReservedEvent event = new InventoryReservedEvent();
+        event.setOrderId(500L);
+
+        consumer.consumeInventoryReserved(event, acknowledgment);
+
+        verify(coordinator).onInventoryReserved(500L);
+        verify(acknowledgment).acknowledge();
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecomerce.cartservice.idempotency;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Filter tính fingerprint từ body nhưng controller vẫn đọc lại được body
+ */
+class IdempotencyFilterTest {
+
+    private final IdempotencyFilter filter = new IdempotencyFilter(mock(IdempotencyStore.class));
+
+    @Test
+    void bodyIsFingerprintedAndStillReadable() throws Exception {
+        byte[] body = "{\"shippingAddress\":\"HN\"}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/cart/checkout");
+        request.addHeader(IdempotencyInterceptor.IDEMPOTENCY_KEY_HEADER, "key-1");
+        request.setContent(body);
+        AtomicReference<String> bodySeenByHandler = new AtomicReference<>();
+        AtomicReference<Object> fingerprint = new AtomicReference<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+            HttpServletRequest httpRequest = (HttpServletRequest) servletRequest;
+            bodySeenByHandler.set(new String(httpRequest.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            fingerprint.set(httpRequest.getAttribute(IdempotencyInterceptor.FINGERPRINT_ATTRIBUTE));
+        });
+
+        assertEquals("{\"shippingAddress\":\"HN\"}", bodySeenByHandler.get());
+        assertEquals(IdempotencyStore.fingerprint(null, body), fingerprint.get());
+    }
+}
@@ -0,0 +1,105 @@
+package com.ecomerce.cartservice.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Key dùng lại cho request khác (fingerprint khác) bị từ chối; lock được gia hạn tới khi complete/release
+ */
+class IdempotencyStoreTest {
+
+    private static final String KEY = "idempotency:request:alice:POST:/api/cart/checkout:key-1";
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IdempotencyStore store = new IdempotencyStore(redisTemplate, objectMapper);
+
+    private final String fingerprint = IdempotencyStore.fingerprint(null, "{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+    private final String otherFingerprint = IdempotencyStore.fingerprint(null, "{\"a\":2}".getBytes(StandardCharsets.UTF_8));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(store, "lockTtl", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(store, "waitTimeout", Duration.ofSeconds(10));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void fingerprintCoversQueryStringAndBody() {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        assertEquals(IdempotencyStore.fingerprint("x=1", body), IdempotencyStore.fingerprint("x=1", body));
+        assertNotEquals(IdempotencyStore.fingerprint("x=1", body), IdempotencyStore.fingerprint("x=2", body));
+        assertNotEquals(fingerprint, otherFingerprint);
+    }
+
+    @Test
+    void storedResponseIsReplayedOnlyForSameFingerprint() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn(objectMapper.writeValueAsString(
+                new IdempotencyStore.StoredResponse(200, "application/json", "{}", fingerprint)));
+
+        IdempotencyStore.Acquisition same = store.acquire(KEY, fingerprint);
+        assertNotNull(same.response());
+
+        IdempotencyStore.Acquisition other = store.acquire(KEY, otherFingerprint);
+        assertTrue(other.fingerprintMismatch());
+        assertNull(other.response());
+        assertNull(other.lock());
+    }
+
+    @Test
+    void inProgressRequestWithOtherFingerprintIsRejectedWithoutWaiting() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn("IN_PROGRESS:" + fingerprint + ":token");
+
+        long started = System.nanoTime();
+        IdempotencyStore.Acquisition acquisition = store.acquire(KEY, otherFingerprint);
+
+        assertTrue(acquisition.fingerprintMismatch());
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(Duration.ofSeconds(1)) < 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void heldLockIsRenewedUntilReleased() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), startsWith("IN_PROGRESS:" + fingerprint + ":"), any(Duration.class)))
+                .thenReturn(true);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(KEY)), anyString(), eq("30000"))).thenReturn(1L);
+
+        IdempotencyStore.Lock lock = store.acquire(KEY, fingerprint).lock();
+        store.renewLocks();
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(KEY)), eq(lock.token()), eq("30000"));
+
+        store.release(lock);
+        store.renewLocks();
+
+        // Đã release => không gia hạn thêm (vẫn chỉ 1 lần gọi RENEW_SCRIPT)
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(KEY)), eq(lock.token()), eq("30000"));
+    }
+}
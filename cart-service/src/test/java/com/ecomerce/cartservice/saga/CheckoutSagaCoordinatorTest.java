@@ -0,0 +1,211 @@
+package com.ecomerce.cartservice.saga;
+
+import com.ecomerce.cartservice.event.CancelOrderCommand;
+import com.ecomerce.cartservice.event.CancelPaymentCommand;
+import com.ecomerce.cartservice.event.CreatePaymentCommand;
+import com.ecomerce.cartservice.event.OrderCreateReply;
+import com.ecomerce.cartservice.event.PaymentCreateReply;
+import com.ecomerce.cartservice.service.KafkaProducerService;
+import com.ecomerce.cartservice.store.RedisCartStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Transition của checkout saga với store trong memory (compare-and-set giống CheckoutSagaStore)
+ */
+class CheckoutSagaCoordinatorTest {
+
+    private static final String CHECKOUT_ID = "checkout-1";
+    private static final Long ORDER_ID = 500L;
+    private static final Long USER_ID = 42L;
+
+    private final CheckoutSagaStore sagaStore = mock(CheckoutSagaStore.class);
+    private final RedisCartStore cartStore = mock(RedisCartStore.class);
+    private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+    private final CheckoutSagaCoordinator coordinator = new CheckoutSagaCoordinator(sagaStore, cartStore, kafkaProducerService);
+
+    private final AtomicReference<CheckoutSaga> state = new AtomicReference<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(sagaStore.find(CHECKOUT_ID)).thenAnswer(invocation -> Optional.ofNullable(state.get()));
+        when(sagaStore.update(eq(CHECKOUT_ID), any())).thenAnswer(invocation -> {
+            UnaryOperator<CheckoutSaga> change = invocation.getArgument(1);
+            CheckoutSaga updated = change.apply(state.get().toBuilder().build());
+            if (updated != null) {
+                state.set(updated);
+            }
+            return Optional.ofNullable(updated);
+        });
+        when(sagaStore.recordInventoryOutcome(eq(ORDER_ID), anyString())).thenReturn(Optional.of(CHECKOUT_ID));
+        when(sagaStore.linkOrder(ORDER_ID, CHECKOUT_ID)).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void paymentReplyArrivingBeforeCommandSendReturnsCompletesSaga() {
+        state.set(saga(CheckoutSagaStatus.ORDER_CREATED, "VNPAY"));
+        // payment-service trả lời ngay trong lúc send còn chưa return
+        doAnswer(invocation -> {
+            coordinator.onPaymentCreateReply(paymentReply(true));
+            return null;
+        }).when(kafkaProducerService).publishCreatePaymentCommand(any(CreatePaymentCommand.class));
+
+        coordinator.onInventoryReserved(ORDER_ID);
+
+        assertEquals(CheckoutSagaStatus.COMPLETED, state.get().getStatus());
+        assertEquals(77L, state.get().getPayment().getPaymentId());
+        verify(cartStore).removeLines(USER_ID, List.of(1L, 2L));
+    }
+
+    @Test
+    void redeliveredInventoryEventResendsPaymentCommandAfterSendFailure() {
+        state.set(saga(CheckoutSagaStatus.ORDER_CREATED, "VNPAY"));
+        doThrow(new IllegalStateException("Kafka down"))
+                .doNothing()
+                .when(kafkaProducerService).publishCreatePaymentCommand(any(CreatePaymentCommand.class));
+
+        assertThrows(IllegalStateException.class, () -> coordinator.onInventoryReserved(ORDER_ID));
+        assertEquals(CheckoutSagaStatus.INVENTORY_RESERVED, state.get().getStatus());
+
+        coordinator.onInventoryReserved(ORDER_ID);
+
+        verify(kafkaProducerService, times(2)).publishCreatePaymentCommand(any(CreatePaymentCommand.class));
+        assertEquals(CheckoutSagaStatus.INVENTORY_RESERVED, state.get().getStatus());
+    }
+
+    @Test
+    void redeliveredOrderReplyResumesPendingPaymentCommand() {
+        state.set(saga(CheckoutSagaStatus.INVENTORY_RESERVED, "VNPAY"));
+
+        coordinator.onOrderCreateReply(OrderCreateReply.builder()
+                .checkoutId(CHECKOUT_ID)
+                .success(true)
+                .orderId(ORDER_ID)
+                .orderNumber("ORD-500")
+                .userId(USER_ID)
+                .totalAmount(BigDecimal.TEN)
+                .build());
+
+        verify(kafkaProducerService).publishCreatePaymentCommand(any(CreatePaymentCommand.class));
+    }
+
+    @Test
+    void inventoryFailureCancelsOrderAndFailsSaga() {
+        state.set(saga(CheckoutSagaStatus.ORDER_CREATED, "VNPAY"));
+        doNothing().when(kafkaProducerService).publishCancelOrderCommand(any(CancelOrderCommand.class));
+
+        coordinator.onInventoryReservationFailed(ORDER_ID, "Hết hàng");
+
+        assertEquals(CheckoutSagaStatus.FAILED, state.get().getStatus());
+        verify(kafkaProducerService).publishCancelOrderCommand(any(CancelOrderCommand.class));
+        verify(kafkaProducerService, never()).publishCreatePaymentCommand(any());
+    }
+
+    @Test
+    void checkoutWithoutPaymentMethodCompletesOnReservation() {
+        state.set(saga(CheckoutSagaStatus.ORDER_CREATED, null));
+
+        coordinator.onInventoryReserved(ORDER_ID);
+
+        assertEquals(CheckoutSagaStatus.COMPLETED, state.get().getStatus());
+        verify(kafkaProducerService, never()).publishCreatePaymentCommand(any());
+        verify(cartStore).removeLines(eq(USER_ID), any());
+        verify(sagaStore, never()).linkOrder(anyLong(), anyString());
+    }
+
+    @Test
+    void expiryKeepsDeadlineUntilCancelCommandIsSent() {
+        state.set(saga(CheckoutSagaStatus.INVENTORY_RESERVED, "VNPAY"));
+        when(sagaStore.claimOverdue(any(Instant.class), any(), anyInt())).thenReturn(List.of(CHECKOUT_ID));
+        doThrow(new IllegalStateException("Kafka down"))
+                .doNothing()
+                .when(kafkaProducerService).publishCancelOrderCommand(any(CancelOrderCommand.class));
+
+        coordinator.expireOverdueSagas();
+
+        // Saga đã FAILED nhưng chưa hủy được đơn => deadline vẫn còn để lần sau nhận lại
+        assertEquals(CheckoutSagaStatus.FAILED, state.get().getStatus());
+        verify(sagaStore, never()).removeDeadline(CHECKOUT_ID);
+
+        coordinator.expireOverdueSagas();
+
+        verify(kafkaProducerService, times(2)).publishCancelOrderCommand(any(CancelOrderCommand.class));
+        verify(sagaStore).removeDeadline(CHECKOUT_ID);
+    }
+
+    @Test
+    void paymentReplyAfterExpiryCancelsPayment() {
+        state.set(saga(CheckoutSagaStatus.INVENTORY_RESERVED, "VNPAY").toBuilder()
+                .status(CheckoutSagaStatus.FAILED)
+                .failureReason("Checkout quá thời gian xử lý")
+                .build());
+
+        coordinator.onPaymentCreateReply(paymentReply(true));
+
+        ArgumentCaptor<CancelPaymentCommand> command = ArgumentCaptor.forClass(CancelPaymentCommand.class);
+        verify(kafkaProducerService).publishCancelPaymentCommand(command.capture());
+        assertEquals(77L, command.getValue().getPaymentId());
+        assertEquals(ORDER_ID, command.getValue().getOrderId());
+        assertEquals(CheckoutSagaStatus.FAILED, state.get().getStatus());
+    }
+
+    @Test
+    void duplicatePaymentReplyForCompletedSagaDoesNotCancelPayment() {
+        state.set(saga(CheckoutSagaStatus.COMPLETED, "VNPAY"));
+
+        coordinator.onPaymentCreateReply(paymentReply(true));
+
+        verify(kafkaProducerService, never()).publishCancelPaymentCommand(any());
+    }
+
+    private static CheckoutSaga saga(CheckoutSagaStatus status, String paymentMethod) {
+        return CheckoutSaga.builder()
+                .checkoutId(CHECKOUT_ID)
+                .userId(USER_ID)
+                .status(status)
+                .itemIds(List.of(1L, 2L))
+                .paymentMethod(paymentMethod)
+                .orderId(ORDER_ID)
+                .orderNumber("ORD-500")
+                .totalAmount(BigDecimal.TEN)
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    private static PaymentCreateReply paymentReply(boolean success) {
+        return PaymentCreateReply.builder()
+                .checkoutId(CHECKOUT_ID)
+                .success(success)
+                .orderId(ORDER_ID)
+                .paymentId(77L)
+                .paymentMethod("VNPAY")
+                .paymentStatus("PENDING")
+                .paymentUrl("https://pay.example/77")
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.ecomerce.cartservice.service.impl;
+
+import com.ecomerce.cartservice.advice.exeption.ResourceNotFoundException;
+import com.ecomerce.cartservice.dto.response.CartResponse;
+import com.ecomerce.cartservice.dto.response.PageResponseDto;
+import com.ecomerce.cartservice.model.Cart;
+import com.ecomerce.cartservice.model.CartItem;
+import com.ecomerce.cartservice.repository.CartRepository;
+import com.ecomerce.cartservice.store.CartWriteBehindFlusher;
+import com.ecomerce.cartservice.store.RedisCartStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Xóa cart (Redis + DB) và danh sách cart cho admin dùng chung quy ước ID item = productId
+ */
+class CartServiceImplTest {
+
+    private static final Long USER_ID = 42L;
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final RedisCartStore cartStore = mock(RedisCartStore.class);
+    private final CartWriteBehindFlusher cartWriteBehindFlusher = mock(CartWriteBehindFlusher.class);
+    private final CartServiceImpl cartService = new CartServiceImpl(cartRepository, cartStore, cartWriteBehindFlusher,
+            null, null, null, null, null, null, null);
+
+    @Test
+    void deleteCartOnlyInRedisEvictsWithoutNotFound() {
+        when(cartStore.isCached(USER_ID)).thenReturn(true);
+        when(cartRepository.findByUserIdAndIsActiveTrue(USER_ID)).thenReturn(Optional.empty());
+
+        cartService.deleteCart(USER_ID);
+
+        verify(cartStore).evict(USER_ID);
+        verify(cartRepository, never()).save(any());
+    }
+
+    @Test
+    void deleteCartFlushesBeforeDeactivatingRow() {
+        Cart cart = Cart.builder().id(7L).userId(USER_ID).build();
+        when(cartStore.isCached(USER_ID)).thenReturn(true);
+        when(cartRepository.findByUserIdAndIsActiveTrue(USER_ID)).thenReturn(Optional.of(cart));
+
+        cartService.deleteCart(USER_ID);
+
+        assertFalse(cart.getIsActive());
+        var order = inOrder(cartWriteBehindFlusher, cartRepository, cartStore);
+        order.verify(cartWriteBehindFlusher).flush(USER_ID);
+        order.verify(cartRepository).save(cart);
+        order.verify(cartStore).evict(USER_ID);
+    }
+
+    @Test
+    void deleteCartMissingEverywhereIsNotFound() {
+        when(cartStore.isCached(USER_ID)).thenReturn(false);
+        when(cartRepository.findByUserIdAndIsActiveTrue(USER_ID)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> cartService.deleteCart(USER_ID));
+        verify(cartStore, never()).evict(USER_ID);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void adminCartListingUsesProductIdAsItemId() {
+        Cart cart = Cart.builder().id(7L).userId(USER_ID).build();
+        cart.getItems().add(CartItem.builder().id(900L).cart(cart).productId(15L)
+                .productName("Tai nghe").price(BigDecimal.TEN).quantity(2).build());
+        Pageable pageable = PageRequest.of(0, 20);
+        Specification<Cart> spec = mock(Specification.class);
+        when(cartRepository.findAll(spec, pageable)).thenReturn(new PageImpl<>(List.of(cart), pageable, 1));
+
+        PageResponseDto<CartResponse> page = cartService.getAllCarts(spec, pageable);
+
+        assertEquals(15L, page.getContent().get(0).getItems().get(0).getId());
+    }
+}
@@ -0,0 +1,91 @@
+package com.ecomerce.cartservice.store;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unique key (cart_id, product_id) được tạo (sau khi dồn quantity + dedupe trong 1 transaction) hoặc service không khởi động
+ */
+class CartItemUniqueKeyMigrationTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final CartItemUniqueKeyMigration migration = new CartItemUniqueKeyMigration(jdbcTemplate, transactionTemplate);
+    private final TransactionStatus transactionStatus = mock(TransactionStatus.class);
+
+    CartItemUniqueKeyMigrationTest() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(transactionStatus));
+    }
+
+    @Test
+    void existingUniqueKeyIsLeftAlone() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(CartItemUniqueKeyMigration.UNIQUE_KEY_NAME)))
+                .thenReturn(1);
+
+        migration.afterPropertiesSet();
+
+        verify(transactionTemplate, never()).execute(any());
+        verify(jdbcTemplate, never()).update(anyString());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void missingUniqueKeyIsAddedAfterMergingDuplicateQuantities() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(CartItemUniqueKeyMigration.UNIQUE_KEY_NAME)))
+                .thenReturn(0);
+        when(jdbcTemplate.update(startsWith("UPDATE"))).thenReturn(1);
+        when(jdbcTemplate.update(startsWith("DELETE"))).thenReturn(2);
+
+        migration.afterPropertiesSet();
+
+        InOrder order = inOrder(transactionTemplate, jdbcTemplate);
+        order.verify(transactionTemplate).execute(any());
+        order.verify(jdbcTemplate).update(argThat((String sql) -> sql.startsWith("UPDATE cart_items kept JOIN")
+                && sql.contains("SUM(quantity)") && sql.contains("MAX(id)")));
+        order.verify(jdbcTemplate).update(startsWith("DELETE"));
+        order.verify(jdbcTemplate).execute(startsWith("ALTER TABLE cart_items ADD CONSTRAINT uk_cart_item_cart_product UNIQUE"));
+    }
+
+    @Test
+    void startupFailsWhenUniqueKeyCannotBeAdded() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(CartItemUniqueKeyMigration.UNIQUE_KEY_NAME)))
+                .thenReturn(0);
+        doThrow(new DataIntegrityViolationException("Duplicate entry"))
+                .when(jdbcTemplate).execute(startsWith("ALTER"));
+
+        assertThrows(IllegalStateException.class, migration::afterPropertiesSet);
+        verify(jdbcTemplate, times(3)).execute(startsWith("ALTER"));
+    }
+
+    @Test
+    void failedMergeSkipsDeleteAndNeverAddsUniqueKey() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(CartItemUniqueKeyMigration.UNIQUE_KEY_NAME)))
+                .thenReturn(0);
+        doThrow(new DataIntegrityViolationException("quantity out of range"))
+                .when(jdbcTemplate).update(startsWith("UPDATE"));
+
+        assertThrows(IllegalStateException.class, migration::afterPropertiesSet);
+        verify(jdbcTemplate, never()).update(startsWith("DELETE"));
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER"));
+    }
+}
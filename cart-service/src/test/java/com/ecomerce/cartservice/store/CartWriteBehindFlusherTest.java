@@ -0,0 +1,69 @@
+package com.ecomerce.cartservice.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * flush(userId) dùng chung flush lock với flusher định kỳ
+ */
+class CartWriteBehindFlusherTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+    @SuppressWarnings("unchecked")
+    private final SetOperations<String, String> setOperations = mock(SetOperations.class);
+    private final CartWriteBehindFlusher flusher = new CartWriteBehindFlusher(
+            mock(RedisCartStore.class), redisTemplate, mock(JdbcTemplate.class), mock(TransactionTemplate.class));
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        ReflectionTestUtils.setField(flusher, "lockTtl", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(flusher, "lockWait", Duration.ofMillis(200));
+    }
+
+    @Test
+    void flushWaitsForRunningBatchBeforeTouchingDirtySet() {
+        // Batch định kỳ đang giữ lock ở lần thử đầu, nhả ở lần thứ 2
+        when(valueOperations.setIfAbsent(eq("cart:flush-lock"), anyString(), any(Duration.class)))
+                .thenReturn(false, true);
+        when(setOperations.remove(RedisCartStore.DIRTY_SET_KEY, "42")).thenReturn(0L);
+
+        flusher.flush(42L);
+
+        InOrder order = inOrder(valueOperations, setOperations);
+        order.verify(valueOperations, times(2)).setIfAbsent(eq("cart:flush-lock"), anyString(), any(Duration.class));
+        order.verify(setOperations).remove(RedisCartStore.DIRTY_SET_KEY, "42");
+    }
+
+    @Test
+    void flushFailsWhenLockIsNotReleasedInTime() {
+        when(valueOperations.setIfAbsent(eq("cart:flush-lock"), anyString(), any(Duration.class))).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> flusher.flush(42L));
+
+        verify(setOperations, never()).remove(anyString(), any());
+    }
+}
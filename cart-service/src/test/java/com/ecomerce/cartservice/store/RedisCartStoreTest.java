@@ -0,0 +1,117 @@
+package com.ecomerce.cartservice.store;
+
+import com.ecomerce.cartservice.model.Cart;
+import com.ecomerce.cartservice.model.CartItem;
+import com.ecomerce.cartservice.repository.CartRepository;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Load cart từ DB vào Redis hash và đọc lại thành snapshot; ghi vào cart chưa có trong Redis => load rồi chạy lại script
+ */
+class RedisCartStoreTest {
+
+    private static final Long USER_ID = 42L;
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final RedisCartStore cartStore =
+            new RedisCartStore(redisTemplate, cartRepository, JsonMapper.builder().findAndAddModules().build());
+
+    // Hash "cart:42" giả lập: LOAD_SCRIPT ghi vào đây
+    private final Map<Object, Object> hash = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(cartStore, "ttl", Duration.ofDays(7));
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("cart:" + USER_ID)).thenAnswer(invocation -> new HashMap<>(hash));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getCartLoadsDatabaseCartMergingDuplicateProductLines() {
+        Cart cart = Cart.builder().id(7L).userId(USER_ID).build();
+        cart.getItems().add(item(10L, "12.50", 1));
+        cart.getItems().add(item(10L, "12.50", 2)); // dòng trùng từ trước khi có unique key
+        cart.getItems().add(item(11L, "3.00", 1));
+        when(cartRepository.findByUserIdAndIsActiveTrueWithItems(USER_ID)).thenReturn(Optional.of(cart));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            // arguments: script, keys, ttlSeconds, field1, value1, ...
+            Object[] args = invocation.getArguments();
+            for (int i = 3; i < args.length; i += 2) {
+                hash.put(args[i], args[i + 1]);
+            }
+            return 1L;
+        });
+
+        CartSnapshot snapshot = cartStore.getCart(USER_ID);
+
+        assertEquals(7L, snapshot.getCartId());
+        assertEquals(2, snapshot.getItems().size());
+        CartLine merged = snapshot.getItems().stream().filter(line -> line.getProductId() == 10L).findFirst().orElseThrow();
+        assertEquals(3, merged.getQuantity());
+        assertEquals(new BigDecimal("12.50"), merged.getPrice());
+        assertEquals(new BigDecimal("40.50"), snapshot.getTotalAmount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writeToUncachedCartLoadsFromDatabaseAndRetriesScript() {
+        when(cartRepository.findByUserIdAndIsActiveTrueWithItems(USER_ID)).thenReturn(Optional.empty());
+        // ADD_SCRIPT: chưa load (-2) => LOAD_SCRIPT (1) => ADD_SCRIPT lần 2 trả về số lượng mới
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(-2L, 1L, 2L);
+
+        int quantity = cartStore.addQuantity(USER_ID, CartLine.builder()
+                .productId(10L).productName("Áo").price(new BigDecimal("12.50")).build(), 2);
+
+        assertEquals(2, quantity);
+        verify(cartRepository).findByUserIdAndIsActiveTrueWithItems(USER_ID);
+        verify(redisTemplate, times(3)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writeFailsWhenCartStillMissingAfterLoad() {
+        when(cartRepository.findByUserIdAndIsActiveTrueWithItems(USER_ID)).thenReturn(Optional.empty());
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(-2L);
+
+        assertThrows(IllegalStateException.class, () -> cartStore.setQuantity(USER_ID, 10L, 3));
+    }
+
+    @Test
+    void centsConversionRoundsToTwoDecimals() {
+        assertEquals(1250L, RedisCartStore.toCents(new BigDecimal("12.499")));
+        assertEquals(new BigDecimal("12.50"), RedisCartStore.fromCents(1250L));
+    }
+
+    private static CartItem item(Long productId, String price, int quantity) {
+        return CartItem.builder().productId(productId).productName("SP " + productId)
+                .price(new BigDecimal(price)).quantity(quantity).build();
+    }
+}
@@ -6,6 +6,9 @@ import com.ecomerce.inventoryservice.config.feign.ProductServiceResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 /**
  * Feign Client để gọi product-service
@@ -35,5 +38,12 @@ public interface ProductServiceClient {
      */
     @GetMapping("/{productId}")
     ProductServiceResponse<ProductInfoResponse> getProductById(@PathVariable("productId") Long productId);
+
+    /**
+     * Lấy thông tin nhiều products trong 1 request (internal call)
+     * Product-service chỉ trả về products active - ID không có trong kết quả là không tồn tại hoặc đã bị vô hiệu hóa
+     */
+    @GetMapping("/batch")
+    ProductServiceResponse<List<ProductInfoResponse>> getProductsByIds(@RequestParam("ids") List<Long> ids);
 }
 
@@ -1,5 +1,6 @@
 package com.ecomerce.inventoryservice.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,11 +10,14 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
 
+@Slf4j
 @Configuration
 public class KafkaConsumerConfig {
 
@@ -34,13 +38,42 @@ public class KafkaConsumerConfig {
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
+    @Value("${kafka.consumer.retry.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${kafka.consumer.retry.initial-interval-ms:500}")
+    private long initialIntervalMs;
+
+    @Value("${kafka.consumer.retry.max-interval-ms:10000}")
+    private long maxIntervalMs;
+
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(errorHandler());
         return factory;
     }
+
+    /**
+     * Listener ném lỗi => seek lại record lỗi và xử lý lại với exponential backoff
+     * (transaction reserve/release đã rollback cùng processed_events nên xử lý lại không bị trùng)
+     * Hết số lần retry => log + commit offset để không chặn partition
+     */
+    @Bean
+    public DefaultErrorHandler errorHandler() {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(maxRetries);
+        backOff.setInitialInterval(initialIntervalMs);
+        backOff.setMultiplier(2);
+        backOff.setMaxInterval(maxIntervalMs);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler((record, exception) ->
+                log.error("❌ Bỏ qua message topic={}, partition={}, offset={} sau {} lần retry: {}",
+                        record.topic(), record.partition(), record.offset(), maxRetries, exception.getMessage()),
+                backOff);
+        errorHandler.setCommitRecovered(true);
+        return errorHandler;
+    }
 }
 
@@ -6,6 +6,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * Fallback Factory cho ProductServiceClient
  * Xử lý khi product-service down hoặc timeout
@@ -25,6 +27,12 @@ public class ProductServiceFallbackFactory implements FallbackFactory<ProductSer
                 // Throw exception để service layer xử lý
                 throw new RuntimeException("Product-service is temporarily unavailable. Please try again later.");
             }
+
+            @Override
+            public ProductServiceResponse<List<ProductInfoResponse>> getProductsByIds(List<Long> ids) {
+                log.warn("⚠️ Product-service is unavailable. Using fallback for productIds: {}", ids);
+                throw new RuntimeException("Product-service is temporarily unavailable. Please try again later.");
+            }
         };
     }
 }
@@ -1,7 +1,12 @@
 package com.ecomerce.inventoryservice.consumer;
 
+import com.ecomerce.inventoryservice.dto.response.OrderReservationResult;
+import com.ecomerce.inventoryservice.event.InventoryReservationFailedEvent;
+import com.ecomerce.inventoryservice.event.InventoryReservedEvent;
 import com.ecomerce.inventoryservice.event.OrderCreatedEvent;
+import com.ecomerce.inventoryservice.idempotency.IdempotentConsumer;
 import com.ecomerce.inventoryservice.service.InventoryService;
+import com.ecomerce.inventoryservice.service.KafkaProducerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -11,9 +16,15 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Kafka Consumer để consume OrderCreatedEvent
- * Reserve quantity khi order được tạo
+ * Reserve toàn bộ items của order trong 1 transaction (all-or-nothing),
+ * kết quả (inventory-reserved / inventory-reservation-failed) ghi vào outbox trong cùng transaction đó
+ * Lỗi không phải do dữ liệu event => ném lại cho DefaultErrorHandler retry (xem KafkaConsumerConfig)
  */
 @Slf4j
 @Component
@@ -21,6 +32,8 @@ import org.springframework.stereotype.Component;
 public class OrderCreatedConsumer {
 
     private final InventoryService inventoryService;
+    private final KafkaProducerService kafkaProducerService;
+    private final IdempotentConsumer idempotentConsumer;
 
     @KafkaListener(
             topics = "order-created",
@@ -32,6 +45,7 @@ public class OrderCreatedConsumer {
             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
             @Header(KafkaHeaders.OFFSET) long offset,
+            @Header(name = IdempotentConsumer.EVENT_ID_HEADER, required = false) String eventId,
             Acknowledgment acknowledgment
     ) {
         try {
@@ -41,29 +55,70 @@ public class OrderCreatedConsumer {
                     event.getOrderId(), event.getOrderNumber(), event.getUserId(), 
                     event.getItems().size());
 
-            // Reserve quantity cho từng item trong order
-            for (OrderCreatedEvent.OrderItemEvent item : event.getItems()) {
-                try {
-                    log.info("🔄 Attempting to reserve {} units for productId: {}", 
-                            item.getQuantity(), item.getProductId());
-                    inventoryService.reserveQuantity(item.getProductId(), item.getQuantity());
-                    log.info("✅ Successfully reserved {} units for productId: {}", 
-                            item.getQuantity(), item.getProductId());
-                } catch (Exception e) {
-                    log.error("❌ Failed to reserve quantity for productId: {}, quantity: {}. Error: {}", 
-                            item.getProductId(), item.getQuantity(), e.getMessage(), e);
-                    // Continue với item tiếp theo thay vì fail toàn bộ order
-                }
+            // Reserve + reply (outbox) + processed_events trong cùng transaction
+            // => redelivery không reserve lần 2, reply không thể mất sau khi reserve đã commit
+            String eventKey = IdempotentConsumer.eventKey(eventId, event.getOrderNumber());
+            AtomicReference<OrderReservationResult> reservation = new AtomicReference<>();
+            boolean executed;
+            try {
+                executed = idempotentConsumer.executeOnce(topic, eventKey, () -> {
+                    OrderReservationResult result = inventoryService.reserveForOrder(event.getOrderId(), event.getItems());
+                    publishResult(event, result);
+                    reservation.set(result);
+                });
+            } catch (IllegalArgumentException e) {
+                // Dữ liệu event không hợp lệ - retry cũng không thành công
+                // Transaction trên đã rollback => ghi reply thất bại + processed_events trong transaction mới
+                log.error("❌ Invalid OrderCreatedEvent for order: {}. Error: {}", event.getOrderNumber(), e.getMessage());
+                idempotentConsumer.executeOnce(topic, eventKey, () -> publishFailed(event, e.getMessage(), null));
+                acknowledgment.acknowledge();
+                return;
             }
 
             // Acknowledge message
             acknowledgment.acknowledge();
-            log.info("✅ Successfully processed OrderCreatedEvent for order: {}", 
-                    event.getOrderNumber());
-        } catch (Exception e) {
+            if (executed) {
+                log.info("✅ Successfully processed OrderCreatedEvent for order: {} (reserved: {})",
+                        event.getOrderNumber(), reservation.get().isSuccess());
+            }
+        } catch (RuntimeException e) {
+            // Transaction reserve đã rollback cùng processed_events => ném lại để error handler seek và xử lý lại
             log.error("❌ Error processing OrderCreatedEvent: {}", e.getMessage(), e);
-            // Don't acknowledge - message will be retried
+            throw e;
         }
     }
-}
 
+    private void publishResult(OrderCreatedEvent event, OrderReservationResult result) {
+        if (!result.isSuccess()) {
+            publishFailed(event, "Không đủ hàng trong kho", result);
+            return;
+        }
+        kafkaProducerService.publishInventoryReservedEvent(InventoryReservedEvent.builder()
+                .orderId(event.getOrderId())
+                .orderNumber(event.getOrderNumber())
+                .items(result.getReservedQuantities().entrySet().stream()
+                        .map(entry -> InventoryReservedEvent.ReservedItem.builder()
+                                .productId(entry.getKey())
+                                .quantity(entry.getValue())
+                                .build())
+                        .toList())
+                .timestamp(Instant.now())
+                .build());
+    }
+
+    private void publishFailed(OrderCreatedEvent event, String reason, OrderReservationResult result) {
+        kafkaProducerService.publishInventoryReservationFailedEvent(InventoryReservationFailedEvent.builder()
+                .orderId(event.getOrderId())
+                .orderNumber(event.getOrderNumber())
+                .reason(reason)
+                .shortageItems(result == null ? List.of() : result.getShortageItems().stream()
+                        .map(item -> InventoryReservationFailedEvent.ShortageItem.builder()
+                                .productId(item.getProductId())
+                                .requestedQuantity(item.getRequestedQuantity())
+                                .availableQuantity(item.getAvailableQuantity())
+                                .build())
+                        .toList())
+                .timestamp(Instant.now())
+                .build());
+    }
+}
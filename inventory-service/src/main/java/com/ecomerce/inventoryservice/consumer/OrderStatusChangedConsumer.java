@@ -1,6 +1,7 @@
 package com.ecomerce.inventoryservice.consumer;
 
 import com.ecomerce.inventoryservice.event.OrderStatusChangedEvent;
+import com.ecomerce.inventoryservice.idempotency.IdempotentConsumer;
 import com.ecomerce.inventoryservice.service.InventoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +16,7 @@ import org.springframework.stereotype.Component;
  * Kafka Consumer để consume OrderStatusChangedEvent
  * - Khi order bị CANCELLED: release reserved quantity (trả lại số lượng đã reserve)
  * - Khi order DELIVERED: deduct quantity từ inventory (trừ số lượng đã reserve khỏi quantity thực tế)
+ * Số lượng lấy từ order_reservations ghi lúc reserve, không lấy từ items trong event
  */
 @Slf4j
 @Component
@@ -22,6 +24,7 @@ import org.springframework.stereotype.Component;
 public class OrderStatusChangedConsumer {
 
     private final InventoryService inventoryService;
+    private final IdempotentConsumer idempotentConsumer;
 
     @KafkaListener(
             topics = "order-status-changed",
@@ -33,6 +36,7 @@ public class OrderStatusChangedConsumer {
             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
             @Header(KafkaHeaders.OFFSET) long offset,
+            @Header(name = IdempotentConsumer.EVENT_ID_HEADER, required = false) String eventId,
             Acknowledgment acknowledgment
     ) {
         try {
@@ -43,52 +47,18 @@ public class OrderStatusChangedConsumer {
                     event.getOldStatus(), event.getNewStatus(),
                     event.getItems() != null ? event.getItems().size() : 0);
 
-            // Validate event has items
-            if (event.getItems() == null || event.getItems().isEmpty()) {
-                log.warn("⚠️ OrderStatusChangedEvent for order {} has no items. Skipping inventory update.", 
-                        event.getOrderNumber());
-                acknowledgment.acknowledge();
-                return;
-            }
-
-            // Xử lý dựa trên status mới
+            // Cập nhật kho + ghi processed_events trong cùng transaction => redelivery không release/deduct lần 2
+            String eventKey = IdempotentConsumer.eventKey(eventId, event.getOrderId() + ":" + event.getNewStatus());
             if ("CANCELLED".equals(event.getNewStatus())) {
-                log.info("🔄 Order cancelled: {} - Releasing reserved quantity for {} items", 
-                        event.getOrderNumber(), event.getItems().size());
-                
-                // Release reserved quantity cho từng item
-                for (OrderStatusChangedEvent.OrderItemEvent item : event.getItems()) {
-                    try {
-                        log.info("🔄 Releasing {} reserved units for productId: {}", 
-                                item.getQuantity(), item.getProductId());
-                        inventoryService.releaseReservedQuantity(item.getProductId(), item.getQuantity());
-                        log.info("✅ Successfully released {} reserved units for productId: {}", 
-                                item.getQuantity(), item.getProductId());
-                    } catch (Exception e) {
-                        log.error("❌ Failed to release reserved quantity for productId: {}, quantity: {}. Error: {}", 
-                                item.getProductId(), item.getQuantity(), e.getMessage(), e);
-                        // Continue với item tiếp theo thay vì fail toàn bộ order
-                    }
-                }
+                log.info("🔄 Order cancelled: {} - Releasing reserved quantity", event.getOrderNumber());
+                idempotentConsumer.executeOnce(topic, eventKey,
+                        () -> inventoryService.releaseForOrder(event.getOrderId()));
                 
             } else if ("DELIVERED".equals(event.getNewStatus())) {
-                log.info("📦 Order delivered: {} - Deducting quantity for {} items", 
-                        event.getOrderNumber(), event.getItems().size());
-                
-                // Deduct quantity cho từng item (đã được reserve, giờ trừ khỏi quantity thực tế)
-                for (OrderStatusChangedEvent.OrderItemEvent item : event.getItems()) {
-                    try {
-                        log.info("📦 Deducting {} units for productId: {}", 
-                                item.getQuantity(), item.getProductId());
-                        inventoryService.deductQuantity(item.getProductId(), item.getQuantity());
-                        log.info("✅ Successfully deducted {} units for productId: {}", 
-                                item.getQuantity(), item.getProductId());
-                    } catch (Exception e) {
-                        log.error("❌ Failed to deduct quantity for productId: {}, quantity: {}. Error: {}", 
-                                item.getProductId(), item.getQuantity(), e.getMessage(), e);
-                        // Continue với item tiếp theo thay vì fail toàn bộ order
-                    }
-                }
+                log.info("📦 Order delivered: {} - Deducting reserved quantity", event.getOrderNumber());
+                // Trừ số lượng đã reserve khỏi quantity thực tế
+                idempotentConsumer.executeOnce(topic, eventKey,
+                        () -> inventoryService.deductForOrder(event.getOrderId()));
             } else {
                 log.debug("ℹ️ Order status changed to {} - No inventory action required for order: {}", 
                         event.getNewStatus(), event.getOrderNumber());
@@ -98,9 +68,10 @@ public class OrderStatusChangedConsumer {
             acknowledgment.acknowledge();
             log.info("✅ Successfully processed OrderStatusChangedEvent for order: {}", 
                     event.getOrderNumber());
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             log.error("❌ Error processing OrderStatusChangedEvent: {}", e.getMessage(), e);
-            // Don't acknowledge - message will be retried
+            // Ném lại => DefaultErrorHandler seek và xử lý lại, processed_events chặn release/deduct lần 2
+            throw e;
         }
     }
 }
@@ -2,6 +2,7 @@ package com.ecomerce.inventoryservice.controller;
 
 import com.ecomerce.inventoryservice.annontation.ApiMessage;
 import com.ecomerce.inventoryservice.dto.request.InventoryAdjustRequest;
+import com.ecomerce.inventoryservice.dto.request.InventoryBatchCreateRequest;
 import com.ecomerce.inventoryservice.dto.request.InventoryCreateRequest;
 import com.ecomerce.inventoryservice.dto.request.InventoryUpdateRequest;
 import com.ecomerce.inventoryservice.dto.response.InventoryResponse;
@@ -45,6 +46,19 @@ public class InventoryController {
         return ResponseEntity.ok(inventory);
     }
 
+    @PostMapping("/batch")
+    @ApiMessage(value = "Tạo kho hàng thành công")
+    @PreAuthorize("hasAuthority('POST /api/inventory')")
+    @Operation(
+            summary = "Tạo kho hàng cho nhiều sản phẩm",
+            description = "Yêu cầu quyền: <b>POST /api/inventory</b>. Kiểm tra tất cả sản phẩm với product-service trong 1 request"
+    )
+    public ResponseEntity<List<InventoryResponse>> createInventories(
+            @Valid @RequestBody InventoryBatchCreateRequest request) {
+        List<InventoryResponse> inventories = inventoryService.createInventories(request);
+        return ResponseEntity.ok(inventories);
+    }
+
     @GetMapping("/product/{productId}")
     @ApiMessage(value = "Lấy thông tin kho hàng thành công")
     @Operation(summary = "Lấy thông tin kho hàng theo Product ID")
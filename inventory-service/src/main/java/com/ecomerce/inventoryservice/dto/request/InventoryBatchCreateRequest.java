@@ -0,0 +1,17 @@
+package com.ecomerce.inventoryservice.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class InventoryBatchCreateRequest {
+
+    @NotEmpty(message = "Danh sách kho hàng không được để trống")
+    @Size(max = 200, message = "Tối đa 200 sản phẩm mỗi lần tạo")
+    @Valid
+    private List<InventoryCreateRequest> items;
+}
@@ -0,0 +1,38 @@
+package com.ecomerce.inventoryservice.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kết quả reserve toàn bộ items của 1 order
+ * - success = true: mọi item đã được reserve
+ * - success = false: không item nào bị reserve, shortageItems chứa các item thiếu hàng
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderReservationResult {
+    private Long orderId;
+    private boolean success;
+
+    /** productId -> số lượng đã reserve (đã gộp các dòng trùng sản phẩm) */
+    private Map<Long, Integer> reservedQuantities;
+
+    private List<ShortageItem> shortageItems;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ShortageItem {
+        private Long productId;
+        private Integer requestedQuantity;
+        private Integer availableQuantity; // null = không tìm thấy inventory
+    }
+}
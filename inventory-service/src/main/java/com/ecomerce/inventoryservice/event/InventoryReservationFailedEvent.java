@@ -0,0 +1,34 @@
+package com.ecomerce.inventoryservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Event publish khi order không reserve được (không có item nào bị reserve - all-or-nothing)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservationFailedEvent {
+    private Long orderId;
+    private String orderNumber;
+    private String reason;
+    private List<ShortageItem> shortageItems;
+    private Instant timestamp;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ShortageItem {
+        private Long productId;
+        private Integer requestedQuantity;
+        private Integer availableQuantity; // null = không tìm thấy inventory
+    }
+}
@@ -0,0 +1,32 @@
+package com.ecomerce.inventoryservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Event publish khi toàn bộ items của order đã được reserve thành công
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservedEvent {
+    private Long orderId;
+    private String orderNumber;
+    private List<ReservedItem> items;
+    private Instant timestamp;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReservedItem {
+        private Long productId;
+        private Integer quantity;
+    }
+}
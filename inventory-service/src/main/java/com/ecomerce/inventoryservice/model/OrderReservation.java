@@ -0,0 +1,53 @@
+package com.ecomerce.inventoryservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Số lượng đã reserve cho từng sản phẩm của 1 order, ghi cùng transaction với reserve
+ * Release / deduct chỉ áp dụng cho các row còn RESERVED => order reserve thất bại không trả hàng,
+ * event hủy / giao hàng bị gửi lại cũng không trả / trừ kho lần 2
+ */
+@Entity
+@Table(name = "order_reservations", indexes = {
+    @Index(name = "uk_order_reservation_order_product", columnList = "order_id, product_id", unique = true)
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private ReservationStatus status = ReservationStatus.RESERVED;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    public enum ReservationStatus {
+        RESERVED,  // Đang giữ hàng cho order
+        RELEASED,  // Order bị hủy, đã trả hàng về kho
+        DEDUCTED   // Order đã giao, đã trừ khỏi tồn kho
+    }
+}
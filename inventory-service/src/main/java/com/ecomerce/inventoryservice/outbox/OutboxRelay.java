@@ -0,0 +1,287 @@
+package com.ecomerce.inventoryservice.outbox;
+
+import com.ecomerce.inventoryservice.model.OutboxEvent;
+import com.ecomerce.inventoryservice.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Đọc bảng outbox theo batch và publish kết quả reserve hàng lên Kafka (chạy nền)
+ * 1. Claim: transaction ngắn SELECT ... FOR UPDATE SKIP LOCKED + set locked_until (lease) rồi commit ngay
+ * 2. Gửi cả batch bất đồng bộ và chờ ack NGOÀI transaction (không giữ lock / connection DB khi chờ Kafka)
+ * 3. Ghi kết quả: transaction ngắn đánh dấu sent / failed
+ * - Key = orderNumber => event của cùng 1 order luôn vào cùng partition theo đúng thứ tự ghi
+ * - Gửi lỗi => hẹn lại theo exponential backoff (next_attempt_at), event sau của cùng order chờ theo
+ * - Chỉ lỗi không thể tự hết (payload không deserialize được, class không tồn tại, record quá lớn...) mới tính vào
+ *   attempts; vượt max-attempts thì chặn mọi event sau của cùng order (park aggregate) thay vì bị nhảy qua.
+ *   Lỗi tạm thời (Kafka down, timeout) chỉ backoff, không park
+ * - At-least-once: crash sau khi gửi nhưng trước khi đánh dấu => lease hết hạn, event được gửi lại (consumer dedupe theo eventId)
+ *
+ * Metrics: outbox.pending, outbox.parked, outbox.lag.seconds, outbox.publish.delay, outbox.events.sent/failed
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    public static final String EVENT_ID_HEADER = "eventId";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int CLEANUP_CHUNK_SIZE = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong parkedEvents = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer publishDelay;
+
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${outbox.relay.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.relay.backoff-initial-ms:1000}")
+    private long backoffInitialMs;
+
+    @Value("${outbox.relay.backoff-max-ms:60000}")
+    private long backoffMaxMs;
+
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Số event trong outbox chưa được gửi lên Kafka")
+                .register(meterRegistry);
+        Gauge.builder("outbox.parked", parkedEvents, AtomicLong::get)
+                .description("Số event lỗi không thể tự hết quá max-attempts đang chặn order của nó")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Tuổi của event cũ nhất chưa được gửi")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("outbox.events.sent").register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.events.failed").register(meterRegistry);
+        this.publishDelay = Timer.builder("outbox.publish.delay")
+                .description("Thời gian từ lúc ghi outbox tới lúc Kafka ack")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Poll outbox và gửi tới khi hết event (hoặc gặp lỗi thì đợi lượt poll sau)
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:200}")
+    public void relay() {
+        try {
+            int published;
+            do {
+                published = publishBatch();
+            } while (published == batchSize);
+        } catch (Exception e) {
+            log.error("❌ Outbox relay error: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.metrics-interval-ms:5000}")
+    public void refreshLagMetrics() {
+        try {
+            pendingEvents.set(outboxEventRepository.countBySentAtIsNull());
+            long parked = outboxEventRepository.countBySentAtIsNullAndAttemptsGreaterThanEqual(maxAttempts);
+            if (parkedEvents.getAndSet(parked) != parked && parked > 0) {
+                log.warn("⚠️ Outbox có {} event lỗi không thể tự hết {} lần, các event sau của cùng order đang bị giữ lại", parked, maxAttempts);
+            }
+            Instant oldest = outboxEventRepository.findOldestUnsentCreatedAt();
+            lagSeconds.set(oldest == null ? 0 : Duration.between(oldest, Instant.now()).toSeconds());
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể cập nhật outbox metrics: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${outbox.cleanup.cron:0 0 3 * * *}")
+    public void purgeSentEvents() {
+        Instant before = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        int total = 0;
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    outboxEventRepository.deleteSentBefore(before, CLEANUP_CHUNK_SIZE));
+            total += deleted != null ? deleted : 0;
+        } while (deleted != null && deleted == CLEANUP_CHUNK_SIZE);
+        log.info("🧹 Đã xóa {} outbox events gửi trước {}", total, before);
+    }
+
+    /**
+     * Claim -> gửi -> ghi kết quả cho 1 batch
+     * @return số event gửi thành công; trả về < batchSize để dừng vòng lặp khi hết event hoặc có lỗi
+     */
+    int publishBatch() {
+        List<OutboxEvent> events = transactionTemplate.execute(status -> claimBatch());
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+
+        Map<OutboxEvent, CompletableFuture<SendResult<String, Object>>> inFlight = new LinkedHashMap<>();
+        Map<OutboxEvent, Exception> failures = new LinkedHashMap<>();
+        List<Long> skippedIds = new ArrayList<>();
+        // Event lỗi sẽ chặn các event sau của cùng order trong batch này (giữ thứ tự theo order)
+        Set<String> blockedAggregates = new HashSet<>();
+
+        for (OutboxEvent event : events) {
+            if (blockedAggregates.contains(event.getAggregateId())) {
+                skippedIds.add(event.getId());
+                continue;
+            }
+            try {
+                Object payload = objectMapper.readValue(event.getPayload(), Class.forName(event.getEventType()));
+                ProducerRecord<String, Object> record = new ProducerRecord<>(event.getTopic(), event.getAggregateId(), payload);
+                record.headers().add(EVENT_ID_HEADER, event.getEventId().getBytes(StandardCharsets.UTF_8));
+                inFlight.put(event, kafkaTemplate.send(record));
+            } catch (Exception e) {
+                failures.put(event, e);
+                blockedAggregates.add(event.getAggregateId());
+            }
+        }
+
+        List<Long> sentIds = new ArrayList<>(inFlight.size());
+        Instant sentAt = Instant.now();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (Map.Entry<OutboxEvent, CompletableFuture<SendResult<String, Object>>> entry : inFlight.entrySet()) {
+            OutboxEvent event = entry.getKey();
+            try {
+                entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sentIds.add(event.getId());
+                publishDelay.record(Duration.between(event.getCreatedAt(), Instant.now()));
+            } catch (Exception e) {
+                failures.put(event, e);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> recordResults(sentIds, sentAt, failures, skippedIds));
+
+        log.debug("📤 Outbox relay: sent {}/{} events", sentIds.size(), events.size());
+        return failures.isEmpty() ? sentIds.size() : 0;
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> events = outboxEventRepository.findClaimable(maxAttempts, now, batchSize);
+        if (!events.isEmpty()) {
+            outboxEventRepository.lease(events.stream().map(OutboxEvent::getId).toList(), now.plusMillis(leaseMs));
+        }
+        return events;
+    }
+
+    private void recordResults(List<Long> sentIds, Instant sentAt, Map<OutboxEvent, Exception> failures, List<Long> skippedIds) {
+        if (!sentIds.isEmpty()) {
+            outboxEventRepository.markSent(sentIds, sentAt);
+            sentCounter.increment(sentIds.size());
+        }
+        if (!failures.isEmpty()) {
+            Instant now = Instant.now();
+            for (Map.Entry<OutboxEvent, Exception> failure : failures.entrySet()) {
+                OutboxEvent event = failure.getKey();
+                String error = truncate(String.valueOf(rootCause(failure.getValue()).getMessage()));
+                if (isRetryable(failure.getValue())) {
+                    outboxEventRepository.markRetry(event.getId(), error,
+                            now.plus(backoff(event.getAttempts() + event.getRetries() + 1)));
+                } else {
+                    outboxEventRepository.markFailed(event.getId(), error,
+                            now.plus(backoff(event.getAttempts() + event.getRetries() + 1)));
+                    log.error("❌ Outbox event {} ({}) lỗi không thể tự hết (lần {}/{}): {}",
+                            event.getEventId(), event.getAggregateId(), event.getAttempts() + 1, maxAttempts, error);
+                }
+            }
+            failedCounter.increment(failures.size());
+            log.warn("⚠️ Outbox relay: {} event gửi thất bại, sẽ thử lại theo backoff. Lỗi: {}",
+                    failures.size(), rootCause(failures.values().iterator().next()).getMessage());
+        }
+        if (!skippedIds.isEmpty()) {
+            outboxEventRepository.releaseLease(skippedIds);
+        }
+    }
+
+    /**
+     * backoff-initial-ms * 2^(failures-1), tối đa backoff-max-ms
+     */
+    Duration backoff(int failures) {
+        int exponent = Math.min(Math.max(failures - 1, 0), 30);
+        return Duration.ofMillis(Math.min(backoffInitialMs << exponent, backoffMaxMs));
+    }
+
+    /**
+     * Lỗi do chính payload / record (gửi lại bao nhiêu lần cũng không được) => false; còn lại (Kafka down, timeout...) => true
+     */
+    static boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonProcessingException
+                    || cause instanceof ClassNotFoundException
+                    || cause instanceof SerializationException
+                    || cause instanceof RecordTooLargeException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
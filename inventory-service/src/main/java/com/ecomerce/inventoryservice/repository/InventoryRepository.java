@@ -1,11 +1,17 @@
 package com.ecomerce.inventoryservice.repository;
 
 import com.ecomerce.inventoryservice.model.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +19,8 @@ import java.util.Optional;
 public interface InventoryRepository extends JpaRepository<Inventory, Long>, JpaSpecificationExecutor<Inventory> {
     
     Optional<Inventory> findByProductId(Long productId);
+
+    List<Inventory> findByProductIdIn(Collection<Long> productIds);
     
     List<Inventory> findByIsActiveTrue();
     
@@ -20,5 +28,51 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long>, Jpa
     
     @Query("SELECT i FROM Inventory i WHERE i.availableQuantity <= i.lowStockThreshold AND i.isActive = true")
     List<Inventory> findLowStockItems();
+
+    /**
+     * SELECT ... FOR UPDATE các inventory của 1 order, theo thứ tự product_id tăng dần.
+     * Mọi transaction đều lock theo cùng thứ tự => 2 order chứa cùng sản phẩm không thể deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productId IN :productIds ORDER BY i.productId ASC")
+    List<Inventory> findByProductIdInOrderByProductIdForUpdate(@Param("productIds") Collection<Long> productIds);
+
+    // ==================== ATOMIC STOCK UPDATES ====================
+    // Điều kiện kiểm tra + cập nhật nằm trong cùng 1 câu UPDATE => DB tự lock row,
+    // không bị lost update khi nhiều consumer cùng xử lý 1 sản phẩm.
+    // Số row bị ảnh hưởng = 0 nghĩa là không đủ hàng (hoặc không tồn tại inventory).
+
+    /**
+     * Reserve hàng: chỉ thành công khi available_quantity >= quantity
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity + :quantity, " +
+            "i.availableQuantity = i.availableQuantity - :quantity, i.updatedAt = :now " +
+            "WHERE i.productId = :productId AND i.availableQuantity >= :quantity")
+    int reserveStock(@Param("productId") Long productId,
+                     @Param("quantity") Integer quantity,
+                     @Param("now") Instant now);
+
+    /**
+     * Trả lại hàng đã reserve: chỉ thành công khi reserved_quantity >= quantity
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity - :quantity, " +
+            "i.availableQuantity = i.availableQuantity + :quantity, i.updatedAt = :now " +
+            "WHERE i.productId = :productId AND i.reservedQuantity >= :quantity")
+    int releaseReservedStock(@Param("productId") Long productId,
+                             @Param("quantity") Integer quantity,
+                             @Param("now") Instant now);
+
+    /**
+     * Trừ kho hàng đã reserve (order delivered): quantity và reserved cùng giảm, available giữ nguyên
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity - :quantity, " +
+            "i.quantity = i.quantity - :quantity, i.updatedAt = :now " +
+            "WHERE i.productId = :productId AND i.reservedQuantity >= :quantity AND i.quantity >= :quantity")
+    int deductReservedStock(@Param("productId") Long productId,
+                            @Param("quantity") Integer quantity,
+                            @Param("now") Instant now);
 }
 
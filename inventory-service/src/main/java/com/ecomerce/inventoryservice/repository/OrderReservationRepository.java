@@ -0,0 +1,33 @@
+package com.ecomerce.inventoryservice.repository;
+
+import com.ecomerce.inventoryservice.model.OrderReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderReservationRepository extends JpaRepository<OrderReservation, Long> {
+
+    /**
+     * Lock các row còn RESERVED của order (theo product_id tăng dần như lúc reserve)
+     * 2 event hủy / giao cùng 1 order xử lý song song: bên sau chờ lock rồi thấy status đã đổi => không làm gì
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM OrderReservation r WHERE r.orderId = :orderId AND r.status = :status ORDER BY r.productId ASC")
+    List<OrderReservation> findByOrderIdAndStatusForUpdate(@Param("orderId") Long orderId,
+                                                           @Param("status") OrderReservation.ReservationStatus status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderReservation r SET r.status = :status, r.updatedAt = :now WHERE r.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("status") OrderReservation.ReservationStatus status,
+                     @Param("now") Instant now);
+}
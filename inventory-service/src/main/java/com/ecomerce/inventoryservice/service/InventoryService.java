@@ -1,10 +1,13 @@
 package com.ecomerce.inventoryservice.service;
 
 import com.ecomerce.inventoryservice.dto.request.InventoryAdjustRequest;
+import com.ecomerce.inventoryservice.dto.request.InventoryBatchCreateRequest;
 import com.ecomerce.inventoryservice.dto.request.InventoryCreateRequest;
 import com.ecomerce.inventoryservice.dto.request.InventoryUpdateRequest;
 import com.ecomerce.inventoryservice.dto.response.InventoryResponse;
+import com.ecomerce.inventoryservice.dto.response.OrderReservationResult;
 import com.ecomerce.inventoryservice.dto.response.PageResponseDto;
+import com.ecomerce.inventoryservice.event.OrderCreatedEvent;
 import com.ecomerce.inventoryservice.model.Inventory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -14,6 +17,8 @@ import java.util.List;
 public interface InventoryService {
     InventoryResponse createInventory(InventoryCreateRequest request);
     
+    List<InventoryResponse> createInventories(InventoryBatchCreateRequest request);
+    
     InventoryResponse getInventoryByProductId(Long productId);
     
     InventoryResponse getInventoryById(Long id);
@@ -28,10 +33,16 @@ public interface InventoryService {
     
     void reserveQuantity(Long productId, Integer quantity);
     
+    OrderReservationResult reserveForOrder(Long orderId, List<OrderCreatedEvent.OrderItemEvent> items);
+    
     void releaseReservedQuantity(Long productId, Integer quantity);
     
     void deductQuantity(Long productId, Integer quantity);
     
+    int releaseForOrder(Long orderId);
+    
+    int deductForOrder(Long orderId);
+    
     List<InventoryResponse> getLowStockItems();
     
     Boolean checkAvailability(Long productId, Integer quantity);
@@ -0,0 +1,9 @@
+package com.ecomerce.inventoryservice.service;
+
+import com.ecomerce.inventoryservice.event.InventoryReservationFailedEvent;
+import com.ecomerce.inventoryservice.event.InventoryReservedEvent;
+
+public interface KafkaProducerService {
+    void publishInventoryReservedEvent(InventoryReservedEvent event);
+    void publishInventoryReservationFailedEvent(InventoryReservationFailedEvent event);
+}
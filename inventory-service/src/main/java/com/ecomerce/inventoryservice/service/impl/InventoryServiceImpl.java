@@ -4,13 +4,19 @@ import com.ecomerce.inventoryservice.advice.exeption.ResourceAlreadyExistsExcept
 import com.ecomerce.inventoryservice.advice.exeption.ResourceNotFoundException;
 import com.ecomerce.inventoryservice.client.ProductServiceClient;
 import com.ecomerce.inventoryservice.client.dto.ProductInfoResponse;
+import com.ecomerce.inventoryservice.config.feign.ProductServiceResponse;
 import com.ecomerce.inventoryservice.dto.request.InventoryAdjustRequest;
+import com.ecomerce.inventoryservice.dto.request.InventoryBatchCreateRequest;
 import com.ecomerce.inventoryservice.dto.request.InventoryCreateRequest;
 import com.ecomerce.inventoryservice.dto.request.InventoryUpdateRequest;
 import com.ecomerce.inventoryservice.dto.response.InventoryResponse;
+import com.ecomerce.inventoryservice.dto.response.OrderReservationResult;
 import com.ecomerce.inventoryservice.dto.response.PageResponseDto;
+import com.ecomerce.inventoryservice.event.OrderCreatedEvent;
 import com.ecomerce.inventoryservice.model.Inventory;
+import com.ecomerce.inventoryservice.model.OrderReservation;
 import com.ecomerce.inventoryservice.repository.InventoryRepository;
+import com.ecomerce.inventoryservice.repository.OrderReservationRepository;
 import com.ecomerce.inventoryservice.service.InventoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,7 +27,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,6 +44,7 @@ import java.util.stream.Collectors;
 public class InventoryServiceImpl implements InventoryService {
 
     private final InventoryRepository inventoryRepository;
+    private final OrderReservationRepository orderReservationRepository;
     private final ProductServiceClient productServiceClient;
 
     @Override
@@ -80,6 +94,73 @@ public class InventoryServiceImpl implements InventoryService {
         return mapToResponse(inventory);
     }
 
+    /**
+     * Tạo kho hàng cho nhiều sản phẩm: 1 query kiểm tra trùng, 1 request batch tới product-service, 1 saveAll
+     */
+    @Override
+    public List<InventoryResponse> createInventories(InventoryBatchCreateRequest request) {
+        List<Long> productIds = request.getItems().stream()
+                .map(InventoryCreateRequest::getProductId)
+                .collect(Collectors.toList());
+        if (new HashSet<>(productIds).size() != productIds.size()) {
+            throw new IllegalArgumentException("Danh sách có sản phẩm bị trùng lặp");
+        }
+
+        // Check if inventory already exists for any product
+        List<Inventory> existing = inventoryRepository.findByProductIdIn(productIds);
+        if (!existing.isEmpty()) {
+            throw new ResourceAlreadyExistsException("Kho hàng đã tồn tại cho sản phẩm: " + existing.stream()
+                    .map(Inventory::getProductId)
+                    .collect(Collectors.toList()));
+        }
+
+        // Validate products exist via Feign Client (1 request cho tất cả sản phẩm)
+        Set<Long> activeProductIds = fetchActiveProductIds(productIds);
+        List<Long> invalidProductIds = productIds.stream()
+                .filter(productId -> !activeProductIds.contains(productId))
+                .collect(Collectors.toList());
+        if (!invalidProductIds.isEmpty()) {
+            throw new IllegalArgumentException("Sản phẩm không tồn tại hoặc đã bị vô hiệu hóa: " + invalidProductIds);
+        }
+
+        List<Inventory> inventories = request.getItems().stream()
+                .map(item -> {
+                    Inventory inventory = Inventory.builder()
+                            .productId(item.getProductId())
+                            .quantity(item.getQuantity() != null ? item.getQuantity() : 0)
+                            .reservedQuantity(0)
+                            .lowStockThreshold(item.getLowStockThreshold() != null ? item.getLowStockThreshold() : 10)
+                            .isActive(true)
+                            .build();
+                    inventory.calculateAvailableQuantity();
+                    return inventory;
+                })
+                .collect(Collectors.toList());
+
+        inventories = inventoryRepository.saveAll(inventories);
+        log.info("✅ Created inventory for {} products", inventories.size());
+
+        return inventories.stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    private Set<Long> fetchActiveProductIds(List<Long> productIds) {
+        try {
+            ProductServiceResponse<List<ProductInfoResponse>> response = productServiceClient.getProductsByIds(productIds);
+            if (response == null || response.getData() == null) {
+                return Set.of();
+            }
+            return response.getData().stream()
+                    .filter(product -> Boolean.TRUE.equals(product.getActive()))
+                    .map(ProductInfoResponse::getId)
+                    .collect(Collectors.toSet());
+        } catch (Exception e) {
+            log.error("❌ Error validating products via Feign Client: {}", e.getMessage());
+            throw new RuntimeException("Không thể xác thực sản phẩm. Vui lòng thử lại sau.");
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public InventoryResponse getInventoryByProductId(Long productId) {
@@ -169,34 +250,157 @@ public class InventoryServiceImpl implements InventoryService {
 
     @Override
     public void reserveQuantity(Long productId, Integer quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy kho hàng cho sản phẩm: " + productId));
-
-        inventory.reserveQuantity(quantity);
-        inventoryRepository.save(inventory);
+        if (inventoryRepository.reserveStock(productId, quantity, Instant.now()) == 0) {
+            Inventory inventory = findInventoryByProductId(productId);
+            throw new IllegalStateException("Không đủ hàng trong kho. Còn lại: " + inventory.getAvailableQuantity());
+        }
         log.info("✅ Reserved quantity: {} for product: {}", quantity, productId);
     }
 
+    /**
+     * Reserve toàn bộ items của 1 order trong 1 transaction (all-or-nothing):
+     * 1. Gộp số lượng theo productId (TreeMap => thứ tự tăng dần)
+     * 2. Lock các row bằng 1 câu SELECT ... FOR UPDATE theo product_id tăng dần (không deadlock giữa các order)
+     * 3. Kiểm tra đủ hàng cho mọi item trước khi sửa bất kỳ row nào
+     * 4. Cập nhật tất cả trong cùng transaction (Hibernate gom thành JDBC batch khi flush)
+     * 5. Ghi order_reservations cho từng sản phẩm (chỉ khi reserve thành công)
+     */
     @Override
-    public void releaseReservedQuantity(Long productId, Integer quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy kho hàng cho sản phẩm: " + productId));
+    public OrderReservationResult reserveForOrder(Long orderId, List<OrderCreatedEvent.OrderItemEvent> items) {
+        Map<Long, Integer> requested = new TreeMap<>();
+        for (OrderCreatedEvent.OrderItemEvent item : items) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Item không hợp lệ trong order " + orderId + ": " + item);
+            }
+            requested.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
 
-        inventory.releaseReservedQuantity(quantity);
-        inventoryRepository.save(inventory);
+        Map<Long, Inventory> locked = inventoryRepository.findByProductIdInOrderByProductIdForUpdate(requested.keySet())
+                .stream()
+                .collect(Collectors.toMap(Inventory::getProductId, Function.identity()));
+
+        List<OrderReservationResult.ShortageItem> shortageItems = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+            Inventory inventory = locked.get(entry.getKey());
+            if (inventory == null || inventory.getAvailableQuantity() < entry.getValue()) {
+                shortageItems.add(OrderReservationResult.ShortageItem.builder()
+                        .productId(entry.getKey())
+                        .requestedQuantity(entry.getValue())
+                        .availableQuantity(inventory != null ? inventory.getAvailableQuantity() : null)
+                        .build());
+            }
+        }
+
+        if (!shortageItems.isEmpty()) {
+            // Chưa sửa row nào => transaction commit cũng không thay đổi dữ liệu, chỉ nhả lock
+            log.warn("⚠️ Không đủ hàng cho order {}: {} sản phẩm thiếu", orderId, shortageItems.size());
+            return OrderReservationResult.builder()
+                    .orderId(orderId)
+                    .success(false)
+                    .reservedQuantities(Map.of())
+                    .shortageItems(shortageItems)
+                    .build();
+        }
+
+        Instant now = Instant.now();
+        List<OrderReservation> reservations = new ArrayList<>(requested.size());
+        for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+            locked.get(entry.getKey()).reserveQuantity(entry.getValue());
+            reservations.add(OrderReservation.builder()
+                    .orderId(orderId)
+                    .productId(entry.getKey())
+                    .quantity(entry.getValue())
+                    .createdAt(now)
+                    .build());
+        }
+        // Cùng transaction với reserve => release / deduct sau này chỉ áp dụng cho đúng số đã giữ
+        orderReservationRepository.saveAll(reservations);
+        log.info("✅ Reserved {} products for order: {}", requested.size(), orderId);
+
+        return OrderReservationResult.builder()
+                .orderId(orderId)
+                .success(true)
+                .reservedQuantities(requested)
+                .shortageItems(List.of())
+                .build();
+    }
+
+    @Override
+    public void releaseReservedQuantity(Long productId, Integer quantity) {
+        if (inventoryRepository.releaseReservedStock(productId, quantity, Instant.now()) == 0) {
+            findInventoryByProductId(productId);
+            throw new IllegalStateException("Số lượng đã đặt trước không hợp lệ");
+        }
         log.info("✅ Released reserved quantity: {} for product: {}", quantity, productId);
     }
 
     @Override
     public void deductQuantity(Long productId, Integer quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy kho hàng cho sản phẩm: " + productId));
-
-        inventory.deductQuantity(quantity);
-        inventoryRepository.save(inventory);
+        if (inventoryRepository.deductReservedStock(productId, quantity, Instant.now()) == 0) {
+            Inventory inventory = findInventoryByProductId(productId);
+            throw new IllegalStateException(String.format(
+                    "Không đủ số lượng để deduct. Quantity: %d, Reserved: %d, Requested: %d",
+                    inventory.getQuantity(), inventory.getReservedQuantity(), quantity));
+        }
         log.info("✅ Deducted quantity: {} for product: {}", quantity, productId);
     }
 
+    /**
+     * Trả lại hàng đã reserve cho order bị hủy (trong 1 transaction)
+     * Chỉ trả các row order_reservations còn RESERVED rồi chuyển sang RELEASED:
+     * order reserve thất bại (không có row) không được cộng lại hàng, hủy 2 lần cũng chỉ trả 1 lần
+     * @return số sản phẩm đã release
+     */
+    @Override
+    public int releaseForOrder(Long orderId) {
+        return settleReservations(orderId, OrderReservation.ReservationStatus.RELEASED);
+    }
+
+    /**
+     * Trừ kho cho order đã giao (trong 1 transaction), chỉ với các row order_reservations còn RESERVED
+     * @return số sản phẩm đã deduct
+     */
+    @Override
+    public int deductForOrder(Long orderId) {
+        return settleReservations(orderId, OrderReservation.ReservationStatus.DEDUCTED);
+    }
+
+    private int settleReservations(Long orderId, OrderReservation.ReservationStatus target) {
+        List<OrderReservation> reservations = orderReservationRepository.findByOrderIdAndStatusForUpdate(
+                orderId, OrderReservation.ReservationStatus.RESERVED);
+        if (reservations.isEmpty()) {
+            log.info("ℹ️ Order {} không còn hàng đang reserve, bỏ qua {}", orderId, target);
+            return 0;
+        }
+
+        Instant now = Instant.now();
+        int applied = 0;
+        for (OrderReservation reservation : reservations) {
+            int updated = target == OrderReservation.ReservationStatus.RELEASED
+                    ? inventoryRepository.releaseReservedStock(reservation.getProductId(), reservation.getQuantity(), now)
+                    : inventoryRepository.deductReservedStock(reservation.getProductId(), reservation.getQuantity(), now);
+            if (updated == 1) {
+                applied++;
+            } else {
+                log.warn("⚠️ Không thể {} {} units cho productId: {} (order: {})",
+                        target, reservation.getQuantity(), reservation.getProductId(), orderId);
+            }
+        }
+        // Đánh dấu cả row không cập nhật được kho => không retry vô hạn, lệch số liệu đã được log
+        orderReservationRepository.updateStatus(
+                reservations.stream().map(OrderReservation::getId).toList(), target, now);
+        log.info("✅ {} {}/{} products for order: {}", target, applied, reservations.size(), orderId);
+        return applied;
+    }
+
+    /**
+     * Dùng khi UPDATE có điều kiện không ảnh hưởng row nào: phân biệt "không tồn tại" với "không đủ hàng"
+     */
+    private Inventory findInventoryByProductId(Long productId) {
+        return inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy kho hàng cho sản phẩm: " + productId));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<InventoryResponse> getLowStockItems() {
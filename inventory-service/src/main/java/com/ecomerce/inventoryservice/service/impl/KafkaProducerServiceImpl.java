@@ -0,0 +1,73 @@
+package com.ecomerce.inventoryservice.service.impl;
+
+import com.ecomerce.inventoryservice.event.InventoryReservationFailedEvent;
+import com.ecomerce.inventoryservice.event.InventoryReservedEvent;
+import com.ecomerce.inventoryservice.model.OutboxEvent;
+import com.ecomerce.inventoryservice.repository.OutboxEventRepository;
+import com.ecomerce.inventoryservice.service.KafkaProducerService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Không gọi Kafka trực tiếp: kết quả reserve được ghi vào bảng outbox trong CÙNG transaction
+ * với thay đổi tồn kho và record processed_events
+ * - Reserve rollback => reply cũng rollback, event order-created được xử lý lại
+ * - Reserve commit => reply chắc chắn được OutboxRelay gửi đi (kể cả khi Kafka lỗi hoặc service restart)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KafkaProducerServiceImpl implements KafkaProducerService {
+
+    private static final String INVENTORY_RESERVED_TOPIC = "inventory-reserved";
+    private static final String INVENTORY_RESERVATION_FAILED_TOPIC = "inventory-reservation-failed";
+    private static final String AGGREGATE_TYPE_ORDER = "Order";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishInventoryReservedEvent(InventoryReservedEvent event) {
+        OutboxEvent outboxEvent = enqueue(INVENTORY_RESERVED_TOPIC, event.getOrderNumber(), event);
+        log.info("📤 Queued InventoryReservedEvent to outbox (id={}) for topic '{}', order: {}",
+                outboxEvent.getId(), INVENTORY_RESERVED_TOPIC, event.getOrderNumber());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishInventoryReservationFailedEvent(InventoryReservationFailedEvent event) {
+        OutboxEvent outboxEvent = enqueue(INVENTORY_RESERVATION_FAILED_TOPIC, event.getOrderNumber(), event);
+        log.info("📤 Queued InventoryReservationFailedEvent to outbox (id={}) for topic '{}', order: {}",
+                outboxEvent.getId(), INVENTORY_RESERVATION_FAILED_TOPIC, event.getOrderNumber());
+    }
+
+    private OutboxEvent enqueue(String topic, String key, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            // Throw để rollback cả transaction reserve
+            throw new IllegalStateException("Không thể serialize event " + event.getClass().getSimpleName(), e);
+        }
+
+        OutboxEvent outboxEvent = OutboxEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .aggregateType(AGGREGATE_TYPE_ORDER)
+                .aggregateId(key)
+                .topic(topic)
+                .eventType(event.getClass().getName())
+                .payload(payload)
+                .createdAt(Instant.now())
+                .build();
+        return outboxEventRepository.save(outboxEvent);
+    }
+}
@@ -0,0 +1,203 @@
+package com.ecomerce.inventoryservice;
+
+import com.ecomerce.inventoryservice.model.Inventory;
+import com.ecomerce.inventoryservice.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrency harness cho reserve hàng: 64 thread cùng reserve 1 SKU
+ * - Atomic UPDATE: số lần reserve thành công phải khớp tuyệt đối với reserved_quantity trong DB
+ * - Load-modify-save (cách cũ): chỉ đo và log số lost update + throughput để so sánh
+ *
+ * Chạy với MySQL thật (cấu hình trong application.properties):
+ * mvn test -Dtest=InventoryReservationConcurrencyTest -Dinventory.concurrency-test=true
+ */
+@Slf4j
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "inventory.concurrency-test", matches = "true")
+class InventoryReservationConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int RESERVATIONS_PER_THREAD = 50;
+    private static final int STOCK = 2000; // < 64 * 50 => có cả request bị từ chối vì hết hàng
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> createdInventoryIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        inventoryRepository.deleteAllById(createdInventoryIds);
+        createdInventoryIds.clear();
+    }
+
+    @Test
+    void atomicReserveHasNoLostUpdatesAndNeverOversells() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long productId = createInventory(STOCK);
+
+        RunResult result = runConcurrently(() -> Boolean.TRUE.equals(tx.execute(status ->
+                inventoryRepository.reserveStock(productId, 1, Instant.now()) == 1)));
+
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        assertEquals(0, report("atomic UPDATE", result, inventory));
+        assertEquals(STOCK, result.succeeded());
+        assertEquals(STOCK, inventory.getReservedQuantity());
+        assertEquals(0, inventory.getAvailableQuantity());
+        assertEquals(STOCK, inventory.getQuantity());
+    }
+
+    @Test
+    void atomicReleaseAndDeductKeepCountersConsistent() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long productId = createInventory(STOCK);
+        tx.executeWithoutResult(status -> inventoryRepository.reserveStock(productId, STOCK, Instant.now()));
+
+        // Nửa số thread release, nửa còn lại deduct - tổng yêu cầu vượt quá số đã reserve
+        AtomicInteger released = new AtomicInteger();
+        AtomicInteger deducted = new AtomicInteger();
+        AtomicInteger turn = new AtomicInteger();
+        runConcurrently(() -> {
+            boolean release = turn.getAndIncrement() % 2 == 0;
+            Integer updated = tx.execute(status -> release
+                    ? inventoryRepository.releaseReservedStock(productId, 1, Instant.now())
+                    : inventoryRepository.deductReservedStock(productId, 1, Instant.now()));
+            if (updated != null && updated == 1) {
+                (release ? released : deducted).incrementAndGet();
+                return true;
+            }
+            return false;
+        });
+
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        assertEquals(STOCK, released.get() + deducted.get());
+        assertEquals(0, inventory.getReservedQuantity());
+        assertEquals(STOCK - deducted.get(), inventory.getQuantity());
+        assertEquals(inventory.getQuantity() - inventory.getReservedQuantity(), inventory.getAvailableQuantity());
+    }
+
+    @Test
+    void compareWithLoadModifySave() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        Long atomicProductId = createInventory(STOCK);
+        RunResult atomic = runConcurrently(() -> Boolean.TRUE.equals(tx.execute(status ->
+                inventoryRepository.reserveStock(atomicProductId, 1, Instant.now()) == 1)));
+        assertEquals(0, report("atomic UPDATE", atomic, inventoryRepository.findByProductId(atomicProductId).orElseThrow()));
+
+        // Cách cũ: findByProductId -> Inventory.reserveQuantity -> save (không lock, không @Version)
+        Long legacyProductId = createInventory(STOCK);
+        RunResult legacy = runConcurrently(() -> {
+            try {
+                tx.executeWithoutResult(status -> {
+                    Inventory inventory = inventoryRepository.findByProductId(legacyProductId).orElseThrow();
+                    inventory.reserveQuantity(1);
+                    inventoryRepository.save(inventory);
+                });
+                return true;
+            } catch (IllegalStateException e) {
+                return false;
+            }
+        });
+        report("load-modify-save", legacy, inventoryRepository.findByProductId(legacyProductId).orElseThrow());
+
+        assertEquals(STOCK, atomic.succeeded());
+    }
+
+    // ==================== HELPERS ====================
+
+    private record RunResult(int succeeded, int rejected, long elapsedNanos) {
+        double throughput() {
+            return (succeeded + rejected) / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+
+    private interface Attempt {
+        boolean run();
+    }
+
+    private Long createInventory(int quantity) {
+        // Product ID âm để không đụng dữ liệu thật
+        long productId = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        Inventory inventory = inventoryRepository.save(Inventory.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .reservedQuantity(0)
+                .availableQuantity(quantity)
+                .build());
+        createdInventoryIds.add(inventory.getId());
+        return productId;
+    }
+
+    private RunResult runConcurrently(Attempt attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < RESERVATIONS_PER_THREAD; j++) {
+                        if (attempt.run()) {
+                            succeeded.incrementAndGet();
+                        } else {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long startedAt = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+            return new RunResult(succeeded.get(), rejected.get(), System.nanoTime() - startedAt);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Log kết quả 1 lần chạy và trả về số lost update (succeeded - reserved trong DB)
+     */
+    private int report(String name, RunResult result, Inventory inventory) {
+        int lostUpdates = result.succeeded() - inventory.getReservedQuantity();
+        log.info("📊 [{}] threads={}, succeeded={}, rejected={}, reserved(DB)={}, lostUpdates={}, throughput={} ops/s",
+                name, THREADS, result.succeeded(), result.rejected(), inventory.getReservedQuantity(),
+                lostUpdates, Math.round(result.throughput()));
+        return lostUpdates;
+    }
+}
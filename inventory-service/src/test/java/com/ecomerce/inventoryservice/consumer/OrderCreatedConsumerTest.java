@@ -0,0 +1,90 @@
+package com.ecomerce.inventoryservice.consumer;
+
+import com.ecomerce.inventoryservice.event.OrderCreatedEvent;
+import com.ecomerce.inventoryservice.event.OrderStatusChangedEvent;
+import com.ecomerce.inventoryservice.idempotency.IdempotentConsumer;
+import com.ecomerce.inventoryservice.service.InventoryService;
+import com.ecomerce.inventoryservice.service.KafkaProducerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lỗi hạ tầng khi reserve/release phải được ném lại cho DefaultErrorHandler (seek + retry), không ack;
+ * event không hợp lệ vẫn ghi reply thất bại và ack
+ */
+class OrderCreatedConsumerTest {
+
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+    private final IdempotentConsumer idempotentConsumer = mock(IdempotentConsumer.class);
+    private final OrderCreatedConsumer orderCreatedConsumer =
+            new OrderCreatedConsumer(inventoryService, kafkaProducerService, idempotentConsumer);
+    private final OrderStatusChangedConsumer orderStatusChangedConsumer =
+            new OrderStatusChangedConsumer(inventoryService, idempotentConsumer);
+
+    @Test
+    void reserveInfrastructureFailureIsRethrownWithoutAck() {
+        when(idempotentConsumer.executeOnce(eq("order-created"), anyString(), any()))
+                .thenThrow(new QueryTimeoutException("DB down"));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        assertThrows(QueryTimeoutException.class, () -> orderCreatedConsumer.consumeOrderCreatedEvent(
+                orderCreated(), "order-created", 0, 10L, "event-1", acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void invalidEventIsRepliedAsFailedAndAcknowledged() {
+        when(idempotentConsumer.executeOnce(eq("order-created"), anyString(), any()))
+                .thenThrow(new IllegalArgumentException("quantity <= 0"))
+                .thenReturn(true);
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        orderCreatedConsumer.consumeOrderCreatedEvent(
+                orderCreated(), "order-created", 0, 10L, "event-1", acknowledgment);
+
+        verify(idempotentConsumer, times(2)).executeOnce(eq("order-created"), eq("event-1"), any());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void releaseInfrastructureFailureIsRethrownWithoutAck() {
+        when(idempotentConsumer.executeOnce(eq("order-status-changed"), anyString(), any()))
+                .thenThrow(new QueryTimeoutException("DB down"));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        OrderStatusChangedEvent event = OrderStatusChangedEvent.builder()
+                .orderId(500L)
+                .orderNumber("ORD-500")
+                .oldStatus("PENDING")
+                .newStatus("CANCELLED")
+                .build();
+
+        assertThrows(QueryTimeoutException.class, () -> orderStatusChangedConsumer.consumeOrderStatusChangedEvent(
+                event, "order-status-changed", 0, 11L, "event-2", acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    private static OrderCreatedEvent orderCreated() {
+        return OrderCreatedEvent.builder()
+                .orderId(500L)
+                .userId(7L)
+                .orderNumber("ORD-500")
+                .items(List.of())
+                .build();
+    }
+}
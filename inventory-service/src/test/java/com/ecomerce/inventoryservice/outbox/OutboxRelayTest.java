@@ -0,0 +1,189 @@
+package com.ecomerce.inventoryservice.outbox;
+
+import com.ecomerce.inventoryservice.event.InventoryReservedEvent;
+import com.ecomerce.inventoryservice.model.OutboxEvent;
+import com.ecomerce.inventoryservice.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Relay: claim trong transaction ngắn, gửi Kafka ngoài transaction, event lỗi chặn event sau của cùng order;
+ * Kafka lỗi chỉ backoff, lỗi payload mới tính vào park
+ */
+class OutboxRelayTest {
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final CountingTransactionManager transactionManager = new CountingTransactionManager();
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxEventRepository, kafkaTemplate, objectMapper, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "batchSize", 100);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(relay, "leaseMs", 30000L);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 10);
+        ReflectionTestUtils.setField(relay, "backoffInitialMs", 1000L);
+        ReflectionTestUtils.setField(relay, "backoffMaxMs", 60000L);
+    }
+
+    @Test
+    void sendsOutsideTransactionAndMarksSent() throws Exception {
+        when(outboxEventRepository.findClaimable(eq(10), any(), eq(100)))
+                .thenReturn(List.of(event(1L, "ORD-1"), event(2L, "ORD-2")));
+        AtomicInteger sentWhileInTransaction = new AtomicInteger();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            if (transactionManager.active.get() > 0) {
+                sentWhileInTransaction.incrementAndGet();
+            }
+            return CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+
+        assertEquals(2, relay.publishBatch());
+
+        assertEquals(0, sentWhileInTransaction.get());
+        assertEquals(2, transactionManager.commits.get()); // claim + ghi kết quả
+        verify(outboxEventRepository).lease(eq(List.of(1L, 2L)), any());
+        verify(outboxEventRepository).markSent(eq(List.of(1L, 2L)), any());
+    }
+
+    @Test
+    void failedEventBlocksLaterEventsOfSameAggregate() throws Exception {
+        OutboxEvent broken = event(1L, "ORD-1");
+        broken.setPayload("{not json");
+        when(outboxEventRepository.findClaimable(eq(10), any(), eq(100)))
+                .thenReturn(List.of(broken, event(2L, "ORD-1"), event(3L, "ORD-2")));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        assertEquals(0, relay.publishBatch());
+
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+        verify(outboxEventRepository).markSent(eq(List.of(3L)), any());
+        verify(outboxEventRepository).markFailed(eq(1L), anyString(), any());
+        verify(outboxEventRepository, never()).markRetry(any(), any(), any());
+        verify(outboxEventRepository).releaseLease(List.of(2L));
+    }
+
+    @Test
+    void kafkaFailureBacksOffWithoutCountingTowardParking() throws Exception {
+        OutboxEvent event = event(1L, "ORD-1");
+        event.setRetries(3);
+        when(outboxEventRepository.findClaimable(eq(10), any(), eq(100))).thenReturn(List.of(event));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker not available")));
+
+        Instant before = Instant.now();
+        assertEquals(0, relay.publishBatch());
+
+        // Lần lỗi thứ 4 => backoff 1s * 2^3 = 8s
+        verify(outboxEventRepository).markRetry(eq(1L), eq("broker not available"),
+                argThat(nextAttemptAt -> !nextAttemptAt.isBefore(before.plusSeconds(8))));
+        verify(outboxEventRepository, never()).markFailed(any(), any(), any());
+    }
+
+    @Test
+    void backoffDoublesUpToMax() {
+        assertEquals(Duration.ofSeconds(1), relay.backoff(1));
+        assertEquals(Duration.ofSeconds(4), relay.backoff(3));
+        assertEquals(Duration.ofSeconds(60), relay.backoff(7));
+        assertEquals(Duration.ofSeconds(60), relay.backoff(1000));
+    }
+
+    @Test
+    void onlyPayloadErrorsAreNonRetryable() {
+        assertFalse(OutboxRelay.isRetryable(new ClassNotFoundException("com.example.Missing")));
+        assertFalse(OutboxRelay.isRetryable(new KafkaException(new SerializationException("bad payload"))));
+        assertTrue(OutboxRelay.isRetryable(new KafkaException(new TimeoutException("metadata"))));
+        assertTrue(OutboxRelay.isRetryable(new java.util.concurrent.TimeoutException()));
+    }
+
+    @Test
+    void emptyClaimSendsNothing() {
+        when(outboxEventRepository.findClaimable(anyInt(), any(), anyInt())).thenReturn(List.of());
+
+        assertEquals(0, relay.publishBatch());
+
+        verify(kafkaTemplate, times(0)).send(any(ProducerRecord.class));
+        verify(outboxEventRepository, times(0)).lease(any(), any());
+    }
+
+    private OutboxEvent event(Long id, String orderNumber) throws Exception {
+        InventoryReservedEvent payload = InventoryReservedEvent.builder()
+                .orderId(id)
+                .orderNumber(orderNumber)
+                .items(List.of())
+                .timestamp(Instant.now())
+                .build();
+        return OutboxEvent.builder()
+                .id(id)
+                .eventId("event-" + id)
+                .aggregateType("Order")
+                .aggregateId(orderNumber)
+                .topic("inventory-reserved")
+                .eventType(InventoryReservedEvent.class.getName())
+                .payload(objectMapper.writeValueAsString(payload))
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    private static class CountingTransactionManager implements PlatformTransactionManager {
+
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger commits = new AtomicInteger();
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            active.incrementAndGet();
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            active.decrementAndGet();
+            commits.incrementAndGet();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            active.decrementAndGet();
+        }
+    }
+}
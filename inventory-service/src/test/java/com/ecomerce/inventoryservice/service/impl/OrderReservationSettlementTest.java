@@ -0,0 +1,85 @@
+package com.ecomerce.inventoryservice.service.impl;
+
+import com.ecomerce.inventoryservice.dto.response.OrderReservationResult;
+import com.ecomerce.inventoryservice.event.OrderCreatedEvent;
+import com.ecomerce.inventoryservice.model.Inventory;
+import com.ecomerce.inventoryservice.model.OrderReservation;
+import com.ecomerce.inventoryservice.repository.InventoryRepository;
+import com.ecomerce.inventoryservice.repository.OrderReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Release / deduct chỉ áp dụng cho số lượng đã ghi vào order_reservations lúc reserve thành công
+ */
+class OrderReservationSettlementTest {
+
+    private static final Long ORDER_ID = 1001L;
+    private static final OrderReservation.ReservationStatus RESERVED = OrderReservation.ReservationStatus.RESERVED;
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final OrderReservationRepository orderReservationRepository = mock(OrderReservationRepository.class);
+    private final InventoryServiceImpl inventoryService =
+            new InventoryServiceImpl(inventoryRepository, orderReservationRepository, null);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void successfulReservationRecordsReservedQuantities() {
+        Inventory inventory = Inventory.builder().productId(10L).quantity(5).availableQuantity(5).build();
+        when(inventoryRepository.findByProductIdInOrderByProductIdForUpdate(any())).thenReturn(List.of(inventory));
+
+        OrderReservationResult result = inventoryService.reserveForOrder(ORDER_ID, List.of(item(10L, 2), item(10L, 1)));
+
+        assertTrue(result.isSuccess());
+        ArgumentCaptor<List<OrderReservation>> saved = ArgumentCaptor.forClass(List.class);
+        verify(orderReservationRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(3, saved.getValue().get(0).getQuantity());
+        assertEquals(RESERVED, saved.getValue().get(0).getStatus());
+    }
+
+    @Test
+    void failedReservationIsNeverReleased() {
+        Inventory inventory = Inventory.builder().productId(10L).quantity(1).availableQuantity(1).build();
+        when(inventoryRepository.findByProductIdInOrderByProductIdForUpdate(any())).thenReturn(List.of(inventory));
+
+        OrderReservationResult result = inventoryService.reserveForOrder(ORDER_ID, List.of(item(10L, 2)));
+        assertFalse(result.isSuccess());
+        verify(orderReservationRepository, never()).saveAll(any());
+
+        // Order bị hủy sau khi reserve thất bại: không có row RESERVED => không cộng lại hàng
+        when(orderReservationRepository.findByOrderIdAndStatusForUpdate(ORDER_ID, RESERVED)).thenReturn(List.of());
+        assertEquals(0, inventoryService.releaseForOrder(ORDER_ID));
+        verify(inventoryRepository, never()).releaseReservedStock(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void releaseAppliesRecordedQuantitiesAndMarksRowsReleased() {
+        OrderReservation reservation = OrderReservation.builder().id(7L).orderId(ORDER_ID).productId(10L).quantity(3).build();
+        when(orderReservationRepository.findByOrderIdAndStatusForUpdate(ORDER_ID, RESERVED)).thenReturn(List.of(reservation));
+        when(inventoryRepository.releaseReservedStock(eq(10L), eq(3), any())).thenReturn(1);
+
+        assertEquals(1, inventoryService.releaseForOrder(ORDER_ID));
+
+        verify(inventoryRepository).releaseReservedStock(eq(10L), eq(3), any());
+        verify(orderReservationRepository).updateStatus(eq(List.of(7L)), eq(OrderReservation.ReservationStatus.RELEASED), any());
+    }
+
+    private static OrderCreatedEvent.OrderItemEvent item(Long productId, int quantity) {
+        return OrderCreatedEvent.OrderItemEvent.builder().productId(productId).quantity(quantity).build();
+    }
+}
@@ -9,10 +9,12 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 @Configuration
 public class KafkaConsumerConfig {
@@ -20,14 +22,32 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // consumerFactory tự dựng props nên phải tự đọc type mapping (__TypeId__ header -> class)
+    @Value("${spring.kafka.consumer.properties.spring.json.type.mapping:}")
+    private String typeMappings;
+
+    @Value("${notification.consumer.batch.max-poll-records:500}")
+    private int batchMaxPollRecords;
+
+    @Value("${notification.consumer.batch.fetch-max-wait-ms:200}")
+    private int batchFetchMaxWaitMs;
+
+    @Value("${notification.consumer.batch.fetch-min-bytes:16384}")
+    private int batchFetchMinBytes;
+
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "notification-service-group");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        // Record không deserialize được => value null thay vì làm hỏng cả batch
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        if (!typeMappings.isBlank()) {
+            props.put(JsonDeserializer.TYPE_MAPPINGS, typeMappings);
+        }
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 
@@ -42,5 +62,24 @@ public class KafkaConsumerConfig {
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
         return factory;
     }
-}
 
+    /**
+     * Batch listener: mỗi lần poll nhận tối đa max-poll-records record, ack 1 lần cho cả batch
+     * fetch.min.bytes + fetch.max.wait.ms => lúc tải cao broker gom đủ dữ liệu trước khi trả về
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        Properties batchProps = new Properties();
+        batchProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchMaxPollRecords));
+        batchProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(batchFetchMaxWaitMs));
+        batchProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(batchFetchMinBytes));
+        factory.getContainerProperties().setKafkaConsumerProperties(batchProps);
+        return factory;
+    }
+}
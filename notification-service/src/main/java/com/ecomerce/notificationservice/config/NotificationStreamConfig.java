@@ -0,0 +1,20 @@
+package com.ecomerce.notificationservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis pub/sub cho SSE stream: notification lưu ở instance này được giao tới client đang nối vào instance khác
+ */
+@Configuration
+public class NotificationStreamConfig {
+
+    @Bean
+    public RedisMessageListenerContainer notificationStreamListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+}
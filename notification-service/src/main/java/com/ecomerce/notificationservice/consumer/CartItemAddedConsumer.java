@@ -1,51 +1,34 @@
 package com.ecomerce.notificationservice.consumer;
 
 import com.ecomerce.notificationservice.event.CartItemAddedEvent;
-import com.ecomerce.notificationservice.service.NotificationService;
+import com.ecomerce.notificationservice.service.NotificationRenderer;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
-@Slf4j
+import java.util.List;
+
+/**
+ * Notification "đã thêm vào giỏ" - event không có eventId nên key = partition:offset
+ */
 @Component
 @RequiredArgsConstructor
 public class CartItemAddedConsumer {
 
-    private final NotificationService notificationService;
+    private final NotificationBatchHandler notificationBatchHandler;
+    private final NotificationRenderer notificationRenderer;
 
     @KafkaListener(
             topics = "cart-item-added",
             groupId = "notification-service-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "batchKafkaListenerContainerFactory"
     )
-    public void consumeCartItemAddedEvent(
-            @Payload CartItemAddedEvent event,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-            @Header(KafkaHeaders.OFFSET) long offset,
-            Acknowledgment acknowledgment
-    ) {
-        try {
-            log.info("📨 Received CartItemAddedEvent from topic: {}, partition: {}, offset: {}", 
-                    topic, partition, offset);
-            log.info("Event details: userId={}, productId={}, productName={}, quantity={}",
-                    event.getUserId(), event.getProductId(), event.getProductName(), event.getQuantity());
-
-            // Send notification
-            notificationService.sendCartItemAddedNotification(event);
-
-            // Acknowledge message
-            acknowledgment.acknowledge();
-            log.info("✅ Successfully processed CartItemAddedEvent for userId: {}", event.getUserId());
-        } catch (Exception e) {
-            log.error("❌ Error processing CartItemAddedEvent: {}", e.getMessage(), e);
-            // Don't acknowledge - message will be retried
-        }
+    public void consumeCartItemAddedEvents(List<ConsumerRecord<String, CartItemAddedEvent>> records, Acknowledgment acknowledgment) {
+        notificationBatchHandler.handle(records,
+                record -> record.partition() + ":" + record.offset(),
+                notificationRenderer::cartItemAdded,
+                acknowledgment);
     }
 }
-
@@ -0,0 +1,105 @@
+package com.ecomerce.notificationservice.consumer;
+
+import com.ecomerce.notificationservice.idempotency.IdempotentConsumer;
+import com.ecomerce.notificationservice.model.Notification;
+import com.ecomerce.notificationservice.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Xử lý 1 batch record cho các batch listener:
+ * - Render notification từng record; record lỗi dữ liệu (không deserialize / render được) bị bỏ qua, không chặn batch
+ * - Lọc event đã xử lý + insert notifications + processed_events bằng JDBC batch trong 1 transaction, ack 1 lần
+ * - Batch lỗi => xử lý lại từng record; record lỗi DB => nack tại record đó (các record trước đã commit, phần còn lại được deliver lại)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationBatchHandler {
+
+    private final NotificationService notificationService;
+    private final IdempotentConsumer idempotentConsumer;
+
+    @Value("${notification.consumer.batch.nack-sleep-ms:1000}")
+    private long nackSleepMs;
+
+    private record PendingNotification(int index, String eventKey, Notification notification) {
+    }
+
+    /**
+     * @param businessKey key dùng khi record không có eventId header
+     * @param renderer    dựng Notification từ event
+     */
+    public <E> void handle(List<ConsumerRecord<String, E>> records,
+                           Function<ConsumerRecord<String, E>, Object> businessKey,
+                           Function<E, Notification> renderer,
+                           Acknowledgment acknowledgment) {
+        if (records.isEmpty()) {
+            acknowledgment.acknowledge();
+            return;
+        }
+        String topic = records.get(0).topic();
+        log.info("📨 Received {} records from topic: {}", records.size(), topic);
+
+        List<PendingNotification> pending = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, E> record = records.get(i);
+            if (record.value() == null) {
+                log.error("❌ Bỏ qua record không đọc được: topic={}, partition={}, offset={}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            try {
+                String eventKey = IdempotentConsumer.eventKey(eventId(record), businessKey.apply(record));
+                pending.add(new PendingNotification(i, eventKey, renderer.apply(record.value())));
+            } catch (Exception e) {
+                log.error("❌ Bỏ qua record không render được: topic={}, partition={}, offset={}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage(), e);
+            }
+        }
+
+        try {
+            List<PendingNotification> created = idempotentConsumer.executeOnceBatch(topic, pending,
+                    PendingNotification::eventKey,
+                    fresh -> notificationService.saveNotifications(
+                            fresh.stream().map(PendingNotification::notification).toList()));
+            acknowledgment.acknowledge();
+            log.info("✅ Successfully processed {} records from topic: {} ({} notifications created)",
+                    records.size(), topic, created.size());
+        } catch (Exception e) {
+            log.warn("⚠️ Batch insert failed for topic {}: {}. Retrying record by record", topic, e.getMessage());
+            handleOneByOne(topic, pending, acknowledgment);
+        }
+    }
+
+    private void handleOneByOne(String topic, List<PendingNotification> pending, Acknowledgment acknowledgment) {
+        for (PendingNotification item : pending) {
+            try {
+                idempotentConsumer.executeOnce(topic, item.eventKey(),
+                        () -> notificationService.saveNotifications(List.of(item.notification())));
+            } catch (Exception e) {
+                log.error("❌ Error processing record {} of topic {}: {}", item.index(), topic, e.getMessage(), e);
+                // Commit các record trước, deliver lại từ record lỗi
+                acknowledgment.nack(item.index(), Duration.ofMillis(nackSleepMs));
+                return;
+            }
+        }
+        acknowledgment.acknowledge();
+    }
+
+    private static String eventId(ConsumerRecord<String, ?> record) {
+        Header header = record.headers().lastHeader(IdempotentConsumer.EVENT_ID_HEADER);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -1,51 +1,34 @@
 package com.ecomerce.notificationservice.consumer;
 
 import com.ecomerce.notificationservice.event.PaymentFailedEvent;
-import com.ecomerce.notificationservice.service.NotificationService;
+import com.ecomerce.notificationservice.service.NotificationRenderer;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
-@Slf4j
+import java.util.List;
+
+/**
+ * Notification "thanh toán thất bại"
+ */
 @Component
 @RequiredArgsConstructor
 public class PaymentFailedConsumer {
 
-    private final NotificationService notificationService;
+    private final NotificationBatchHandler notificationBatchHandler;
+    private final NotificationRenderer notificationRenderer;
 
     @KafkaListener(
             topics = "payment-failed",
             groupId = "notification-service-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "batchKafkaListenerContainerFactory"
     )
-    public void consumePaymentFailedEvent(
-            @Payload PaymentFailedEvent event,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-            @Header(KafkaHeaders.OFFSET) long offset,
-            Acknowledgment acknowledgment
-    ) {
-        try {
-            log.info("📨 Received PaymentFailedEvent from topic: {}, partition: {}, offset: {}", 
-                    topic, partition, offset);
-            log.info("Event details: paymentId={}, orderId={}, userId={}, failureReason={}",
-                    event.getPaymentId(), event.getOrderId(), event.getUserId(), event.getFailureReason());
-
-            // Send notification
-            notificationService.sendPaymentFailedNotification(event);
-
-            // Acknowledge message
-            acknowledgment.acknowledge();
-            log.info("✅ Successfully processed PaymentFailedEvent for payment: {}", event.getPaymentId());
-        } catch (Exception e) {
-            log.error("❌ Error processing PaymentFailedEvent: {}", e.getMessage(), e);
-            // Don't acknowledge - message will be retried
-        }
+    public void consumePaymentFailedEvents(List<ConsumerRecord<String, PaymentFailedEvent>> records, Acknowledgment acknowledgment) {
+        notificationBatchHandler.handle(records,
+                record -> "payment:" + record.value().getPaymentId(),
+                notificationRenderer::paymentFailed,
+                acknowledgment);
     }
 }
-
@@ -1,51 +1,34 @@
 package com.ecomerce.notificationservice.consumer;
 
 import com.ecomerce.notificationservice.event.PaymentSuccessEvent;
-import com.ecomerce.notificationservice.service.NotificationService;
+import com.ecomerce.notificationservice.service.NotificationRenderer;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
-@Slf4j
+import java.util.List;
+
+/**
+ * Notification "thanh toán thành công"
+ */
 @Component
 @RequiredArgsConstructor
 public class PaymentSuccessConsumer {
 
-    private final NotificationService notificationService;
+    private final NotificationBatchHandler notificationBatchHandler;
+    private final NotificationRenderer notificationRenderer;
 
     @KafkaListener(
             topics = "payment-success",
             groupId = "notification-service-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "batchKafkaListenerContainerFactory"
     )
-    public void consumePaymentSuccessEvent(
-            @Payload PaymentSuccessEvent event,
-            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-            @Header(KafkaHeaders.OFFSET) long offset,
-            Acknowledgment acknowledgment
-    ) {
-        try {
-            log.info("📨 Received PaymentSuccessEvent from topic: {}, partition: {}, offset: {}", 
-                    topic, partition, offset);
-            log.info("Event details: paymentId={}, orderId={}, userId={}, amount={}",
-                    event.getPaymentId(), event.getOrderId(), event.getUserId(), event.getAmount());
-
-            // Send notification
-            notificationService.sendPaymentSuccessNotification(event);
-
-            // Acknowledge message
-            acknowledgment.acknowledge();
-            log.info("✅ Successfully processed PaymentSuccessEvent for payment: {}", event.getPaymentId());
-        } catch (Exception e) {
-            log.error("❌ Error processing PaymentSuccessEvent: {}", e.getMessage(), e);
-            // Don't acknowledge - message will be retried
-        }
+    public void consumePaymentSuccessEvents(List<ConsumerRecord<String, PaymentSuccessEvent>> records, Acknowledgment acknowledgment) {
+        notificationBatchHandler.handle(records,
+                record -> "payment:" + record.value().getPaymentId(),
+                notificationRenderer::paymentSuccess,
+                acknowledgment);
     }
 }
-
@@ -1,6 +1,7 @@
 package com.ecomerce.notificationservice.controller;
 
 import com.ecomerce.notificationservice.annontation.ApiMessage;
+import com.ecomerce.notificationservice.dto.request.MarkReadRequest;
 import com.ecomerce.notificationservice.dto.response.NotificationResponse;
 import com.ecomerce.notificationservice.dto.response.PageResponseDto;
 import com.ecomerce.notificationservice.service.NotificationService;
@@ -8,13 +9,17 @@ import com.ecomerce.notificationservice.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.util.List;
 
 @Tag(name = "Notification", description = "Quản lý thông báo")
@@ -37,6 +42,16 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Nhận thông báo mới qua Server-Sent Events",
+            description = "Event 'notification' chứa NotificationResponse, 'resync' => gọi lại API danh sách. "
+                    + "Gửi header Last-Event-ID khi kết nối lại để nhận bù thông báo đã lỡ")
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Long userId = JwtUtil.getCurrentUserId();
+        return notificationService.openStream(userId, lastEventId);
+    }
+
     @GetMapping("/unread")
     @ApiMessage(value = "Lấy thông báo chưa đọc thành công")
     @SecurityRequirement(name = "bearerAuth")
@@ -70,10 +85,27 @@ public class NotificationController {
     @PutMapping("/read-all")
     @ApiMessage(value = "Đánh dấu tất cả thông báo đã đọc thành công")
     @SecurityRequirement(name = "bearerAuth")
-    @Operation(summary = "Đánh dấu tất cả thông báo đã đọc")
-    public ResponseEntity<Void> markAllAsRead() {
+    @Operation(summary = "Đánh dấu tất cả thông báo đã đọc", description = "Trả về số thông báo được đánh dấu")
+    public ResponseEntity<Integer> markAllAsRead() {
         Long userId = JwtUtil.getCurrentUserId();
-        notificationService.markAllAsRead(userId);
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(notificationService.markAllAsRead(userId));
+    }
+
+    @PutMapping("/read")
+    @ApiMessage(value = "Đánh dấu thông báo đã đọc thành công")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Đánh dấu nhiều thông báo đã đọc", description = "Trả về số thông báo chưa đọc được đánh dấu")
+    public ResponseEntity<Integer> markAsRead(@Valid @RequestBody MarkReadRequest request) {
+        Long userId = JwtUtil.getCurrentUserId();
+        return ResponseEntity.ok(notificationService.markAsRead(userId, request.getIds()));
+    }
+
+    @DeleteMapping
+    @ApiMessage(value = "Xóa thông báo cũ thành công")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Xóa thông báo tạo trước thời điểm chỉ định", description = "Ví dụ: ?before=2024-01-01T00:00:00Z. Trả về số thông báo đã xóa")
+    public ResponseEntity<Integer> deleteOlderThan(@RequestParam Instant before) {
+        Long userId = JwtUtil.getCurrentUserId();
+        return ResponseEntity.ok(notificationService.deleteOlderThan(userId, before));
     }
 }
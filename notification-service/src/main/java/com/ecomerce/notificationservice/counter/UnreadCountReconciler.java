@@ -0,0 +1,130 @@
+package com.ecomerce.notificationservice.counter;
+
+import com.ecomerce.notificationservice.repository.NotificationRepository;
+import com.ecomerce.notificationservice.repository.UserUnreadCount;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * So unread counter trong Redis với MySQL định kỳ và sửa các user bị lệch
+ * (update Redis lỗi, instance chết giữa commit và afterCommit, ...)
+ * - Đọc Redis TRƯỚC rồi mới GROUP BY MySQL: giá trị Redis đã thấy chỉ gồm notification đã commit => MySQL đã có
+ * - Ghi bằng compare-and-set (Lua): chỉ sửa nếu counter vẫn đúng bằng giá trị đã đọc; có increment / decrement
+ *   xảy ra giữa chừng => bỏ qua user đó, lần chạy sau sửa (không ghi đè thay đổi mới)
+ * - Lần chạy đầu (chưa có key initialized): ghi số liệu từ MySQL, set initialized rồi đồng bộ thêm 1 lượt
+ *   (tăng / giảm bị bỏ qua trước khi có initialized => lượt 2 bù phần commit trong lúc lượt 1 chạy)
+ * - Lock Redis => nhiều instance chỉ 1 instance chạy
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UnreadCountReconciler {
+
+    private static final String LOCK_KEY = "notification:unread:reconcile-lock";
+    private static final int SCAN_COUNT = 1000;
+
+    // ARGV[1] = userId, ARGV[2] = giá trị đã đọc ('' = chưa có field), ARGV[3] = giá trị mới (0 => xóa field)
+    private static final RedisScript<Long> COMPARE_AND_SET_SCRIPT = RedisScript.of("""
+            local current = redis.call('HGET', KEYS[1], ARGV[1]) or ''
+            if current ~= ARGV[2] then
+              return 0
+            end
+            if tonumber(ARGV[3]) > 0 then
+              redis.call('HSET', KEYS[1], ARGV[1], ARGV[3])
+            else
+              redis.call('HDEL', KEYS[1], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+
+    private final NotificationRepository notificationRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${notification.unread.reconcile-lock-ttl:5m}")
+    private Duration lockTtl;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${notification.unread.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        String lockToken = UUID.randomUUID().toString();
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, lockToken, lockTtl))) {
+                return;
+            }
+            try {
+                boolean initialized = Boolean.TRUE.equals(redisTemplate.hasKey(UnreadNotificationCounter.INITIALIZED_KEY));
+                int repaired = repair();
+                if (!initialized) {
+                    redisTemplate.opsForValue().set(UnreadNotificationCounter.INITIALIZED_KEY, "1");
+                    repaired += repair();
+                    log.info("✅ Initialized unread counters from MySQL ({} users)", repaired);
+                } else if (repaired > 0) {
+                    log.warn("⚠️ Repaired unread counters for {} users", repaired);
+                }
+            } finally {
+                if (lockToken.equals(redisTemplate.opsForValue().get(LOCK_KEY))) {
+                    redisTemplate.delete(LOCK_KEY);
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ Unread counter reconcile error: {}", e.getMessage(), e);
+        }
+    }
+
+    private int repair() {
+        Map<String, String> redisCounts = readRedisCounts();
+        Map<String, Long> dbCounts = new HashMap<>();
+        for (UserUnreadCount count : notificationRepository.countUnreadGroupByUser()) {
+            dbCounts.put(count.getUserId().toString(), count.getUnreadCount());
+        }
+
+        Set<String> userIds = new HashSet<>(dbCounts.keySet());
+        userIds.addAll(redisCounts.keySet());
+
+        int repaired = 0;
+        int skipped = 0;
+        for (String userId : userIds) {
+            long expected = dbCounts.getOrDefault(userId, 0L);
+            String observed = redisCounts.get(userId);
+            if (expected == (observed != null ? Long.parseLong(observed) : 0L)) {
+                continue;
+            }
+            Long updated = redisTemplate.execute(COMPARE_AND_SET_SCRIPT, List.of(UnreadNotificationCounter.COUNTS_KEY),
+                    userId, observed != null ? observed : "", String.valueOf(expected));
+            if (updated != null && updated == 1) {
+                repaired++;
+            } else {
+                skipped++;
+            }
+        }
+        if (skipped > 0) {
+            log.debug("Unread counter của {} users thay đổi trong lúc reconcile, để lần chạy sau", skipped);
+        }
+        return repaired;
+    }
+
+    private Map<String, String> readRedisCounts() {
+        Map<String, String> counts = new HashMap<>();
+        ScanOptions options = ScanOptions.scanOptions().count(SCAN_COUNT).build();
+        try (Cursor<Map.Entry<Object, Object>> cursor =
+                     redisTemplate.opsForHash().scan(UnreadNotificationCounter.COUNTS_KEY, options)) {
+            cursor.forEachRemaining(entry ->
+                    counts.put(entry.getKey().toString(), entry.getValue().toString()));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,124 @@
+package com.ecomerce.notificationservice.counter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Số thông báo chưa đọc của từng user trong Redis
+ * - notification:unread              HASH userId -> số chưa đọc (field không có = 0 sau khi đã khởi tạo)
+ * - notification:unread:initialized  STRING, reconciler set sau lần đồng bộ đầu tiên từ MySQL
+ * Chỉ tin HASH khi đã có key initialized; trước đó đọc trả empty (caller đọc MySQL) và tăng / giảm bị bỏ qua
+ * (HASH lúc này đang được reconciler ghi từ MySQL, cộng dồn thêm sẽ đếm 2 lần)
+ * Chỉ cập nhật sau khi transaction commit; lỗi Redis chỉ log, reconciler sẽ sửa lệch
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UnreadNotificationCounter {
+
+    static final String COUNTS_KEY = "notification:unread";
+    static final String INITIALIZED_KEY = "notification:unread:initialized";
+    private static final List<String> COUNTER_KEYS = List.of(INITIALIZED_KEY, COUNTS_KEY);
+
+    // KEYS: initialized, counts; ARGV: userId1, delta1, userId2, delta2, ... - chưa khởi tạo thì bỏ qua
+    private static final RedisScript<Long> INCREMENT_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            for i = 1, #ARGV, 2 do
+              redis.call('HINCRBY', KEYS[2], ARGV[i], ARGV[i + 1])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: initialized, counts - giảm nhưng không xuống dưới 0; về 0 thì xóa field; chưa khởi tạo thì bỏ qua
+    private static final RedisScript<Long> DECREMENT_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            local current = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or '0')
+            local next = current - tonumber(ARGV[2])
+            if next <= 0 then
+              redis.call('HDEL', KEYS[2], ARGV[1])
+              return 0
+            end
+            redis.call('HSET', KEYS[2], ARGV[1], next)
+            return next
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Số chưa đọc từ Redis
+     * @return empty nếu counter chưa được khởi tạo hoặc Redis lỗi (caller đọc từ MySQL)
+     */
+    public Optional<Long> get(Long userId) {
+        try {
+            List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                redis.hGet(COUNTS_KEY, userId.toString());
+                redis.exists(INITIALIZED_KEY);
+                return null;
+            });
+            if (!Boolean.TRUE.equals(values.get(1))) {
+                return Optional.empty();
+            }
+            Object count = values.get(0);
+            return Optional.of(count != null ? Long.parseLong(count.toString()) : 0L);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Không đọc được unread counter của user {}: {}", userId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Tăng counter (userId -> số notification mới) sau khi transaction hiện tại commit
+     */
+    public void incrementAfterCommit(Map<Long, Long> newCounts) {
+        if (newCounts.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(newCounts.size() * 2);
+        newCounts.forEach((userId, delta) -> {
+            args.add(userId.toString());
+            args.add(delta.toString());
+        });
+        afterCommit(() -> redisTemplate.execute(INCREMENT_SCRIPT, COUNTER_KEYS, args.toArray()));
+    }
+
+    public void decrementAfterCommit(Long userId, long delta) {
+        if (delta <= 0) {
+            return;
+        }
+        afterCommit(() -> redisTemplate.execute(DECREMENT_SCRIPT, COUNTER_KEYS, userId.toString(), String.valueOf(delta)));
+    }
+
+    private void afterCommit(Runnable update) {
+        Runnable safeUpdate = () -> {
+            try {
+                update.run();
+            } catch (DataAccessException e) {
+                log.warn("⚠️ Không cập nhật được unread counter: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeUpdate.run();
+                }
+            });
+        } else {
+            safeUpdate.run();
+        }
+    }
+}
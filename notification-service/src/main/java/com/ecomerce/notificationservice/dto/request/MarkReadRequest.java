@@ -0,0 +1,15 @@
+package com.ecomerce.notificationservice.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MarkReadRequest {
+
+    @NotEmpty(message = "Danh sách thông báo không được để trống")
+    @Size(max = 1000, message = "Tối đa 1000 thông báo mỗi lần")
+    private List<Long> ids;
+}
@@ -29,11 +29,22 @@ public class Notification {
     @Column(name = "user_id", nullable = false)
     private Long userId;
 
+    // Chỉ notification cũ (template_id null) lưu text đầy đủ; notification mới để rỗng, render từ template lúc đọc
     @Column(name = "title", nullable = false, length = 255)
-    private String title;
+    @Builder.Default
+    private String title = "";
 
     @Column(name = "message", nullable = false, columnDefinition = "TEXT")
-    private String message;
+    @Builder.Default
+    private String message = "";
+
+    // Id template trong i18n/notifications.properties
+    @Column(name = "template_id", length = 50)
+    private String templateId;
+
+    // Tham số thô của template (NotificationParams)
+    @Column(name = "params", columnDefinition = "TEXT")
+    private String params;
 
     @Column(name = "type", length = 50)
     @Builder.Default
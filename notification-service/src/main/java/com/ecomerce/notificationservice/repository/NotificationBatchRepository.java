@@ -0,0 +1,12 @@
+package com.ecomerce.notificationservice.repository;
+
+import com.ecomerce.notificationservice.model.Notification;
+
+import java.util.List;
+
+/**
+ * Insert nhiều notification bằng JDBC batch (Notification dùng IDENTITY nên Hibernate không batch được insert)
+ */
+public interface NotificationBatchRepository {
+    int insertAll(List<Notification> notifications);
+}
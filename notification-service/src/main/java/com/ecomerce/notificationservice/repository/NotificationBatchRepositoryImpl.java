@@ -0,0 +1,60 @@
+package com.ecomerce.notificationservice.repository;
+
+import com.ecomerce.notificationservice.model.Notification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * rewriteBatchedStatements=true (datasource url) => driver gộp batch thành 1 câu INSERT nhiều row
+ * Id sinh ra (driver trả về cho cả câu INSERT gộp) và createdAt được gán lại vào entity - SSE stream cần id làm event id
+ */
+@RequiredArgsConstructor
+public class NotificationBatchRepositoryImpl implements NotificationBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, title, message, template_id, params, type, is_read, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Notification notification : notifications) {
+                    if (notification.getCreatedAt() == null) {
+                        notification.setCreatedAt(now);
+                    }
+                    ps.setLong(1, notification.getUserId());
+                    ps.setString(2, notification.getTitle());
+                    ps.setString(3, notification.getMessage());
+                    ps.setString(4, notification.getTemplateId());
+                    ps.setString(5, notification.getParams());
+                    ps.setString(6, notification.getType());
+                    ps.setBoolean(7, Boolean.TRUE.equals(notification.getIsRead()));
+                    ps.setTimestamp(8, Timestamp.from(notification.getCreatedAt()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (int i = 0; i < notifications.size() && keys.next(); i++) {
+                        notifications.get(i).setId(keys.getLong(1));
+                    }
+                }
+                return notifications.size();
+            }
+        });
+    }
+}
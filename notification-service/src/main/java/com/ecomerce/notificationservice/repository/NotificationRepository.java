@@ -5,17 +5,58 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface NotificationRepository extends JpaRepository<Notification, Long>, JpaSpecificationExecutor<Notification> {
+public interface NotificationRepository extends JpaRepository<Notification, Long>, JpaSpecificationExecutor<Notification>,
+        NotificationBatchRepository {
     
     Page<Notification> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     
     List<Notification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(Long userId);
     
     Long countByUserIdAndIsReadFalse(Long userId);
+
+    /**
+     * Notification mới hơn Last-Event-ID của SSE client (id tăng dần theo thời gian tạo)
+     */
+    List<Notification> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Pageable pageable);
+
+    /**
+     * Đánh dấu đã đọc tối đa :limit thông báo chưa đọc của user (gọi lặp theo chunk để không lock lâu)
+     */
+    @Modifying
+    @Query(value = "UPDATE notifications SET is_read = true WHERE user_id = :userId AND is_read = false LIMIT :limit",
+           nativeQuery = true)
+    int markUnreadAsRead(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.isRead = false AND n.id IN :ids")
+    int markAsReadByIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Xóa tối đa :limit thông báo tạo trước :before theo trạng thái đọc
+     * Tách theo is_read để biết chính xác số chưa đọc bị xóa (cập nhật unread counter)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE user_id = :userId AND is_read = :isRead AND created_at < :before LIMIT :limit",
+           nativeQuery = true)
+    int deleteCreatedBefore(@Param("userId") Long userId,
+                            @Param("isRead") boolean isRead,
+                            @Param("before") Instant before,
+                            @Param("limit") int limit);
+
+    /**
+     * Số chưa đọc theo từng user (reconciler của unread counter, dùng index user_id, is_read)
+     */
+    @Query("SELECT n.userId AS userId, COUNT(n) AS unreadCount FROM Notification n WHERE n.isRead = false GROUP BY n.userId")
+    List<UserUnreadCount> countUnreadGroupByUser();
 }
 
@@ -0,0 +1,11 @@
+package com.ecomerce.notificationservice.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Ghi processed_events cho cả batch bằng JDBC batch
+ */
+public interface ProcessedEventBatchRepository {
+    void insertAll(String topic, Collection<String> eventKeys, Instant processedAt);
+}
@@ -0,0 +1,34 @@
+package com.ecomerce.notificationservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * INSERT thường (không IGNORE): key đã tồn tại => duplicate key, transaction của batch rollback
+ * để caller xử lý lại từng record
+ */
+@RequiredArgsConstructor
+public class ProcessedEventBatchRepositoryImpl implements ProcessedEventBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO processed_events (topic, event_key, processed_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(String topic, Collection<String> eventKeys, Instant processedAt) {
+        if (eventKeys.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.from(processedAt);
+        jdbcTemplate.batchUpdate(INSERT_SQL, eventKeys, eventKeys.size(), (ps, eventKey) -> {
+            ps.setString(1, topic);
+            ps.setString(2, eventKey);
+            ps.setTimestamp(3, timestamp);
+        });
+    }
+}
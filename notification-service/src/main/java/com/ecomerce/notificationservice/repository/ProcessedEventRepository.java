@@ -0,0 +1,41 @@
+package com.ecomerce.notificationservice.repository;
+
+import com.ecomerce.notificationservice.model.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, Long>, ProcessedEventBatchRepository {
+
+    /**
+     * Key trong danh sách đã được xử lý (dùng cho batch listener)
+     */
+    @Query("SELECT e.eventKey FROM ProcessedEvent e WHERE e.topic = :topic AND e.eventKey IN :eventKeys")
+    List<String> findExistingKeys(@Param("topic") String topic, @Param("eventKeys") Collection<String> eventKeys);
+
+    /**
+     * Ghi nhận event đã xử lý - trả về 0 nếu (topic, event_key) đã tồn tại
+     * Unique key lock row => 2 consumer xử lý trùng cùng lúc thì chỉ 1 bên insert được
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO processed_events (topic, event_key, processed_at) VALUES (:topic, :eventKey, :processedAt)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("topic") String topic,
+                       @Param("eventKey") String eventKey,
+                       @Param("processedAt") Instant processedAt);
+
+    /**
+     * Xóa record quá thời gian lưu trữ (theo từng chunk để không lock bảng lâu)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM processed_events WHERE processed_at < :before LIMIT :limit",
+           nativeQuery = true)
+    int deleteProcessedBefore(@Param("before") Instant before, @Param("limit") int limit);
+}
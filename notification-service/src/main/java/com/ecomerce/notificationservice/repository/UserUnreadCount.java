@@ -0,0 +1,9 @@
+package com.ecomerce.notificationservice.repository;
+
+/**
+ * Projection: số thông báo chưa đọc của 1 user
+ */
+public interface UserUnreadCount {
+    Long getUserId();
+    Long getUnreadCount();
+}
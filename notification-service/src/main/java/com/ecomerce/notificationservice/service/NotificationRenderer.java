@@ -0,0 +1,104 @@
+package com.ecomerce.notificationservice.service;
+
+import com.ecomerce.notificationservice.event.CartItemAddedEvent;
+import com.ecomerce.notificationservice.event.OrderCreatedEvent;
+import com.ecomerce.notificationservice.event.OrderStatusChangedEvent;
+import com.ecomerce.notificationservice.event.PaymentFailedEvent;
+import com.ecomerce.notificationservice.event.PaymentSuccessEvent;
+import com.ecomerce.notificationservice.model.Notification;
+import com.ecomerce.notificationservice.template.NotificationParams;
+import com.ecomerce.notificationservice.template.NotificationTemplates;
+import com.ecomerce.notificationservice.template.RenderedNotification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * Dựng Notification từ event - không truy cập DB, dùng chung cho gửi từng event và batch listener
+ * Chỉ lưu template id + tham số thô (xem i18n/notifications.properties); title / message được render lúc đọc
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationRenderer {
+
+    private static final String CART_ITEM_ADDED = "CART_ITEM_ADDED";
+    private static final String ORDER_CREATED = "ORDER_CREATED";
+    private static final String ORDER_STATUS_PREFIX = "ORDER_STATUS_";
+    private static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+    private static final String PAYMENT_SUCCESS = "PAYMENT_SUCCESS";
+    private static final String PAYMENT_FAILED = "PAYMENT_FAILED";
+
+    private final NotificationTemplates notificationTemplates;
+
+    public Notification cartItemAdded(CartItemAddedEvent event) {
+        BigDecimal totalPrice = event.getProductPrice() != null && event.getQuantity() != null
+                ? event.getProductPrice().multiply(BigDecimal.valueOf(event.getQuantity()))
+                : null;
+        return build(event.getUserId(), CART_ITEM_ADDED,
+                event.getProductName(),
+                event.getProductPrice(),
+                event.getQuantity(),
+                totalPrice);
+    }
+
+    public Notification orderCreated(OrderCreatedEvent event) {
+        return build(event.getUserId(), ORDER_CREATED,
+                event.getOrderNumber(),
+                event.getTotalAmount(),
+                event.getItems() != null ? event.getItems().size() : 0,
+                event.getShippingAddress(),
+                event.getPhone(),
+                event.getStatus());
+    }
+
+    public Notification orderStatusChanged(OrderStatusChangedEvent event) {
+        // Trạng thái có template riêng chỉ cần mã đơn hàng
+        String templateId = ORDER_STATUS_PREFIX + event.getNewStatus();
+        if (notificationTemplates.exists(templateId)) {
+            return build(event.getUserId(), templateId, event.getOrderNumber());
+        }
+        return build(event.getUserId(), ORDER_STATUS_CHANGED,
+                event.getOrderNumber(),
+                event.getOldStatus(),
+                event.getNewStatus());
+    }
+
+    public Notification paymentSuccess(PaymentSuccessEvent event) {
+        return build(event.getUserId(), PAYMENT_SUCCESS,
+                event.getPaymentId(),
+                event.getOrderId(), // Có thể cần orderNumber từ order service
+                event.getAmount(),
+                event.getPaymentMethod(),
+                event.getVnpayTransactionNo());
+    }
+
+    public Notification paymentFailed(PaymentFailedEvent event) {
+        return build(event.getUserId(), PAYMENT_FAILED,
+                event.getPaymentId(),
+                event.getAmount(),
+                event.getPaymentMethod(),
+                event.getFailureReason());
+    }
+
+    /**
+     * Title / message để hiển thị; notification cũ (trước khi có template) đã lưu sẵn text
+     */
+    public RenderedNotification render(Notification notification, Locale locale) {
+        if (notification.getTemplateId() == null) {
+            return new RenderedNotification(notification.getTitle(), notification.getMessage());
+        }
+        return notificationTemplates.render(notification.getTemplateId(), notification.getParams(), locale);
+    }
+
+    private Notification build(Long userId, String templateId, Object... params) {
+        return Notification.builder()
+                .userId(userId)
+                .templateId(templateId)
+                .params(NotificationParams.encode(params))
+                .type(notificationTemplates.type(templateId))
+                .isRead(false)
+                .build();
+    }
+}
@@ -7,8 +7,11 @@ import com.ecomerce.notificationservice.event.OrderCreatedEvent;
 import com.ecomerce.notificationservice.event.OrderStatusChangedEvent;
 import com.ecomerce.notificationservice.event.PaymentFailedEvent;
 import com.ecomerce.notificationservice.event.PaymentSuccessEvent;
+import com.ecomerce.notificationservice.model.Notification;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface NotificationService {
@@ -22,6 +25,11 @@ public interface NotificationService {
     
     void sendPaymentFailedNotification(PaymentFailedEvent event);
     
+    /**
+     * Lưu nhiều notification đã render sẵn bằng 1 JDBC batch (batch listener)
+     */
+    int saveNotifications(List<Notification> notifications);
+    
     PageResponseDto<NotificationResponse> getUserNotifications(Long userId, Pageable pageable);
     
     List<NotificationResponse> getUnreadNotifications(Long userId);
@@ -30,6 +38,22 @@ public interface NotificationService {
     
     void markAsRead(Long notificationId, Long userId);
     
-    void markAllAsRead(Long userId);
+    /**
+     * @return số thông báo được đánh dấu đã đọc
+     */
+    int markAllAsRead(Long userId);
+    
+    int markAsRead(Long userId, List<Long> notificationIds);
+    
+    /**
+     * Xóa thông báo của user tạo trước thời điểm before
+     * @return số thông báo đã xóa
+     */
+    int deleteOlderThan(Long userId, Instant before);
+    
+    /**
+     * Mở SSE stream nhận notification mới; lastEventId != null => gửi bù các notification đã lỡ
+     */
+    SseEmitter openStream(Long userId, Long lastEventId);
 }
 
@@ -1,5 +1,6 @@
 package com.ecomerce.notificationservice.service.impl;
 
+import com.ecomerce.notificationservice.counter.UnreadNotificationCounter;
 import com.ecomerce.notificationservice.dto.response.NotificationResponse;
 import com.ecomerce.notificationservice.dto.response.PageResponseDto;
 import com.ecomerce.notificationservice.event.CartItemAddedEvent;
@@ -9,19 +10,30 @@ import com.ecomerce.notificationservice.event.PaymentFailedEvent;
 import com.ecomerce.notificationservice.event.PaymentSuccessEvent;
 import com.ecomerce.notificationservice.model.Notification;
 import com.ecomerce.notificationservice.repository.NotificationRepository;
+import com.ecomerce.notificationservice.service.NotificationRenderer;
 import com.ecomerce.notificationservice.service.NotificationService;
+import com.ecomerce.notificationservice.stream.NotificationStreamPublisher;
+import com.ecomerce.notificationservice.stream.NotificationStreamRegistry;
+import com.ecomerce.notificationservice.stream.StreamEvent;
+import com.ecomerce.notificationservice.template.RenderedNotification;
 import com.ecomerce.notificationservice.advice.exeption.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.math.BigDecimal;
-import java.text.NumberFormat;
+import java.time.Instant;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,250 +43,70 @@ import java.util.stream.Collectors;
 public class NotificationServiceImpl implements NotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final NotificationRenderer notificationRenderer;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationStreamRegistry notificationStreamRegistry;
+    private final NotificationStreamPublisher notificationStreamPublisher;
 
-    @Override
-    public void sendCartItemAddedNotification(CartItemAddedEvent event) {
-        try {
-            // Format price
-            NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.forLanguageTag("vi-VN"));
-            String formattedPrice = currencyFormat.format(event.getProductPrice());
-            String totalPrice = currencyFormat.format(
-                    event.getProductPrice().multiply(BigDecimal.valueOf(event.getQuantity()))
-            );
-
-            // Create notification message
-            String title = "✅ Đã thêm sản phẩm vào giỏ hàng";
-            String message = String.format(
-                    "Bạn đã thêm sản phẩm vào giỏ hàng thành công!\n\n" +
-                    "📦 Thông tin sản phẩm:\n" +
-                    "   - Tên sản phẩm: %s\n" +
-                    "   - Giá: %s\n" +
-                    "   - Số lượng: %d\n" +
-                    "   - Tổng tiền: %s",
-                    event.getProductName(),
-                    formattedPrice,
-                    event.getQuantity(),
-                    totalPrice
-            );
+    @Value("${notification.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
 
-            // Save notification to database
-            Notification notification = Notification.builder()
-                    .userId(event.getUserId())
-                    .title(title)
-                    .message(message)
-                    .type("SUCCESS")
-                    .isRead(false)
-                    .build();
+    @Value("${notification.stream.replay-limit:100}")
+    private int streamReplayLimit;
 
-            notificationRepository.save(notification);
-            log.info("✅ Created notification for user: {}, product: {}", 
-                    event.getUserId(), event.getProductName());
-
-        } catch (Exception e) {
-            log.error("❌ Error creating notification: {}", e.getMessage(), e);
-            throw e;
-        }
+    @Override
+    public void sendCartItemAddedNotification(CartItemAddedEvent event) {
+        save(notificationRenderer.cartItemAdded(event));
+        log.info("✅ Created notification for user: {}, product: {}", 
+                event.getUserId(), event.getProductName());
     }
 
     @Override
     public void sendOrderCreatedNotification(OrderCreatedEvent event) {
-        try {
-            NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.forLanguageTag("vi-VN"));
-            String formattedTotal = currencyFormat.format(event.getTotalAmount());
-
-            String title = "📦 Đơn hàng đã được tạo";
-            String message = String.format(
-                    "Đơn hàng của bạn đã được tạo thành công!\n\n" +
-                    "📋 Thông tin đơn hàng:\n" +
-                    "   - Mã đơn hàng: %s\n" +
-                    "   - Tổng tiền: %s\n" +
-                    "   - Số lượng sản phẩm: %d\n" +
-                    "   - Địa chỉ giao hàng: %s\n" +
-                    "   - Số điện thoại: %s\n\n" +
-                    "Đơn hàng đang ở trạng thái: %s",
-                    event.getOrderNumber(),
-                    formattedTotal,
-                    event.getItems() != null ? event.getItems().size() : 0,
-                    event.getShippingAddress() != null ? event.getShippingAddress() : "N/A",
-                    event.getPhone() != null ? event.getPhone() : "N/A",
-                    event.getStatus()
-            );
-
-            Notification notification = Notification.builder()
-                    .userId(event.getUserId())
-                    .title(title)
-                    .message(message)
-                    .type("INFO")
-                    .isRead(false)
-                    .build();
-
-            notificationRepository.save(notification);
-            log.info("✅ Created order created notification for user: {}, order: {}", 
-                    event.getUserId(), event.getOrderNumber());
-        } catch (Exception e) {
-            log.error("❌ Error creating order created notification: {}", e.getMessage(), e);
-            throw e;
-        }
+        save(notificationRenderer.orderCreated(event));
+        log.info("✅ Created order created notification for user: {}, order: {}", 
+                event.getUserId(), event.getOrderNumber());
     }
 
     @Override
     public void sendOrderStatusChangedNotification(OrderStatusChangedEvent event) {
-        try {
-            String title;
-            String message;
-            String type;
-
-            // Tạo thông báo dựa trên status mới
-            switch (event.getNewStatus()) {
-                case "CONFIRMED":
-                    title = "✅ Đơn hàng đã được xác nhận";
-                    message = String.format(
-                            "Đơn hàng %s của bạn đã được xác nhận!\n\n" +
-                            "Đơn hàng đang được chuẩn bị. Chúng tôi sẽ thông báo khi đơn hàng được giao.",
-                            event.getOrderNumber()
-                    );
-                    type = "SUCCESS";
-                    break;
-                case "PROCESSING":
-                    title = "🔄 Đơn hàng đang được xử lý";
-                    message = String.format(
-                            "Đơn hàng %s của bạn đang được xử lý.\n\n" +
-                            "Chúng tôi đang chuẩn bị hàng để giao cho bạn.",
-                            event.getOrderNumber()
-                    );
-                    type = "INFO";
-                    break;
-                case "SHIPPED":
-                    title = "🚚 Đơn hàng đã được giao hàng";
-                    message = String.format(
-                            "Đơn hàng %s của bạn đã được giao hàng!\n\n" +
-                            "Đơn hàng đang trên đường đến bạn. Vui lòng chờ nhận hàng.",
-                            event.getOrderNumber()
-                    );
-                    type = "INFO";
-                    break;
-                case "DELIVERED":
-                    title = "🎉 Đơn hàng đã được giao thành công";
-                    message = String.format(
-                            "Đơn hàng %s của bạn đã được giao thành công!\n\n" +
-                            "Cảm ơn bạn đã mua sắm. Hãy đánh giá sản phẩm để giúp chúng tôi cải thiện dịch vụ.",
-                            event.getOrderNumber()
-                    );
-                    type = "SUCCESS";
-                    break;
-                case "CANCELLED":
-                    title = "❌ Đơn hàng đã bị hủy";
-                    message = String.format(
-                            "Đơn hàng %s của bạn đã bị hủy.\n\n" +
-                            "Nếu bạn đã thanh toán, tiền sẽ được hoàn lại trong vòng 3-5 ngày làm việc.",
-                            event.getOrderNumber()
-                    );
-                    type = "WARNING";
-                    break;
-                default:
-                    title = "ℹ️ Trạng thái đơn hàng thay đổi";
-                    message = String.format(
-                            "Trạng thái đơn hàng %s đã thay đổi từ %s sang %s.",
-                            event.getOrderNumber(),
-                            event.getOldStatus(),
-                            event.getNewStatus()
-                    );
-                    type = "INFO";
-            }
-
-            Notification notification = Notification.builder()
-                    .userId(event.getUserId())
-                    .title(title)
-                    .message(message)
-                    .type(type)
-                    .isRead(false)
-                    .build();
-
-            notificationRepository.save(notification);
-            log.info("✅ Created order status changed notification for user: {}, order: {}, status: {} -> {}", 
-                    event.getUserId(), event.getOrderNumber(), event.getOldStatus(), event.getNewStatus());
-        } catch (Exception e) {
-            log.error("❌ Error creating order status changed notification: {}", e.getMessage(), e);
-            throw e;
-        }
+        save(notificationRenderer.orderStatusChanged(event));
+        log.info("✅ Created order status changed notification for user: {}, order: {}, status: {} -> {}", 
+                event.getUserId(), event.getOrderNumber(), event.getOldStatus(), event.getNewStatus());
     }
 
     @Override
     public void sendPaymentSuccessNotification(PaymentSuccessEvent event) {
-        try {
-            NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.forLanguageTag("vi-VN"));
-            String formattedAmount = currencyFormat.format(event.getAmount());
-
-            String title = "✅ Thanh toán thành công";
-            String message = String.format(
-                    "Thanh toán cho đơn hàng đã thành công!\n\n" +
-                    "💳 Thông tin thanh toán:\n" +
-                    "   - Mã thanh toán: %d\n" +
-                    "   - Mã đơn hàng: %s\n" +
-                    "   - Số tiền: %s\n" +
-                    "   - Phương thức: %s\n" +
-                    "   - Mã giao dịch: %s\n\n" +
-                    "Đơn hàng của bạn đã được xác nhận và đang được xử lý.",
-                    event.getPaymentId(),
-                    "ORDER-" + event.getOrderId(), // Có thể cần orderNumber từ order service
-                    formattedAmount,
-                    event.getPaymentMethod() != null ? event.getPaymentMethod() : "N/A",
-                    event.getVnpayTransactionNo() != null ? event.getVnpayTransactionNo() : "N/A"
-            );
-
-            Notification notification = Notification.builder()
-                    .userId(event.getUserId())
-                    .title(title)
-                    .message(message)
-                    .type("SUCCESS")
-                    .isRead(false)
-                    .build();
-
-            notificationRepository.save(notification);
-            log.info("✅ Created payment success notification for user: {}, payment: {}", 
-                    event.getUserId(), event.getPaymentId());
-        } catch (Exception e) {
-            log.error("❌ Error creating payment success notification: {}", e.getMessage(), e);
-            throw e;
-        }
+        save(notificationRenderer.paymentSuccess(event));
+        log.info("✅ Created payment success notification for user: {}, payment: {}", 
+                event.getUserId(), event.getPaymentId());
     }
 
     @Override
     public void sendPaymentFailedNotification(PaymentFailedEvent event) {
-        try {
-            NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.forLanguageTag("vi-VN"));
-            String formattedAmount = currencyFormat.format(event.getAmount());
-
-            String title = "❌ Thanh toán thất bại";
-            String message = String.format(
-                    "Thanh toán cho đơn hàng không thành công.\n\n" +
-                    "💳 Thông tin thanh toán:\n" +
-                    "   - Mã thanh toán: %d\n" +
-                    "   - Số tiền: %s\n" +
-                    "   - Phương thức: %s\n" +
-                    "   - Lý do: %s\n\n" +
-                    "Vui lòng thử lại hoặc liên hệ hỗ trợ nếu vấn đề vẫn tiếp tục.",
-                    event.getPaymentId(),
-                    formattedAmount,
-                    event.getPaymentMethod() != null ? event.getPaymentMethod() : "N/A",
-                    event.getFailureReason() != null ? event.getFailureReason() : "Không xác định"
-            );
+        save(notificationRenderer.paymentFailed(event));
+        log.info("✅ Created payment failed notification for user: {}, payment: {}", 
+                event.getUserId(), event.getPaymentId());
+    }
 
-            Notification notification = Notification.builder()
-                    .userId(event.getUserId())
-                    .title(title)
-                    .message(message)
-                    .type("ERROR")
-                    .isRead(false)
-                    .build();
+    @Override
+    public int saveNotifications(List<Notification> notifications) {
+        int inserted = notificationRepository.insertAll(notifications);
+        unreadNotificationCounter.incrementAfterCommit(notifications.stream()
+                .filter(notification -> !Boolean.TRUE.equals(notification.getIsRead()))
+                .collect(Collectors.groupingBy(Notification::getUserId, Collectors.counting())));
+        notificationStreamPublisher.publishAfterCommit(notifications.stream().map(this::mapToResponse).toList());
+        log.info("✅ Created {} notifications (batch)", inserted);
+        return inserted;
+    }
 
-            notificationRepository.save(notification);
-            log.info("✅ Created payment failed notification for user: {}, payment: {}", 
-                    event.getUserId(), event.getPaymentId());
-        } catch (Exception e) {
-            log.error("❌ Error creating payment failed notification: {}", e.getMessage(), e);
-            throw e;
+    private void save(Notification notification) {
+        notificationRepository.save(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            unreadNotificationCounter.incrementAfterCommit(Map.of(notification.getUserId(), 1L));
         }
+        notificationStreamPublisher.publishAfterCommit(List.of(mapToResponse(notification)));
     }
 
     @Override
@@ -306,10 +138,14 @@ public class NotificationServiceImpl implements NotificationService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Đọc từ Redis (không mở transaction / connection MySQL); chỉ đếm MySQL khi counter chưa khởi tạo hoặc Redis lỗi
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return unreadNotificationCounter.get(userId)
+                .orElseGet(() -> notificationRepository.countByUserIdAndIsReadFalse(userId));
     }
 
     @Override
@@ -321,28 +157,112 @@ public class NotificationServiceImpl implements NotificationService {
             throw new ResourceNotFoundException("Thông báo không thuộc về user này");
         }
 
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
+        // UPDATE có điều kiện is_read = false: 2 request đồng thời chỉ 1 request đổi được row => chỉ giảm counter 1 lần
+        int updated = notificationRepository.markAsReadByIds(userId, List.of(notificationId));
+        unreadNotificationCounter.decrementAfterCommit(userId, updated);
         log.info("✅ Marked notification {} as read for user: {}", notificationId, userId);
     }
 
+    /**
+     * UPDATE theo chunk, mỗi chunk 1 transaction => không giữ lock / entity cho cả backlog của user
+     */
     @Override
-    public void markAllAsRead(Long userId) {
-        List<Notification> unreadNotifications = notificationRepository
-                .findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
-        
-        unreadNotifications.forEach(notification -> notification.setIsRead(true));
-        notificationRepository.saveAll(unreadNotifications);
-        log.info("✅ Marked {} notifications as read for user: {}", 
-                unreadNotifications.size(), userId);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int markAllAsRead(Long userId) {
+        int total = 0;
+        int updated;
+        do {
+            updated = inTransaction(() -> {
+                int count = notificationRepository.markUnreadAsRead(userId, bulkChunkSize);
+                unreadNotificationCounter.decrementAfterCommit(userId, count);
+                return count;
+            });
+            total += updated;
+        } while (updated == bulkChunkSize);
+        log.info("✅ Marked {} notifications as read for user: {}", total, userId);
+        return total;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int markAsRead(Long userId, List<Long> notificationIds) {
+        int total = 0;
+        List<Long> ids = notificationIds.stream().distinct().toList();
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + bulkChunkSize, ids.size()));
+            total += inTransaction(() -> {
+                int count = notificationRepository.markAsReadByIds(userId, chunk);
+                unreadNotificationCounter.decrementAfterCommit(userId, count);
+                return count;
+            });
+        }
+        log.info("✅ Marked {}/{} notifications as read for user: {}", total, ids.size(), userId);
+        return total;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int deleteOlderThan(Long userId, Instant before) {
+        int unreadDeleted = deleteInChunks(userId, false, before);
+        int readDeleted = deleteInChunks(userId, true, before);
+        log.info("✅ Deleted {} notifications created before {} for user: {} ({} unread)",
+                unreadDeleted + readDeleted, before, userId, unreadDeleted);
+        return unreadDeleted + readDeleted;
+    }
+
+    private int deleteInChunks(Long userId, boolean isRead, Instant before) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = inTransaction(() -> {
+                int count = notificationRepository.deleteCreatedBefore(userId, isRead, before, bulkChunkSize);
+                if (!isRead) {
+                    unreadNotificationCounter.decrementAfterCommit(userId, count);
+                }
+                return count;
+            });
+            total += deleted;
+        } while (deleted == bulkChunkSize);
+        return total;
+    }
+
+    /**
+     * Không giữ transaction / connection trong lúc stream mở; replay chạy query riêng
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SseEmitter openStream(Long userId, Long lastEventId) {
+        return notificationStreamRegistry.open(userId, () -> missedEvents(userId, lastEventId));
+    }
+
+    private List<StreamEvent> missedEvents(Long userId, Long lastEventId) {
+        if (lastEventId == null) {
+            return List.of();
+        }
+        List<Notification> missed = notificationRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(
+                userId, lastEventId, PageRequest.ofSize(streamReplayLimit + 1));
+        if (missed.size() > streamReplayLimit) {
+            // Lỡ quá nhiều: client tải lại danh sách qua REST thay vì nhận từng event
+            return List.of(StreamEvent.resync());
+        }
+        return notificationStreamPublisher.toEvents(missed.stream().map(this::mapToResponse).toList());
+    }
+
+    private int inTransaction(IntSupplier work) {
+        Integer result = transactionTemplate.execute(status -> work.getAsInt());
+        return result != null ? result : 0;
     }
 
+    /**
+     * Render title / message từ template theo locale của request (Accept-Language); Kafka consumer dùng locale mặc định
+     */
     private NotificationResponse mapToResponse(Notification notification) {
+        RenderedNotification rendered = notificationRenderer.render(notification, LocaleContextHolder.getLocale());
         return NotificationResponse.builder()
                 .id(notification.getId())
                 .userId(notification.getUserId())
-                .title(notification.getTitle())
-                .message(notification.getMessage())
+                .title(rendered.title())
+                .message(rendered.message())
                 .type(notification.getType())
                 .isRead(notification.getIsRead())
                 .createdAt(notification.getCreatedAt())
@@ -0,0 +1,131 @@
+package com.ecomerce.notificationservice.stream;
+
+import com.ecomerce.notificationservice.dto.response.NotificationResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Đẩy notification vừa lưu tới các kết nối SSE
+ * - Sau commit: giao ngay cho session trên instance này, đồng thời publish 1 pipeline lên Redis channel
+ * - Instance khác nhận qua Redis pub/sub và giao cho session của nó (bỏ qua message do chính mình publish)
+ * Pub/sub không lưu lại message: instance nào lỡ thì client bù bằng Last-Event-ID khi reconnect
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationStreamPublisher implements MessageListener {
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final NotificationStreamRegistry notificationStreamRegistry;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${notification.stream.channel:notification-stream}")
+    private String channel;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    /**
+     * Gửi sau khi transaction hiện tại commit (Kafka consumer không bị block bởi client chậm)
+     */
+    public void publishAfterCommit(List<NotificationResponse> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(notifications);
+                }
+            });
+        } else {
+            publish(notifications);
+        }
+    }
+
+    /**
+     * Event SSE cho notification đã lưu (replay theo Last-Event-ID), bỏ qua bản ghi không serialize được
+     */
+    public List<StreamEvent> toEvents(List<NotificationResponse> notifications) {
+        List<StreamEvent> events = new ArrayList<>(notifications.size());
+        for (NotificationResponse notification : notifications) {
+            try {
+                events.add(toEvent(notification));
+            } catch (JsonProcessingException e) {
+                log.error("❌ Không serialize được notification {}: {}", notification.getId(), e.getMessage());
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            StreamMessage streamMessage = objectMapper.readValue(message.getBody(), StreamMessage.class);
+            if (instanceId.equals(streamMessage.origin())) {
+                return;
+            }
+            notificationStreamRegistry.deliver(streamMessage.userId(),
+                    StreamEvent.notification(streamMessage.notificationId(), streamMessage.data()));
+        } catch (Exception e) {
+            log.warn("⚠️ Bỏ qua stream message không hợp lệ: {}", e.getMessage());
+        }
+    }
+
+    private void publish(List<NotificationResponse> notifications) {
+        List<String> messages = new ArrayList<>(notifications.size());
+        for (NotificationResponse notification : notifications) {
+            try {
+                StreamEvent event = toEvent(notification);
+                notificationStreamRegistry.deliver(notification.getUserId(), event);
+                messages.add(objectMapper.writeValueAsString(
+                        new StreamMessage(instanceId, notification.getUserId(), notification.getId(), event.data())));
+            } catch (JsonProcessingException e) {
+                log.error("❌ Không serialize được notification {}: {}", notification.getId(), e.getMessage());
+            }
+        }
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                messages.forEach(payload -> redis.publish(channel, payload));
+                return null;
+            });
+        } catch (DataAccessException e) {
+            // Chỉ mất realtime cho session ở instance khác, notification đã nằm trong MySQL
+            log.warn("⚠️ Không publish được {} notification lên Redis: {}", messages.size(), e.getMessage());
+        }
+    }
+
+    private StreamEvent toEvent(NotificationResponse notification) throws JsonProcessingException {
+        return StreamEvent.notification(notification.getId(), objectMapper.writeValueAsString(notification));
+    }
+
+    record StreamMessage(String origin, Long userId, Long notificationId, String data) {
+    }
+}
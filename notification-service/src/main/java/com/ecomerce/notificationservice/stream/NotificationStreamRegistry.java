@@ -0,0 +1,120 @@
+package com.ecomerce.notificationservice.stream;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Các kết nối SSE đang mở trên instance này (userId -> session)
+ * - Giới hạn số kết nối mỗi user (nhiều tab), vượt quá thì đóng kết nối cũ nhất
+ * - Ghi ra socket bằng virtual thread: client chậm chỉ giữ thread của chính session đó
+ * - Heartbeat định kỳ giữ kết nối qua gateway / proxy và phát hiện client đã ngắt
+ */
+@Slf4j
+@Component
+public class NotificationStreamRegistry {
+
+    private final ConcurrentMap<Long, List<StreamSession>> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${notification.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${notification.stream.reconnect-delay:3s}")
+    private Duration reconnectDelay;
+
+    @Value("${notification.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${notification.stream.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+
+    /**
+     * Mở kết nối mới cho user; emitter hết hạn sau timeout, EventSource tự kết nối lại kèm Last-Event-ID
+     * @param replay event bị lỡ từ lần kết nối trước, lấy SAU khi session đã đăng ký => không hở khoảng giữa
+     *               replay và event realtime; event trùng / đến sau event realtime mới hơn do session xử lý
+     *               ({@link StreamSession#replay}), client không cần tự dedupe
+     */
+    public SseEmitter open(Long userId, Supplier<List<StreamEvent>> replay) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        StreamSession session = new StreamSession(userId, emitter, bufferSize, sendExecutor);
+
+        emitter.onCompletion(() -> remove(session));
+        emitter.onTimeout(session::close);
+        emitter.onError(e -> session.close());
+
+        try {
+            // Event đầu tiên: báo thời gian reconnect và flush header để gateway / client biết stream đã mở
+            emitter.send(SseEmitter.event().reconnectTime(reconnectDelay.toMillis()).comment("connected"));
+        } catch (IOException e) {
+            session.close();
+            return emitter;
+        }
+
+        StreamSession[] evicted = new StreamSession[1];
+        sessions.compute(userId, (id, current) -> {
+            List<StreamSession> userSessions = current != null ? current : new CopyOnWriteArrayList<>();
+            userSessions.add(session);
+            if (userSessions.size() > maxSessionsPerUser) {
+                evicted[0] = userSessions.remove(0);
+            }
+            return userSessions;
+        });
+        if (evicted[0] != null) {
+            log.info("⏭️ Đóng SSE cũ nhất của user {} (vượt {} kết nối)", userId, maxSessionsPerUser);
+            evicted[0].close();
+        }
+
+        session.replay(replay.get());
+        log.info("📨 SSE opened - user: {}", userId);
+        return emitter;
+    }
+
+    /**
+     * Đưa event vào buffer của mọi session của user trên instance này (không block)
+     */
+    public void deliver(Long userId, StreamEvent event) {
+        List<StreamSession> userSessions = sessions.get(userId);
+        if (userSessions == null) {
+            return;
+        }
+        for (StreamSession session : userSessions) {
+            session.offer(event);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${notification.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        StreamEvent heartbeat = StreamEvent.heartbeat();
+        sessions.values().forEach(userSessions -> userSessions.forEach(session -> session.offer(heartbeat)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Đóng hết kết nối để client reconnect sang instance khác qua gateway
+        sessions.values().forEach(userSessions -> userSessions.forEach(StreamSession::close));
+        sessions.clear();
+        sendExecutor.shutdown();
+    }
+
+    private void remove(StreamSession session) {
+        session.close();
+        sessions.computeIfPresent(session.getUserId(), (id, userSessions) -> {
+            userSessions.remove(session);
+            return userSessions.isEmpty() ? null : userSessions;
+        });
+    }
+}
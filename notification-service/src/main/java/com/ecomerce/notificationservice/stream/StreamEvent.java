@@ -0,0 +1,52 @@
+package com.ecomerce.notificationservice.stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 1 event SSE đã serialize sẵn (data là JSON), dùng chung cho mọi session của user
+ * SseEventBuilder không dùng lại được sau khi build nên mỗi lần gửi tạo builder mới từ record này
+ * name == null => comment (heartbeat), client EventSource bỏ qua
+ */
+public record StreamEvent(String id, String name, String data) {
+
+    static final String NOTIFICATION = "notification";
+    // Client bị drop event (buffer đầy / Last-Event-ID quá cũ) => gọi lại REST để đồng bộ
+    static final String RESYNC = "resync";
+
+    private static final StreamEvent HEARTBEAT = new StreamEvent(null, null, "ping");
+
+    static StreamEvent notification(Long notificationId, String json) {
+        return new StreamEvent(String.valueOf(notificationId), NOTIFICATION, json);
+    }
+
+    public static StreamEvent resync() {
+        return new StreamEvent(null, RESYNC, "{}");
+    }
+
+    static StreamEvent heartbeat() {
+        return HEARTBEAT;
+    }
+
+    /**
+     * ID notification (id của event SSE), null với resync / heartbeat
+     */
+    Long notificationId() {
+        return NOTIFICATION.equals(name) && id != null ? Long.valueOf(id) : null;
+    }
+
+    boolean isHeartbeat() {
+        return name == null;
+    }
+
+    SseEmitter.SseEventBuilder toSse() {
+        if (isHeartbeat()) {
+            return SseEmitter.event().comment(data);
+        }
+        SseEmitter.SseEventBuilder builder = SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+        if (id != null) {
+            builder.id(id);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,153 @@
+package com.ecomerce.notificationservice.stream;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 1 kết nối SSE: buffer giới hạn + tối đa 1 task ghi tại 1 thời điểm
+ * - offer() không bao giờ chờ I/O trên thread gọi (Kafka consumer / Redis listener), chỉ lock ngắn với replay()
+ * - Client đọc chậm làm đầy buffer => bỏ các event đang chờ, gửi 1 event "resync" để client tự gọi REST
+ * - Ghi lỗi (client đã ngắt) => complete emitter, registry gỡ session qua callback
+ * - Replay (event lỡ từ lần kết nối trước) chạy song song với event realtime: session tự bỏ event trùng id
+ *   và không xếp event replay sau event realtime mới hơn (client không tự dedupe)
+ */
+@Slf4j
+class StreamSession {
+
+    @Getter
+    private final Long userId;
+    @Getter
+    private final SseEmitter emitter;
+    private final BlockingQueue<StreamEvent> buffer;
+    private final Executor executor;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private volatile boolean closed;
+
+    // Chỉ đọc/ghi trong offer() / replay() (synchronized, không có I/O)
+    private long highestLiveId = Long.MIN_VALUE;
+    private final Set<Long> liveIdsBeforeReplay = new HashSet<>();
+    private final Set<Long> replayedIds = new HashSet<>();
+    private boolean replayDone;
+
+    StreamSession(Long userId, SseEmitter emitter, int bufferSize, Executor executor) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.executor = executor;
+    }
+
+    /**
+     * Event realtime (Kafka / Redis listener)
+     */
+    synchronized void offer(StreamEvent event) {
+        Long notificationId = event.notificationId();
+        if (notificationId != null) {
+            if (replayedIds.contains(notificationId)) {
+                // Đã gửi trong replay
+                return;
+            }
+            highestLiveId = Math.max(highestLiveId, notificationId);
+            if (!replayDone) {
+                liveIdsBeforeReplay.add(notificationId);
+            }
+        }
+        enqueue(event);
+    }
+
+    /**
+     * Event lỡ từ lần kết nối trước (theo id tăng dần), gọi 1 lần sau khi session đã đăng ký nhận realtime
+     * - id đã nhận qua realtime => bỏ (trùng)
+     * - id nhỏ hơn event realtime đã xếp hàng nhưng chưa nhận => không gửi sau event mới hơn, gửi resync để client tải lại
+     */
+    synchronized void replay(List<StreamEvent> events) {
+        boolean outOfOrder = false;
+        for (StreamEvent event : events) {
+            Long notificationId = event.notificationId();
+            if (notificationId != null && notificationId <= highestLiveId) {
+                outOfOrder |= !liveIdsBeforeReplay.contains(notificationId);
+                continue;
+            }
+            if (notificationId != null) {
+                replayedIds.add(notificationId);
+            }
+            enqueue(event);
+        }
+        replayDone = true;
+        liveIdsBeforeReplay.clear();
+        if (outOfOrder) {
+            enqueue(StreamEvent.resync());
+        }
+    }
+
+    private void enqueue(StreamEvent event) {
+        if (closed) {
+            return;
+        }
+        if (event.isHeartbeat()) {
+            // Chỉ cần giữ kết nối: đang có event chờ gửi thì không thêm ping
+            if (!buffer.isEmpty() || !buffer.offer(event)) {
+                return;
+            }
+        } else if (!buffer.offer(event)) {
+            buffer.clear();
+            if (overflowed.compareAndSet(false, true)) {
+                log.warn("⚠️ SSE buffer đầy, bỏ event và yêu cầu resync - user: {}", userId);
+            }
+        }
+        scheduleDrain();
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.clear();
+        try {
+            emitter.complete();
+        } catch (Exception e) {
+            log.debug("SSE emitter đã đóng - user: {}", userId);
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            do {
+                if (overflowed.getAndSet(false)) {
+                    emitter.send(StreamEvent.resync().toSse());
+                }
+                StreamEvent event;
+                while (!closed && (event = buffer.poll()) != null) {
+                    emitter.send(event.toSse());
+                }
+                draining.set(false);
+                // Event được offer sau vòng poll cuối nhưng trước khi nhả cờ => tự chạy tiếp
+            } while (!closed && (!buffer.isEmpty() || overflowed.get()) && draining.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SSE client ngắt kết nối - user: {}: {}", userId, e.getMessage());
+            draining.set(false);
+            close();
+        }
+    }
+}
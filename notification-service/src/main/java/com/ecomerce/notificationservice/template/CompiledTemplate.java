@@ -0,0 +1,167 @@
+package com.ecomerce.notificationservice.template;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Template đã parse sẵn thành các đoạn text cố định + placeholder, immutable => dùng chung giữa các thread
+ * Cú pháp placeholder: {index}, {index,currency}, thêm ?fallback để hiển thị khi tham số trống: {3?N/A}
+ */
+record CompiledTemplate(String type, Text title, Text message) {
+
+    private static final Locale CURRENCY_LOCALE = Locale.forLanguageTag("vi-VN");
+
+    // NumberFormat không thread-safe: mỗi thread giữ 1 instance, tạo 1 lần rồi dùng lại (số tiền luôn là VND)
+    private static final ThreadLocal<NumberFormat> CURRENCY_FORMAT =
+            ThreadLocal.withInitial(() -> NumberFormat.getCurrencyInstance(CURRENCY_LOCALE));
+
+    private static final WholeAmountFormat WHOLE_AMOUNT_FORMAT = WholeAmountFormat.of(NumberFormat.getCurrencyInstance(CURRENCY_LOCALE));
+
+    static CompiledTemplate compile(String type, String title, String message) {
+        return new CompiledTemplate(type, Text.compile(title), Text.compile(message));
+    }
+
+    private record Placeholder(int index, boolean currency, String fallback) {
+    }
+
+    static final class Text {
+
+        // String (text cố định) hoặc Placeholder
+        private final Object[] parts;
+        private final int literalLength;
+
+        private Text(Object[] parts, int literalLength) {
+            this.parts = parts;
+            this.literalLength = literalLength;
+        }
+
+        static Text compile(String pattern) {
+            List<Object> parts = new ArrayList<>();
+            int literalLength = 0;
+            int position = 0;
+            while (position < pattern.length()) {
+                int open = pattern.indexOf('{', position);
+                int close = open < 0 ? -1 : pattern.indexOf('}', open);
+                if (open < 0 || close < 0) {
+                    break;
+                }
+                if (open > position) {
+                    parts.add(pattern.substring(position, open));
+                    literalLength += open - position;
+                }
+                parts.add(placeholder(pattern.substring(open + 1, close), pattern));
+                position = close + 1;
+            }
+            if (position < pattern.length()) {
+                parts.add(pattern.substring(position));
+                literalLength += pattern.length() - position;
+            }
+            return new Text(parts.toArray(), literalLength);
+        }
+
+        String apply(String[] values) {
+            StringBuilder text = new StringBuilder(literalLength + values.length * 16);
+            for (Object part : parts) {
+                if (part instanceof Placeholder placeholder) {
+                    appendValue(text, placeholder, values);
+                } else {
+                    text.append((String) part);
+                }
+            }
+            return text.toString();
+        }
+
+        private static void appendValue(StringBuilder text, Placeholder placeholder, String[] values) {
+            String value = placeholder.index() < values.length ? values[placeholder.index()] : "";
+            if (value.isEmpty()) {
+                if (placeholder.fallback() != null) {
+                    text.append(placeholder.fallback());
+                }
+            } else if (placeholder.currency()) {
+                text.append(formatCurrency(value));
+            } else {
+                text.append(value);
+            }
+        }
+
+        private static String formatCurrency(String amount) {
+            if (WHOLE_AMOUNT_FORMAT != null && WholeAmountFormat.isWholeAmount(amount)) {
+                return WHOLE_AMOUNT_FORMAT.format(amount);
+            }
+            try {
+                return CURRENCY_FORMAT.get().format(new BigDecimal(amount));
+            } catch (NumberFormatException e) {
+                return amount;
+            }
+        }
+
+        private static Placeholder placeholder(String definition, String pattern) {
+            String fallback = null;
+            int fallbackStart = definition.indexOf('?');
+            if (fallbackStart >= 0) {
+                fallback = definition.substring(fallbackStart + 1);
+                definition = definition.substring(0, fallbackStart);
+            }
+            String[] spec = definition.split(",");
+            try {
+                int index = Integer.parseInt(spec[0].trim());
+                boolean currency = spec.length > 1 && "currency".equals(spec[1].trim());
+                return new Placeholder(index, currency, fallback);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Placeholder không hợp lệ '{" + definition + "}' trong template: " + pattern, e);
+            }
+        }
+    }
+
+    /**
+     * VND không có phần lẻ: số tiền nguyên dương (dạng lưu trong params) chỉ cần chèn dấu phân cách nhóm
+     * Prefix / suffix / dấu phân cách lấy từ NumberFormat vi-VN 1 lần => kết quả giống hệt NumberFormat, nhanh hơn nhiều lần
+     * Immutable nên dùng chung giữa các thread; số âm / có phần lẻ / quá dài vẫn đi qua NumberFormat
+     */
+    private record WholeAmountFormat(String prefix, String suffix, char groupingSeparator, int groupingSize) {
+
+        private static final int MAX_DIGITS = 18;
+
+        static WholeAmountFormat of(NumberFormat currencyFormat) {
+            if (!(currencyFormat instanceof DecimalFormat format)
+                    || format.getMaximumFractionDigits() != 0
+                    || !format.isGroupingUsed()
+                    || format.getGroupingSize() <= 0) {
+                return null;
+            }
+            return new WholeAmountFormat(format.getPositivePrefix(), format.getPositiveSuffix(),
+                    format.getDecimalFormatSymbols().getMonetaryGroupingSeparator(), format.getGroupingSize());
+        }
+
+        static boolean isWholeAmount(String amount) {
+            int length = amount.length();
+            if (length > MAX_DIGITS) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                char c = amount.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String format(String digits) {
+            StringBuilder formatted = new StringBuilder(prefix.length() + digits.length() * 4 / 3 + suffix.length());
+            formatted.append(prefix);
+            int firstGroup = digits.length() % groupingSize;
+            for (int i = 0; i < digits.length(); i++) {
+                if (i > 0 && (i - firstGroup) % groupingSize == 0) {
+                    formatted.append(groupingSeparator);
+                }
+                formatted.append(digits.charAt(i));
+            }
+            return formatted.append(suffix).toString();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecomerce.notificationservice.template;
+
+import java.math.BigDecimal;
+
+/**
+ * Tham số của notification lưu trong cột params: các giá trị thô nối bằng ký tự Unit Separator (U+001F)
+ * Số tiền lưu dạng số (1500000), chưa format => không lặp lại "₫", dấu chấm phân cách, ... trong DB
+ * null và chuỗi rỗng đều là "không có giá trị" (template dùng fallback nếu có)
+ */
+public final class NotificationParams {
+
+    static final char SEPARATOR = '\u001F';
+    private static final String SEPARATOR_STRING = String.valueOf(SEPARATOR);
+    private static final String[] EMPTY = new String[0];
+
+    private NotificationParams() {
+    }
+
+    public static String encode(Object... values) {
+        StringBuilder params = new StringBuilder(64);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                params.append(SEPARATOR);
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value instanceof BigDecimal decimal ? decimal.stripTrailingZeros().toPlainString() : value.toString();
+            params.append(text.indexOf(SEPARATOR) >= 0 ? text.replace(SEPARATOR, ' ') : text);
+        }
+        return params.toString();
+    }
+
+    public static String[] decode(String params) {
+        if (params == null || params.isEmpty()) {
+            return EMPTY;
+        }
+        // split 1 ký tự không phải ký tự đặc biệt của regex => fast path, không compile Pattern
+        return params.split(SEPARATOR_STRING, -1);
+    }
+}
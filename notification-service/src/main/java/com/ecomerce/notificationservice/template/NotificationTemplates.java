@@ -0,0 +1,76 @@
+package com.ecomerce.notificationservice.template;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Template notification khai báo trong i18n/notifications*.properties (mỗi template: {id}.type, {id}.title, {id}.message)
+ * - Compile 1 lần cho mỗi bundle (theo locale của file properties thực sự được load), cache lại
+ * - Locale không có file riêng dùng bundle mặc định (tiếng Việt), không rơi về locale của JVM
+ */
+@Component
+public class NotificationTemplates {
+
+    static final String BUNDLE_NAME = "i18n/notifications";
+    static final Locale DEFAULT_LOCALE = Locale.forLanguageTag("vi-VN");
+
+    private static final ResourceBundle.Control BUNDLE_CONTROL =
+            ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES);
+
+    private final ConcurrentMap<Locale, Map<String, CompiledTemplate>> templatesByBundle = new ConcurrentHashMap<>();
+
+    public boolean exists(String templateId) {
+        return templates(DEFAULT_LOCALE).containsKey(templateId);
+    }
+
+    /**
+     * INFO / SUCCESS / WARNING / ERROR - lưu vào cột type lúc tạo notification để lọc theo type
+     */
+    public String type(String templateId) {
+        return require(templates(DEFAULT_LOCALE), templateId).type();
+    }
+
+    public RenderedNotification render(String templateId, String params, Locale locale) {
+        CompiledTemplate template = templates(locale).get(templateId);
+        if (template == null) {
+            template = require(templates(DEFAULT_LOCALE), templateId);
+        }
+        String[] values = NotificationParams.decode(params);
+        return new RenderedNotification(template.title().apply(values), template.message().apply(values));
+    }
+
+    private Map<String, CompiledTemplate> templates(Locale locale) {
+        // ResourceBundle tự cache việc tìm file; key cache là locale của bundle => số entry bằng số file properties
+        ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE_NAME, locale != null ? locale : DEFAULT_LOCALE, BUNDLE_CONTROL);
+        return templatesByBundle.computeIfAbsent(bundle.getLocale(), bundleLocale -> compile(bundle));
+    }
+
+    private static Map<String, CompiledTemplate> compile(ResourceBundle bundle) {
+        Map<String, CompiledTemplate> templates = new HashMap<>();
+        for (String key : bundle.keySet()) {
+            if (!key.endsWith(".title")) {
+                continue;
+            }
+            String templateId = key.substring(0, key.length() - ".title".length());
+            templates.put(templateId, CompiledTemplate.compile(
+                    bundle.getString(templateId + ".type"),
+                    bundle.getString(key),
+                    bundle.getString(templateId + ".message")));
+        }
+        return Map.copyOf(templates);
+    }
+
+    private static CompiledTemplate require(Map<String, CompiledTemplate> templates, String templateId) {
+        CompiledTemplate template = templates.get(templateId);
+        if (template == null) {
+            throw new IllegalArgumentException("Không tìm thấy notification template: " + templateId);
+        }
+        return template;
+    }
+}
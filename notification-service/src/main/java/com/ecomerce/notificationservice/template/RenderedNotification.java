@@ -0,0 +1,4 @@
+package com.ecomerce.notificationservice.template;
+
+public record RenderedNotification(String title, String message) {
+}
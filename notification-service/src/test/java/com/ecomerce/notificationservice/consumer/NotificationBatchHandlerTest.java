@@ -0,0 +1,109 @@
+package com.ecomerce.notificationservice.consumer;
+
+import com.ecomerce.notificationservice.idempotency.IdempotentConsumer;
+import com.ecomerce.notificationservice.model.Notification;
+import com.ecomerce.notificationservice.service.NotificationService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch listener: bỏ qua record lỗi dữ liệu, ack 1 lần; batch lỗi DB => xử lý lại từng record và nack tại record lỗi
+ */
+class NotificationBatchHandlerTest {
+
+    private static final String TOPIC = "order-created";
+
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final IdempotentConsumer idempotentConsumer = mock(IdempotentConsumer.class);
+    private final Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    private final NotificationBatchHandler handler = new NotificationBatchHandler(notificationService, idempotentConsumer);
+    private final Map<String, Notification> rendered = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(handler, "nackSleepMs", 0L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unreadableRecordsAreSkippedAndEventIdHeaderIsPreferred() {
+        List<String> eventKeys = new ArrayList<>();
+        when(idempotentConsumer.executeOnceBatch(eq(TOPIC), any(), any(), any())).thenAnswer(invocation -> {
+            List<Object> items = invocation.getArgument(1);
+            Function<Object, String> keyOf = invocation.getArgument(2);
+            items.forEach(item -> eventKeys.add(keyOf.apply(item)));
+            invocation.<Consumer<List<Object>>>getArgument(3).accept(items);
+            return items;
+        });
+        ConsumerRecord<String, String> withHeader = record(1, "ORD-2");
+        withHeader.headers().add(IdempotentConsumer.EVENT_ID_HEADER, "evt-2".getBytes(StandardCharsets.UTF_8));
+
+        handler.handle(List.of(record(0, null), withHeader, record(2, "ORD-3")),
+                record -> record.value(), this::render, acknowledgment);
+
+        assertEquals(List.of("evt-2", "ORD-3"), eventKeys);
+        verify(notificationService).saveNotifications(List.of(render("ORD-2"), render("ORD-3")));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void failedBatchIsRetriedPerRecordAndNackedAtFirstFailure() {
+        when(idempotentConsumer.executeOnceBatch(eq(TOPIC), any(), any(), any()))
+                .thenThrow(new IllegalStateException("Duplicate entry"));
+        when(idempotentConsumer.executeOnce(eq(TOPIC), anyString(), any())).thenAnswer(invocation -> {
+            if ("ORD-2".equals(invocation.getArgument(1))) {
+                throw new IllegalStateException("DB down");
+            }
+            invocation.<Runnable>getArgument(2).run();
+            return true;
+        });
+
+        handler.handle(List.of(record(0, "ORD-1"), record(1, "ORD-2"), record(2, "ORD-3")),
+                record -> record.value(), this::render, acknowledgment);
+
+        verify(notificationService).saveNotifications(List.of(render("ORD-1")));
+        verify(notificationService, never()).saveNotifications(List.of(render("ORD-3")));
+        verify(acknowledgment).nack(1, Duration.ZERO);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void emptyPollIsAcknowledged() {
+        handler.handle(List.<ConsumerRecord<String, String>>of(), record -> record.value(),
+                this::render, acknowledgment);
+
+        verify(acknowledgment).acknowledge();
+        verify(idempotentConsumer, never()).executeOnceBatch(any(), any(), any(), any());
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String orderNumber) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, null, orderNumber);
+    }
+
+    // Cùng 1 instance cho mỗi mã đơn hàng => verify được danh sách truyền vào saveNotifications
+    private Notification render(String orderNumber) {
+        return rendered.computeIfAbsent(orderNumber, key ->
+                Notification.builder().userId(42L).templateId("ORDER_CREATED").params(key).build());
+    }
+}
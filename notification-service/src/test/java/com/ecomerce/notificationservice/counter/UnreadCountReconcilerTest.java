@@ -0,0 +1,134 @@
+package com.ecomerce.notificationservice.counter;
+
+import com.ecomerce.notificationservice.repository.NotificationRepository;
+import com.ecomerce.notificationservice.repository.UserUnreadCount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconciler chỉ sửa counter bằng compare-and-set với giá trị Redis đã đọc, không ghi đè trực tiếp
+ */
+class UnreadCountReconcilerTest {
+
+    private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+    private final UnreadCountReconciler reconciler = new UnreadCountReconciler(notificationRepository, redisTemplate);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reconciler, "lockTtl", Duration.ofMinutes(5));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(redisTemplate.hasKey(UnreadNotificationCounter.INITIALIZED_KEY)).thenReturn(true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void driftIsRepairedWithCompareAndSetAgainstObservedValue() {
+        Cursor<Map.Entry<Object, Object>> cursor = cursorOf(Map.entry("42", "3"), Map.entry("7", "1"));
+        when(hashOperations.scan(eq(UnreadNotificationCounter.COUNTS_KEY), any())).thenReturn(cursor);
+        when(notificationRepository.countUnreadGroupByUser()).thenReturn(List.of(count(42L, 5L), count(9L, 2L)));
+        when(redisTemplate.execute(any(RedisScript.class), any(List.class), any(Object[].class))).thenReturn(1L);
+
+        reconciler.reconcile();
+
+        // Redis đọc trước MySQL
+        var order = inOrder(hashOperations, notificationRepository);
+        order.verify(hashOperations).scan(eq(UnreadNotificationCounter.COUNTS_KEY), any());
+        order.verify(notificationRepository).countUnreadGroupByUser();
+
+        List<String> keys = List.of(UnreadNotificationCounter.COUNTS_KEY);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(keys), eq("42"), eq("3"), eq("5"));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(keys), eq("7"), eq("1"), eq("0"));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(keys), eq("9"), eq(""), eq("2"));
+        verify(hashOperations, never()).put(any(), any(), any());
+        verify(hashOperations, never()).delete(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void matchingCountersAreNotWritten() {
+        Cursor<Map.Entry<Object, Object>> cursor = cursorOf(Map.entry("42", "5"));
+        when(hashOperations.scan(eq(UnreadNotificationCounter.COUNTS_KEY), any())).thenReturn(cursor);
+        when(notificationRepository.countUnreadGroupByUser()).thenReturn(List.of(count(42L, 5L)));
+
+        reconciler.reconcile();
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), any(List.class), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void firstRunSetsInitializedThenSyncsAgain() {
+        when(redisTemplate.hasKey(UnreadNotificationCounter.INITIALIZED_KEY)).thenReturn(false);
+        Cursor<Map.Entry<Object, Object>> empty = cursorOf();
+        Cursor<Map.Entry<Object, Object>> afterFirstPass = cursorOf(Map.entry("42", "5"));
+        when(hashOperations.scan(eq(UnreadNotificationCounter.COUNTS_KEY), any())).thenReturn(empty, afterFirstPass);
+        // Notification thứ 6 commit trong lúc lượt 1 chạy, increment bị bỏ qua vì chưa initialized
+        when(notificationRepository.countUnreadGroupByUser())
+                .thenReturn(List.of(count(42L, 5L)), List.of(count(42L, 6L)));
+        when(redisTemplate.execute(any(RedisScript.class), any(List.class), any(Object[].class))).thenReturn(1L);
+
+        reconciler.reconcile();
+
+        List<String> keys = List.of(UnreadNotificationCounter.COUNTS_KEY);
+        var order = inOrder(redisTemplate, valueOperations);
+        order.verify(redisTemplate).execute(any(RedisScript.class), eq(keys), eq("42"), eq(""), eq("5"));
+        order.verify(valueOperations).set(UnreadNotificationCounter.INITIALIZED_KEY, "1");
+        order.verify(redisTemplate).execute(any(RedisScript.class), eq(keys), eq("42"), eq("5"), eq("6"));
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private static Cursor<Map.Entry<Object, Object>> cursorOf(Map.Entry<Object, Object>... entries) {
+        Cursor<Map.Entry<Object, Object>> cursor = mock(Cursor.class);
+        Iterator<Map.Entry<Object, Object>> iterator = List.of(entries).iterator();
+        doAnswer(invocation -> {
+            Consumer<Map.Entry<Object, Object>> action = invocation.getArgument(0);
+            iterator.forEachRemaining(action);
+            return null;
+        }).when(cursor).forEachRemaining(any());
+        return cursor;
+    }
+
+    private static UserUnreadCount count(Long userId, Long unread) {
+        return new UserUnreadCount() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Long getUnreadCount() {
+                return unread;
+            }
+        };
+    }
+}
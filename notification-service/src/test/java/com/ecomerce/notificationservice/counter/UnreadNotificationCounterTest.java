@@ -0,0 +1,60 @@
+package com.ecomerce.notificationservice.counter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * HASH chỉ được tin khi đã có key initialized; tăng / giảm đi qua script kiểm tra initialized
+ */
+class UnreadNotificationCounterTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final UnreadNotificationCounter counter = new UnreadNotificationCounter(redisTemplate);
+
+    @Test
+    void countIsIgnoredUntilInitialized() {
+        pipelineReturns("3", false);
+
+        assertEquals(Optional.empty(), counter.get(42L));
+    }
+
+    @Test
+    void initializedCounterIsTrusted() {
+        pipelineReturns("3", true);
+        assertEquals(Optional.of(3L), counter.get(42L));
+
+        pipelineReturns(null, true);
+        assertEquals(Optional.of(0L), counter.get(42L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void incrementAndDecrementGoThroughInitializedCheck() {
+        List<String> keys = List.of(UnreadNotificationCounter.INITIALIZED_KEY, UnreadNotificationCounter.COUNTS_KEY);
+
+        counter.incrementAfterCommit(Map.of(42L, 2L));
+        counter.decrementAfterCommit(42L, 1L);
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(keys), eq("42"), eq("2"));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(keys), eq("42"), eq("1"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pipelineReturns(String count, boolean initialized) {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(Arrays.asList(count, initialized));
+    }
+}
@@ -0,0 +1,84 @@
+package com.ecomerce.notificationservice.idempotency;
+
+import com.ecomerce.notificationservice.repository.ProcessedEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lọc event trùng theo (topic, eventKey): trong batch, trong processed_events và trong cache memory
+ */
+class IdempotentConsumerTest {
+
+    private static final String TOPIC = "order-created";
+
+    private final ProcessedEventRepository processedEventRepository = mock(ProcessedEventRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final IdempotentConsumer idempotentConsumer =
+            new IdempotentConsumer(processedEventRepository, transactionTemplate, 100);
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void batchSkipsKeysAlreadyProcessedAndDuplicatesWithinBatch() {
+        when(processedEventRepository.findExistingKeys(eq(TOPIC), any())).thenReturn(List.of("ORD-1"));
+        List<String> handled = new ArrayList<>();
+
+        List<String> created = idempotentConsumer.executeOnceBatch(TOPIC,
+                List.of("ORD-1", "ORD-2", "ORD-2", "ORD-3"), key -> key, handled::addAll);
+
+        assertEquals(List.of("ORD-2", "ORD-3"), created);
+        assertEquals(List.of("ORD-2", "ORD-3"), handled);
+        verify(processedEventRepository).insertAll(eq(TOPIC), eq(Set.of("ORD-2", "ORD-3")), any(Instant.class));
+    }
+
+    @Test
+    void processedKeysAreSkippedFromMemoryWithoutDatabaseRoundTrip() {
+        when(processedEventRepository.findExistingKeys(eq(TOPIC), any())).thenReturn(List.of());
+        idempotentConsumer.executeOnceBatch(TOPIC, List.of("ORD-1"), key -> key, fresh -> { });
+
+        List<String> created = idempotentConsumer.executeOnceBatch(TOPIC, List.of("ORD-1"), key -> key,
+                fresh -> { throw new AssertionError("handler không được chạy lại"); });
+        boolean executed = idempotentConsumer.executeOnce(TOPIC, "ORD-1", () -> {
+            throw new AssertionError("handler không được chạy lại");
+        });
+
+        assertTrue(created.isEmpty());
+        assertFalse(executed);
+        verify(processedEventRepository, times(1)).findExistingKeys(eq(TOPIC), any());
+        verify(processedEventRepository, never()).insertIfAbsent(anyString(), anyString(), any());
+    }
+
+    @Test
+    void singleEventAlreadyInDatabaseDoesNotRunHandler() {
+        when(processedEventRepository.insertIfAbsent(eq(TOPIC), eq("ORD-9"), any(Instant.class))).thenReturn(0);
+
+        boolean executed = idempotentConsumer.executeOnce(TOPIC, "ORD-9", () -> {
+            throw new AssertionError("handler không được chạy");
+        });
+
+        assertFalse(executed);
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecomerce.notificationservice.service.impl;
+
+import com.ecomerce.notificationservice.counter.UnreadNotificationCounter;
+import com.ecomerce.notificationservice.model.Notification;
+import com.ecomerce.notificationservice.repository.NotificationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đánh dấu đã đọc 1 notification: counter chỉ giảm khi UPDATE có điều kiện thực sự đổi row
+ */
+class NotificationServiceImplTest {
+
+    private static final Long USER_ID = 42L;
+    private static final Long NOTIFICATION_ID = 9L;
+
+    private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+    private final UnreadNotificationCounter unreadNotificationCounter = mock(UnreadNotificationCounter.class);
+    private final NotificationServiceImpl notificationService = new NotificationServiceImpl(
+            notificationRepository, null, unreadNotificationCounter, null, null, null);
+
+    @Test
+    void firstMarkAsReadDecrementsCounter() {
+        givenUnreadNotification();
+        when(notificationRepository.markAsReadByIds(USER_ID, List.of(NOTIFICATION_ID))).thenReturn(1);
+
+        notificationService.markAsRead(NOTIFICATION_ID, USER_ID);
+
+        verify(unreadNotificationCounter).decrementAfterCommit(USER_ID, 1);
+        verify(notificationRepository, never()).save(any());
+    }
+
+    @Test
+    void concurrentMarkAsReadThatLostTheUpdateDoesNotDecrement() {
+        // Request khác đã đổi is_read => UPDATE ... WHERE is_read = false không đổi row nào
+        givenUnreadNotification();
+        when(notificationRepository.markAsReadByIds(USER_ID, List.of(NOTIFICATION_ID))).thenReturn(0);
+
+        notificationService.markAsRead(NOTIFICATION_ID, USER_ID);
+
+        verify(unreadNotificationCounter).decrementAfterCommit(USER_ID, 0);
+    }
+
+    private void givenUnreadNotification() {
+        Notification notification = Notification.builder().id(NOTIFICATION_ID).userId(USER_ID).isRead(false).build();
+        when(notificationRepository.findById(NOTIFICATION_ID)).thenReturn(Optional.of(notification));
+    }
+}
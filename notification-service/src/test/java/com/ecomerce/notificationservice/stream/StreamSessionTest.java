@@ -0,0 +1,78 @@
+package com.ecomerce.notificationservice.stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Replay chạy song song với realtime: không trùng id, không gửi event replay sau event realtime mới hơn
+ */
+class StreamSessionTest {
+
+    private final RecordingEmitter emitter = new RecordingEmitter();
+    // Ghi ngay trên thread gọi => thứ tự gửi = thứ tự xếp hàng
+    private final StreamSession session = new StreamSession(42L, emitter, 64, Runnable::run);
+
+    @Test
+    void replayedEventsAlreadyDeliveredLiveAreDropped() {
+        session.offer(notification(11));
+        session.replay(List.of(notification(10), notification(11)));
+
+        // 10 < 11 nhưng không nhận qua realtime => không gửi sau 11, yêu cầu resync
+        assertEquals(List.of("notification:11", "resync"), emitter.sent);
+    }
+
+    @Test
+    void replayBeforeAnyLiveEventIsSentInOrder() {
+        session.replay(List.of(notification(10), notification(11)));
+        session.offer(notification(11));
+        session.offer(notification(12));
+
+        assertEquals(List.of("notification:10", "notification:11", "notification:12"), emitter.sent);
+    }
+
+    @Test
+    void liveEventsReceivedBeforeReplayAreNotRepeated() {
+        session.offer(notification(10));
+        session.offer(notification(11));
+        session.replay(List.of(notification(10), notification(11), notification(12)));
+
+        assertEquals(List.of("notification:10", "notification:11", "notification:12"), emitter.sent);
+    }
+
+    private static StreamEvent notification(long id) {
+        return StreamEvent.notification(id, "{}");
+    }
+
+    /**
+     * Ghi lại "name:id" của từng event đã gửi
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> sent = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            for (var part : builder.build()) {
+                if (part.getMediaType() == null || !part.getMediaType().includes(org.springframework.http.MediaType.APPLICATION_JSON)) {
+                    text.append(part.getData());
+                }
+            }
+            String event = null;
+            String id = null;
+            for (String line : text.toString().split("\n")) {
+                if (line.startsWith("event:")) {
+                    event = line.substring("event:".length());
+                } else if (line.startsWith("id:")) {
+                    id = line.substring("id:".length());
+                }
+            }
+            sent.add(id != null ? event + ":" + id : event);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecomerce.notificationservice.template;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+/**
+ * Microbenchmark notification "đơn hàng đã được tạo": cách cũ (NumberFormat mới + String.format mỗi event, lưu full text)
+ * so với lưu template id + tham số thô: log số byte lưu DB mỗi notification, ns/op lúc consume và lúc render khi đọc.
+ *
+ * Chạy: mvn test -Dtest=NotificationTemplateBenchmark -Dnotification.benchmark=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "notification.benchmark", matches = "true")
+class NotificationTemplateBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int MEASURED = 1_000_000;
+    private static final String TEMPLATE_ID = "ORDER_CREATED";
+
+    @Test
+    void compareWithLegacyRendering() {
+        NotificationTemplates templates = new NotificationTemplates();
+
+        String legacyTitle = "📦 Đơn hàng đã được tạo";
+        String legacyMessage = legacyMessage(0);
+        String params = params(0);
+        log.info("📊 [storage] legacy={} bytes, template={} bytes",
+                utf8Length(legacyTitle) + utf8Length(legacyMessage),
+                utf8Length(TEMPLATE_ID) + utf8Length(params));
+
+        run("consume-legacy", NotificationTemplateBenchmark::legacyMessage);
+        run("consume-template", NotificationTemplateBenchmark::params);
+        run("read-render", i -> templates.render(TEMPLATE_ID, params, Locale.ROOT).message());
+    }
+
+    private static String legacyMessage(int i) {
+        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.forLanguageTag("vi-VN"));
+        String formattedTotal = currencyFormat.format(totalAmount(i));
+        return String.format(
+                "Đơn hàng của bạn đã được tạo thành công!\n\n" +
+                "📋 Thông tin đơn hàng:\n" +
+                "   - Mã đơn hàng: %s\n" +
+                "   - Tổng tiền: %s\n" +
+                "   - Số lượng sản phẩm: %d\n" +
+                "   - Địa chỉ giao hàng: %s\n" +
+                "   - Số điện thoại: %s\n\n" +
+                "Đơn hàng đang ở trạng thái: %s",
+                "ORD-" + i, formattedTotal, 3, "12 Nguyễn Huệ, Quận 1, TP.HCM", "0901234567", "PENDING");
+    }
+
+    private static String params(int i) {
+        return NotificationParams.encode("ORD-" + i, totalAmount(i), 3, "12 Nguyễn Huệ, Quận 1, TP.HCM", "0901234567", "PENDING");
+    }
+
+    private static BigDecimal totalAmount(int i) {
+        return BigDecimal.valueOf(1_250_000L + i % 1000);
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void run(String name, IntFunction<String> operation) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += operation.apply(i).length();
+        }
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            sink += operation.apply(i).length();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        log.info("📊 [{}] {} ns/op (sink={})", name, String.format("%.1f", (double) elapsedNanos / MEASURED), sink);
+    }
+}
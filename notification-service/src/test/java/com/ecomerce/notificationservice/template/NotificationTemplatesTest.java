@@ -0,0 +1,55 @@
+package com.ecomerce.notificationservice.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Render từ template id + tham số thô phải ra đúng nội dung như lúc còn lưu full text
+ */
+class NotificationTemplatesTest {
+
+    private static final Locale VI = Locale.forLanguageTag("vi-VN");
+
+    private final NotificationTemplates templates = new NotificationTemplates();
+
+    @Test
+    void orderCreatedRendersParamsAndFormatsCurrencyLikeNumberFormat() {
+        String params = NotificationParams.encode("ORD-7", new BigDecimal("1500000.00"), 3, "12 Nguyễn Huệ", "0901234567", "PENDING");
+
+        RenderedNotification rendered = templates.render("ORDER_CREATED", params, VI);
+
+        assertEquals("📦 Đơn hàng đã được tạo", rendered.title());
+        String expectedTotal = NumberFormat.getCurrencyInstance(VI).format(new BigDecimal("1500000"));
+        assertTrue(rendered.message().contains("   - Mã đơn hàng: ORD-7\n"), rendered.message());
+        assertTrue(rendered.message().contains("   - Tổng tiền: " + expectedTotal + "\n"), rendered.message());
+        assertTrue(rendered.message().endsWith("Đơn hàng đang ở trạng thái: PENDING"), rendered.message());
+        assertEquals("INFO", templates.type("ORDER_CREATED"));
+    }
+
+    @Test
+    void missingParamsUseFallbackAndFractionalAmountsStillFormat() {
+        String params = NotificationParams.encode("ORD-8", new BigDecimal("99.5"), 1, null, "", "PENDING");
+
+        String message = templates.render("ORDER_CREATED", params, VI).message();
+
+        assertTrue(message.contains("   - Địa chỉ giao hàng: N/A\n"), message);
+        assertTrue(message.contains("   - Số điện thoại: N/A\n"), message);
+        assertTrue(message.contains(NumberFormat.getCurrencyInstance(VI).format(new BigDecimal("99.5"))), message);
+    }
+
+    @Test
+    void unknownLocaleFallsBackToDefaultBundleAndUnknownTemplateFails() {
+        String params = NotificationParams.encode("ORD-9");
+
+        assertEquals(templates.render("ORDER_STATUS_CONFIRMED", params, VI),
+                templates.render("ORDER_STATUS_CONFIRMED", params, Locale.JAPAN));
+        assertThrows(IllegalArgumentException.class, () -> templates.render("NO_SUCH_TEMPLATE", params, VI));
+    }
+}
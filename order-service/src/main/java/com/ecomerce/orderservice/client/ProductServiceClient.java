@@ -4,6 +4,9 @@ import com.ecomerce.orderservice.client.dto.ProductDetailResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(
         name = "product-service",
@@ -14,5 +17,11 @@ public interface ProductServiceClient {
 
     @GetMapping("/{id}")
     ProductDetailResponse getProductById(@PathVariable("id") Long id);
+
+    /**
+     * Lấy nhiều sản phẩm trong 1 request - chỉ trả về sản phẩm active
+     */
+    @GetMapping("/batch")
+    List<ProductDetailResponse> getProductsByIds(@RequestParam("ids") List<Long> ids);
 }
 
@@ -0,0 +1,139 @@
+package com.ecomerce.orderservice.consumer;
+
+import com.ecomerce.orderservice.advice.exeption.ResourceNotFoundException;
+import com.ecomerce.orderservice.dto.request.OrderCreateRequest;
+import com.ecomerce.orderservice.dto.response.OrderResponse;
+import com.ecomerce.orderservice.event.CancelOrderCommand;
+import com.ecomerce.orderservice.event.CreateOrderCommand;
+import com.ecomerce.orderservice.event.OrderCreateReply;
+import com.ecomerce.orderservice.idempotency.IdempotentConsumer;
+import com.ecomerce.orderservice.model.Order;
+import com.ecomerce.orderservice.repository.OrderRepository;
+import com.ecomerce.orderservice.service.KafkaProducerService;
+import com.ecomerce.orderservice.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Xử lý command của checkout saga (cart-service)
+ * - order-create-command: tạo đơn + ghi OrderCreateReply vào outbox trong cùng transaction
+ * - order-cancel-command: bù trừ khi reserve kho / tạo thanh toán thất bại
+ * - Lỗi nghiệp vụ (dữ liệu không hợp lệ) => reply success=false; lỗi hạ tầng => ném lại cho DefaultErrorHandler
+ *   (seek + backoff, xem KafkaConsumerConfig), command được xử lý lại; executeOnce => tạo đơn đúng 1 lần
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckoutCommandConsumer {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final IdempotentConsumer idempotentConsumer;
+
+    @KafkaListener(
+            topics = "order-create-command",
+            groupId = "order-service-group",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeCreateOrderCommand(
+            @Payload CreateOrderCommand command,
+            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+            Acknowledgment acknowledgment
+    ) {
+        log.info("📨 Received CreateOrderCommand for checkout: {}, user: {}", command.getCheckoutId(), command.getUserId());
+        String eventKey = "checkout:" + command.getCheckoutId();
+        try {
+            idempotentConsumer.executeOnce(topic, eventKey, () -> {
+                OrderResponse order = orderService.createOrder(command.getUserId(), toOrderCreateRequest(command));
+                kafkaProducerService.publishOrderCreateReply(OrderCreateReply.builder()
+                        .checkoutId(command.getCheckoutId())
+                        .success(true)
+                        .orderId(order.getId())
+                        .orderNumber(order.getOrderNumber())
+                        .userId(order.getUserId())
+                        .totalAmount(order.getTotalAmount())
+                        .timestamp(Instant.now())
+                        .build());
+            });
+            acknowledgment.acknowledge();
+        } catch (IllegalStateException | IllegalArgumentException | ResourceNotFoundException e) {
+            log.warn("⚠️ Không thể tạo đơn cho checkout {}: {}", command.getCheckoutId(), e.getMessage());
+            idempotentConsumer.executeOnce(topic, eventKey + ":failed", () ->
+                    kafkaProducerService.publishOrderCreateReply(OrderCreateReply.builder()
+                            .checkoutId(command.getCheckoutId())
+                            .success(false)
+                            .userId(command.getUserId())
+                            .reason(e.getMessage())
+                            .timestamp(Instant.now())
+                            .build()));
+            acknowledgment.acknowledge();
+        } catch (RuntimeException e) {
+            log.error("❌ Error processing CreateOrderCommand for checkout {}: {}", command.getCheckoutId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @KafkaListener(
+            topics = "order-cancel-command",
+            groupId = "order-service-group",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeCancelOrderCommand(@Payload CancelOrderCommand command, Acknowledgment acknowledgment) {
+        log.info("📨 Received CancelOrderCommand for checkout: {}, order: {}, reason: {}",
+                command.getCheckoutId(), command.getOrderId(), command.getReason());
+        try {
+            Order.OrderStatus status = orderRepository.findById(command.getOrderId())
+                    .map(Order::getStatus)
+                    .orElse(null);
+            // Đã hủy / không tồn tại => command lặp lại, bỏ qua
+            if (status == null || status == Order.OrderStatus.CANCELLED) {
+                acknowledgment.acknowledge();
+                return;
+            }
+            orderService.cancelOrder(command.getOrderId(), command.getUserId());
+            acknowledgment.acknowledge();
+            log.info("✅ Cancelled order {} as checkout saga compensation", command.getOrderId());
+        } catch (IllegalStateException | ResourceNotFoundException e) {
+            // Đơn đã giao / không thuộc user => không thể bù trừ, ghi log để xử lý thủ công
+            log.error("❌ Không thể hủy order {} cho checkout {}: {}", command.getOrderId(), command.getCheckoutId(), e.getMessage());
+            acknowledgment.acknowledge();
+        } catch (RuntimeException e) {
+            log.error("❌ Error processing CancelOrderCommand for order {}: {}", command.getOrderId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    private OrderCreateRequest toOrderCreateRequest(CreateOrderCommand command) {
+        List<OrderCreateRequest.OrderItemRequest> items = command.getItems() == null ? List.of() : command.getItems().stream()
+                .map(item -> {
+                    OrderCreateRequest.OrderItemRequest itemRequest = new OrderCreateRequest.OrderItemRequest();
+                    itemRequest.setProductId(item.getProductId());
+                    itemRequest.setProductName(item.getProductName());
+                    itemRequest.setProductImage(item.getProductImage());
+                    itemRequest.setPrice(item.getPrice());
+                    itemRequest.setQuantity(item.getQuantity());
+                    return itemRequest;
+                })
+                .toList();
+        if (items.isEmpty()) {
+            throw new IllegalStateException("Danh sách sản phẩm không được để trống");
+        }
+
+        OrderCreateRequest request = new OrderCreateRequest();
+        request.setItems(items);
+        request.setShippingAddress(command.getShippingAddress());
+        request.setPhone(command.getPhone());
+        request.setNotes(command.getNotes());
+        return request;
+    }
+}
@@ -0,0 +1,99 @@
+package com.ecomerce.orderservice.consumer;
+
+import com.ecomerce.orderservice.dto.response.OrderResponse;
+import com.ecomerce.orderservice.event.OrderCreatedEvent;
+import com.ecomerce.orderservice.event.OrderStatusChangedEvent;
+import com.ecomerce.orderservice.model.Order;
+import com.ecomerce.orderservice.readmodel.OrderHistoryReadModel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Cập nhật order history read model từ event của chính order-service
+ * - Group riêng "order-service-history" => không ảnh hưởng offset của các consumer khác
+ * - Projection idempotent (đơn đã có thì bỏ qua, status cũ hơn thì bỏ qua) => không cần processed_events
+ * - Lỗi Redis => evict read model của user, lần đọc sau backfill lại từ MySQL
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderHistoryProjectionConsumer {
+
+    private final OrderHistoryReadModel orderHistoryReadModel;
+
+    @KafkaListener(
+            topics = "order-created",
+            groupId = "order-service-history",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void onOrderCreated(@Payload OrderCreatedEvent event, Acknowledgment acknowledgment) {
+        try {
+            orderHistoryReadModel.addOrder(toResponse(event));
+            log.debug("Projected order {} into order history of user {}", event.getOrderNumber(), event.getUserId());
+        } catch (Exception e) {
+            log.error("❌ Error projecting OrderCreatedEvent {}: {}", event.getOrderNumber(), e.getMessage(), e);
+            evictQuietly(event.getUserId());
+        }
+        acknowledgment.acknowledge();
+    }
+
+    @KafkaListener(
+            topics = "order-status-changed",
+            groupId = "order-service-history",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void onOrderStatusChanged(@Payload OrderStatusChangedEvent event, Acknowledgment acknowledgment) {
+        try {
+            // Event publish trước khi có updatedAt => dùng tạm timestamp
+            Instant changedAt = event.getUpdatedAt() != null ? event.getUpdatedAt() : event.getTimestamp();
+            orderHistoryReadModel.updateStatus(event.getUserId(), event.getOrderId(),
+                    Order.OrderStatus.valueOf(event.getNewStatus()), changedAt);
+        } catch (Exception e) {
+            log.error("❌ Error projecting OrderStatusChangedEvent {}: {}", event.getOrderNumber(), e.getMessage(), e);
+            evictQuietly(event.getUserId());
+        }
+        acknowledgment.acknowledge();
+    }
+
+    private void evictQuietly(Long userId) {
+        try {
+            orderHistoryReadModel.evict(userId);
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể evict order history của user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private OrderResponse toResponse(OrderCreatedEvent event) {
+        List<OrderResponse.OrderItemResponse> items = event.getItems() == null ? List.of() : event.getItems().stream()
+                .map(item -> OrderResponse.OrderItemResponse.builder()
+                        .id(item.getOrderItemId())
+                        .productId(item.getProductId())
+                        .productName(item.getProductName())
+                        .productImage(item.getProductImage())
+                        .price(item.getPrice())
+                        .quantity(item.getQuantity())
+                        .build())
+                .toList();
+
+        return OrderResponse.builder()
+                .id(event.getOrderId())
+                .userId(event.getUserId())
+                .orderNumber(event.getOrderNumber())
+                .totalAmount(event.getTotalAmount())
+                .status(Order.OrderStatus.valueOf(event.getStatus()))
+                .shippingAddress(event.getShippingAddress())
+                .phone(event.getPhone())
+                .notes(event.getNotes())
+                .createdAt(event.getCreatedAt() != null ? event.getCreatedAt() : event.getTimestamp())
+                .updatedAt(event.getCreatedAt() != null ? event.getCreatedAt() : event.getTimestamp())
+                .items(items)
+                .build();
+    }
+}
@@ -3,6 +3,7 @@ package com.ecomerce.orderservice.consumer;
 import com.ecomerce.orderservice.event.OrderStatusChangedEvent;
 import com.ecomerce.orderservice.event.PaymentFailedEvent;
 import com.ecomerce.orderservice.event.PaymentSuccessEvent;
+import com.ecomerce.orderservice.idempotency.IdempotentConsumer;
 import com.ecomerce.orderservice.model.Order;
 import com.ecomerce.orderservice.repository.OrderRepository;
 import com.ecomerce.orderservice.service.KafkaProducerService;
@@ -30,6 +31,7 @@ public class PaymentStatusChangedConsumer {
 
     private final OrderRepository orderRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final IdempotentConsumer idempotentConsumer;
 
     @KafkaListener(
             topics = "payment-success",
@@ -41,6 +43,7 @@ public class PaymentStatusChangedConsumer {
             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
             @Header(KafkaHeaders.OFFSET) long offset,
+            @Header(name = IdempotentConsumer.EVENT_ID_HEADER, required = false) String eventId,
             Acknowledgment acknowledgment
     ) {
         try {
@@ -49,56 +52,62 @@ public class PaymentStatusChangedConsumer {
             log.info("Event details: paymentId={}, orderId={}, userId={}, amount={}",
                     event.getPaymentId(), event.getOrderId(), event.getUserId(), event.getAmount());
 
-            // Get order
-            Order order = orderRepository.findByIdWithItems(event.getOrderId())
-                    .orElseThrow(() -> new RuntimeException("Order not found: " + event.getOrderId()));
+            // Update order + ghi OrderStatusChangedEvent vào outbox + ghi processed_events trong cùng 1 transaction
+            // => redelivery của cùng payment không publish lại status event
+            idempotentConsumer.executeOnce(topic, IdempotentConsumer.eventKey(eventId, "payment:" + event.getPaymentId()), () -> {
+                // Get order
+                Order order = orderRepository.findByIdWithItems(event.getOrderId())
+                        .orElseThrow(() -> new RuntimeException("Order not found: " + event.getOrderId()));
 
-            // Validate order belongs to user
-            if (!order.getUserId().equals(event.getUserId())) {
-                log.error("❌ Order {} does not belong to user {}", event.getOrderId(), event.getUserId());
-                throw new RuntimeException("Order does not belong to user");
-            }
+                // Validate order belongs to user
+                if (!order.getUserId().equals(event.getUserId())) {
+                    log.error("❌ Order {} does not belong to user {}", event.getOrderId(), event.getUserId());
+                    throw new RuntimeException("Order does not belong to user");
+                }
 
-            // Validate order status - chỉ update nếu order đang ở PENDING
-            if (order.getStatus() != Order.OrderStatus.PENDING) {
-                log.warn("⚠️ Order {} is not in PENDING status. Current status: {}. Skipping status update.", 
-                        event.getOrderId(), order.getStatus());
-            } else {
-                Order.OrderStatus oldStatus = order.getStatus();
-                // Update order status to CONFIRMED
-                order.setStatus(Order.OrderStatus.CONFIRMED);
-                orderRepository.save(order);
-                log.info("✅ Updated order {} status from PENDING to CONFIRMED after successful payment", 
-                        event.getOrderId());
+                // Validate order status - chỉ update nếu order đang ở PENDING
+                if (order.getStatus() != Order.OrderStatus.PENDING) {
+                    log.warn("⚠️ Order {} is not in PENDING status. Current status: {}. Skipping status update.", 
+                            event.getOrderId(), order.getStatus());
+                } else {
+                    Order.OrderStatus oldStatus = order.getStatus();
+                    // Update order status to CONFIRMED
+                    order.setStatus(Order.OrderStatus.CONFIRMED);
+                    orderRepository.saveAndFlush(order);
+                    log.info("✅ Updated order {} status from PENDING to CONFIRMED after successful payment", 
+                            event.getOrderId());
                 
-                // Publish OrderStatusChangedEvent to Kafka
-                OrderStatusChangedEvent statusEvent = OrderStatusChangedEvent.builder()
-                        .orderId(order.getId())
-                        .userId(order.getUserId())
-                        .orderNumber(order.getOrderNumber())
-                        .oldStatus(oldStatus.name())
-                        .newStatus(Order.OrderStatus.CONFIRMED.name())
-                        .items(order.getItems().stream()
-                                .map(item -> OrderStatusChangedEvent.OrderItemEvent.builder()
-                                        .productId(item.getProductId())
-                                        .productName(item.getProductName())
-                                        .price(item.getPrice())
-                                        .quantity(item.getQuantity())
-                                        .build())
-                                .collect(Collectors.toList()))
-                        .timestamp(Instant.now())
-                        .build();
+                    // Publish OrderStatusChangedEvent to Kafka
+                    OrderStatusChangedEvent statusEvent = OrderStatusChangedEvent.builder()
+                            .orderId(order.getId())
+                            .userId(order.getUserId())
+                            .orderNumber(order.getOrderNumber())
+                            .oldStatus(oldStatus.name())
+                            .newStatus(Order.OrderStatus.CONFIRMED.name())
+                            .items(order.getItems().stream()
+                                    .map(item -> OrderStatusChangedEvent.OrderItemEvent.builder()
+                                            .productId(item.getProductId())
+                                            .productName(item.getProductName())
+                                            .price(item.getPrice())
+                                            .quantity(item.getQuantity())
+                                            .build())
+                                    .collect(Collectors.toList()))
+                            .updatedAt(order.getUpdatedAt())
+                            .timestamp(Instant.now())
+                            .build();
                 
-                kafkaProducerService.publishOrderStatusChangedEvent(statusEvent);
-                log.info("✅ Published OrderStatusChangedEvent for order: {}", order.getOrderNumber());
-            }
+                    kafkaProducerService.publishOrderStatusChangedEvent(statusEvent);
+                    log.info("✅ Queued OrderStatusChangedEvent for order: {}", order.getOrderNumber());
+                }
+            });
 
             // Acknowledge message
             acknowledgment.acknowledge();
             log.info("✅ Successfully processed PaymentSuccessEvent for order: {}", event.getOrderId());
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             log.error("❌ Error processing PaymentSuccessEvent: {}", e.getMessage(), e);
-            // Don't acknowledge - message will be retried
+            // Ném lại => DefaultErrorHandler seek và xử lý lại (xem KafkaConsumerConfig)
+            throw e;
         }
     }
 
@@ -138,9 +147,10 @@ public class PaymentStatusChangedConsumer {
             // Acknowledge message
             acknowledgment.acknowledge();
             log.info("✅ Successfully processed PaymentFailedEvent for order: {}", event.getOrderId());
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             log.error("❌ Error processing PaymentFailedEvent: {}", e.getMessage(), e);
-            // Don't acknowledge - message will be retried
+            // Ném lại => DefaultErrorHandler seek và xử lý lại (xem KafkaConsumerConfig)
+            throw e;
         }
     }
 }
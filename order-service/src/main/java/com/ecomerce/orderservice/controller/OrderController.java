@@ -6,6 +6,7 @@ import com.ecomerce.orderservice.dto.request.OrderCreateRequest;
 import com.ecomerce.orderservice.dto.request.OrderUpdateRequest;
 import com.ecomerce.orderservice.dto.response.OrderResponse;
 import com.ecomerce.orderservice.dto.response.PageResponseDto;
+import com.ecomerce.orderservice.idempotency.Idempotent;
 import com.ecomerce.orderservice.model.Order;
 import com.ecomerce.orderservice.service.OrderService;
 import com.ecomerce.orderservice.util.JwtUtil;
@@ -20,6 +21,7 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 @Tag(name = "Order", description = "Quản lý đơn hàng")
@@ -31,6 +33,7 @@ public class OrderController {
     private final OrderService orderService;
 
     @PostMapping
+    @Idempotent
     @ApiMessage(value = "Tạo đơn hàng thành công")
     @Operation(summary = "Tạo đơn hàng mới (yêu cầu gửi đầy đủ thông tin sản phẩm)")
     public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody OrderCreateRequest request) {
@@ -40,6 +43,7 @@ public class OrderController {
     }
 
     @PostMapping("/buy-now")
+    @Idempotent
     @ApiMessage(value = "Mua ngay thành công")
     @Operation(summary = "Mua ngay sản phẩm (chỉ cần productId và quantity, hệ thống tự lấy giá và kiểm tra tồn kho)")
     public ResponseEntity<OrderResponse> buyNow(@Valid @RequestBody BuyNowRequest request) {
@@ -70,6 +74,8 @@ public class OrderController {
      * Lấy danh sách đơn hàng của user với filtering và pagination
      * Hỗ trợ filtering qua query string: ?status=PENDING&totalAmount>1000&createdAt>2024-01-01
      * Hỗ trợ pagination: ?page=0&size=20&sort=createdAt,desc
+     * spring-filter luôn trả Specification khác null (rỗng khi không có filter) => tự kiểm tra param filter,
+     * không có filter thì truyền null để service đọc được từ order history read model
      */
     @GetMapping("/my-orders")
     @ApiMessage(value = "Lấy danh sách đơn hàng thành công")
@@ -79,10 +85,12 @@ public class OrderController {
     )
     public ResponseEntity<PageResponseDto<OrderResponse>> getMyOrders(
             @Filter Specification<Order> spec,
+            @RequestParam(value = "filter", required = false) String filter,
             @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable
     ) {
         Long userId = JwtUtil.getCurrentUserId();
-        PageResponseDto<OrderResponse> orders = orderService.getUserOrders(userId, spec, pageable);
+        Specification<Order> userFilter = StringUtils.hasText(filter) ? spec : null;
+        PageResponseDto<OrderResponse> orders = orderService.getUserOrders(userId, userFilter, pageable);
         return ResponseEntity.ok(orders);
     }
 
@@ -0,0 +1,23 @@
+package com.ecomerce.orderservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Command bù trừ từ checkout saga: hủy đơn hàng khi bước sau (reserve kho / tạo thanh toán) thất bại
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancelOrderCommand {
+    private String checkoutId;
+    private Long orderId;
+    private Long userId;
+    private String reason;
+    private Instant timestamp;
+}
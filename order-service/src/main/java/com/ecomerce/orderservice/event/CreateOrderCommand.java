@@ -0,0 +1,40 @@
+package com.ecomerce.orderservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Command từ checkout saga (cart-service): tạo đơn hàng cho 1 lần checkout bất đồng bộ
+ * Kết quả trả về qua topic order-create-reply (cùng checkoutId)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateOrderCommand {
+    private String checkoutId;
+    private Long userId;
+    private String shippingAddress;
+    private String phone;
+    private String notes;
+    private List<OrderItem> items;
+    private Instant timestamp;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderItem {
+        private Long productId;
+        private String productName;
+        private String productImage;
+        private BigDecimal price;
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecomerce.orderservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Reply cho {@link CreateOrderCommand}: success = true kèm thông tin đơn, false kèm lý do
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCreateReply {
+    private String checkoutId;
+    private boolean success;
+    private Long orderId;
+    private String orderNumber;
+    private Long userId;
+    private BigDecimal totalAmount;
+    private String reason;
+    private Instant timestamp;
+}
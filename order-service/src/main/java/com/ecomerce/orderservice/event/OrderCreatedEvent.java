@@ -21,7 +21,9 @@ public class OrderCreatedEvent {
     private String status;
     private String shippingAddress;
     private String phone;
+    private String notes;
     private List<OrderItemEvent> items;
+    private Instant createdAt;
     private Instant timestamp;
 
     @Data
@@ -29,8 +31,10 @@ public class OrderCreatedEvent {
     @NoArgsConstructor
     @AllArgsConstructor
     public static class OrderItemEvent {
+        private Long orderItemId;
         private Long productId;
         private String productName;
+        private String productImage;
         private BigDecimal price;
         private Integer quantity;
     }
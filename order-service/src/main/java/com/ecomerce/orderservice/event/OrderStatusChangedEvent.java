@@ -20,6 +20,8 @@ public class OrderStatusChangedEvent {
     private String oldStatus;
     private String newStatus;
     private List<OrderItemEvent> items;
+    // updatedAt của đơn sau thay đổi (thứ tự thay đổi trạng thái); timestamp chỉ là thời điểm tạo event
+    private Instant updatedAt;
     private Instant timestamp;
 
     @Data
@@ -0,0 +1,213 @@
+package com.ecomerce.orderservice.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lưu trạng thái request theo Idempotency-Key trong Redis:
+ * - "IN_PROGRESS:{fingerprint}:{uuid}" (lock-ttl, được gia hạn định kỳ khi request vẫn đang chạy) khi request đầu tiên đang chạy
+ * - JSON response kèm fingerprint (TTL dài) khi request đã xong
+ * Lock không phụ thuộc thời gian xử lý (gia hạn tới khi complete/release); instance chết => lock hết hạn sau lock-ttl
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyStore {
+
+    private static final String KEY_PREFIX = "idempotency:request:";
+    private static final String IN_PROGRESS_PREFIX = "IN_PROGRESS:";
+    private static final long POLL_INTERVAL_MS = 50;
+
+    /**
+     * ARGV: token, responseJson, ttlSeconds - chỉ ghi khi vẫn đang giữ lock
+     */
+    private static final RedisScript<Long> COMPLETE_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    /**
+     * ARGV: token, lockTtlMillis - chỉ gia hạn khi vẫn đang giữ lock
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end
+            return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            """, Long.class);
+
+    /**
+     * ARGV: token
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end
+            return redis.call('DEL', KEYS[1])
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    // Lock đang giữ trên instance này (token -> lock), gia hạn bởi renewLocks()
+    private final Map<String, Lock> heldLocks = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.request.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${idempotency.request.lock-ttl:30s}")
+    private Duration lockTtl;
+
+    @Value("${idempotency.request.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    /**
+     * Response đã lưu để trả lại cho request lặp (requestFingerprint null với response lưu trước khi có fingerprint)
+     */
+    public record StoredResponse(int status, String contentType, String body, String requestFingerprint) {
+    }
+
+    /**
+     * Lock của request đang thực thi (token để không ghi đè/xóa nhầm lock của request khác khi lock đã hết hạn)
+     */
+    public record Lock(String key, String token, String fingerprint) {
+    }
+
+    /**
+     * Kết quả acquire: lock hoặc response khác null; cả 2 null và fingerprintMismatch = false nghĩa là hết thời gian chờ
+     */
+    public record Acquisition(Lock lock, StoredResponse response, boolean fingerprintMismatch) {
+    }
+
+    /**
+     * SHA-256 (hex) của query string + body
+     */
+    public static String fingerprint(String queryString, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (queryString != null) {
+                digest.update(queryString.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+            return HexFormat.of().formatHex(digest.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
+    }
+
+    public String key(String principal, String method, String path, String idempotencyKey) {
+        return KEY_PREFIX + principal + ":" + method + ":" + path + ":" + idempotencyKey;
+    }
+
+    /**
+     * Giành quyền thực thi hoặc lấy response đã có; request trước đang chạy thì chờ tới wait-timeout
+     * @param fingerprint fingerprint của request hiện tại, khác request đầu => fingerprintMismatch (không chờ)
+     */
+    public Acquisition acquire(String key, String fingerprint) throws InterruptedException {
+        String lockFingerprint = fingerprint != null ? fingerprint : "";
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            String token = IN_PROGRESS_PREFIX + lockFingerprint + ":" + UUID.randomUUID();
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, lockTtl))) {
+                Lock lock = new Lock(key, token, fingerprint);
+                heldLocks.put(token, lock);
+                return new Acquisition(lock, null, false);
+            }
+
+            String value = redisTemplate.opsForValue().get(key);
+            if (value != null && value.startsWith(IN_PROGRESS_PREFIX)) {
+                if (!matches(fingerprint, inProgressFingerprint(value))) {
+                    return new Acquisition(null, null, true);
+                }
+            } else if (value != null) {
+                StoredResponse response = readResponse(value);
+                if (response != null) {
+                    return matches(fingerprint, response.requestFingerprint())
+                            ? new Acquisition(null, response, false)
+                            : new Acquisition(null, null, true);
+                }
+            }
+            if (System.nanoTime() >= deadline) {
+                return new Acquisition(null, null, false);
+            }
+            // value == null: lock vừa được release/hết hạn => thử lại ngay vòng sau
+            if (value != null) {
+                Thread.sleep(POLL_INTERVAL_MS);
+            }
+        }
+    }
+
+    public void complete(Lock lock, StoredResponse response) {
+        heldLocks.remove(lock.token());
+        try {
+            redisTemplate.execute(COMPLETE_SCRIPT, List.of(lock.key()),
+                    lock.token(), objectMapper.writeValueAsString(response), String.valueOf(ttl.toSeconds()));
+        } catch (Exception e) {
+            // Không lưu được => release để request lặp được thực thi lại thay vì chờ hết lock TTL
+            log.warn("⚠️ Không thể lưu response cho idempotency key {}: {}", lock.key(), e.getMessage());
+            release(lock);
+        }
+    }
+
+    public void release(Lock lock) {
+        heldLocks.remove(lock.token());
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(lock.key()), lock.token());
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể release idempotency key {}: {}", lock.key(), e.getMessage());
+        }
+    }
+
+    /**
+     * Gia hạn lock của các request vẫn đang chạy trên instance này (interval phải nhỏ hơn lock-ttl)
+     */
+    @Scheduled(fixedDelayString = "${idempotency.request.lock-renew-interval-ms:10000}")
+    public void renewLocks() {
+        String lockTtlMillis = String.valueOf(lockTtl.toMillis());
+        for (Lock lock : heldLocks.values()) {
+            try {
+                Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(lock.key()), lock.token(), lockTtlMillis);
+                if (renewed == null || renewed == 0) {
+                    // Lock đã hết hạn / bị thay thế => request lặp có thể đã chạy song song
+                    heldLocks.remove(lock.token());
+                    log.warn("⚠️ Mất lock idempotency key {} trong lúc request vẫn đang chạy", lock.key());
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Không thể gia hạn idempotency key {}: {}", lock.key(), e.getMessage());
+            }
+        }
+    }
+
+    // Response lưu trước khi có fingerprint / request không có fingerprint => không so được, coi như khớp
+    private static boolean matches(String fingerprint, String storedFingerprint) {
+        return fingerprint == null || storedFingerprint == null || storedFingerprint.isEmpty()
+                || fingerprint.equals(storedFingerprint);
+    }
+
+    private static String inProgressFingerprint(String value) {
+        int end = value.indexOf(':', IN_PROGRESS_PREFIX.length());
+        return end < 0 ? null : value.substring(IN_PROGRESS_PREFIX.length(), end);
+    }
+
+    private StoredResponse readResponse(String value) {
+        try {
+            return objectMapper.readValue(value, StoredResponse.class);
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ Response đã lưu không hợp lệ, bỏ qua: {}", e.getMessage());
+            return null;
+        }
+    }
+}
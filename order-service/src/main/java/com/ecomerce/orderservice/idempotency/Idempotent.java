@@ -0,0 +1,20 @@
+package com.ecomerce.orderservice.idempotency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Đánh dấu endpoint hỗ trợ header Idempotency-Key.
+ * <p>
+ * Khi client (hoặc Feign caller khi retry) gửi lại cùng Idempotency-Key:
+ * - Request trước đã xong => trả lại đúng response đã lưu trong Redis, không thực thi lại
+ * - Request trước đang chạy => chờ kết quả của request đó thay vì chạy song song
+ * <p>
+ * Không có header => endpoint chạy bình thường.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Idempotent {
+}
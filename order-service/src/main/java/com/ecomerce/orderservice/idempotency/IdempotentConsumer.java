@@ -0,0 +1,124 @@
+package com.ecomerce.orderservice.idempotency;
+
+import com.ecomerce.orderservice.repository.ProcessedEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Idempotent consumer cho các @KafkaListener (manual ack => message có thể bị deliver lại)
+ * - Tầng 1: tập key vừa xử lý trong memory (LRU, bounded) => bỏ qua duplicate không tốn DB round-trip
+ * - Tầng 2: bảng processed_events, insert cùng transaction với handler => đảm bảo đúng 1 lần kể cả khi restart
+ * - Record cũ hơn retention sẽ được xóa định kỳ
+ *
+ * Cách dùng trong listener:
+ * <pre>
+ * idempotentConsumer.executeOnce(topic, IdempotentConsumer.eventKey(eventId, event.getOrderId()), () -> ...);
+ * </pre>
+ */
+@Slf4j
+@Component
+public class IdempotentConsumer {
+
+    /** Header do outbox relay của order-service gắn vào mỗi event */
+    public static final String EVENT_ID_HEADER = "eventId";
+
+    private static final int CLEANUP_CHUNK_SIZE = 1000;
+
+    private final ProcessedEventRepository processedEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<String> recentKeys;
+
+    @Value("${idempotency.retention-days:7}")
+    private int retentionDays;
+
+    public IdempotentConsumer(ProcessedEventRepository processedEventRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${idempotency.recent-keys.max-size:10000}") int recentKeysMaxSize) {
+        this.processedEventRepository = processedEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.recentKeys = Collections.synchronizedSet(Collections.newSetFromMap(
+                new LinkedHashMap<String, Boolean>() {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                        return size() > recentKeysMaxSize;
+                    }
+                }));
+    }
+
+    /**
+     * Key của event: ưu tiên eventId header, không có thì dùng business key
+     */
+    public static String eventKey(String eventIdHeader, Object businessKey) {
+        return eventIdHeader != null && !eventIdHeader.isBlank() ? eventIdHeader : String.valueOf(businessKey);
+    }
+
+    /**
+     * Chạy handler đúng 1 lần cho mỗi (topic, eventKey)
+     * Handler chạy trong transaction (join nếu đã có); handler lỗi => rollback cả record processed_events
+     * @return false nếu event đã được xử lý trước đó (handler không chạy)
+     */
+    public boolean executeOnce(String topic, String eventKey, Runnable handler) {
+        String cacheKey = topic + '|' + eventKey;
+        if (recentKeys.contains(cacheKey)) {
+            log.info("⏭️ Bỏ qua event trùng (memory): topic={}, key={}", topic, eventKey);
+            return false;
+        }
+
+        Boolean executed = transactionTemplate.execute(status -> {
+            if (processedEventRepository.insertIfAbsent(topic, eventKey, Instant.now()) == 0) {
+                return false;
+            }
+            handler.run();
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(executed)) {
+            rememberAfterCommit(cacheKey);
+            return true;
+        }
+        recentKeys.add(cacheKey);
+        log.info("⏭️ Bỏ qua event trùng (database): topic={}, key={}", topic, eventKey);
+        return false;
+    }
+
+    @Scheduled(cron = "${idempotency.cleanup.cron:0 30 3 * * *}")
+    public void purgeProcessedEvents() {
+        Instant before = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        int total = 0;
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    processedEventRepository.deleteProcessedBefore(before, CLEANUP_CHUNK_SIZE));
+            total += deleted != null ? deleted : 0;
+        } while (deleted != null && deleted == CLEANUP_CHUNK_SIZE);
+        log.info("🧹 Đã xóa {} processed events trước {}", total, before);
+    }
+
+    /**
+     * Nếu executeOnce được gọi bên trong transaction lớn hơn thì chỉ nhớ key khi transaction đó commit
+     */
+    private void rememberAfterCommit(String cacheKey) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentKeys.add(cacheKey);
+                }
+            });
+        } else {
+            recentKeys.add(cacheKey);
+        }
+    }
+}
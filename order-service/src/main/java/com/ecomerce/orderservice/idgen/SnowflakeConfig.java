@@ -0,0 +1,68 @@
+package com.ecomerce.orderservice.idgen;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.netflix.eureka.EurekaInstanceConfigBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cấp node id cho {@link SnowflakeIdGenerator} từ metadata của Eureka instance:
+ * - Có "node-id" trong eureka.instance.metadata-map (ORDER_NODE_ID) => dùng luôn
+ * - Không có => chọn id chưa được instance order-service nào khác đăng ký (bắt đầu từ hash của instance id),
+ *   rồi ghi ngược vào metadata để các instance khởi động sau tránh trùng
+ */
+@Slf4j
+@Configuration
+public class SnowflakeConfig {
+
+    public static final String NODE_ID_METADATA_KEY = "node-id";
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(EurekaInstanceConfigBean instanceConfig,
+                                                     ApplicationInfoManager applicationInfoManager,
+                                                     DiscoveryClient discoveryClient,
+                                                     @Value("${spring.application.name}") String serviceId) {
+        String configured = instanceConfig.getMetadataMap().get(NODE_ID_METADATA_KEY);
+        long nodeId;
+        if (configured != null && !configured.isBlank()) {
+            nodeId = Long.parseLong(configured.trim());
+        } else {
+            nodeId = pickFreeNodeId(instanceConfig.getInstanceId(), discoveryClient, serviceId);
+            applicationInfoManager.registerAppMetadata(Map.of(NODE_ID_METADATA_KEY, String.valueOf(nodeId)));
+        }
+
+        log.info("✅ Snowflake node id: {} (instance: {})", nodeId, instanceConfig.getInstanceId());
+        return new SnowflakeIdGenerator(nodeId);
+    }
+
+    private long pickFreeNodeId(String instanceId, DiscoveryClient discoveryClient, String serviceId) {
+        Set<Long> usedNodeIds = new HashSet<>();
+        try {
+            for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                String nodeId = instance.getMetadata().get(NODE_ID_METADATA_KEY);
+                if (nodeId != null && !instance.getInstanceId().equals(instanceId)) {
+                    usedNodeIds.add(Long.parseLong(nodeId));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Không đọc được node id của các instance khác từ Eureka: {}", e.getMessage());
+        }
+
+        long start = Math.floorMod(instanceId.hashCode(), SnowflakeIdGenerator.MAX_NODE_ID + 1);
+        for (long i = 0; i <= SnowflakeIdGenerator.MAX_NODE_ID; i++) {
+            long candidate = (start + i) % (SnowflakeIdGenerator.MAX_NODE_ID + 1);
+            if (!usedNodeIds.contains(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Đã dùng hết " + (SnowflakeIdGenerator.MAX_NODE_ID + 1) + " Snowflake node id");
+    }
+}
@@ -0,0 +1,101 @@
+package com.ecomerce.orderservice.idgen;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake ID: 41 bit thời gian (ms từ EPOCH) | 10 bit node id | 12 bit sequence trong cùng ms
+ * - Lock-free: trạng thái (timestamp, sequence) nằm trong 1 AtomicLong, cập nhật bằng CAS
+ * - Không cần round-trip DB/Redis; tối đa 4096 ID/ms/node
+ * - Hết sequence trong 1 ms hoặc đồng hồ chạy lùi => mượn ms kế tiếp (logical clock) thay vì chờ/throw,
+ *   nên ID luôn tăng dần trên 1 node
+ */
+public class SnowflakeIdGenerator {
+
+    /** 2025-01-01T00:00:00Z */
+    public static final long EPOCH_MILLIS = 1735689600000L;
+
+    public static final int NODE_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_ID_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_ID_BITS + SEQUENCE_BITS;
+
+    private static final String ORDER_NUMBER_PREFIX = "ORD-";
+    // Base36 của ID 63 bit dài tối đa 13 ký tự => pad cố định để sort chuỗi cũng đúng thứ tự thời gian
+    private static final int ORDER_NUMBER_ID_LENGTH = 13;
+    private static final ZoneId ORDER_NUMBER_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    private final long nodeId;
+    private final LongSupplier clock;
+
+    // (timestamp tương đối EPOCH << SEQUENCE_BITS) | sequence của ID cấp gần nhất
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id phải nằm trong khoảng 0.." + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public long nextId() {
+        long state;
+        long next;
+        do {
+            state = lastState.get();
+            long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            // Cùng ms (hoặc clock lùi) => tăng sequence; tràn sequence tự cộng sang ms kế tiếp
+            next = Math.max(state + 1, now);
+        } while (!lastState.compareAndSet(state, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << TIMESTAMP_SHIFT) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * Mã đơn hàng dạng ORD-yyyyMMdd-XXXXXXXXXXXXX (ngày tạo + Snowflake ID base36 độ dài cố định)
+     * - Đọc được ngày đặt hàng, đủ ngắn để đọc qua điện thoại
+     * - Tăng dần theo thời gian => insert vào cuối unique index order_number
+     */
+    public String nextOrderNumber() {
+        long id = nextId();
+        LocalDate date = Instant.ofEpochMilli(timestampMillis(id)).atZone(ORDER_NUMBER_ZONE).toLocalDate();
+
+        String encodedId = Long.toString(id, 36).toUpperCase();
+        StringBuilder orderNumber = new StringBuilder(ORDER_NUMBER_PREFIX.length() + 9 + ORDER_NUMBER_ID_LENGTH)
+                .append(ORDER_NUMBER_PREFIX)
+                .append(date.getYear());
+        appendTwoDigits(orderNumber, date.getMonthValue());
+        appendTwoDigits(orderNumber, date.getDayOfMonth());
+        orderNumber.append('-');
+        for (int i = encodedId.length(); i < ORDER_NUMBER_ID_LENGTH; i++) {
+            orderNumber.append('0');
+        }
+        return orderNumber.append(encodedId).toString();
+    }
+
+    public static long timestampMillis(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+
+    private static void appendTwoDigits(StringBuilder builder, int value) {
+        if (value < 10) {
+            builder.append('0');
+        }
+        builder.append(value);
+    }
+}
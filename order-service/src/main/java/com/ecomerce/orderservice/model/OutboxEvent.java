@@ -0,0 +1,76 @@
+package com.ecomerce.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Transactional outbox: event được ghi cùng transaction với thay đổi của Order,
+ * sau đó OutboxRelay đọc theo batch và publish lên Kafka
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_sent_at_id", columnList = "sent_at, id"), // Relay lấy các event chưa gửi theo thứ tự
+    @Index(name = "idx_outbox_aggregate_id", columnList = "aggregate_id, id"), // Kiểm tra event trước đó của cùng order
+    @Index(name = "idx_outbox_event_id", columnList = "event_id", unique = true)
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // ID duy nhất của event, gửi kèm header để consumer dedupe
+    @Column(name = "event_id", nullable = false, length = 36)
+    private String eventId;
+
+    @Column(name = "aggregate_type", nullable = false, length = 50)
+    private String aggregateType;
+
+    // Dùng làm Kafka key => các event của cùng 1 order vào cùng partition, giữ đúng thứ tự
+    @Column(name = "aggregate_id", nullable = false, length = 100)
+    private String aggregateId;
+
+    @Column(name = "topic", nullable = false, length = 100)
+    private String topic;
+
+    // Class của payload để relay deserialize lại đúng event (giữ nguyên type header của JsonSerializer)
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    // Số lần lỗi không thể tự hết (deserialize payload, class không tồn tại...) - chạm max-attempts => park aggregate
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    // Số lần lỗi tạm thời (Kafka down, timeout...) - chỉ dùng tính backoff, không bao giờ park
+    @Column(name = "retries", nullable = false)
+    @Builder.Default
+    private int retries = 0;
+
+    // Lần gửi lại sớm nhất sau khi lỗi (exponential backoff); NULL => gửi ngay
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // Relay đã claim row tới thời điểm này (đang gửi ngoài transaction); hết hạn => relay khác được claim lại
+    @Column(name = "locked_until")
+    private Instant lockedUntil;
+}
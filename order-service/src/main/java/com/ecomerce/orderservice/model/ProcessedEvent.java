@@ -0,0 +1,37 @@
+package com.ecomerce.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Event Kafka đã được xử lý thành công (idempotent consumer)
+ * Row được insert cùng transaction với thay đổi nghiệp vụ => redelivery sẽ bị bỏ qua
+ */
+@Entity
+@Table(name = "processed_events", indexes = {
+    @Index(name = "uk_processed_event_topic_key", columnList = "topic, event_key", unique = true),
+    @Index(name = "idx_processed_event_processed_at", columnList = "processed_at") // TTL purge
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProcessedEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "topic", nullable = false, length = 100)
+    private String topic;
+
+    // eventId header (outbox) hoặc business key của event
+    @Column(name = "event_key", nullable = false, length = 150)
+    private String eventKey;
+
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+}
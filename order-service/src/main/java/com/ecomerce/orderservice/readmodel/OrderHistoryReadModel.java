@@ -0,0 +1,313 @@
+package com.ecomerce.orderservice.readmodel;
+
+import com.ecomerce.orderservice.dto.response.OrderResponse;
+import com.ecomerce.orderservice.dto.response.PageResponseDto;
+import com.ecomerce.orderservice.model.Order;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read model "đơn hàng của tôi" (CQRS) trong Redis, được cập nhật từ order-created / order-status-changed
+ * - order-history:{userId}      HASH  o:{orderId} -> OrderResponse JSON, total -> tổng số đơn của user
+ * - order-history:{userId}:ids  ZSET  orderId, score = createdAt (ms)
+ * - Chỉ giữ max-orders đơn mới nhất; trang cũ hơn / có filter đọc từ MySQL
+ * - Field total chỉ có sau khi backfill từ MySQL => chưa có thì caller load từ DB rồi {@link #initialize}
+ * - JSON lưu createdAt / updatedAt dạng ISO-8601 đủ độ chính xác ({@link StoredTimestamps}), response API vẫn tới giây
+ */
+@Slf4j
+@Component
+public class OrderHistoryReadModel {
+
+    private static final String KEY_PREFIX = "order-history:";
+    private static final String ORDER_FIELD_PREFIX = "o:";
+    private static final String TOTAL_FIELD = "total";
+    private static final int UPDATE_MAX_ATTEMPTS = 3;
+
+    // Xóa các đơn cũ nhất vượt quá ARGV[maxIndex] khỏi cả ZSET và HASH
+    private static final String TRIM_LUA = """
+            local function trim(maxOrders)
+              local excess = redis.call('ZCARD', KEYS[2]) - maxOrders
+              if excess > 0 then
+                for _, id in ipairs(redis.call('ZRANGE', KEYS[2], 0, excess - 1)) do
+                  redis.call('HDEL', KEYS[1], 'o:' .. id)
+                end
+                redis.call('ZREMRANGEBYRANK', KEYS[2], 0, excess - 1)
+              end
+            end
+            """;
+
+    /**
+     * ARGV: start, stop, ttlSeconds => {total, json...} hoặc nil nếu chưa backfill
+     */
+    private static final RedisScript<List> READ_SCRIPT = RedisScript.of("""
+            local total = redis.call('HGET', KEYS[1], 'total')
+            if not total then return nil end
+            local result = {total}
+            for _, id in ipairs(redis.call('ZREVRANGE', KEYS[2], ARGV[1], ARGV[2])) do
+              result[#result + 1] = redis.call('HGET', KEYS[1], 'o:' .. id) or ''
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            redis.call('EXPIRE', KEYS[2], ARGV[3])
+            return result
+            """, List.class);
+
+    /**
+     * ARGV: orderId, json, score, maxOrders, ttlSeconds
+     * Chưa backfill vẫn ghi entry (không tăng total) để backfill sau đó không bỏ sót đơn vừa tạo
+     */
+    private static final RedisScript<Long> ADD_SCRIPT = RedisScript.of(TRIM_LUA + """
+            local maxOrders = tonumber(ARGV[4])
+            if redis.call('ZCARD', KEYS[2]) >= maxOrders then
+              local oldest = redis.call('ZRANGE', KEYS[2], 0, 0, 'WITHSCORES')
+              if tonumber(ARGV[3]) < tonumber(oldest[2]) then return 0 end
+            end
+            if redis.call('HSETNX', KEYS[1], 'o:' .. ARGV[1], ARGV[2]) == 0 then return 0 end
+            redis.call('ZADD', KEYS[2], ARGV[3], ARGV[1])
+            if redis.call('HEXISTS', KEYS[1], 'total') == 1 then
+              redis.call('HINCRBY', KEYS[1], 'total', 1)
+            end
+            trim(maxOrders)
+            redis.call('EXPIRE', KEYS[1], ARGV[5])
+            redis.call('EXPIRE', KEYS[2], ARGV[5])
+            return 1
+            """, Long.class);
+
+    /**
+     * ARGV: total, maxOrders, ttlSeconds, (orderId, score, json)...
+     * - Dữ liệu DB là nguồn đúng => ghi đè entry do event ghi trước đó
+     * - Entry do event ghi trước khi backfill không có trong kết quả DB => là đơn mới hơn, cộng thêm vào total
+     */
+    private static final RedisScript<Long> INITIALIZE_SCRIPT = RedisScript.of(TRIM_LUA + """
+            if redis.call('HEXISTS', KEYS[1], 'total') == 1 then return 0 end
+            local loaded = {}
+            for i = 4, #ARGV, 3 do
+              loaded[ARGV[i]] = true
+              redis.call('HSET', KEYS[1], 'o:' .. ARGV[i], ARGV[i + 2])
+              redis.call('ZADD', KEYS[2], ARGV[i + 1], ARGV[i])
+            end
+            local extra = 0
+            for _, id in ipairs(redis.call('ZRANGE', KEYS[2], 0, -1)) do
+              if not loaded[id] then extra = extra + 1 end
+            end
+            redis.call('HSET', KEYS[1], 'total', tonumber(ARGV[1]) + extra)
+            trim(tonumber(ARGV[2]))
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            redis.call('EXPIRE', KEYS[2], ARGV[3])
+            return 1
+            """, Long.class);
+
+    /**
+     * ARGV: field, expectedJson, newJson - compare-and-set 1 entry
+     */
+    private static final RedisScript<Long> REPLACE_SCRIPT = RedisScript.of("""
+            if redis.call('HGET', KEYS[1], ARGV[1]) ~= ARGV[2] then return 0 end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OrderHistoryReadModel(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper.copy().addMixIn(OrderResponse.class, StoredTimestamps.class);
+    }
+
+    @Getter
+    @Value("${order-history.max-orders:100}")
+    private int maxOrders;
+
+    @Value("${order-history.ttl:30d}")
+    private Duration ttl;
+
+    /**
+     * Read model chỉ phục vụ trang không filter, sort theo createdAt giảm dần, nằm trong max-orders đơn mới nhất
+     */
+    public boolean canServe(Pageable pageable) {
+        Sort sort = pageable.getSort();
+        boolean newestFirst = sort.isUnsorted()
+                || sort.equals(Sort.by(Sort.Direction.DESC, "createdAt"));
+        return newestFirst && pageable.isPaged() && pageable.getOffset() + pageable.getPageSize() <= maxOrders;
+    }
+
+    /**
+     * @return trang đơn hàng, empty nếu user chưa được backfill
+     */
+    public Optional<PageResponseDto<OrderResponse>> findPage(Long userId, Pageable pageable) {
+        long start = pageable.getOffset();
+        List<?> result = redisTemplate.execute(READ_SCRIPT, keys(userId),
+                String.valueOf(start), String.valueOf(start + pageable.getPageSize() - 1), String.valueOf(ttl.toSeconds()));
+        if (result == null || result.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long total = Long.parseLong(String.valueOf(result.get(0)));
+        List<OrderResponse> content = new ArrayList<>(result.size() - 1);
+        for (int i = 1; i < result.size(); i++) {
+            OrderResponse order = read(String.valueOf(result.get(i)));
+            if (order == null) {
+                // Entry hỏng => bỏ read model của user, lần sau backfill lại
+                evict(userId);
+                return Optional.empty();
+            }
+            content.add(order);
+        }
+
+        int size = pageable.getPageSize();
+        return Optional.of(new PageResponseDto<>(content, pageable.getPageNumber(), size, total,
+                (int) ((total + size - 1) / size)));
+    }
+
+    /**
+     * Backfill từ MySQL: các đơn mới nhất của user (đã ở dạng response) + tổng số đơn
+     */
+    public void initialize(Long userId, List<OrderResponse> recentOrders, long total) {
+        List<String> args = new ArrayList<>(3 + recentOrders.size() * 3);
+        args.add(String.valueOf(total));
+        args.add(String.valueOf(maxOrders));
+        args.add(String.valueOf(ttl.toSeconds()));
+        for (OrderResponse order : recentOrders) {
+            args.add(String.valueOf(order.getId()));
+            args.add(String.valueOf(score(order.getCreatedAt())));
+            args.add(write(order));
+        }
+        redisTemplate.execute(INITIALIZE_SCRIPT, keys(userId), args.toArray());
+    }
+
+    /**
+     * Projection của order-created (idempotent: đơn đã có thì bỏ qua)
+     */
+    public boolean addOrder(OrderResponse order) {
+        Long added = redisTemplate.execute(ADD_SCRIPT, keys(order.getUserId()),
+                String.valueOf(order.getId()), write(order), String.valueOf(score(order.getCreatedAt())),
+                String.valueOf(maxOrders), String.valueOf(ttl.toSeconds()));
+        return added != null && added == 1;
+    }
+
+    /**
+     * Ghi trực tiếp sau khi order-service commit (read-your-writes cho chính user vừa thao tác)
+     * Event tương ứng đến sau sẽ bị bỏ qua vì đơn đã có / không mới hơn
+     */
+    public void putOrder(OrderResponse order) {
+        if (addOrder(order)) {
+            return;
+        }
+        updateOrder(order.getUserId(), order.getId(), current ->
+                isOlder(order.getUpdatedAt(), current.getUpdatedAt()) ? null : order);
+    }
+
+    /**
+     * Projection của order-status-changed: chỉ áp dụng khi event mới hơn dữ liệu đang giữ
+     * (backfill có thể đã đọc trạng thái mới hơn event đến muộn); changedAt là updatedAt của đơn trong event
+     */
+    public void updateStatus(Long userId, Long orderId, Order.OrderStatus status, Instant changedAt) {
+        updateOrder(userId, orderId, order -> {
+            if (isOlder(changedAt, order.getUpdatedAt())) {
+                return null;
+            }
+            order.setStatus(status);
+            order.setUpdatedAt(changedAt);
+            return order;
+        });
+    }
+
+    public void evict(Long userId) {
+        redisTemplate.delete(keys(userId));
+    }
+
+    private void updateOrder(Long userId, Long orderId, UnaryOperator<OrderResponse> change) {
+        String field = ORDER_FIELD_PREFIX + orderId;
+        String key = hashKey(userId);
+        for (int attempt = 0; attempt < UPDATE_MAX_ATTEMPTS; attempt++) {
+            Object current = redisTemplate.opsForHash().get(key, field);
+            if (current == null) {
+                // Read model đã backfill mà chưa đầy => đơn lẽ ra phải có (status event đến trước order-created)
+                // => evict để lần đọc sau backfill lại từ DB; còn lại là đơn cũ hơn max-orders hoặc user chưa backfill
+                Long cached = redisTemplate.opsForZSet().zCard(key + ":ids");
+                if (redisTemplate.opsForHash().hasKey(key, TOTAL_FIELD) && cached != null && cached < maxOrders) {
+                    evict(userId);
+                }
+                return;
+            }
+            OrderResponse order = read(current.toString());
+            OrderResponse updated = order != null ? change.apply(order) : null;
+            if (updated == null) {
+                return;
+            }
+            Long replaced = redisTemplate.execute(REPLACE_SCRIPT, List.of(key), field, current.toString(), write(updated));
+            if (replaced != null && replaced == 1) {
+                return;
+            }
+        }
+        // Tranh chấp liên tục => bỏ read model của user để lần đọc sau backfill lại từ DB
+        log.warn("⚠️ Không thể cập nhật order history cho order {} sau {} lần thử, evict read model của user {}",
+                orderId, UPDATE_MAX_ATTEMPTS, userId);
+        evict(userId);
+    }
+
+    private static boolean isOlder(Instant candidate, Instant current) {
+        return candidate != null && current != null
+                && candidate.toEpochMilli() < current.toEpochMilli();
+    }
+
+    private static long score(Instant createdAt) {
+        return createdAt != null ? createdAt.toEpochMilli() : Instant.now().toEpochMilli();
+    }
+
+    private String hashKey(Long userId) {
+        // {userId} là hash tag => 2 key của 1 user cùng slot khi chạy Redis Cluster
+        return KEY_PREFIX + "{" + userId + "}";
+    }
+
+    private List<String> keys(Long userId) {
+        String hashKey = hashKey(userId);
+        return List.of(hashKey, hashKey + ":ids");
+    }
+
+    private String write(OrderResponse order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể serialize order " + order.getId(), e);
+        }
+    }
+
+    private OrderResponse read(String json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ Order history entry không hợp lệ: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Bỏ pattern tới giây của {@link OrderResponse} khi ghi vào Redis => {@link #isOlder} so sánh được ở mức ms
+     */
+    private abstract static class StoredTimestamps {
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        private Instant createdAt;
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        private Instant updatedAt;
+    }
+}
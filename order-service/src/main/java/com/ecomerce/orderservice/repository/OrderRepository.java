@@ -1,12 +1,14 @@
 package com.ecomerce.orderservice.repository;
 
 import com.ecomerce.orderservice.model.Order;
+import com.ecomerce.orderservice.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,5 +48,12 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
      * Lấy orders theo status (không có JOIN FETCH - dùng khi không cần items)
      */
     List<Order> findByStatus(Order.OrderStatus status);
+
+    /**
+     * Lấy items của nhiều order trong 1 query IN (phase 2 của listing có phân trang)
+     * Không JOIN FETCH collection khi phân trang vì Hibernate sẽ phân trang trong memory
+     */
+    @Query("SELECT i FROM OrderItem i WHERE i.order.id IN :orderIds ORDER BY i.id")
+    List<OrderItem> findItemsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
 
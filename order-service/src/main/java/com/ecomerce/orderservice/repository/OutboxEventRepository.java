@@ -0,0 +1,85 @@
+package com.ecomerce.orderservice.repository;
+
+import com.ecomerce.orderservice.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Lấy batch event có thể claim theo thứ tự ID (SELECT ... FOR UPDATE SKIP LOCKED, chỉ trong transaction claim ngắn)
+     * Bỏ qua event đang chờ backoff (next_attempt_at > now) và event còn event trước đó của cùng aggregate chưa gửi mà:
+     * - đã vượt max-attempts (aggregate bị park tới khi xử lý tay) hoặc
+     * - đang được relay khác claim hoặc đang chờ backoff
+     * => không bao giờ gửi event sau vượt lên event trước của cùng order
+     */
+    @Query(value = "SELECT e.* FROM outbox_events e " +
+            "WHERE e.sent_at IS NULL AND e.attempts < :maxAttempts " +
+            "AND (e.locked_until IS NULL OR e.locked_until < :now) " +
+            "AND (e.next_attempt_at IS NULL OR e.next_attempt_at <= :now) " +
+            "AND NOT EXISTS (SELECT 1 FROM outbox_events p WHERE p.aggregate_id = e.aggregate_id " +
+            "AND p.sent_at IS NULL AND p.id < e.id " +
+            "AND (p.attempts >= :maxAttempts OR p.locked_until >= :now OR p.next_attempt_at > :now)) " +
+            "ORDER BY e.id ASC LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<OutboxEvent> findClaimable(@Param("maxAttempts") int maxAttempts,
+                                    @Param("now") Instant now,
+                                    @Param("limit") int limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OutboxEvent e SET e.lockedUntil = :lockedUntil WHERE e.id IN :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("lockedUntil") Instant lockedUntil);
+
+    /**
+     * Đánh dấu đã gửi cho cả batch trong 1 câu UPDATE
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OutboxEvent e SET e.sentAt = :sentAt, e.lockedUntil = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    /**
+     * Lỗi không thể tự hết: tính vào attempts (park khi chạm max-attempts)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error, e.lockedUntil = NULL, " +
+           "e.nextAttemptAt = :nextAttemptAt WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("error") String error, @Param("nextAttemptAt") Instant nextAttemptAt);
+
+    /**
+     * Lỗi tạm thời (Kafka down, timeout): chỉ hẹn lại theo backoff, không tính vào attempts
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OutboxEvent e SET e.retries = e.retries + 1, e.lastError = :error, e.lockedUntil = NULL, " +
+           "e.nextAttemptAt = :nextAttemptAt WHERE e.id = :id")
+    int markRetry(@Param("id") Long id, @Param("error") String error, @Param("nextAttemptAt") Instant nextAttemptAt);
+
+    /**
+     * Trả lại các event đã claim nhưng chưa gửi (bị chặn sau event lỗi của cùng aggregate)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OutboxEvent e SET e.lockedUntil = NULL WHERE e.id IN :ids")
+    int releaseLease(@Param("ids") Collection<Long> ids);
+
+    long countBySentAtIsNull();
+
+    long countBySentAtIsNullAndAttemptsGreaterThanEqual(int attempts);
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.sentAt IS NULL")
+    Instant findOldestUnsentCreatedAt();
+
+    /**
+     * Xóa event đã gửi quá thời gian lưu trữ (theo từng chunk để không lock bảng lâu)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM outbox_events WHERE sent_at IS NOT NULL AND sent_at < :before LIMIT :limit",
+           nativeQuery = true)
+    int deleteSentBefore(@Param("before") Instant before, @Param("limit") int limit);
+}
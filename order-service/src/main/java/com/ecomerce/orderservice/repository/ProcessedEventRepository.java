@@ -0,0 +1,33 @@
+package com.ecomerce.orderservice.repository;
+
+import com.ecomerce.orderservice.model.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, Long> {
+
+    /**
+     * Ghi nhận event đã xử lý - trả về 0 nếu (topic, event_key) đã tồn tại
+     * Unique key lock row => 2 consumer xử lý trùng cùng lúc thì chỉ 1 bên insert được
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO processed_events (topic, event_key, processed_at) VALUES (:topic, :eventKey, :processedAt)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("topic") String topic,
+                       @Param("eventKey") String eventKey,
+                       @Param("processedAt") Instant processedAt);
+
+    /**
+     * Xóa record quá thời gian lưu trữ (theo từng chunk để không lock bảng lâu)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM processed_events WHERE processed_at < :before LIMIT :limit",
+           nativeQuery = true)
+    int deleteProcessedBefore(@Param("before") Instant before, @Param("limit") int limit);
+}
@@ -1,5 +1,6 @@
 package com.ecomerce.orderservice.service;
 
+import com.ecomerce.orderservice.event.OrderCreateReply;
 import com.ecomerce.orderservice.event.OrderCreatedEvent;
 import com.ecomerce.orderservice.event.OrderStatusChangedEvent;
 
@@ -7,5 +8,7 @@ public interface KafkaProducerService {
     void publishOrderCreatedEvent(OrderCreatedEvent event);
     
     void publishOrderStatusChangedEvent(OrderStatusChangedEvent event);
+
+    void publishOrderCreateReply(OrderCreateReply reply);
 }
 
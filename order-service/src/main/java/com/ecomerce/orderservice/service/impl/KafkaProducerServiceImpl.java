@@ -1,16 +1,27 @@
 package com.ecomerce.orderservice.service.impl;
 
+import com.ecomerce.orderservice.event.OrderCreateReply;
 import com.ecomerce.orderservice.event.OrderCreatedEvent;
 import com.ecomerce.orderservice.event.OrderStatusChangedEvent;
+import com.ecomerce.orderservice.model.OutboxEvent;
+import com.ecomerce.orderservice.repository.OutboxEventRepository;
 import com.ecomerce.orderservice.service.KafkaProducerService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.Instant;
+import java.util.UUID;
 
+/**
+ * Không gọi Kafka trực tiếp: event được ghi vào bảng outbox trong CÙNG transaction với Order
+ * - Order rollback => event cũng rollback (không gửi event cho order không tồn tại)
+ * - Order commit => event chắc chắn được OutboxRelay gửi đi (kể cả khi service restart)
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -18,56 +29,55 @@ public class KafkaProducerServiceImpl implements KafkaProducerService {
 
     private static final String ORDER_CREATED_TOPIC = "order-created";
     private static final String ORDER_STATUS_CHANGED_TOPIC = "order-status-changed";
+    private static final String ORDER_CREATE_REPLY_TOPIC = "order-create-reply";
+    private static final String AGGREGATE_TYPE_ORDER = "Order";
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
 
     @Override
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishOrderCreatedEvent(OrderCreatedEvent event) {
-        try {
-            log.info("📤 Publishing OrderCreatedEvent to topic '{}' for order: {} with {} items",
-                    ORDER_CREATED_TOPIC, event.getOrderNumber(), event.getItems().size());
-            log.debug("Event details: orderId={}, userId={}, items={}", 
-                    event.getOrderId(), event.getUserId(), event.getItems());
-            
-            CompletableFuture<SendResult<String, Object>> future = 
-                    kafkaTemplate.send(ORDER_CREATED_TOPIC, event.getOrderNumber(), event);
-
-            future.whenComplete((result, exception) -> {
-                if (exception == null) {
-                    log.info("✅ Successfully published OrderCreatedEvent to topic '{}' for order: {} at partition {}, offset {}",
-                            ORDER_CREATED_TOPIC, event.getOrderNumber(),
-                            result.getRecordMetadata().partition(),
-                            result.getRecordMetadata().offset());
-                } else {
-                    log.error("❌ Failed to publish OrderCreatedEvent for order: {} to topic '{}'. Error: {}",
-                            event.getOrderNumber(), ORDER_CREATED_TOPIC, exception.getMessage(), exception);
-                }
-            });
-        } catch (Exception e) {
-            log.error("❌ Error publishing OrderCreatedEvent for order: {} to topic '{}'. Error: {}",
-                    event.getOrderNumber(), ORDER_CREATED_TOPIC, e.getMessage(), e);
-        }
+        OutboxEvent outboxEvent = enqueue(ORDER_CREATED_TOPIC, event.getOrderNumber(), event);
+        log.info("📤 Queued OrderCreatedEvent to outbox (id={}) for topic '{}', order: {} with {} items",
+                outboxEvent.getId(), ORDER_CREATED_TOPIC, event.getOrderNumber(), event.getItems().size());
     }
 
     @Override
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishOrderStatusChangedEvent(OrderStatusChangedEvent event) {
-        try {
-            CompletableFuture<SendResult<String, Object>> future = 
-                    kafkaTemplate.send(ORDER_STATUS_CHANGED_TOPIC, event.getOrderNumber(), event);
+        OutboxEvent outboxEvent = enqueue(ORDER_STATUS_CHANGED_TOPIC, event.getOrderNumber(), event);
+        log.info("📤 Queued OrderStatusChangedEvent to outbox (id={}) for topic '{}', order: {}",
+                outboxEvent.getId(), ORDER_STATUS_CHANGED_TOPIC, event.getOrderNumber());
+    }
 
-            future.whenComplete((result, exception) -> {
-                if (exception == null) {
-                    log.info("✅ Published OrderStatusChangedEvent to topic '{}' for order: {}",
-                            ORDER_STATUS_CHANGED_TOPIC, event.getOrderNumber());
-                } else {
-                    log.error("❌ Failed to publish OrderStatusChangedEvent for order: {}",
-                            event.getOrderNumber(), exception);
-                }
-            });
-        } catch (Exception e) {
-            log.error("❌ Error publishing OrderStatusChangedEvent for order: {}",
-                    event.getOrderNumber(), e);
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishOrderCreateReply(OrderCreateReply reply) {
+        // Key = checkoutId => mọi reply của 1 saga vào cùng partition
+        OutboxEvent outboxEvent = enqueue(ORDER_CREATE_REPLY_TOPIC, reply.getCheckoutId(), reply);
+        log.info("📤 Queued OrderCreateReply to outbox (id={}) for checkout: {}, success: {}",
+                outboxEvent.getId(), reply.getCheckoutId(), reply.isSuccess());
+    }
+
+    private OutboxEvent enqueue(String topic, String key, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            // Throw để rollback cả transaction của Order
+            throw new IllegalStateException("Không thể serialize event " + event.getClass().getSimpleName(), e);
         }
+
+        OutboxEvent outboxEvent = OutboxEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .aggregateType(AGGREGATE_TYPE_ORDER)
+                .aggregateId(key)
+                .topic(topic)
+                .eventType(event.getClass().getName())
+                .payload(payload)
+                .createdAt(Instant.now())
+                .build();
+        return outboxEventRepository.save(outboxEvent);
     }
 }
-
@@ -12,24 +12,32 @@ import com.ecomerce.orderservice.dto.response.OrderResponse;
 import com.ecomerce.orderservice.dto.response.PageResponseDto;
 import com.ecomerce.orderservice.event.OrderCreatedEvent;
 import com.ecomerce.orderservice.event.OrderStatusChangedEvent;
+import com.ecomerce.orderservice.idgen.SnowflakeIdGenerator;
 import com.ecomerce.orderservice.model.Order;
 import com.ecomerce.orderservice.model.OrderItem;
+import com.ecomerce.orderservice.readmodel.OrderHistoryReadModel;
 import com.ecomerce.orderservice.repository.OrderRepository;
 import com.ecomerce.orderservice.service.KafkaProducerService;
 import com.ecomerce.orderservice.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -42,11 +50,13 @@ public class OrderServiceImpl implements OrderService {
     private final KafkaProducerService kafkaProducerService;
     private final ProductServiceClient productServiceClient;
     private final InventoryServiceClient inventoryServiceClient;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final OrderHistoryReadModel orderHistoryReadModel;
 
     @Override
     public OrderResponse createOrder(Long userId, OrderCreateRequest request) {
         // Generate order number
-        String orderNumber = generateOrderNumber();
+        String orderNumber = snowflakeIdGenerator.nextOrderNumber();
         
         // Create order
         Order order = Order.builder()
@@ -59,6 +69,9 @@ public class OrderServiceImpl implements OrderService {
                 .totalAmount(BigDecimal.ZERO)
                 .build();
 
+        // Thông tin sản phẩm còn thiếu (tên/ảnh) được lấy bằng 1 request batch tới product-service
+        Map<Long, ProductDetailResponse> missingProductInfo = loadMissingProductInfo(request.getItems());
+
         // Create order items
         for (OrderCreateRequest.OrderItemRequest itemRequest : request.getItems()) {
             // Validate price
@@ -80,10 +93,8 @@ public class OrderServiceImpl implements OrderService {
             OrderItem item = OrderItem.builder()
                     .order(order)
                     .productId(itemRequest.getProductId())
-                    .productName(itemRequest.getProductName() != null 
-                            ? itemRequest.getProductName() 
-                            : "Product " + itemRequest.getProductId())
-                    .productImage(itemRequest.getProductImage())
+                    .productName(resolveProductName(itemRequest, missingProductInfo.get(itemRequest.getProductId())))
+                    .productImage(resolveProductImage(itemRequest, missingProductInfo.get(itemRequest.getProductId())))
                     .price(itemRequest.getPrice())
                     .quantity(itemRequest.getQuantity())
                     .build();
@@ -110,22 +121,68 @@ public class OrderServiceImpl implements OrderService {
                 .status(savedOrder.getStatus().name())
                 .shippingAddress(savedOrder.getShippingAddress())
                 .phone(savedOrder.getPhone())
+                .notes(savedOrder.getNotes())
                 .items(savedOrder.getItems().stream()
                         .map(item -> OrderCreatedEvent.OrderItemEvent.builder()
+                                .orderItemId(item.getId())
                                 .productId(item.getProductId())
                                 .productName(item.getProductName())
+                                .productImage(item.getProductImage())
                                 .price(item.getPrice())
                                 .quantity(item.getQuantity())
                                 .build())
                         .collect(Collectors.toList()))
+                .createdAt(savedOrder.getCreatedAt())
                 .timestamp(Instant.now())
                 .build();
         
         kafkaProducerService.publishOrderCreatedEvent(event);
+        projectAfterCommit(savedOrder);
 
         return mapToResponse(savedOrder);
     }
 
+    /**
+     * Lấy tên/ảnh cho các item không gửi kèm thông tin sản phẩm (cart-service luôn gửi đủ)
+     * Gọi product-service 1 lần cho tất cả sản phẩm; lỗi sẽ không chặn việc tạo đơn hàng
+     */
+    private Map<Long, ProductDetailResponse> loadMissingProductInfo(List<OrderCreateRequest.OrderItemRequest> items) {
+        List<Long> productIds = items.stream()
+                .filter(item -> item.getProductName() == null || item.getProductImage() == null)
+                .map(OrderCreateRequest.OrderItemRequest::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+
+        try {
+            List<ProductDetailResponse> products = productServiceClient.getProductsByIds(productIds);
+            if (products == null) {
+                return Map.of();
+            }
+            return products.stream()
+                    .collect(Collectors.toMap(ProductDetailResponse::getId, Function.identity(), (a, b) -> a));
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể lấy thông tin sản phẩm {} từ product-service: {}", productIds, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private String resolveProductName(OrderCreateRequest.OrderItemRequest itemRequest, ProductDetailResponse product) {
+        if (itemRequest.getProductName() != null) {
+            return itemRequest.getProductName();
+        }
+        return product != null ? product.getName() : "Product " + itemRequest.getProductId();
+    }
+
+    private String resolveProductImage(OrderCreateRequest.OrderItemRequest itemRequest, ProductDetailResponse product) {
+        if (itemRequest.getProductImage() != null) {
+            return itemRequest.getProductImage();
+        }
+        return product != null ? product.getThumbnail() : null;
+    }
+
     @Override
     public OrderResponse buyNow(Long userId, BuyNowRequest request) {
         // Get product info from product-service
@@ -168,7 +225,7 @@ public class OrderServiceImpl implements OrderService {
         }
         
         // Generate order number
-        String orderNumber = generateOrderNumber();
+        String orderNumber = snowflakeIdGenerator.nextOrderNumber();
         
         // Create order
         Order order = Order.builder()
@@ -211,18 +268,23 @@ public class OrderServiceImpl implements OrderService {
                 .status(savedOrder.getStatus().name())
                 .shippingAddress(savedOrder.getShippingAddress())
                 .phone(savedOrder.getPhone())
+                .notes(savedOrder.getNotes())
                 .items(savedOrder.getItems().stream()
                         .map(orderItem -> OrderCreatedEvent.OrderItemEvent.builder()
+                                .orderItemId(orderItem.getId())
                                 .productId(orderItem.getProductId())
                                 .productName(orderItem.getProductName())
+                                .productImage(orderItem.getProductImage())
                                 .price(orderItem.getPrice())
                                 .quantity(orderItem.getQuantity())
                                 .build())
                         .collect(Collectors.toList()))
+                .createdAt(savedOrder.getCreatedAt())
                 .timestamp(Instant.now())
                 .build();
         
         kafkaProducerService.publishOrderCreatedEvent(event);
+        projectAfterCommit(savedOrder);
         
         return mapToResponse(savedOrder);
     }
@@ -253,21 +315,38 @@ public class OrderServiceImpl implements OrderService {
         return mapToResponse(order);
     }
 
+    /**
+     * Trang không filter (spec == null: request không gửi param filter), mới nhất trước, nằm trong N đơn gần nhất
+     * => đọc từ order history read model (Redis)
+     * Read model chưa có => backfill từ MySQL 1 lần; trang cũ hơn / có filter / Redis lỗi => MySQL
+     * NOT_SUPPORTED: request đọc từ Redis không giữ connection DB
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PageResponseDto<OrderResponse> getUserOrders(Long userId, Specification<Order> spec, Pageable pageable) {
+        if (spec == null && orderHistoryReadModel.canServe(pageable)) {
+            try {
+                Optional<PageResponseDto<OrderResponse>> cached = orderHistoryReadModel.findPage(userId, pageable);
+                if (cached.isEmpty()) {
+                    backfillOrderHistory(userId);
+                    cached = orderHistoryReadModel.findPage(userId, pageable);
+                }
+                if (cached.isPresent()) {
+                    return cached.get();
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Order history read model lỗi cho user {}, đọc từ MySQL: {}", userId, e.getMessage());
+            }
+        }
+
         // Add userId filter to specification
         Specification<Order> userIdSpec = (root, query, cb) -> cb.equal(root.get("userId"), userId);
         Specification<Order> userSpec = spec != null ? userIdSpec.and(spec) : userIdSpec;
         
         Page<Order> orderPage = orderRepository.findAll(userSpec, pageable);
         
-        List<OrderResponse> content = orderPage.getContent().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
-        
         return new PageResponseDto<>(
-                content,
+                mapPageToResponses(orderPage.getContent()),
                 orderPage.getNumber(),
                 orderPage.getSize(),
                 orderPage.getTotalElements(),
@@ -275,17 +354,20 @@ public class OrderServiceImpl implements OrderService {
         );
     }
 
+    private void backfillOrderHistory(Long userId) {
+        Specification<Order> userIdSpec = (root, query, cb) -> cb.equal(root.get("userId"), userId);
+        Page<Order> recent = orderRepository.findAll(userIdSpec, PageRequest.of(0, orderHistoryReadModel.getMaxOrders(),
+                Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"))));
+        orderHistoryReadModel.initialize(userId, mapPageToResponses(recent.getContent()), recent.getTotalElements());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public PageResponseDto<OrderResponse> getAllOrders(Specification<Order> spec, Pageable pageable) {
         Page<Order> orderPage = orderRepository.findAll(spec, pageable);
-        
-        List<OrderResponse> content = orderPage.getContent().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
 
         return new PageResponseDto<>(
-                content,
+                mapPageToResponses(orderPage.getContent()),
                 orderPage.getNumber(),
                 orderPage.getSize(),
                 orderPage.getTotalElements(),
@@ -309,7 +391,8 @@ public class OrderServiceImpl implements OrderService {
             order.setNotes(request.getNotes());
         }
 
-        orderRepository.save(order);
+        // Flush => @LastModifiedDate có giá trị để đưa vào event (read model so sánh theo updatedAt của đơn)
+        orderRepository.saveAndFlush(order);
         log.info("✅ Updated order status: {} from {} to {}", orderId, oldStatus, newStatus);
 
         // Publish OrderStatusChangedEvent to Kafka
@@ -328,11 +411,13 @@ public class OrderServiceImpl implements OrderService {
                                     .quantity(item.getQuantity())
                                     .build())
                             .collect(Collectors.toList()))
+                    .updatedAt(order.getUpdatedAt())
                     .timestamp(Instant.now())
                     .build();
             
             kafkaProducerService.publishOrderStatusChangedEvent(event);
         }
+        projectAfterCommit(order);
 
         return mapToResponse(order);
     }
@@ -353,7 +438,7 @@ public class OrderServiceImpl implements OrderService {
 
         Order.OrderStatus oldStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.CANCELLED);
-        orderRepository.save(order);
+        orderRepository.saveAndFlush(order);
         log.info("✅ Cancelled order: {} by user: {}", orderId, userId);
 
         // Publish OrderStatusChangedEvent to Kafka
@@ -371,10 +456,32 @@ public class OrderServiceImpl implements OrderService {
                                 .quantity(item.getQuantity())
                                 .build())
                         .collect(Collectors.toList()))
+                .updatedAt(order.getUpdatedAt())
                 .timestamp(Instant.now())
                 .build();
         
         kafkaProducerService.publishOrderStatusChangedEvent(event);
+        projectAfterCommit(order);
+    }
+
+    /**
+     * Cập nhật order history read model ngay khi transaction commit (không chờ event qua outbox/Kafka)
+     * Lỗi Redis không ảnh hưởng đơn hàng: event đến sau vẫn cập nhật lại read model
+     */
+    private void projectAfterCommit(Order order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    orderHistoryReadModel.putOrder(mapToResponse(order));
+                } catch (Exception e) {
+                    log.warn("⚠️ Không thể cập nhật order history cho order {}: {}", order.getOrderNumber(), e.getMessage());
+                }
+            }
+        });
     }
 
     /**
@@ -449,14 +556,29 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
-    private String generateOrderNumber() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String random = String.valueOf((int)(Math.random() * 10000));
-        return "ORD-" + timestamp + "-" + random;
+    /**
+     * Map 1 trang orders: load items của cả trang bằng 1 query IN thay vì lazy-load từng order (N+1)
+     * => mỗi trang chỉ tốn query orders + count + items
+     */
+    private List<OrderResponse> mapPageToResponses(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        Map<Long, List<OrderItem>> itemsByOrderId = orderRepository.findItemsByOrderIds(orderIds).stream()
+                .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+
+        return orders.stream()
+                .map(order -> mapToResponse(order, itemsByOrderId.getOrDefault(order.getId(), List.of())))
+                .collect(Collectors.toList());
     }
 
     private OrderResponse mapToResponse(Order order) {
-        List<OrderResponse.OrderItemResponse> items = order.getItems().stream()
+        return mapToResponse(order, order.getItems());
+    }
+
+    private OrderResponse mapToResponse(Order order, List<OrderItem> orderItems) {
+        List<OrderResponse.OrderItemResponse> items = orderItems.stream()
                 .map(item -> OrderResponse.OrderItemResponse.builder()
                         .id(item.getId())
                         .productId(item.getProductId())
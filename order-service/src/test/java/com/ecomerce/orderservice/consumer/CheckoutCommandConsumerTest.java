@@ -0,0 +1,61 @@
+package com.ecomerce.orderservice.consumer;
+
+import com.ecomerce.orderservice.event.CancelOrderCommand;
+import com.ecomerce.orderservice.event.CreateOrderCommand;
+import com.ecomerce.orderservice.idempotency.IdempotentConsumer;
+import com.ecomerce.orderservice.repository.OrderRepository;
+import com.ecomerce.orderservice.service.KafkaProducerService;
+import com.ecomerce.orderservice.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lỗi hạ tầng khi xử lý command của checkout saga phải được ném lại cho DefaultErrorHandler (seek + retry), không ack
+ */
+class CheckoutCommandConsumerTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+    private final IdempotentConsumer idempotentConsumer = mock(IdempotentConsumer.class);
+    private final CheckoutCommandConsumer consumer =
+            new CheckoutCommandConsumer(orderService, orderRepository, kafkaProducerService, idempotentConsumer);
+
+    @Test
+    void createOrderInfrastructureFailureIsRethrownWithoutAck() {
+        when(idempotentConsumer.executeOnce(eq("order-create-command"), anyString(), any()))
+                .thenThrow(new QueryTimeoutException("DB down"));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        CreateOrderCommand command = new CreateOrderCommand();
+        command.setCheckoutId("checkout-1");
+
+        assertThrows(QueryTimeoutException.class,
+                () -> consumer.consumeCreateOrderCommand(command, "order-create-command", acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+        verify(kafkaProducerService, never()).publishOrderCreateReply(any());
+    }
+
+    @Test
+    void cancelOrderInfrastructureFailureIsRethrownWithoutAck() {
+        when(orderRepository.findById(500L)).thenThrow(new QueryTimeoutException("DB down"));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        CancelOrderCommand command = new CancelOrderCommand();
+        command.setCheckoutId("checkout-1");
+        command.setOrderId(500L);
+
+        assertThrows(QueryTimeoutException.class, () -> consumer.consumeCancelOrderCommand(command, acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecomerce.orderservice.consumer;
+
+import com.ecomerce.orderservice.event.PaymentFailedEvent;
+import com.ecomerce.orderservice.event.PaymentSuccessEvent;
+import com.ecomerce.orderservice.idempotency.IdempotentConsumer;
+import com.ecomerce.orderservice.repository.OrderRepository;
+import com.ecomerce.orderservice.service.KafkaProducerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lỗi khi xử lý payment event phải được ném lại cho DefaultErrorHandler (seek + retry), không ack
+ */
+class PaymentStatusChangedConsumerTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+    private final IdempotentConsumer idempotentConsumer = mock(IdempotentConsumer.class);
+    private final PaymentStatusChangedConsumer consumer =
+            new PaymentStatusChangedConsumer(orderRepository, kafkaProducerService, idempotentConsumer);
+
+    @Test
+    void paymentSuccessFailureIsRethrownWithoutAck() {
+        when(idempotentConsumer.executeOnce(eq("payment-success"), anyString(), any()))
+                .thenThrow(new QueryTimeoutException("DB down"));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        PaymentSuccessEvent event = new PaymentSuccessEvent();
+        event.setPaymentId(1L);
+        event.setOrderId(500L);
+
+        assertThrows(QueryTimeoutException.class, () -> consumer.consumePaymentSuccessEvent(
+                event, "payment-success", 0, 10L, "event-1", acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+        verify(kafkaProducerService, never()).publishOrderStatusChangedEvent(any());
+    }
+
+    @Test
+    void paymentFailedFailureIsRethrownWithoutAck() {
+        when(orderRepository.findByIdWithItems(500L)).thenThrow(new QueryTimeoutException("DB down"));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        PaymentFailedEvent event = new PaymentFailedEvent();
+        event.setPaymentId(1L);
+        event.setOrderId(500L);
+
+        assertThrows(QueryTimeoutException.class, () -> consumer.consumePaymentFailedEvent(
+                event, "payment-failed", 0, 11L, acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+}
@@ -0,0 +1,116 @@
+package com.ecomerce.orderservice.controller;
+
+import com.ecomerce.orderservice.dto.response.OrderResponse;
+import com.ecomerce.orderservice.dto.response.PageResponseDto;
+import com.ecomerce.orderservice.idgen.SnowflakeIdGenerator;
+import com.ecomerce.orderservice.model.Order;
+import com.ecomerce.orderservice.readmodel.OrderHistoryReadModel;
+import com.ecomerce.orderservice.repository.OrderRepository;
+import com.ecomerce.orderservice.service.impl.OrderServiceImpl;
+import com.turkraft.springfilter.boot.FilterNodeArgumentResolverHelper;
+import com.turkraft.springfilter.boot.FilterSpecificationArgumentResolver;
+import com.turkraft.springfilter.builder.FilterBuilder;
+import com.turkraft.springfilter.converter.FilterSpecification;
+import com.turkraft.springfilter.converter.FilterSpecificationConverter;
+import com.turkraft.springfilter.converter.FilterStringConverter;
+import com.turkraft.springfilter.parser.node.FilterNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/orders/my-orders đi qua argument resolver thật của spring-filter:
+ * không có param filter => đọc từ order history read model, có filter => MySQL
+ */
+class OrderControllerReadModelTest {
+
+    private static final Long USER_ID = 42L;
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderHistoryReadModel orderHistoryReadModel = mock(OrderHistoryReadModel.class);
+    private final FilterStringConverter filterStringConverter = mock(FilterStringConverter.class);
+    private final FilterSpecificationConverter filterSpecificationConverter = mock(FilterSpecificationConverter.class);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        OrderServiceImpl orderService = new OrderServiceImpl(orderRepository, null, null, null,
+                mock(SnowflakeIdGenerator.class), orderHistoryReadModel);
+        FilterSpecificationArgumentResolver filterResolver = new FilterSpecificationArgumentResolver(
+                new FilterNodeArgumentResolverHelper(filterStringConverter, mock(FilterBuilder.class, RETURNS_DEEP_STUBS)),
+                filterSpecificationConverter);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new OrderController(orderService))
+                .setCustomArgumentResolvers(filterResolver, new PageableHandlerMethodArgumentResolver())
+                .build();
+
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .claim("user", Map.of("id", USER_ID))
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void unfilteredPageIsServedFromReadModel() throws Exception {
+        OrderResponse order = OrderResponse.builder().id(7L).userId(USER_ID).orderNumber("ORD-7").build();
+        when(orderHistoryReadModel.canServe(any(Pageable.class))).thenReturn(true);
+        when(orderHistoryReadModel.findPage(eq(USER_ID), any(Pageable.class)))
+                .thenReturn(Optional.of(new PageResponseDto<>(List.of(order), 0, 20, 1, 1)));
+
+        mockMvc.perform(get("/api/orders/my-orders"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].orderNumber").value("ORD-7"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+
+        verify(orderHistoryReadModel).findPage(eq(USER_ID), any(Pageable.class));
+        verify(orderRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void filteredPageSkipsReadModel() throws Exception {
+        when(filterStringConverter.convert(anyString())).thenReturn(mock(FilterNode.class));
+        when(filterSpecificationConverter.convert(any(FilterNode.class))).thenReturn(mock(FilterSpecification.class));
+        when(orderHistoryReadModel.canServe(any(Pageable.class))).thenReturn(true);
+        when(orderRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.<Order>of()));
+
+        mockMvc.perform(get("/api/orders/my-orders").param("filter", "status : 'PENDING'"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+
+        verify(orderHistoryReadModel, never()).findPage(any(), any());
+        verify(orderRepository).findAll(any(Specification.class), any(Pageable.class));
+    }
+}
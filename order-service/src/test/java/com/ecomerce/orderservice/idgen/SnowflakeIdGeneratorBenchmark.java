@@ -0,0 +1,85 @@
+package com.ecomerce.orderservice.idgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Microbenchmark so sánh cách sinh mã đơn hàng cũ (formatter mới mỗi lần + Math.random) với Snowflake:
+ * log throughput và số mã bị trùng khi nhiều thread cùng sinh.
+ *
+ * Chạy: mvn test -Dtest=SnowflakeIdGeneratorBenchmark -Dorder.benchmark=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "order.benchmark", matches = "true")
+class SnowflakeIdGeneratorBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int WARMUP_PER_THREAD = 200_000;
+    private static final int MEASURED_PER_THREAD = 500_000;
+
+    @Test
+    void compareWithLegacyOrderNumber() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+
+        run("legacy", SnowflakeIdGeneratorBenchmark::legacyOrderNumber);
+        run("snowflake", generator::nextOrderNumber);
+    }
+
+    private static String legacyOrderNumber() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        String random = String.valueOf((int) (Math.random() * 10000));
+        return "ORD-" + timestamp + "-" + random;
+    }
+
+    private void run(String name, Supplier<String> orderNumbers) throws Exception {
+        execute(orderNumbers, WARMUP_PER_THREAD);
+
+        long startedAt = System.nanoTime();
+        List<List<String>> results = execute(orderNumbers, MEASURED_PER_THREAD);
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        Set<String> unique = new HashSet<>(THREADS * MEASURED_PER_THREAD);
+        results.forEach(unique::addAll);
+        int total = THREADS * MEASURED_PER_THREAD;
+        log.info("📊 [{}] threads={}, total={}, duplicates={}, throughput={} ops/s, {} ns/op",
+                name, THREADS, total, total - unique.size(),
+                Math.round(total / (elapsedNanos / 1_000_000_000.0)),
+                String.format("%.1f", (double) elapsedNanos * THREADS / total));
+    }
+
+    private List<List<String>> execute(Supplier<String> orderNumbers, int perThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    List<String> generated = new ArrayList<>(perThread);
+                    for (int j = 0; j < perThread; j++) {
+                        generated.add(orderNumbers.get());
+                    }
+                    return generated;
+                }));
+            }
+            List<List<String>> results = new ArrayList<>(THREADS);
+            for (Future<List<String>> future : futures) {
+                results.add(future.get(5, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
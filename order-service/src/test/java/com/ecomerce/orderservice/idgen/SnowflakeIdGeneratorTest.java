@@ -0,0 +1,98 @@
+package com.ecomerce.orderservice.idgen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 32;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    void idsAreUniqueAndIncreasingAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long previous = Long.MIN_VALUE;
+                    for (int j = 0; j < IDS_PER_THREAD; j++) {
+                        long id = generator.nextId();
+                        // Mỗi thread thấy ID tăng dần
+                        assertTrue(id > previous);
+                        previous = id;
+                        ids.add(id);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+    }
+
+    @Test
+    void sequenceOverflowAndClockRollbackStayMonotonic() {
+        AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH_MILLIS + 1_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, now::get);
+
+        long previous = generator.nextId();
+        // Vượt 4096 ID trong cùng 1 ms
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        // Đồng hồ chạy lùi
+        now.addAndGet(-500);
+        long afterRollback = generator.nextId();
+        assertTrue(afterRollback > previous);
+    }
+
+    @Test
+    void nodeIdIsEncodedInEveryId() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID);
+        long id = generator.nextId();
+
+        long nodeId = (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID;
+        assertEquals(SnowflakeIdGenerator.MAX_NODE_ID, nodeId);
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    void orderNumbersAreFixedWidthAndSortInCreationOrder() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        String previous = generator.nextOrderNumber();
+        for (int i = 0; i < 10_000; i++) {
+            String orderNumber = generator.nextOrderNumber();
+            assertTrue(orderNumber.matches("ORD-\\d{8}-[0-9A-Z]{13}"), orderNumber);
+            assertEquals(previous.length(), orderNumber.length());
+            assertTrue(orderNumber.compareTo(previous) > 0);
+            previous = orderNumber;
+        }
+    }
+}
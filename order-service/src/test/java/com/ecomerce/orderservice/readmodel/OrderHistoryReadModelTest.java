@@ -0,0 +1,112 @@
+package com.ecomerce.orderservice.readmodel;
+
+import com.ecomerce.orderservice.dto.response.OrderResponse;
+import com.ecomerce.orderservice.model.Order;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Status event chỉ được áp dụng khi updatedAt của đơn mới hơn entry đang giữ, so sánh ở mức ms
+ */
+class OrderHistoryReadModelTest {
+
+    private static final Instant SECOND = Instant.parse("2026-10-17T03:00:00Z");
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final OrderHistoryReadModel readModel = new OrderHistoryReadModel(redisTemplate, objectMapper);
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        ReflectionTestUtils.setField(readModel, "maxOrders", 100);
+        ReflectionTestUtils.setField(readModel, "ttl", Duration.ofDays(30));
+    }
+
+    @Test
+    void statusChangeOlderWithinSameSecondIsIgnored() {
+        String stored = storedEntry(Order.OrderStatus.CANCELLED, SECOND.plusMillis(700));
+        when(hashOperations.get("order-history:{7}", "o:100")).thenReturn(stored);
+
+        readModel.updateStatus(7L, 100L, Order.OrderStatus.CONFIRMED, SECOND.plusMillis(300));
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(), any(), any());
+    }
+
+    @Test
+    void statusChangeNewerWithinSameSecondIsApplied() throws Exception {
+        String stored = storedEntry(Order.OrderStatus.PENDING, SECOND.plusMillis(300));
+        when(hashOperations.get("order-history:{7}", "o:100")).thenReturn(stored);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any())).thenReturn(1L);
+
+        readModel.updateStatus(7L, 100L, Order.OrderStatus.CONFIRMED, SECOND.plusMillis(700));
+
+        ArgumentCaptor<Object> json = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("order-history:{7}")),
+                eq("o:100"), eq(stored), json.capture());
+        JsonNode updated = objectMapper.readTree(json.getValue().toString());
+        assertEquals("CONFIRMED", updated.get("status").asText());
+        assertEquals(SECOND.plusMillis(700), Instant.parse(updated.get("updatedAt").asText()));
+    }
+
+    @Test
+    void storedEntryKeepsMillisecondsWhileApiFormatStaysAtSeconds() throws Exception {
+        OrderResponse order = order(Order.OrderStatus.PENDING, SECOND.plusMillis(450));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString(),
+                anyString(), anyString())).thenReturn(1L);
+
+        readModel.putOrder(order);
+
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(), eq("100"), json.capture(),
+                anyString(), anyString(), anyString());
+        String storedUpdatedAt = objectMapper.readTree(json.getValue()).get("updatedAt").asText();
+        assertEquals(SECOND.plusMillis(450), Instant.parse(storedUpdatedAt));
+        assertEquals("2026-10-17 10:00:00", objectMapper.readTree(objectMapper.writeValueAsString(order))
+                .get("updatedAt").asText());
+    }
+
+    private String storedEntry(Order.OrderStatus status, Instant updatedAt) {
+        return "{\"id\":100,\"userId\":7,\"status\":\"" + status + "\",\"createdAt\":\"" + SECOND
+                + "\",\"updatedAt\":\"" + updatedAt + "\"}";
+    }
+
+    private static OrderResponse order(Order.OrderStatus status, Instant updatedAt) {
+        return OrderResponse.builder()
+                .id(100L)
+                .userId(7L)
+                .status(status)
+                .createdAt(SECOND)
+                .updatedAt(updatedAt)
+                .items(List.of())
+                .build();
+    }
+}
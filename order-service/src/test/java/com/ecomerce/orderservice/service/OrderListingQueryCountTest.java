@@ -0,0 +1,122 @@
+package com.ecomerce.orderservice.service;
+
+import com.ecomerce.orderservice.dto.response.OrderResponse;
+import com.ecomerce.orderservice.dto.response.PageResponseDto;
+import com.ecomerce.orderservice.model.Order;
+import com.ecomerce.orderservice.model.OrderItem;
+import com.ecomerce.orderservice.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Listing đơn hàng có phân trang phải chạy số câu SQL cố định (orders + count + items),
+ * không tăng theo số order trong trang (N+1 lazy-load items).
+ *
+ * Chạy với MySQL thật (cấu hình trong application.properties):
+ * mvn test -Dtest=OrderListingQueryCountTest -Dorder.query-count-test=true
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfSystemProperty(named = "order.query-count-test", matches = "true")
+class OrderListingQueryCountTest {
+
+    private static final int ORDERS = 30;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> createdOrderIds = new ArrayList<>();
+    private Long userId;
+
+    @BeforeEach
+    void createOrders() {
+        // User ID âm để không đụng dữ liệu thật
+        userId = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .userId(userId)
+                    .orderNumber("TEST-" + UUID.randomUUID())
+                    .status(Order.OrderStatus.PENDING)
+                    .shippingAddress("Test address")
+                    .phone("0900000000")
+                    .totalAmount(BigDecimal.ZERO)
+                    .build();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                order.addItem(OrderItem.builder()
+                        .productId((long) j + 1)
+                        .productName("Product " + j)
+                        .price(BigDecimal.TEN)
+                        .quantity(1)
+                        .build());
+            }
+            createdOrderIds.add(orderRepository.save(order).getId());
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAllById(createdOrderIds);
+        createdOrderIds.clear();
+    }
+
+    @Test
+    void userOrdersPageUsesConstantStatementCount() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Sort thêm theo id => không đi qua order history read model (Redis), luôn đọc MySQL
+        PageResponseDto<OrderResponse> page = orderService.getUserOrders(userId, null,
+                PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt", "id")));
+
+        assertEquals(PAGE_SIZE, page.getContent().size());
+        page.getContent().forEach(order -> assertEquals(ITEMS_PER_ORDER, order.getItems().size()));
+        // orders + count + items
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void allOrdersPageUsesConstantStatementCount() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Specification<Order> spec = (root, query, cb) -> cb.equal(root.get("userId"), userId);
+
+        statistics.clear();
+        PageResponseDto<OrderResponse> firstPage = orderService.getAllOrders(spec, PageRequest.of(0, PAGE_SIZE));
+        long firstPageStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        PageResponseDto<OrderResponse> lastPage = orderService.getAllOrders(spec, PageRequest.of(1, PAGE_SIZE));
+        long lastPageStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(PAGE_SIZE, firstPage.getContent().size());
+        assertEquals(ORDERS - PAGE_SIZE, lastPage.getContent().size());
+        lastPage.getContent().forEach(order -> assertEquals(ITEMS_PER_ORDER, order.getItems().size()));
+        assertTrue(firstPageStatements <= 3, "Statements for first page: " + firstPageStatements);
+        assertTrue(lastPageStatements <= 3, "Statements for last page: " + lastPageStatements);
+    }
+}
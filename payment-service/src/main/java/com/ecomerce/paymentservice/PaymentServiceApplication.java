@@ -7,6 +7,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.time.ZoneId;
 import java.util.TimeZone;
@@ -15,6 +16,7 @@ import java.util.TimeZone;
 @EnableFeignClients
 @EnableJpaAuditing
 @EnableJpaRepositories
+@EnableScheduling
 public class PaymentServiceApplication {
     
     @PostConstruct
@@ -1,5 +1,6 @@
 package com.ecomerce.paymentservice.client.dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -7,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Data
 @NoArgsConstructor
@@ -19,5 +21,9 @@ public class OrderInfo {
     private String orderNumber;
     private BigDecimal totalAmount;
     private String status;
+
+    // Thời điểm order-service cập nhật đơn lần cuối (độ chính xác giây theo format của OrderResponse)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "Asia/Ho_Chi_Minh")
+    private Instant updatedAt;
 }
 
@@ -29,7 +29,7 @@ public class SecurityConfig {
                 .httpBasic(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         // Public endpoint - VNPay callback
-                        .requestMatchers(HttpMethod.GET, "/api/payments/vnpay-callback").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/payments/vnpay-callback", "/api/payments/vnpay-ipn").permitAll()
                         
                         // Monitoring endpoints
                         .requestMatchers(
@@ -14,6 +14,7 @@ public class SkipPathBearTokenResolver implements BearerTokenResolver {
 
     private final List<String> skipPaths = List.of(
             "/api/payments/vnpay-callback",
+            "/api/payments/vnpay-ipn",
             "/swagger-ui",
             "/v3/api-docs",
             "/actuator/health"
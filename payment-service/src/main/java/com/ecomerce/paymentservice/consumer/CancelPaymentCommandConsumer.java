@@ -0,0 +1,40 @@
+package com.ecomerce.paymentservice.consumer;
+
+import com.ecomerce.paymentservice.event.CancelPaymentCommand;
+import com.ecomerce.paymentservice.service.PaymentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Xử lý CancelPaymentCommand của checkout saga (cart-service)
+ * Hủy theo trạng thái hiện tại của payment => command lặp lại không có tác dụng
+ * Lỗi (DB) => ném lại cho DefaultErrorHandler (seek + backoff, xem KafkaConsumerConfig)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CancelPaymentCommandConsumer {
+
+    private final PaymentService paymentService;
+
+    @KafkaListener(
+            topics = "payment-cancel-command",
+            groupId = "payment-service-group",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeCancelPaymentCommand(@Payload CancelPaymentCommand command, Acknowledgment acknowledgment) {
+        log.info("📨 Received CancelPaymentCommand for checkout: {}, payment: {}, reason: {}",
+                command.getCheckoutId(), command.getPaymentId(), command.getReason());
+        try {
+            paymentService.cancelPaymentForOrder(command.getPaymentId(), command.getOrderId(), command.getReason());
+            acknowledgment.acknowledge();
+        } catch (RuntimeException e) {
+            log.error("❌ Error processing CancelPaymentCommand for payment {}: {}", command.getPaymentId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ecomerce.paymentservice.consumer;
+
+import com.ecomerce.paymentservice.client.dto.OrderInfo;
+import com.ecomerce.paymentservice.dto.request.PaymentCreateRequest;
+import com.ecomerce.paymentservice.dto.response.PaymentCreateResponse;
+import com.ecomerce.paymentservice.event.CreatePaymentCommand;
+import com.ecomerce.paymentservice.event.PaymentCreateReply;
+import com.ecomerce.paymentservice.service.KafkaProducerService;
+import com.ecomerce.paymentservice.service.PaymentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Xử lý CreatePaymentCommand của checkout saga (cart-service)
+ * - Đơn đã có payment chưa thất bại (PENDING / PROCESSING / SUCCESS - command bị gửi lại) => reply lại payment đó,
+ *   không tạo payment VNPay thứ 2 (URL thanh toán được tạo lại cho cùng giao dịch)
+ * - Lỗi khi tạo payment => reply success=false để saga hủy đơn
+ * - Chỉ ack sau khi reply đã gửi; lỗi (DB / gửi reply) => ném lại cho DefaultErrorHandler (seek + backoff,
+ *   xem KafkaConsumerConfig), command được xử lý lại và trả lại payment đã tạo ở lần trước
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CreatePaymentCommandConsumer {
+
+    private final PaymentService paymentService;
+    private final KafkaProducerService kafkaProducerService;
+
+    @KafkaListener(
+            topics = "payment-create-command",
+            groupId = "payment-service-group",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeCreatePaymentCommand(@Payload CreatePaymentCommand command, Acknowledgment acknowledgment) {
+        log.info("📨 Received CreatePaymentCommand for checkout: {}, order: {}, method: {}",
+                command.getCheckoutId(), command.getOrderId(), command.getPaymentMethod());
+        try {
+            kafkaProducerService.publishPaymentCreateReply(handle(command));
+            acknowledgment.acknowledge();
+        } catch (RuntimeException e) {
+            log.error("❌ Error processing CreatePaymentCommand for checkout {}: {}", command.getCheckoutId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    private PaymentCreateReply handle(CreatePaymentCommand command) {
+        // Partition theo checkoutId => các lần gửi lại của cùng 1 command được xử lý tuần tự
+        Optional<PaymentCreateResponse> existing = paymentService.findActivePaymentForOrder(
+                command.getOrderId(), command.getOrderDescription(), command.getClientIp());
+        if (existing.isPresent()) {
+            log.info("♻️ Order {} đã có payment {}, reply lại thay vì tạo mới", command.getOrderId(), existing.get().getPaymentId());
+            return toReply(command, existing.get());
+        }
+
+        PaymentCreateRequest request = new PaymentCreateRequest();
+        request.setOrderId(command.getOrderId());
+        request.setPaymentMethod(command.getPaymentMethod());
+        request.setOrderDescription(command.getOrderDescription());
+
+        // Đơn vừa được order-service tạo (PENDING) - thông tin lấy từ command
+        OrderInfo orderInfo = OrderInfo.builder()
+                .id(command.getOrderId())
+                .userId(command.getUserId())
+                .orderNumber(command.getOrderNumber())
+                .totalAmount(command.getTotalAmount())
+                .status("PENDING")
+                .build();
+
+        try {
+            PaymentCreateResponse response = paymentService.createPaymentForOrder(
+                    command.getUserId(), request, orderInfo, command.getClientIp());
+            return toReply(command, response);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Không thể tạo payment cho checkout {}: {}", command.getCheckoutId(), e.getMessage());
+            return reply(command, false)
+                    .reason(e.getMessage())
+                    .build();
+        }
+    }
+
+    private PaymentCreateReply toReply(CreatePaymentCommand command, PaymentCreateResponse response) {
+        return reply(command, true)
+                .paymentId(response.getPaymentId())
+                .paymentMethod(response.getPaymentMethod())
+                .paymentStatus(response.getPaymentStatus())
+                .paymentUrl(response.getPaymentUrl())
+                .message(response.getMessage())
+                .build();
+    }
+
+    private PaymentCreateReply.PaymentCreateReplyBuilder reply(CreatePaymentCommand command, boolean success) {
+        return PaymentCreateReply.builder()
+                .checkoutId(command.getCheckoutId())
+                .success(success)
+                .orderId(command.getOrderId())
+                .timestamp(Instant.now());
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecomerce.paymentservice.consumer;
+
+import com.ecomerce.paymentservice.event.OrderCreatedEvent;
+import com.ecomerce.paymentservice.event.OrderStatusChangedEvent;
+import com.ecomerce.paymentservice.service.OrderSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Duy trì order snapshot local từ order events
+ * Upsert theo timestamp của event => xử lý lặp / đến trễ không làm lùi trạng thái, không cần processed_events
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSnapshotConsumer {
+
+    private final OrderSnapshotService orderSnapshotService;
+
+    @KafkaListener(
+            topics = "order-created",
+            groupId = "payment-service-order-snapshot",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeOrderCreatedEvent(@Payload OrderCreatedEvent event, Acknowledgment acknowledgment) {
+        try {
+            orderSnapshotService.applyOrderCreated(event);
+            acknowledgment.acknowledge();
+            log.debug("✅ Order snapshot created: {} ({})", event.getOrderId(), event.getStatus());
+        } catch (Exception e) {
+            log.error("❌ Error applying OrderCreatedEvent for order {}: {}", event.getOrderId(), e.getMessage(), e);
+            // Don't acknowledge - message will be retried
+        }
+    }
+
+    @KafkaListener(
+            topics = "order-status-changed",
+            groupId = "payment-service-order-snapshot",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
+    public void consumeOrderStatusChangedEvent(@Payload OrderStatusChangedEvent event, Acknowledgment acknowledgment) {
+        try {
+            orderSnapshotService.applyOrderStatusChanged(event);
+            acknowledgment.acknowledge();
+            log.debug("✅ Order snapshot {} -> {}", event.getOrderId(), event.getNewStatus());
+        } catch (Exception e) {
+            log.error("❌ Error applying OrderStatusChangedEvent for order {}: {}", event.getOrderId(), e.getMessage(), e);
+            // Don't acknowledge - message will be retried
+        }
+    }
+}
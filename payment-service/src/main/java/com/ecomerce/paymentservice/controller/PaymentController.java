@@ -5,6 +5,8 @@ import com.ecomerce.paymentservice.dto.response.ApiResponse;
 import com.ecomerce.paymentservice.dto.response.PaymentCreateResponse;
 import com.ecomerce.paymentservice.dto.response.PaymentResponse;
 import com.ecomerce.paymentservice.dto.response.PageResponseDto;
+import com.ecomerce.paymentservice.dto.response.VnpayIpnResponse;
+import com.ecomerce.paymentservice.idempotency.Idempotent;
 import com.ecomerce.paymentservice.model.Payment;
 import com.ecomerce.paymentservice.service.PaymentService;
 import com.ecomerce.paymentservice.util.JwtUtil;
@@ -35,6 +37,7 @@ public class PaymentController {
     // ==================== USER ENDPOINTS (Chỉ cần authentication, không cần @PreAuthorize) ====================
     
     @PostMapping("/create")
+    @Idempotent
     @Operation(summary = "Tạo thanh toán", description = "Tạo thanh toán VNPay hoặc COD cho đơn hàng. VNPay: trả về payment URL. COD: tự động xác nhận ngay.")
     public ResponseEntity<ApiResponse<PaymentCreateResponse>> createPayment(
             @Valid @RequestBody PaymentCreateRequest request,
@@ -95,6 +98,12 @@ public class PaymentController {
         return ResponseEntity.ok(new ApiResponse<>("Xử lý callback thành công", null, response));
     }
     
+    @GetMapping("/vnpay-ipn")
+    @Operation(summary = "IPN từ VNPay", description = "Ghi nhận kết quả thanh toán từ VNPay và phản hồi ngay, trạng thái payment được cập nhật nền (Public endpoint)")
+    public ResponseEntity<VnpayIpnResponse> vnpayIpn(HttpServletRequest request) {
+        return ResponseEntity.ok(paymentService.handleVnpayIpn(request));
+    }
+    
     // ==================== ADMIN ENDPOINTS (Cần @PreAuthorize với permission) ====================
     
     @GetMapping
@@ -0,0 +1,32 @@
+package com.ecomerce.paymentservice.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response cho IPN theo format VNPay yêu cầu: {"RspCode":"00","Message":"Confirm Success"}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VnpayIpnResponse {
+    @JsonProperty("RspCode")
+    private String rspCode;
+
+    @JsonProperty("Message")
+    private String message;
+
+    public static VnpayIpnResponse confirmSuccess() {
+        return new VnpayIpnResponse("00", "Confirm Success");
+    }
+
+    public static VnpayIpnResponse invalidSignature() {
+        return new VnpayIpnResponse("97", "Invalid Checksum");
+    }
+
+    public static VnpayIpnResponse invalidRequest() {
+        return new VnpayIpnResponse("99", "Invalid request");
+    }
+}
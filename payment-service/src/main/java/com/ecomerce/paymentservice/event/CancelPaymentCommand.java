@@ -0,0 +1,23 @@
+package com.ecomerce.paymentservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Command bù trừ từ checkout saga (cart-service): payment được tạo sau khi saga đã thất bại / quá hạn (đơn đã bị hủy)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancelPaymentCommand {
+    private String checkoutId;
+    private Long orderId;
+    private Long paymentId;
+    private String reason;
+    private Instant timestamp;
+}
@@ -0,0 +1,29 @@
+package com.ecomerce.paymentservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Command từ checkout saga (cart-service): tạo thanh toán cho đơn đã reserve kho xong
+ * Thông tin đơn lấy từ reply của order-service => không cần gọi lại order-service
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreatePaymentCommand {
+    private String checkoutId;
+    private Long orderId;
+    private String orderNumber;
+    private Long userId;
+    private BigDecimal totalAmount;
+    private String paymentMethod;
+    private String orderDescription;
+    private String clientIp;
+    private Instant timestamp;
+}
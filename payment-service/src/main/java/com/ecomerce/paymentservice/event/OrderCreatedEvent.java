@@ -0,0 +1,28 @@
+package com.ecomerce.paymentservice.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Event từ order-service - payment-service chỉ cần phần thông tin để validate thanh toán
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OrderCreatedEvent {
+    private Long orderId;
+    private Long userId;
+    private String orderNumber;
+    private BigDecimal totalAmount;
+    private String status;
+    private Instant createdAt;
+    private Instant timestamp;
+}
@@ -0,0 +1,26 @@
+package com.ecomerce.paymentservice.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Event từ order-service - payment-service chỉ dùng trạng thái mới để cập nhật order snapshot
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OrderStatusChangedEvent {
+    private Long orderId;
+    private Long userId;
+    private String orderNumber;
+    private String oldStatus;
+    private String newStatus;
+    private Instant timestamp;
+}
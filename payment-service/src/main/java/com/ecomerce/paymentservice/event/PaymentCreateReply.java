@@ -0,0 +1,28 @@
+package com.ecomerce.paymentservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Reply cho {@link CreatePaymentCommand}: success = true kèm payment (paymentUrl với VNPay), false kèm lý do
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentCreateReply {
+    private String checkoutId;
+    private boolean success;
+    private Long orderId;
+    private Long paymentId;
+    private String paymentMethod;
+    private String paymentStatus;
+    private String paymentUrl;
+    private String message;
+    private String reason;
+    private Instant timestamp;
+}
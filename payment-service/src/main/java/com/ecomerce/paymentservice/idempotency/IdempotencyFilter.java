@@ -0,0 +1,58 @@
+package com.ecomerce.paymentservice.idempotency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Buffer request + response của request có Idempotency-Key
+ * - Fingerprint (SHA-256 của query string + body) để {@link IdempotencyInterceptor} từ chối key bị dùng lại cho request khác
+ * - Status < 500: lưu response => request lặp nhận lại đúng kết quả này
+ * - Status >= 500 hoặc exception: release lock => client có thể retry thực thi lại
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private final IdempotencyStore idempotencyStore;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(IdempotencyInterceptor.IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CachedBodyRequest requestWrapper = new CachedBodyRequest(request);
+        requestWrapper.setAttribute(IdempotencyInterceptor.FINGERPRINT_ATTRIBUTE,
+                IdempotencyStore.fingerprint(request.getQueryString(), requestWrapper.getBody()));
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(requestWrapper, responseWrapper);
+
+            IdempotencyStore.Lock lock = (IdempotencyStore.Lock) request.getAttribute(IdempotencyInterceptor.LOCK_ATTRIBUTE);
+            if (lock != null && responseWrapper.getStatus() < 500) {
+                String body = new String(responseWrapper.getContentAsByteArray(), Charset.forName(responseWrapper.getCharacterEncoding()));
+                idempotencyStore.complete(lock, new IdempotencyStore.StoredResponse(
+                        responseWrapper.getStatus(), responseWrapper.getContentType(), body, lock.fingerprint()));
+                completed = true;
+            }
+        } finally {
+            IdempotencyStore.Lock lock = (IdempotencyStore.Lock) request.getAttribute(IdempotencyInterceptor.LOCK_ATTRIBUTE);
+            if (lock != null && !completed) {
+                idempotencyStore.release(lock);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ecomerce.paymentservice.idempotency;
+
+import com.ecomerce.paymentservice.dto.response.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Xử lý Idempotency-Key cho các endpoint có {@link Idempotent}
+ * - Request đầu tiên: giữ lock, response được {@link IdempotencyFilter} lưu lại sau khi xử lý xong
+ * - Request lặp: trả lại response đã lưu (header Idempotent-Replayed: true)
+ * - Request lặp khi request đầu vẫn chạy quá wait-timeout: 409
+ * - Cùng key nhưng body / query string khác request đầu: 422 (client dùng lại key cho request khác)
+ * Key được gắn với user + method + path nên cùng key ở endpoint/user khác không ảnh hưởng nhau.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyInterceptor implements HandlerInterceptor {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String LOCK_ATTRIBUTE = IdempotencyInterceptor.class.getName() + ".LOCK";
+    static final String FINGERPRINT_ATTRIBUTE = IdempotencyInterceptor.class.getName() + ".FINGERPRINT";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod) || !handlerMethod.hasMethodAnnotation(Idempotent.class)) {
+            return true;
+        }
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return true;
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Idempotency-Key không hợp lệ (tối đa 255 ký tự)", "INVALID_IDEMPOTENCY_KEY");
+            return false;
+        }
+
+        String key = idempotencyStore.key(currentPrincipal(), request.getMethod(), request.getRequestURI(), idempotencyKey);
+        IdempotencyStore.Acquisition acquisition =
+                idempotencyStore.acquire(key, (String) request.getAttribute(FINGERPRINT_ATTRIBUTE));
+
+        if (acquisition.fingerprintMismatch()) {
+            log.warn("⚠️ Idempotency-Key {} bị dùng lại với request khác ({} {})", idempotencyKey, request.getMethod(), request.getRequestURI());
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key này đã được dùng cho một yêu cầu khác", "IDEMPOTENCY_KEY_REUSED");
+            return false;
+        }
+        if (acquisition.lock() != null) {
+            request.setAttribute(LOCK_ATTRIBUTE, acquisition.lock());
+            return true;
+        }
+        if (acquisition.response() != null) {
+            log.info("🔁 Replay response for Idempotency-Key: {} ({} {})", idempotencyKey, request.getMethod(), request.getRequestURI());
+            IdempotencyStore.StoredResponse stored = acquisition.response();
+            response.setStatus(stored.status());
+            if (stored.contentType() != null) {
+                response.setContentType(stored.contentType());
+            }
+            response.setHeader(REPLAYED_HEADER, "true");
+            if (stored.body() != null) {
+                response.getOutputStream().write(stored.body().getBytes(StandardCharsets.UTF_8));
+            }
+            return false;
+        }
+
+        writeError(response, HttpStatus.CONFLICT, "Yêu cầu với Idempotency-Key này đang được xử lý. Vui lòng thử lại sau.", "IDEMPOTENCY_KEY_IN_PROGRESS");
+        return false;
+    }
+
+    private String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : "anonymous";
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message, String errorCode) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse<>(message, errorCode, null));
+    }
+}
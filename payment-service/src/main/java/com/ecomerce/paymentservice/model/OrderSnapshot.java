@@ -0,0 +1,51 @@
+package com.ecomerce.paymentservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Bản sao gọn của order (order-service) để validate thanh toán không cần gọi Feign
+ * Cập nhật từ order-created / order-status-changed; event_at = timestamp của event mới nhất đã áp dụng
+ * => event đến trễ / lặp lại không ghi đè trạng thái mới hơn
+ */
+@Entity
+@Table(name = "order_snapshots", indexes = {
+    @Index(name = "idx_order_snapshot_user_id", columnList = "user_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSnapshot {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    // null khi status event đến trước order-created
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "order_number", length = 50)
+    private String orderNumber;
+
+    @Column(name = "total_amount", precision = 15, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "status", nullable = false, length = 50)
+    private String status;
+
+    @Column(name = "event_at", nullable = false)
+    private Instant eventAt;
+
+    /**
+     * Đủ thông tin để validate thanh toán (đã nhận order-created hoặc đã load từ order-service)
+     */
+    public boolean isComplete() {
+        return userId != null && totalAmount != null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.ecomerce.paymentservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Callback (IPN / return URL) thô từ VNPay, ghi ngay khi nhận và xử lý nền bởi VnpayCallbackProcessor
+ * Unique (txn_ref, transaction_no) => VNPay gửi lại cùng giao dịch chỉ được lưu 1 lần
+ */
+@Entity
+@Table(name = "vnpay_callbacks",
+        uniqueConstraints = @UniqueConstraint(name = "uk_vnpay_callback_txn", columnNames = {"txn_ref", "transaction_no"}),
+        indexes = @Index(name = "idx_vnpay_callback_status", columnList = "status, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VnpayCallback {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "txn_ref", nullable = false, length = 100)
+    private String txnRef;
+
+    // "" khi VNPay không gửi vnp_TransactionNo (unique key không chặn được NULL)
+    @Column(name = "transaction_no", nullable = false, length = 100)
+    private String transactionNo;
+
+    @Column(name = "raw_data", nullable = false, columnDefinition = "TEXT")
+    private String rawData;
+
+    @Column(name = "status", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Lần xử lý lại sớm nhất sau khi lỗi (exponential backoff); NULL => xử lý ngay
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private Instant receivedAt;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+
+    public enum Status {
+        RECEIVED,
+        PROCESSED,
+        FAILED
+    }
+}
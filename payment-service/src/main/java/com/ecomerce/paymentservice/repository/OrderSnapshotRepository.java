@@ -0,0 +1,50 @@
+package com.ecomerce.paymentservice.repository;
+
+import com.ecomerce.paymentservice.model.OrderSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Repository
+public interface OrderSnapshotRepository extends JpaRepository<OrderSnapshot, Long> {
+
+    /**
+     * Upsert thông tin đầy đủ của order (order-created hoặc kết quả Feign)
+     * Status chỉ bị ghi đè nếu eventAt mới hơn status đang lưu; thông tin đơn (user, tổng tiền) luôn được bổ sung
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO order_snapshots (order_id, user_id, order_number, total_amount, status, event_at) " +
+                   "VALUES (:orderId, :userId, :orderNumber, :totalAmount, :status, :eventAt) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "user_id = VALUES(user_id), order_number = VALUES(order_number), total_amount = VALUES(total_amount), " +
+                   "status = IF(VALUES(event_at) >= event_at, VALUES(status), status), " +
+                   "event_at = GREATEST(event_at, VALUES(event_at))",
+           nativeQuery = true)
+    int upsertOrder(@Param("orderId") Long orderId,
+                    @Param("userId") Long userId,
+                    @Param("orderNumber") String orderNumber,
+                    @Param("totalAmount") BigDecimal totalAmount,
+                    @Param("status") String status,
+                    @Param("eventAt") Instant eventAt);
+
+    /**
+     * Upsert trạng thái (order-status-changed) - bỏ qua nếu đã có trạng thái mới hơn
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO order_snapshots (order_id, status, event_at) VALUES (:orderId, :status, :eventAt) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "status = IF(VALUES(event_at) >= event_at, VALUES(status), status), " +
+                   "event_at = GREATEST(event_at, VALUES(event_at))",
+           nativeQuery = true)
+    int upsertStatus(@Param("orderId") Long orderId,
+                     @Param("status") String status,
+                     @Param("eventAt") Instant eventAt);
+}
@@ -1,8 +1,12 @@
 package com.ecomerce.paymentservice.repository;
 
 import com.ecomerce.paymentservice.model.Payment;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,5 +18,14 @@ public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpec
     List<Payment> findByOrderId(Long orderId);
     Optional<Payment> findByVnpayTxnRef(String vnpayTxnRef);
     Optional<Payment> findByVnpayTransactionNo(String vnpayTransactionNo);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.vnpayTxnRef = :vnpayTxnRef")
+    Optional<Payment> findByVnpayTxnRefForUpdate(@Param("vnpayTxnRef") String vnpayTxnRef);
+
+    // Cùng lock với VnpayCallbackProcessor => hủy và callback thanh toán không ghi đè lẫn nhau
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id = :id")
+    Optional<Payment> findByIdForUpdate(@Param("id") Long id);
 }
 
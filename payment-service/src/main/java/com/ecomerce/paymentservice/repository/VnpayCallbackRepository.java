@@ -0,0 +1,58 @@
+package com.ecomerce.paymentservice.repository;
+
+import com.ecomerce.paymentservice.model.VnpayCallback;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VnpayCallbackRepository extends JpaRepository<VnpayCallback, Long> {
+
+    /**
+     * Ghi callback thô - trả về 0 nếu (txn_ref, transaction_no) đã tồn tại (VNPay gửi lại)
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO vnpay_callbacks (txn_ref, transaction_no, raw_data, status, attempts, received_at) " +
+                   "VALUES (:txnRef, :transactionNo, :rawData, 'RECEIVED', 0, :receivedAt)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("txnRef") String txnRef,
+                       @Param("transactionNo") String transactionNo,
+                       @Param("rawData") String rawData,
+                       @Param("receivedAt") Instant receivedAt);
+
+    Optional<VnpayCallback> findByTxnRefAndTransactionNo(String txnRef, String transactionNo);
+
+    /**
+     * Callback đến lượt xử lý - callback đang chờ backoff (next_attempt_at > now) không chặn các callback khác
+     */
+    @Query("SELECT c.id FROM VnpayCallback c WHERE c.status = :status " +
+           "AND (c.nextAttemptAt IS NULL OR c.nextAttemptAt <= :now) ORDER BY c.id ASC")
+    List<Long> findIdsByStatus(@Param("status") VnpayCallback.Status status, @Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Lock callback để xử lý - SKIP LOCKED => replica khác đang xử lý thì bỏ qua thay vì chờ
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT c FROM VnpayCallback c WHERE c.id = :id AND c.status = com.ecomerce.paymentservice.model.VnpayCallback.Status.RECEIVED")
+    Optional<VnpayCallback> findReceivedForUpdate(@Param("id") Long id);
+
+    /**
+     * Xóa callback đã xử lý quá thời gian lưu trữ (theo từng chunk để không lock bảng lâu)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM vnpay_callbacks WHERE status = 'PROCESSED' AND processed_at < :before LIMIT :limit",
+           nativeQuery = true)
+    int deleteProcessedBefore(@Param("before") Instant before, @Param("limit") int limit);
+}
@@ -1,5 +1,6 @@
 package com.ecomerce.paymentservice.service;
 
+import com.ecomerce.paymentservice.event.PaymentCreateReply;
 import com.ecomerce.paymentservice.event.PaymentCreatedEvent;
 import com.ecomerce.paymentservice.event.PaymentFailedEvent;
 import com.ecomerce.paymentservice.event.PaymentSuccessEvent;
@@ -8,5 +9,6 @@ public interface KafkaProducerService {
     void publishPaymentCreatedEvent(PaymentCreatedEvent event);
     void publishPaymentSuccessEvent(PaymentSuccessEvent event);
     void publishPaymentFailedEvent(PaymentFailedEvent event);
+    void publishPaymentCreateReply(PaymentCreateReply reply);
 }
 
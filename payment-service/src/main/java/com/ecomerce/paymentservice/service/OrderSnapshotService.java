@@ -0,0 +1,11 @@
+package com.ecomerce.paymentservice.service;
+
+import com.ecomerce.paymentservice.client.dto.OrderInfo;
+import com.ecomerce.paymentservice.event.OrderCreatedEvent;
+import com.ecomerce.paymentservice.event.OrderStatusChangedEvent;
+
+public interface OrderSnapshotService {
+    void applyOrderCreated(OrderCreatedEvent event);
+    void applyOrderStatusChanged(OrderStatusChangedEvent event);
+    OrderInfo getOrderInfo(Long orderId);
+}
@@ -1,9 +1,11 @@
 package com.ecomerce.paymentservice.service;
 
+import com.ecomerce.paymentservice.client.dto.OrderInfo;
 import com.ecomerce.paymentservice.dto.request.PaymentCreateRequest;
 import com.ecomerce.paymentservice.dto.response.PaymentCreateResponse;
 import com.ecomerce.paymentservice.dto.response.PaymentResponse;
 import com.ecomerce.paymentservice.dto.response.PageResponseDto;
+import com.ecomerce.paymentservice.dto.response.VnpayIpnResponse;
 import com.ecomerce.paymentservice.dto.response.VnpayPaymentUrlResponse;
 import com.ecomerce.paymentservice.model.Payment;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,6 +13,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface PaymentService {
     PaymentCreateResponse createPayment(Long userId, PaymentCreateRequest request, HttpServletRequest httpRequest);
@@ -21,6 +24,25 @@ public interface PaymentService {
      * For VNPay: IP address will be extracted from request headers if available
      */
     PaymentCreateResponse createPaymentWithoutRequest(Long userId, PaymentCreateRequest request);
+
+    /**
+     * Create payment với thông tin order đã có sẵn (checkout saga gửi kèm trong command, không gọi lại order-service)
+     * ipAddress: IP của client lúc checkout (bắt buộc với VNPay)
+     */
+    PaymentCreateResponse createPaymentForOrder(Long userId, PaymentCreateRequest request, OrderInfo orderInfo, String ipAddress);
+
+    /**
+     * Payment đang có hiệu lực của order (PENDING / PROCESSING / SUCCESS) - dùng để dedupe CreatePaymentCommand gửi lại
+     * VNPay PENDING: tạo lại URL thanh toán cho cùng vnp_TxnRef (cần ipAddress), không tạo payment mới
+     */
+    Optional<PaymentCreateResponse> findActivePaymentForOrder(Long orderId, String orderDescription, String ipAddress);
+
+    /**
+     * Bù trừ của checkout saga: hủy payment của đơn đã bị hủy
+     * PENDING / PROCESSING và COD (chưa thu tiền) => CANCELLED; VNPay đã SUCCESS => chỉ log để hoàn tiền thủ công
+     * @return true nếu payment được chuyển sang CANCELLED
+     */
+    boolean cancelPaymentForOrder(Long paymentId, Long orderId, String reason);
     
     // Backward compatibility - deprecated, use createPayment instead
     @Deprecated
@@ -30,6 +52,11 @@ public interface PaymentService {
     }
     
     PaymentResponse handleVnpayCallback(HttpServletRequest request);
+    
+    /**
+     * IPN từ VNPay: verify chữ ký, ghi nhận callback và trả lời ngay (payment được cập nhật nền)
+     */
+    VnpayIpnResponse handleVnpayIpn(HttpServletRequest request);
     PaymentResponse getPaymentById(Long paymentId, Long userId);
     PaymentResponse getPaymentByOrderId(Long orderId, Long userId);
     List<PaymentResponse> getUserPayments(Long userId);
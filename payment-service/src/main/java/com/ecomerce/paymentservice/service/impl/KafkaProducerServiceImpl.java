@@ -1,5 +1,6 @@
 package com.ecomerce.paymentservice.service.impl;
 
+import com.ecomerce.paymentservice.event.PaymentCreateReply;
 import com.ecomerce.paymentservice.event.PaymentCreatedEvent;
 import com.ecomerce.paymentservice.event.PaymentFailedEvent;
 import com.ecomerce.paymentservice.event.PaymentSuccessEvent;
@@ -11,6 +12,9 @@ import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
@@ -20,6 +24,8 @@ public class KafkaProducerServiceImpl implements KafkaProducerService {
     private static final String PAYMENT_CREATED_TOPIC = "payment-created";
     private static final String PAYMENT_SUCCESS_TOPIC = "payment-success";
     private static final String PAYMENT_FAILED_TOPIC = "payment-failed";
+    private static final String PAYMENT_CREATE_REPLY_TOPIC = "payment-create-reply";
+    private static final long REPLY_SEND_TIMEOUT_SECONDS = 10;
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
@@ -85,5 +91,22 @@ public class KafkaProducerServiceImpl implements KafkaProducerService {
                     event.getPaymentId(), event.getOrderId(), e);
         }
     }
-}
 
+    /**
+     * Chờ broker ack: consumer chỉ commit offset của command khi reply đã gửi xong (lỗi => command được xử lý lại)
+     */
+    @Override
+    public void publishPaymentCreateReply(PaymentCreateReply reply) {
+        try {
+            kafkaTemplate.send(PAYMENT_CREATE_REPLY_TOPIC, reply.getCheckoutId(), reply)
+                    .get(REPLY_SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info("✅ Published PaymentCreateReply to topic '{}' for checkout: {}, success: {}",
+                    PAYMENT_CREATE_REPLY_TOPIC, reply.getCheckoutId(), reply.isSuccess());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing PaymentCreateReply", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish PaymentCreateReply for checkout: " + reply.getCheckoutId(), e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ecomerce.paymentservice.service.impl;
+
+import com.ecomerce.paymentservice.client.OrderServiceClient;
+import com.ecomerce.paymentservice.client.dto.OrderInfo;
+import com.ecomerce.paymentservice.event.OrderCreatedEvent;
+import com.ecomerce.paymentservice.event.OrderStatusChangedEvent;
+import com.ecomerce.paymentservice.model.OrderSnapshot;
+import com.ecomerce.paymentservice.repository.OrderSnapshotRepository;
+import com.ecomerce.paymentservice.service.OrderSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Order snapshot local: validate thanh toán đọc từ bảng order_snapshots
+ * Chỉ gọi order-service (Feign) khi đơn chưa được replicate qua Kafka
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderSnapshotServiceImpl implements OrderSnapshotService {
+
+    private final OrderSnapshotRepository orderSnapshotRepository;
+    private final OrderServiceClient orderServiceClient;
+
+    @Override
+    public void applyOrderCreated(OrderCreatedEvent event) {
+        orderSnapshotRepository.upsertOrder(
+                event.getOrderId(),
+                event.getUserId(),
+                event.getOrderNumber(),
+                event.getTotalAmount(),
+                event.getStatus(),
+                eventTime(event.getTimestamp(), event.getCreatedAt()));
+    }
+
+    @Override
+    public void applyOrderStatusChanged(OrderStatusChangedEvent event) {
+        int updated = orderSnapshotRepository.upsertStatus(
+                event.getOrderId(),
+                event.getNewStatus(),
+                eventTime(event.getTimestamp(), null));
+        if (updated == 0) {
+            log.debug("Order snapshot {} đã có trạng thái mới hơn, bỏ qua {}", event.getOrderId(), event.getNewStatus());
+        }
+    }
+
+    @Override
+    public OrderInfo getOrderInfo(Long orderId) {
+        Optional<OrderSnapshot> snapshot = orderSnapshotRepository.findById(orderId)
+                .filter(OrderSnapshot::isComplete);
+        if (snapshot.isPresent()) {
+            return toOrderInfo(snapshot.get());
+        }
+
+        // Đơn chưa được replicate (event còn trong Kafka) => fallback gọi order-service
+        log.info("⚠️ Order {} chưa có trong snapshot, lấy từ order-service", orderId);
+        OrderInfo orderInfo;
+        try {
+            orderInfo = orderServiceClient.getOrderById(orderId);
+            if (orderInfo == null) {
+                throw new RuntimeException("Order không tồn tại với ID: " + orderId);
+            }
+        } catch (Exception e) {
+            log.error("❌ Failed to get order from order-service: {}", e.getMessage(), e);
+            throw new RuntimeException("Không thể lấy thông tin đơn hàng: " + e.getMessage());
+        }
+
+        // Lưu lại để lần sau đọc local, event_at = updatedAt của order-service (không phải giờ local):
+        // event đổi trạng thái xảy ra sau lần đọc này vẫn ghi đè được status, event cũ hơn thì không
+        orderSnapshotRepository.upsertOrder(
+                orderId,
+                orderInfo.getUserId(),
+                orderInfo.getOrderNumber(),
+                orderInfo.getTotalAmount(),
+                orderInfo.getStatus(),
+                fetchedStatusTime(orderInfo));
+        return orderInfo;
+    }
+
+    private OrderInfo toOrderInfo(OrderSnapshot snapshot) {
+        return OrderInfo.builder()
+                .id(snapshot.getOrderId())
+                .userId(snapshot.getUserId())
+                .orderNumber(snapshot.getOrderNumber())
+                .totalAmount(snapshot.getTotalAmount())
+                .status(snapshot.getStatus())
+                .build();
+    }
+
+    /**
+     * Không có updatedAt => Instant.EPOCH: mọi event thật đều mới hơn, status từ Feign không chặn được event nào
+     */
+    private Instant fetchedStatusTime(OrderInfo orderInfo) {
+        return orderInfo.getUpdatedAt() != null ? orderInfo.getUpdatedAt() : Instant.EPOCH;
+    }
+
+    private Instant eventTime(Instant timestamp, Instant fallback) {
+        if (timestamp != null) {
+            return timestamp;
+        }
+        return fallback != null ? fallback : Instant.now();
+    }
+}
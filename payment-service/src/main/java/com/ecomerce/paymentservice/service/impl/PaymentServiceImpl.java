@@ -1,22 +1,24 @@
 package com.ecomerce.paymentservice.service.impl;
 
-import com.ecomerce.paymentservice.client.OrderServiceClient;
 import com.ecomerce.paymentservice.client.dto.OrderInfo;
 import com.ecomerce.paymentservice.config.VnpayConfig;
 import com.ecomerce.paymentservice.dto.request.PaymentCreateRequest;
 import com.ecomerce.paymentservice.dto.response.PaymentCreateResponse;
 import com.ecomerce.paymentservice.dto.response.PaymentResponse;
 import com.ecomerce.paymentservice.dto.response.PageResponseDto;
+import com.ecomerce.paymentservice.dto.response.VnpayIpnResponse;
 import com.ecomerce.paymentservice.event.PaymentCreatedEvent;
-import com.ecomerce.paymentservice.event.PaymentFailedEvent;
 import com.ecomerce.paymentservice.event.PaymentSuccessEvent;
 import com.ecomerce.paymentservice.model.Payment;
 import com.ecomerce.paymentservice.model.PaymentMethod;
 import com.ecomerce.paymentservice.repository.PaymentRepository;
+import com.ecomerce.paymentservice.repository.VnpayCallbackRepository;
 import com.ecomerce.paymentservice.service.KafkaProducerService;
+import com.ecomerce.paymentservice.service.OrderSnapshotService;
 import com.ecomerce.paymentservice.service.PaymentService;
 import com.ecomerce.paymentservice.util.VnpayUtil;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ecomerce.paymentservice.vnpay.VnpayCallbackIngestor;
+import com.ecomerce.paymentservice.vnpay.VnpayCallbackProcessor;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -38,12 +40,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
     
+    // Payment còn hiệu lực của order: không tạo thêm payment mới khi command được gửi lại
+    private static final Set<Payment.PaymentStatus> ACTIVE_STATUSES = EnumSet.of(
+            Payment.PaymentStatus.PENDING, Payment.PaymentStatus.PROCESSING, Payment.PaymentStatus.SUCCESS);
+
     private final PaymentRepository paymentRepository;
     private final VnpayConfig vnpayConfig;
     private final VnpayUtil vnpayUtil;
-    private final ObjectMapper objectMapper;
     private final KafkaProducerService kafkaProducerService;
-    private final OrderServiceClient orderServiceClient;
+    private final OrderSnapshotService orderSnapshotService;
+    private final VnpayCallbackIngestor vnpayCallbackIngestor;
+    private final VnpayCallbackProcessor vnpayCallbackProcessor;
+    private final VnpayCallbackRepository vnpayCallbackRepository;
     
     @Value("${vnpay.return-url}")
     private String returnUrl;
@@ -65,18 +73,73 @@ public class PaymentServiceImpl implements PaymentService {
     
     @Transactional
     private PaymentCreateResponse createPaymentInternal(Long userId, PaymentCreateRequest request, HttpServletRequest httpRequest) {
-        // Get order info from order-service
-        OrderInfo orderInfo;
-        try {
-            orderInfo = orderServiceClient.getOrderById(request.getOrderId());
-            if (orderInfo == null) {
-                throw new RuntimeException("Order không tồn tại với ID: " + request.getOrderId());
+        // Thông tin đơn đọc từ order snapshot local (Feign chỉ khi đơn chưa được replicate)
+        OrderInfo orderInfo = orderSnapshotService.getOrderInfo(request.getOrderId());
+        
+        return createPaymentForOrderInternal(userId, request, orderInfo,
+                httpRequest != null ? vnpayUtil.getIpAddress(httpRequest) : null);
+    }
+    
+    @Override
+    @Transactional
+    public PaymentCreateResponse createPaymentForOrder(Long userId, PaymentCreateRequest request, OrderInfo orderInfo, String ipAddress) {
+        return createPaymentForOrderInternal(userId, request, orderInfo, ipAddress);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PaymentCreateResponse> findActivePaymentForOrder(Long orderId, String orderDescription, String ipAddress) {
+        Optional<Payment> active = paymentRepository.findByOrderId(orderId).stream()
+                .filter(p -> ACTIVE_STATUSES.contains(p.getStatus()))
+                .max(Comparator.comparing(Payment::getId));
+        if (active.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Payment payment = active.get();
+        String paymentUrl = null;
+        if (payment.getStatus() == Payment.PaymentStatus.PENDING
+                && PaymentMethod.VNPAY.equals(payment.getPaymentMethod())
+                && payment.getVnpayTxnRef() != null
+                && ipAddress != null) {
+            paymentUrl = buildVnpayPaymentUrl(payment, orderDescription, ipAddress);
+        }
+        return Optional.of(PaymentCreateResponse.builder()
+                .paymentUrl(paymentUrl)
+                .paymentId(payment.getId())
+                .message("Đơn hàng đã có thanh toán")
+                .paymentMethod(payment.getPaymentMethod())
+                .paymentStatus(payment.getStatus().name())
+                .build());
+    }
+    
+    @Override
+    @Transactional
+    public boolean cancelPaymentForOrder(Long paymentId, Long orderId, String reason) {
+        Payment payment = paymentRepository.findByIdForUpdate(paymentId).orElse(null);
+        if (payment == null || !payment.getOrderId().equals(orderId)) {
+            log.warn("⚠️ Không tìm thấy payment {} của order {} để hủy", paymentId, orderId);
+            return false;
+        }
+
+        boolean cancellable = payment.getStatus() == Payment.PaymentStatus.PENDING
+                || payment.getStatus() == Payment.PaymentStatus.PROCESSING
+                || payment.getStatus() == Payment.PaymentStatus.SUCCESS && PaymentMethod.COD.equals(payment.getPaymentMethod());
+        if (!cancellable) {
+            if (payment.getStatus() == Payment.PaymentStatus.SUCCESS) {
+                log.error("❌ Payment {} của order {} đã thanh toán nhưng đơn đã bị hủy ({}): cần hoàn tiền thủ công",
+                        paymentId, orderId, reason);
             }
-        } catch (Exception e) {
-            log.error("❌ Failed to get order from order-service: {}", e.getMessage(), e);
-            throw new RuntimeException("Không thể lấy thông tin đơn hàng: " + e.getMessage());
+            return false;
         }
-        
+
+        payment.setStatus(Payment.PaymentStatus.CANCELLED);
+        paymentRepository.save(payment);
+        log.info("↩️ Cancelled payment {} of order {}: {}", paymentId, orderId, reason);
+        return true;
+    }
+    
+    private PaymentCreateResponse createPaymentForOrderInternal(Long userId, PaymentCreateRequest request, OrderInfo orderInfo, String ipAddress) {
         // Validate order belongs to user
         if (orderInfo.getUserId() == null || !orderInfo.getUserId().equals(userId)) {
             throw new RuntimeException("Order không thuộc về user này");
@@ -124,11 +187,11 @@ public class PaymentServiceImpl implements PaymentService {
         }
         
         // Handle VNPay payment (existing flow)
-        // VNPay requires HttpServletRequest for IP address
-        if (httpRequest == null) {
-            throw new RuntimeException("VNPay payment requires HttpServletRequest for IP address");
+        // VNPay requires client IP address
+        if (ipAddress == null) {
+            throw new RuntimeException("VNPay payment requires client IP address");
         }
-        return createVnpayPayment(userId, request, orderInfo, httpRequest);
+        return createVnpayPayment(userId, request, orderInfo, ipAddress);
     }
     
     /**
@@ -190,7 +253,7 @@ public class PaymentServiceImpl implements PaymentService {
     /**
      * Create VNPay payment - Generate payment URL
      */
-    private PaymentCreateResponse createVnpayPayment(Long userId, PaymentCreateRequest request, OrderInfo orderInfo, HttpServletRequest httpRequest) {
+    private PaymentCreateResponse createVnpayPayment(Long userId, PaymentCreateRequest request, OrderInfo orderInfo, String ipAddress) {
         log.info("💳 Creating VNPay payment for order: {}, user: {}", request.getOrderId(), userId);
         
         // Tạo payment record với amount từ order
@@ -210,23 +273,7 @@ public class PaymentServiceImpl implements PaymentService {
         payment = paymentRepository.save(payment);
         
         // Tạo URL thanh toán VNPay
-        Map<String, String> vnpParams = new HashMap<>();
-        vnpParams.put("vnp_Version", vnpayConfig.getVersion());
-        vnpParams.put("vnp_Command", vnpayConfig.getCommand());
-        vnpParams.put("vnp_TmnCode", vnpayConfig.getTmnCode());
-        vnpParams.put("vnp_Amount", String.valueOf(payment.getAmount().longValue() * 100)); // VNPay yêu cầu số tiền * 100
-        vnpParams.put("vnp_CurrCode", vnpayConfig.getCurrCode());
-        vnpParams.put("vnp_TxnRef", vnp_TxnRef);
-        vnpParams.put("vnp_OrderInfo", request.getOrderDescription() != null 
-            ? request.getOrderDescription() 
-            : "Thanh toan don hang #" + request.getOrderId());
-        vnpParams.put("vnp_OrderType", vnpayConfig.getOrderType());
-        vnpParams.put("vnp_Locale", vnpayConfig.getLocale());
-        vnpParams.put("vnp_ReturnUrl", returnUrl);
-        vnpParams.put("vnp_IpAddr", vnpayUtil.getIpAddress(httpRequest));
-        vnpParams.put("vnp_CreateDate", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
-        
-        String paymentUrl = vnpayUtil.createPaymentUrl(vnpParams, vnpayConfig.getPaymentUrl());
+        String paymentUrl = buildVnpayPaymentUrl(payment, request.getOrderDescription(), ipAddress);
         
         log.info("✅ Created VNPay payment URL for payment ID: {}, Order ID: {}", payment.getId(), request.getOrderId());
         
@@ -253,89 +300,61 @@ public class PaymentServiceImpl implements PaymentService {
                 .build();
     }
     
-    @Override
-    @Transactional
-    public PaymentResponse handleVnpayCallback(HttpServletRequest request) {
+    private String buildVnpayPaymentUrl(Payment payment, String orderDescription, String ipAddress) {
         Map<String, String> vnpParams = new HashMap<>();
+        vnpParams.put("vnp_Version", vnpayConfig.getVersion());
+        vnpParams.put("vnp_Command", vnpayConfig.getCommand());
+        vnpParams.put("vnp_TmnCode", vnpayConfig.getTmnCode());
+        vnpParams.put("vnp_Amount", String.valueOf(payment.getAmount().longValue() * 100)); // VNPay yêu cầu số tiền * 100
+        vnpParams.put("vnp_CurrCode", vnpayConfig.getCurrCode());
+        vnpParams.put("vnp_TxnRef", payment.getVnpayTxnRef());
+        vnpParams.put("vnp_OrderInfo", orderDescription != null 
+            ? orderDescription 
+            : "Thanh toan don hang #" + payment.getOrderId());
+        vnpParams.put("vnp_OrderType", vnpayConfig.getOrderType());
+        vnpParams.put("vnp_Locale", vnpayConfig.getLocale());
+        vnpParams.put("vnp_ReturnUrl", returnUrl);
+        vnpParams.put("vnp_IpAddr", ipAddress);
+        vnpParams.put("vnp_CreateDate", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
         
-        // Lấy tất cả parameters từ request
-        for (String paramName : Collections.list(request.getParameterNames())) {
-            if (paramName.startsWith("vnp_")) {
-                vnpParams.put(paramName, request.getParameter(paramName));
-            }
-        }
+        return vnpayUtil.createPaymentUrl(vnpParams, vnpayConfig.getPaymentUrl());
+    }
+    
+    @Override
+    public PaymentResponse handleVnpayCallback(HttpServletRequest request) {
+        // Return URL (trình duyệt của user): ghi nhận callback như IPN rồi xử lý luôn để trả về trạng thái cuối
+        Map<String, String> vnpParams = vnpayUtil.extractVnpParams(request);
         
-        // Validate chữ ký
-        Map<String, String> paramsCopy = new HashMap<>(vnpParams);
-        if (!vnpayUtil.validateCallback(paramsCopy)) {
-            log.error("Invalid VNPay callback signature");
+        VnpayCallbackIngestor.Result result = vnpayCallbackIngestor.ingest(vnpParams);
+        if (result == VnpayCallbackIngestor.Result.INVALID_SIGNATURE) {
             throw new RuntimeException("Invalid VNPay callback signature");
         }
+        if (result == VnpayCallbackIngestor.Result.INVALID_REQUEST) {
+            throw new RuntimeException("Invalid VNPay callback");
+        }
         
         String vnp_TxnRef = vnpParams.get("vnp_TxnRef");
-        String vnp_ResponseCode = vnpParams.get("vnp_ResponseCode");
-        String vnp_TransactionNo = vnpParams.get("vnp_TransactionNo");
-        String vnp_TransactionStatus = vnpParams.get("vnp_TransactionStatus");
+        // IPN tới trước / worker đã xử lý => không còn RECEIVED, process là no-op
+        vnpayCallbackRepository.findByTxnRefAndTransactionNo(vnp_TxnRef, VnpayCallbackIngestor.transactionNo(vnpParams))
+                .ifPresent(callback -> vnpayCallbackProcessor.process(callback.getId()));
         
         Payment payment = paymentRepository.findByVnpayTxnRef(vnp_TxnRef)
             .orElseThrow(() -> new RuntimeException("Payment not found: " + vnp_TxnRef));
         
-        // Lưu callback data
-        try {
-            payment.setCallbackData(objectMapper.writeValueAsString(vnpParams));
-        } catch (Exception e) {
-            log.error("Error saving callback data", e);
-        }
-        
-        payment.setVnpayTransactionNo(vnp_TransactionNo);
-        payment.setVnpayResponseCode(vnp_ResponseCode);
-        
-        // Cập nhật trạng thái thanh toán
-        if ("00".equals(vnp_ResponseCode) && "00".equals(vnp_TransactionStatus)) {
-            payment.setStatus(Payment.PaymentStatus.SUCCESS);
-            payment.setVnpayMessage("Giao dịch thành công");
-            log.info("Payment successful: {}", vnp_TxnRef);
-            
-            // Publish PaymentSuccessEvent to Kafka
-            PaymentSuccessEvent successEvent = PaymentSuccessEvent.builder()
-                    .paymentId(payment.getId())
-                    .orderId(payment.getOrderId())
-                    .userId(payment.getUserId())
-                    .amount(payment.getAmount())
-                    .paymentMethod(payment.getPaymentMethod())
-                    .vnpayTxnRef(payment.getVnpayTxnRef())
-                    .vnpayTransactionNo(payment.getVnpayTransactionNo())
-                    .vnpayResponseCode(payment.getVnpayResponseCode())
-                    .timestamp(Instant.now())
-                    .build();
-            
-            kafkaProducerService.publishPaymentSuccessEvent(successEvent);
-        } else {
-            payment.setStatus(Payment.PaymentStatus.FAILED);
-            payment.setVnpayMessage("Giao dịch thất bại: " + vnpParams.get("vnp_ResponseMessage"));
-            log.warn("Payment failed: {}, ResponseCode: {}", vnp_TxnRef, vnp_ResponseCode);
-            
-            // Publish PaymentFailedEvent to Kafka
-            PaymentFailedEvent failedEvent = PaymentFailedEvent.builder()
-                    .paymentId(payment.getId())
-                    .orderId(payment.getOrderId())
-                    .userId(payment.getUserId())
-                    .amount(payment.getAmount())
-                    .paymentMethod(payment.getPaymentMethod())
-                    .vnpayTxnRef(payment.getVnpayTxnRef())
-                    .vnpayResponseCode(payment.getVnpayResponseCode())
-                    .failureReason(vnpParams.get("vnp_ResponseMessage"))
-                    .timestamp(Instant.now())
-                    .build();
-            
-            kafkaProducerService.publishPaymentFailedEvent(failedEvent);
-        }
-        
-        payment = paymentRepository.save(payment);
-        
         return mapToResponse(payment);
     }
     
+    @Override
+    public VnpayIpnResponse handleVnpayIpn(HttpServletRequest request) {
+        // Chỉ verify + ghi nhận rồi ack ngay, VnpayCallbackProcessor cập nhật payment nền
+        // => VNPay không timeout và gửi lại IPN; IPN gửi lại bị chặn bởi unique (txnRef, transactionNo)
+        return switch (vnpayCallbackIngestor.ingest(vnpayUtil.extractVnpParams(request))) {
+            case ACCEPTED, DUPLICATE -> VnpayIpnResponse.confirmSuccess();
+            case INVALID_SIGNATURE -> VnpayIpnResponse.invalidSignature();
+            case INVALID_REQUEST -> VnpayIpnResponse.invalidRequest();
+        };
+    }
+    
     @Override
     public PaymentResponse getPaymentById(Long paymentId, Long userId) {
         Payment payment = paymentRepository.findById(paymentId)
@@ -8,6 +8,7 @@ import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
 
 @Component
@@ -16,6 +17,8 @@ public class VnpayUtil {
     @Value("${vnpay.hash-secret}")
     private String vnp_HashSecret;
     
+    private final ThreadLocal<Mac> threadLocalMac = ThreadLocal.withInitial(this::newHmacSHA512);
+    
     public String createPaymentUrl(Map<String, String> params, String baseUrl) {
         StringBuilder queryString = new StringBuilder();
         TreeMap<String, String> sortedParams = new TreeMap<>(params);
@@ -33,54 +36,89 @@ public class VnpayUtil {
             queryString.deleteCharAt(queryString.length() - 1);
         }
         
-        String vnp_SecureHash = hmacSHA512(vnp_HashSecret, queryString.toString());
+        String vnp_SecureHash = HexFormat.of().formatHex(hmacSHA512(queryString.toString()));
         queryString.append("&vnp_SecureHash=").append(vnp_SecureHash);
         
         return baseUrl + "?" + queryString.toString();
     }
     
+    /**
+     * Lấy các tham số vnp_* từ callback
+     */
+    public Map<String, String> extractVnpParams(HttpServletRequest request) {
+        Map<String, String[]> parameterMap = request.getParameterMap();
+        Map<String, String> vnpParams = new HashMap<>(parameterMap.size() * 2);
+        for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
+            if (entry.getKey().startsWith("vnp_") && entry.getValue().length > 0) {
+                vnpParams.put(entry.getKey(), entry.getValue()[0]);
+            }
+        }
+        return vnpParams;
+    }
+    
+    /**
+     * Validate chữ ký callback (xóa vnp_SecureHash khỏi params như trước)
+     */
     public boolean validateCallback(Map<String, String> params) {
-        String vnp_SecureHash = params.remove("vnp_SecureHash");
+        boolean valid = verifySignature(params);
+        params.remove("vnp_SecureHash");
+        return valid;
+    }
+    
+    /**
+     * Validate chữ ký callback, không sửa params
+     * Hash data = các tham số vnp_* (trừ vnp_SecureHash/vnp_SecureHashType) sắp xếp theo tên, URL-encode
+     */
+    public boolean verifySignature(Map<String, String> params) {
+        String vnp_SecureHash = params.get("vnp_SecureHash");
         
         if (vnp_SecureHash == null || vnp_SecureHash.isEmpty()) {
             return false;
         }
         
-        StringBuilder queryString = new StringBuilder();
-        TreeMap<String, String> sortedParams = new TreeMap<>(params);
+        String[] keys = params.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
         
-        for (Map.Entry<String, String> entry : sortedParams.entrySet()) {
-            if (entry.getKey().startsWith("vnp_") && entry.getValue() != null && !entry.getValue().isEmpty()) {
-                queryString.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8));
-                queryString.append("=");
-                queryString.append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
-                queryString.append("&");
+        StringBuilder queryString = new StringBuilder(256);
+        for (String key : keys) {
+            if (!key.startsWith("vnp_") || key.equals("vnp_SecureHash") || key.equals("vnp_SecureHashType")) {
+                continue;
+            }
+            String value = params.get(key);
+            if (value != null && !value.isEmpty()) {
+                if (queryString.length() > 0) {
+                    queryString.append('&');
+                }
+                queryString.append(URLEncoder.encode(key, StandardCharsets.UTF_8));
+                queryString.append('=');
+                queryString.append(URLEncoder.encode(value, StandardCharsets.UTF_8));
             }
         }
         
-        if (queryString.length() > 0) {
-            queryString.deleteCharAt(queryString.length() - 1);
+        byte[] expected;
+        try {
+            expected = HexFormat.of().parseHex(vnp_SecureHash);
+        } catch (IllegalArgumentException e) {
+            return false;
         }
-        
-        String calculatedHash = hmacSHA512(vnp_HashSecret, queryString.toString());
-        return calculatedHash.equals(vnp_SecureHash);
+        // So sánh constant-time
+        return MessageDigest.isEqual(hmacSHA512(queryString.toString()), expected);
+    }
+    
+    /**
+     * Mac không thread-safe và Mac.getInstance + init khá tốn => mỗi thread giữ 1 instance đã init sẵn
+     */
+    private byte[] hmacSHA512(String data) {
+        Mac mac = threadLocalMac.get();
+        // doFinal tự reset Mac về trạng thái sau init
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
     }
     
-    private String hmacSHA512(String key, String data) {
+    private Mac newHmacSHA512() {
         try {
-            Mac hmacSHA512 = Mac.getInstance("HmacSHA512");
-            SecretKeySpec secretKey = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
-            hmacSHA512.init(secretKey);
-            byte[] hashBytes = hmacSHA512.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte hashByte : hashBytes) {
-                String hex = Integer.toHexString(0xff & hashByte);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
+            Mac mac = Mac.getInstance("HmacSHA512");
+            mac.init(new SecretKeySpec(vnp_HashSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+            return mac;
         } catch (Exception e) {
             throw new RuntimeException("Error creating HMAC SHA512", e);
         }
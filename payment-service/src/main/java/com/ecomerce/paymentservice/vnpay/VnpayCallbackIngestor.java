@@ -0,0 +1,69 @@
+package com.ecomerce.paymentservice.vnpay;
+
+import com.ecomerce.paymentservice.repository.VnpayCallbackRepository;
+import com.ecomerce.paymentservice.util.VnpayUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Nhận callback VNPay: verify chữ ký + ghi bản thô vào vnpay_callbacks rồi trả về ngay
+ * Cập nhật payment và publish event do VnpayCallbackProcessor làm nền
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VnpayCallbackIngestor {
+
+    private final VnpayCallbackRepository vnpayCallbackRepository;
+    private final VnpayUtil vnpayUtil;
+    private final ObjectMapper objectMapper;
+
+    public enum Result {
+        ACCEPTED,
+        DUPLICATE,
+        INVALID_SIGNATURE,
+        INVALID_REQUEST
+    }
+
+    @Transactional
+    public Result ingest(Map<String, String> vnpParams) {
+        if (!vnpayUtil.verifySignature(vnpParams)) {
+            log.error("❌ Invalid VNPay callback signature: txnRef={}", vnpParams.get("vnp_TxnRef"));
+            return Result.INVALID_SIGNATURE;
+        }
+
+        String txnRef = vnpParams.get("vnp_TxnRef");
+        if (txnRef == null || txnRef.isEmpty()) {
+            return Result.INVALID_REQUEST;
+        }
+
+        String rawData;
+        try {
+            rawData = objectMapper.writeValueAsString(vnpParams);
+        } catch (JsonProcessingException e) {
+            log.error("❌ Không thể serialize VNPay callback {}: {}", txnRef, e.getMessage());
+            return Result.INVALID_REQUEST;
+        }
+
+        int inserted = vnpayCallbackRepository.insertIfAbsent(txnRef, transactionNo(vnpParams), rawData, Instant.now());
+        if (inserted == 0) {
+            log.info("⚠️ Duplicate VNPay callback: txnRef={}, transactionNo={}", txnRef, vnpParams.get("vnp_TransactionNo"));
+            return Result.DUPLICATE;
+        }
+
+        log.info("📨 Received VNPay callback: txnRef={}, responseCode={}", txnRef, vnpParams.get("vnp_ResponseCode"));
+        return Result.ACCEPTED;
+    }
+
+    public static String transactionNo(Map<String, String> vnpParams) {
+        String transactionNo = vnpParams.get("vnp_TransactionNo");
+        return transactionNo != null ? transactionNo : "";
+    }
+}
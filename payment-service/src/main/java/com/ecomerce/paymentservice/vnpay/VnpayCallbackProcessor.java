@@ -0,0 +1,247 @@
+package com.ecomerce.paymentservice.vnpay;
+
+import com.ecomerce.paymentservice.event.PaymentFailedEvent;
+import com.ecomerce.paymentservice.event.PaymentSuccessEvent;
+import com.ecomerce.paymentservice.model.Payment;
+import com.ecomerce.paymentservice.model.VnpayCallback;
+import com.ecomerce.paymentservice.repository.PaymentRepository;
+import com.ecomerce.paymentservice.repository.VnpayCallbackRepository;
+import com.ecomerce.paymentservice.service.KafkaProducerService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Áp dụng callback VNPay đã ghi nhận: cập nhật trạng thái payment + publish PaymentSuccess/FailedEvent
+ * - Mỗi callback xử lý trong 1 transaction riêng, lock row bằng SKIP LOCKED => nhiều replica chạy song song an toàn
+ * - Payment đã ở trạng thái cuối (SUCCESS/FAILED/...) thì callback chỉ được đánh dấu PROCESSED, không publish lại event
+ * - Lỗi => tăng attempts và hẹn next_attempt_at theo exponential backoff (retry.initial-backoff x2, tối đa retry.max-backoff);
+ *   callback đã nhận quá retry.max-duration mà vẫn lỗi => FAILED (ngân sách retry tính theo thời gian, không theo số lượt poll)
+ */
+@Slf4j
+@Component
+public class VnpayCallbackProcessor {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int CLEANUP_CHUNK_SIZE = 1000;
+
+    private final VnpayCallbackRepository vnpayCallbackRepository;
+    private final PaymentRepository paymentRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${vnpay.callback.batch-size:50}")
+    private int batchSize;
+
+    @Value("${vnpay.callback.retry.initial-backoff:1s}")
+    private Duration initialBackoff;
+
+    @Value("${vnpay.callback.retry.max-backoff:10m}")
+    private Duration maxBackoff;
+
+    @Value("${vnpay.callback.retry.max-duration:24h}")
+    private Duration maxRetryDuration;
+
+    @Value("${vnpay.callback.retention-days:30}")
+    private int retentionDays;
+
+    public VnpayCallbackProcessor(VnpayCallbackRepository vnpayCallbackRepository,
+                                  PaymentRepository paymentRepository,
+                                  KafkaProducerService kafkaProducerService,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
+        this.vnpayCallbackRepository = vnpayCallbackRepository;
+        this.paymentRepository = paymentRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Poll callback đến lượt xử lý tới khi hết (hoặc có callback lỗi thì đợi lượt poll sau)
+     */
+    @Scheduled(fixedDelayString = "${vnpay.callback.poll-interval-ms:200}")
+    public void processPending() {
+        try {
+            List<Long> ids;
+            boolean allProcessed;
+            do {
+                ids = vnpayCallbackRepository.findIdsByStatus(VnpayCallback.Status.RECEIVED, Instant.now(),
+                        PageRequest.ofSize(batchSize));
+                allProcessed = true;
+                for (Long id : ids) {
+                    allProcessed &= process(id);
+                }
+            } while (ids.size() == batchSize && allProcessed);
+        } catch (Exception e) {
+            log.error("❌ VNPay callback processor error: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${vnpay.callback.cleanup.cron:0 15 3 * * *}")
+    public void purgeProcessedCallbacks() {
+        Instant before = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        int total = 0;
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    vnpayCallbackRepository.deleteProcessedBefore(before, CLEANUP_CHUNK_SIZE));
+            total += deleted != null ? deleted : 0;
+        } while (deleted != null && deleted == CLEANUP_CHUNK_SIZE);
+        log.info("🧹 Đã xóa {} VNPay callbacks xử lý trước {}", total, before);
+    }
+
+    /**
+     * Xử lý 1 callback (no-op nếu đã xử lý hoặc replica khác đang giữ)
+     * @return true nếu callback đã được xử lý trong lần gọi này
+     */
+    public boolean process(Long callbackId) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                    vnpayCallbackRepository.findReceivedForUpdate(callbackId)
+                            .map(callback -> {
+                                apply(callback);
+                                return true;
+                            })
+                            .orElse(false)));
+        } catch (Exception e) {
+            log.error("❌ Error processing VNPay callback {}: {}", callbackId, e.getMessage(), e);
+            transactionTemplate.executeWithoutResult(status -> recordFailure(callbackId, e));
+            return false;
+        }
+    }
+
+    private void apply(VnpayCallback callback) {
+        Map<String, String> vnpParams = readParams(callback);
+        String vnp_TxnRef = callback.getTxnRef();
+
+        Optional<Payment> found = paymentRepository.findByVnpayTxnRefForUpdate(vnp_TxnRef);
+        if (found.isEmpty()) {
+            log.error("❌ Payment not found for VNPay callback: {}", vnp_TxnRef);
+            complete(callback, VnpayCallback.Status.FAILED, "Payment not found: " + vnp_TxnRef);
+            return;
+        }
+
+        Payment payment = found.get();
+        if (payment.getStatus() != Payment.PaymentStatus.PENDING && payment.getStatus() != Payment.PaymentStatus.PROCESSING) {
+            if (payment.getStatus() == Payment.PaymentStatus.CANCELLED && "00".equals(vnpParams.get("vnp_ResponseCode"))) {
+                // Payment bị checkout saga hủy nhưng user vẫn thanh toán trên VNPay
+                log.error("❌ Payment {} đã hủy nhưng VNPay báo thanh toán thành công ({}): cần hoàn tiền thủ công",
+                        payment.getId(), vnp_TxnRef);
+            }
+            log.info("⚠️ Payment {} đã ở trạng thái {}, bỏ qua callback {}", payment.getId(), payment.getStatus(), vnp_TxnRef);
+            complete(callback, VnpayCallback.Status.PROCESSED, "Payment already " + payment.getStatus());
+            return;
+        }
+
+        String vnp_ResponseCode = vnpParams.get("vnp_ResponseCode");
+        String vnp_TransactionStatus = vnpParams.get("vnp_TransactionStatus");
+
+        payment.setCallbackData(callback.getRawData());
+        payment.setVnpayTransactionNo(vnpParams.get("vnp_TransactionNo"));
+        payment.setVnpayResponseCode(vnp_ResponseCode);
+
+        // Cập nhật trạng thái thanh toán
+        if ("00".equals(vnp_ResponseCode) && "00".equals(vnp_TransactionStatus)) {
+            payment.setStatus(Payment.PaymentStatus.SUCCESS);
+            payment.setVnpayMessage("Giao dịch thành công");
+            paymentRepository.save(payment);
+            log.info("Payment successful: {}", vnp_TxnRef);
+
+            kafkaProducerService.publishPaymentSuccessEvent(PaymentSuccessEvent.builder()
+                    .paymentId(payment.getId())
+                    .orderId(payment.getOrderId())
+                    .userId(payment.getUserId())
+                    .amount(payment.getAmount())
+                    .paymentMethod(payment.getPaymentMethod())
+                    .vnpayTxnRef(payment.getVnpayTxnRef())
+                    .vnpayTransactionNo(payment.getVnpayTransactionNo())
+                    .vnpayResponseCode(payment.getVnpayResponseCode())
+                    .timestamp(Instant.now())
+                    .build());
+        } else {
+            payment.setStatus(Payment.PaymentStatus.FAILED);
+            payment.setVnpayMessage("Giao dịch thất bại: " + vnpParams.get("vnp_ResponseMessage"));
+            paymentRepository.save(payment);
+            log.warn("Payment failed: {}, ResponseCode: {}", vnp_TxnRef, vnp_ResponseCode);
+
+            kafkaProducerService.publishPaymentFailedEvent(PaymentFailedEvent.builder()
+                    .paymentId(payment.getId())
+                    .orderId(payment.getOrderId())
+                    .userId(payment.getUserId())
+                    .amount(payment.getAmount())
+                    .paymentMethod(payment.getPaymentMethod())
+                    .vnpayTxnRef(payment.getVnpayTxnRef())
+                    .vnpayResponseCode(payment.getVnpayResponseCode())
+                    .failureReason(vnpParams.get("vnp_ResponseMessage"))
+                    .timestamp(Instant.now())
+                    .build());
+        }
+
+        complete(callback, VnpayCallback.Status.PROCESSED, null);
+    }
+
+    private Map<String, String> readParams(VnpayCallback callback) {
+        try {
+            return objectMapper.readValue(callback.getRawData(), new TypeReference<Map<String, String>>() {});
+        } catch (Exception e) {
+            throw new IllegalStateException("Invalid callback data: " + e.getMessage(), e);
+        }
+    }
+
+    private void complete(VnpayCallback callback, VnpayCallback.Status status, String note) {
+        callback.setStatus(status);
+        callback.setLastError(truncate(note));
+        callback.setProcessedAt(Instant.now());
+        vnpayCallbackRepository.save(callback);
+    }
+
+    private void recordFailure(Long callbackId, Exception error) {
+        vnpayCallbackRepository.findById(callbackId).ifPresent(callback -> {
+            Instant now = Instant.now();
+            callback.setAttempts(callback.getAttempts() + 1);
+            callback.setLastError(truncate(error.getMessage()));
+            Instant nextAttemptAt = now.plus(backoff(callback.getAttempts()));
+            if (nextAttemptAt.isAfter(callback.getReceivedAt().plus(maxRetryDuration))) {
+                callback.setStatus(VnpayCallback.Status.FAILED);
+                callback.setNextAttemptAt(null);
+                log.error("❌ VNPay callback {} thất bại sau {} lần trong {}, cần xử lý thủ công",
+                        callbackId, callback.getAttempts(), Duration.between(callback.getReceivedAt(), now));
+            } else {
+                callback.setNextAttemptAt(nextAttemptAt);
+                log.warn("⚠️ VNPay callback {} lỗi lần {}, thử lại lúc {}", callbackId, callback.getAttempts(), nextAttemptAt);
+            }
+            vnpayCallbackRepository.save(callback);
+        });
+    }
+
+    /**
+     * initial-backoff * 2^(attempts-1), tối đa max-backoff
+     */
+    Duration backoff(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+        Duration delay = initialBackoff.multipliedBy(1L << exponent);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecomerce.paymentservice.consumer;
+
+import com.ecomerce.paymentservice.dto.response.PaymentCreateResponse;
+import com.ecomerce.paymentservice.event.CreatePaymentCommand;
+import com.ecomerce.paymentservice.event.PaymentCreateReply;
+import com.ecomerce.paymentservice.service.KafkaProducerService;
+import com.ecomerce.paymentservice.service.PaymentService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * CreatePaymentCommand gửi lại (saga resend) không tạo payment thứ 2 cho cùng order
+ */
+class CreatePaymentCommandConsumerTest {
+
+    private final PaymentService paymentService = mock(PaymentService.class);
+    private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+    private final CreatePaymentCommandConsumer consumer = new CreatePaymentCommandConsumer(paymentService, kafkaProducerService);
+
+    @Test
+    void redeliveredCommandRepliesWithExistingPendingPayment() {
+        when(paymentService.findActivePaymentForOrder(500L, "Thanh toan don hang #ORD-500", "10.0.0.1"))
+                .thenReturn(Optional.of(PaymentCreateResponse.builder()
+                        .paymentId(77L)
+                        .paymentMethod("VNPAY")
+                        .paymentStatus("PENDING")
+                        .paymentUrl("https://pay.example/77")
+                        .build()));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        consumer.consumeCreatePaymentCommand(command(), acknowledgment);
+
+        verify(paymentService, never()).createPaymentForOrder(anyLong(), any(), any(), anyString());
+        ArgumentCaptor<PaymentCreateReply> reply = ArgumentCaptor.forClass(PaymentCreateReply.class);
+        verify(kafkaProducerService).publishPaymentCreateReply(reply.capture());
+        assertTrue(reply.getValue().isSuccess());
+        assertEquals(77L, reply.getValue().getPaymentId());
+        assertEquals("https://pay.example/77", reply.getValue().getPaymentUrl());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void firstCommandCreatesPayment() {
+        when(paymentService.findActivePaymentForOrder(anyLong(), any(), any())).thenReturn(Optional.empty());
+        when(paymentService.createPaymentForOrder(anyLong(), any(), any(), anyString()))
+                .thenReturn(PaymentCreateResponse.builder().paymentId(78L).paymentStatus("PENDING").build());
+
+        consumer.consumeCreatePaymentCommand(command(), mock(Acknowledgment.class));
+
+        verify(paymentService).createPaymentForOrder(anyLong(), any(), any(), anyString());
+    }
+
+    @Test
+    void replyFailureIsRethrownWithoutAck() {
+        when(paymentService.findActivePaymentForOrder(anyLong(), any(), any())).thenReturn(Optional.empty());
+        when(paymentService.createPaymentForOrder(anyLong(), any(), any(), anyString()))
+                .thenReturn(PaymentCreateResponse.builder().paymentId(78L).paymentStatus("PENDING").build());
+        doThrow(new IllegalStateException("Kafka down")).when(kafkaProducerService).publishPaymentCreateReply(any());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        // DefaultErrorHandler seek lại record => lần xử lý sau trả lại payment 78 thay vì tạo mới
+        assertThrows(IllegalStateException.class, () -> consumer.consumeCreatePaymentCommand(command(), acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    private static CreatePaymentCommand command() {
+        return CreatePaymentCommand.builder()
+                .checkoutId("checkout-1")
+                .orderId(500L)
+                .orderNumber("ORD-500")
+                .userId(42L)
+                .totalAmount(BigDecimal.TEN)
+                .paymentMethod("VNPAY")
+                .orderDescription("Thanh toan don hang #ORD-500")
+                .clientIp("10.0.0.1")
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.ecomerce.paymentservice.service.impl;
+
+import com.ecomerce.paymentservice.client.OrderServiceClient;
+import com.ecomerce.paymentservice.client.dto.OrderInfo;
+import com.ecomerce.paymentservice.repository.OrderSnapshotRepository;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Snapshot lấy qua Feign dùng updatedAt của order-service làm event_at, không dùng giờ local
+ */
+class OrderSnapshotServiceImplTest {
+
+    private static final Long ORDER_ID = 500L;
+
+    private final OrderSnapshotRepository orderSnapshotRepository = mock(OrderSnapshotRepository.class);
+    private final OrderServiceClient orderServiceClient = mock(OrderServiceClient.class);
+    private final OrderSnapshotServiceImpl orderSnapshotService =
+            new OrderSnapshotServiceImpl(orderSnapshotRepository, orderServiceClient);
+
+    @Test
+    void fetchedSnapshotUsesOrderServiceUpdatedAt() {
+        Instant updatedAt = Instant.parse("2026-10-17T03:00:00Z");
+        when(orderSnapshotRepository.findById(ORDER_ID)).thenReturn(Optional.empty());
+        when(orderServiceClient.getOrderById(ORDER_ID)).thenReturn(orderInfo(updatedAt));
+
+        orderSnapshotService.getOrderInfo(ORDER_ID);
+
+        // CANCELLED event có timestamp sau updatedAt (nhưng trước giờ local) vẫn thắng guard IF(VALUES(event_at) >= event_at)
+        verify(orderSnapshotRepository).upsertOrder(any(), any(), any(), any(), any(), eq(updatedAt));
+    }
+
+    @Test
+    void fetchedSnapshotWithoutUpdatedAtNeverBlocksEvents() {
+        when(orderSnapshotRepository.findById(ORDER_ID)).thenReturn(Optional.empty());
+        when(orderServiceClient.getOrderById(ORDER_ID)).thenReturn(orderInfo(null));
+
+        orderSnapshotService.getOrderInfo(ORDER_ID);
+
+        verify(orderSnapshotRepository).upsertOrder(any(), any(), any(), any(), any(), eq(Instant.EPOCH));
+    }
+
+    @Test
+    void updatedAtIsReadInOrderServiceFormat() throws Exception {
+        JsonMapper mapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+
+        OrderInfo orderInfo = mapper.readValue(
+                "{\"id\":500,\"status\":\"PENDING\",\"updatedAt\":\"2026-10-17 10:00:00\"}", OrderInfo.class);
+
+        assertEquals(Instant.parse("2026-10-17T03:00:00Z"), orderInfo.getUpdatedAt());
+    }
+
+    private static OrderInfo orderInfo(Instant updatedAt) {
+        return OrderInfo.builder()
+                .id(ORDER_ID)
+                .userId(42L)
+                .orderNumber("ORD-500")
+                .totalAmount(BigDecimal.TEN)
+                .status("PENDING")
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
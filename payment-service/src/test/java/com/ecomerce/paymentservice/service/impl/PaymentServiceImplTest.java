@@ -0,0 +1,114 @@
+package com.ecomerce.paymentservice.service.impl;
+
+import com.ecomerce.paymentservice.config.VnpayConfig;
+import com.ecomerce.paymentservice.dto.response.PaymentCreateResponse;
+import com.ecomerce.paymentservice.model.Payment;
+import com.ecomerce.paymentservice.model.PaymentMethod;
+import com.ecomerce.paymentservice.repository.PaymentRepository;
+import com.ecomerce.paymentservice.util.VnpayUtil;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dedupe CreatePaymentCommand: payment chưa thất bại của order được dùng lại; CancelPaymentCommand chỉ hủy payment chưa thu tiền
+ */
+class PaymentServiceImplTest {
+
+    private static final Long ORDER_ID = 500L;
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final VnpayUtil vnpayUtil = mock(VnpayUtil.class);
+    private final PaymentServiceImpl paymentService = new PaymentServiceImpl(
+            paymentRepository, mock(VnpayConfig.class), vnpayUtil, null, null, null, null, null);
+
+    @Test
+    void failedPaymentsAreNotReused() {
+        when(paymentRepository.findByOrderId(ORDER_ID)).thenReturn(List.of(
+                payment(1L, Payment.PaymentStatus.FAILED, PaymentMethod.VNPAY),
+                payment(2L, Payment.PaymentStatus.CANCELLED, PaymentMethod.VNPAY)));
+
+        assertTrue(paymentService.findActivePaymentForOrder(ORDER_ID, null, "10.0.0.1").isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pendingVnpayPaymentIsReusedWithUrlForSameTransaction() {
+        when(paymentRepository.findByOrderId(ORDER_ID)).thenReturn(List.of(
+                payment(1L, Payment.PaymentStatus.FAILED, PaymentMethod.VNPAY),
+                payment(2L, Payment.PaymentStatus.PENDING, PaymentMethod.VNPAY)));
+        when(vnpayUtil.createPaymentUrl(argThat((Map<String, String> params) -> "ORDER2".equals(params.get("vnp_TxnRef"))), any()))
+                .thenReturn("https://pay.example/ORDER2");
+
+        Optional<PaymentCreateResponse> active = paymentService.findActivePaymentForOrder(ORDER_ID, null, "10.0.0.1");
+
+        assertEquals(2L, active.orElseThrow().getPaymentId());
+        assertEquals("PENDING", active.get().getPaymentStatus());
+        assertEquals("https://pay.example/ORDER2", active.get().getPaymentUrl());
+    }
+
+    @Test
+    void pendingCodPaymentIsReusedWithoutUrl() {
+        when(paymentRepository.findByOrderId(ORDER_ID)).thenReturn(List.of(
+                payment(3L, Payment.PaymentStatus.PENDING, PaymentMethod.COD)));
+        when(vnpayUtil.createPaymentUrl(anyMap(), any())).thenReturn("unexpected");
+
+        Optional<PaymentCreateResponse> active = paymentService.findActivePaymentForOrder(ORDER_ID, null, null);
+
+        assertEquals(3L, active.orElseThrow().getPaymentId());
+        assertNull(active.get().getPaymentUrl());
+    }
+
+    @Test
+    void cancelCommandCancelsPendingAndCodPayments() {
+        Payment pending = payment(4L, Payment.PaymentStatus.PENDING, PaymentMethod.VNPAY);
+        Payment cod = payment(5L, Payment.PaymentStatus.SUCCESS, PaymentMethod.COD);
+        when(paymentRepository.findByIdForUpdate(4L)).thenReturn(Optional.of(pending));
+        when(paymentRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(cod));
+
+        assertTrue(paymentService.cancelPaymentForOrder(4L, ORDER_ID, "Checkout quá thời gian xử lý"));
+        assertTrue(paymentService.cancelPaymentForOrder(5L, ORDER_ID, "Checkout quá thời gian xử lý"));
+
+        assertEquals(Payment.PaymentStatus.CANCELLED, pending.getStatus());
+        assertEquals(Payment.PaymentStatus.CANCELLED, cod.getStatus());
+    }
+
+    @Test
+    void cancelCommandLeavesPaidVnpayAndOtherOrdersUntouched() {
+        Payment paid = payment(6L, Payment.PaymentStatus.SUCCESS, PaymentMethod.VNPAY);
+        when(paymentRepository.findByIdForUpdate(6L)).thenReturn(Optional.of(paid));
+
+        assertFalse(paymentService.cancelPaymentForOrder(6L, ORDER_ID, "Checkout quá thời gian xử lý"));
+        assertFalse(paymentService.cancelPaymentForOrder(6L, 999L, "Checkout quá thời gian xử lý"));
+
+        assertEquals(Payment.PaymentStatus.SUCCESS, paid.getStatus());
+        verify(paymentRepository, never()).save(any());
+    }
+
+    private static Payment payment(Long id, Payment.PaymentStatus status, String method) {
+        return Payment.builder()
+                .id(id)
+                .orderId(ORDER_ID)
+                .userId(42L)
+                .amount(BigDecimal.TEN)
+                .status(status)
+                .paymentMethod(method)
+                .vnpayTxnRef("ORDER" + id)
+                .build();
+    }
+}
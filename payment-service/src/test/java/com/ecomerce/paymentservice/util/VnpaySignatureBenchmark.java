@@ -0,0 +1,149 @@
+package com.ecomerce.paymentservice.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Microbenchmark verify chữ ký callback VNPay: cách cũ (copy HashMap + TreeMap, Mac.getInstance + init mỗi lần)
+ * so với VnpayUtil.verifySignature (Mac theo thread, không copy params): log throughput khi nhiều thread cùng verify.
+ *
+ * Chạy: mvn test -Dtest=VnpaySignatureBenchmark -Dpayment.benchmark=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "payment.benchmark", matches = "true")
+class VnpaySignatureBenchmark {
+
+    private static final String SECRET = "BENCHMARKSECRETKEY0123456789ABCD";
+    private static final int THREADS = 8;
+    private static final int WARMUP_PER_THREAD = 50_000;
+    private static final int MEASURED_PER_THREAD = 200_000;
+
+    @Test
+    void compareWithLegacyVerification() throws Exception {
+        VnpayUtil vnpayUtil = new VnpayUtil();
+        ReflectionTestUtils.setField(vnpayUtil, "vnp_HashSecret", SECRET);
+        Map<String, String> callback = sampleCallback();
+
+        run("legacy", callback, VnpaySignatureBenchmark::legacyValidate);
+        run("thread-local mac", callback, vnpayUtil::verifySignature);
+    }
+
+    private static Map<String, String> sampleCallback() {
+        Map<String, String> params = new HashMap<>();
+        params.put("vnp_Amount", "15000000");
+        params.put("vnp_BankCode", "NCB");
+        params.put("vnp_BankTranNo", "VNP14422574");
+        params.put("vnp_CardType", "ATM");
+        params.put("vnp_OrderInfo", "Thanh toan don hang ORD-1234567890");
+        params.put("vnp_PayDate", "20240520103015");
+        params.put("vnp_ResponseCode", "00");
+        params.put("vnp_TmnCode", "DEMO0001");
+        params.put("vnp_TransactionNo", "14422574");
+        params.put("vnp_TransactionStatus", "00");
+        params.put("vnp_TxnRef", "1716175800123");
+        params.put("vnp_SecureHash", legacyHash(params));
+        return params;
+    }
+
+    /**
+     * Bản sao logic verify trước khi tối ưu
+     */
+    private static boolean legacyValidate(Map<String, String> callback) {
+        Map<String, String> params = new HashMap<>(callback);
+        String vnp_SecureHash = params.remove("vnp_SecureHash");
+        if (vnp_SecureHash == null || vnp_SecureHash.isEmpty()) {
+            return false;
+        }
+        return legacyHash(params).equals(vnp_SecureHash);
+    }
+
+    private static String legacyHash(Map<String, String> params) {
+        StringBuilder queryString = new StringBuilder();
+        for (Map.Entry<String, String> entry : new TreeMap<>(params).entrySet()) {
+            if (entry.getKey().startsWith("vnp_") && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                queryString.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8));
+                queryString.append("=");
+                queryString.append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+                queryString.append("&");
+            }
+        }
+        if (queryString.length() > 0) {
+            queryString.deleteCharAt(queryString.length() - 1);
+        }
+        try {
+            Mac hmacSHA512 = Mac.getInstance("HmacSHA512");
+            hmacSHA512.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+            byte[] hashBytes = hmacSHA512.doFinal(queryString.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hexString = new StringBuilder();
+            for (byte hashByte : hashBytes) {
+                String hex = Integer.toHexString(0xff & hashByte);
+                if (hex.length() == 1) {
+                    hexString.append('0');
+                }
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void run(String name, Map<String, String> callback, Predicate<Map<String, String>> verifier) throws Exception {
+        execute(callback, verifier, WARMUP_PER_THREAD);
+
+        long startedAt = System.nanoTime();
+        long valid = execute(callback, verifier, MEASURED_PER_THREAD);
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        int total = THREADS * MEASURED_PER_THREAD;
+        assertEquals(total, valid, name + ": chữ ký hợp lệ phải được chấp nhận");
+        log.info("📊 [{}] threads={}, total={}, throughput={} verifications/s, {} ns/op",
+                name, THREADS, total,
+                Math.round(total / (elapsedNanos / 1_000_000_000.0)),
+                String.format("%.1f", (double) elapsedNanos * THREADS / total));
+    }
+
+    private long execute(Map<String, String> callback, Predicate<Map<String, String>> verifier, int perThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Long>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    long valid = 0;
+                    for (int j = 0; j < perThread; j++) {
+                        if (verifier.test(callback)) {
+                            valid++;
+                        }
+                    }
+                    return valid;
+                }));
+            }
+            long valid = 0;
+            for (Future<Long> future : futures) {
+                valid += future.get(5, TimeUnit.MINUTES);
+            }
+            return valid;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
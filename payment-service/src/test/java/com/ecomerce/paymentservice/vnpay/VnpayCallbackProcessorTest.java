@@ -0,0 +1,106 @@
+package com.ecomerce.paymentservice.vnpay;
+
+import com.ecomerce.paymentservice.model.VnpayCallback;
+import com.ecomerce.paymentservice.repository.PaymentRepository;
+import com.ecomerce.paymentservice.repository.VnpayCallbackRepository;
+import com.ecomerce.paymentservice.service.KafkaProducerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Callback lỗi được hẹn lại theo exponential backoff; chỉ FAILED khi vượt ngân sách retry tính theo thời gian
+ */
+class VnpayCallbackProcessorTest {
+
+    private final VnpayCallbackRepository vnpayCallbackRepository = mock(VnpayCallbackRepository.class);
+    private final VnpayCallbackProcessor processor = new VnpayCallbackProcessor(vnpayCallbackRepository,
+            mock(PaymentRepository.class), mock(KafkaProducerService.class), new ObjectMapper(),
+            mock(PlatformTransactionManager.class));
+
+    VnpayCallbackProcessorTest() {
+        ReflectionTestUtils.setField(processor, "batchSize", 50);
+        ReflectionTestUtils.setField(processor, "initialBackoff", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(processor, "maxBackoff", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(processor, "maxRetryDuration", Duration.ofHours(24));
+    }
+
+    @Test
+    void backoffDoublesUpToMax() {
+        assertEquals(Duration.ofSeconds(1), processor.backoff(1));
+        assertEquals(Duration.ofSeconds(2), processor.backoff(2));
+        assertEquals(Duration.ofSeconds(8), processor.backoff(4));
+        assertEquals(Duration.ofMinutes(10), processor.backoff(20));
+        assertEquals(Duration.ofMinutes(10), processor.backoff(500));
+    }
+
+    @Test
+    void failureSchedulesNextAttemptInsteadOfFailing() {
+        VnpayCallback callback = callback(Instant.now().minusSeconds(2), 9);
+        when(vnpayCallbackRepository.findReceivedForUpdate(1L)).thenThrow(new QueryTimeoutException("DB down"));
+        when(vnpayCallbackRepository.findById(1L)).thenReturn(Optional.of(callback));
+
+        Instant before = Instant.now();
+        assertFalse(processor.process(1L));
+
+        assertEquals(10, callback.getAttempts());
+        assertEquals(VnpayCallback.Status.RECEIVED, callback.getStatus());
+        assertFalse(callback.getNextAttemptAt().isBefore(before.plus(Duration.ofSeconds(512))));
+        verify(vnpayCallbackRepository).save(callback);
+    }
+
+    @Test
+    void failurePastRetryBudgetMarksCallbackFailed() {
+        VnpayCallback callback = callback(Instant.now().minus(Duration.ofHours(24)), 150);
+        callback.setNextAttemptAt(Instant.now());
+        when(vnpayCallbackRepository.findReceivedForUpdate(1L)).thenThrow(new QueryTimeoutException("DB down"));
+        when(vnpayCallbackRepository.findById(1L)).thenReturn(Optional.of(callback));
+
+        processor.process(1L);
+
+        assertEquals(VnpayCallback.Status.FAILED, callback.getStatus());
+        assertNull(callback.getNextAttemptAt());
+    }
+
+    @Test
+    void pollOnlyPicksCallbacksDueNow() {
+        when(vnpayCallbackRepository.findIdsByStatus(eq(VnpayCallback.Status.RECEIVED), any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        Instant before = Instant.now();
+        processor.processPending();
+
+        verify(vnpayCallbackRepository).findIdsByStatus(eq(VnpayCallback.Status.RECEIVED),
+                argThat(now -> !now.isBefore(before)), any(Pageable.class));
+    }
+
+    private static VnpayCallback callback(Instant receivedAt, int attempts) {
+        return VnpayCallback.builder()
+                .id(1L)
+                .txnRef("ORDER1")
+                .transactionNo("14000001")
+                .rawData("{}")
+                .status(VnpayCallback.Status.RECEIVED)
+                .attempts(attempts)
+                .receivedAt(receivedAt)
+                .build();
+    }
+}
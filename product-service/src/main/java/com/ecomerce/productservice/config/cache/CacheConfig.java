@@ -1,32 +1,47 @@
 package com.ecomerce.productservice.config.cache;
 
+import com.ecomerce.productservice.dto.response.ProductDetailResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisPassword;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
 
 /**
- * Configuration cho Redis Cache
- * Cache user info từ auth-service với TTL 10 phút
+ * Configuration cho Cache 2 tầng
+ * - L1: Caffeine trong process (bounded size + TTL ngắn)
+ * - L2: Redis (TTL 10 phút, dùng chung giữa các replica)
+ * - Redis pub/sub channel để đồng bộ xóa L1 giữa các replica
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    /** Cache chi tiết product theo ID (Feign từ cart/order gọi rất nhiều) */
+    public static final String PRODUCT_DETAIL_CACHE = "productDetail";
+
+    /** Cache chi tiết product theo slug (trang chi tiết sản phẩm) */
+    public static final String PRODUCT_SLUG_CACHE = "productDetailBySlug";
+
     @Value("${spring.data.redis.host}")
     private String redisHost;
 
@@ -39,6 +54,15 @@ public class CacheConfig {
     @Value("${spring.data.redis.database:1}")
     private int redisDatabase;
 
+    @Value("${cache.local.maximum-size:10000}")
+    private long localMaximumSize;
+
+    @Value("${cache.local.ttl:2m}")
+    private Duration localTtl;
+
+    @Value("${cache.invalidation-channel:product-cache-invalidation}")
+    private String invalidationChannel;
+
     /**
      * Kết nối tới Redis với cấu hình cụ thể (host, port, password, database)
      * Đảm bảo nhất quán với auth-service và kiểm soát tốt hơn
@@ -56,8 +80,11 @@ public class CacheConfig {
         return new LettuceConnectionFactory(config);
     }
 
+    /**
+     * L2 - RedisCacheManager (không dùng trực tiếp, được bọc bởi TwoLevelCacheManager)
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory) {
         // Cấu hình ObjectMapper cho JSON serialization
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -71,9 +98,47 @@ public class CacheConfig {
                         .fromSerializer(new GenericJackson2JsonRedisSerializer(objectMapper)))
                 .disableCachingNullValues(); // Không cache null values
 
+        // Product detail dùng serializer có kiểu cụ thể để deserialize đúng ProductDetailResponse
+        RedisCacheConfiguration productDetailConfig = config
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new Jackson2JsonRedisSerializer<>(objectMapper, ProductDetailResponse.class)));
+
         return RedisCacheManager.builder(redisConnectionFactory)
                 .cacheDefaults(config)
+                .withCacheConfiguration(PRODUCT_DETAIL_CACHE, productDetailConfig)
+                .withCacheConfiguration(PRODUCT_SLUG_CACHE, productDetailConfig)
                 .build();
     }
+
+    /**
+     * CacheManager chính cho @Cacheable: Caffeine (L1) + Redis (L2)
+     */
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(
+            RedisCacheManager redisCacheManager,
+            StringRedisTemplate stringRedisTemplate,
+            MeterRegistry meterRegistry) {
+        return new TwoLevelCacheManager(
+                redisCacheManager,
+                stringRedisTemplate,
+                meterRegistry,
+                invalidationChannel,
+                localMaximumSize,
+                localTtl);
+    }
+
+    /**
+     * Lắng nghe invalidation channel để xóa L1 khi replica khác update/delete product
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory redisConnectionFactory,
+            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(new CacheInvalidationListener(cacheManager), new ChannelTopic(invalidationChannel));
+        return container;
+    }
 }
 
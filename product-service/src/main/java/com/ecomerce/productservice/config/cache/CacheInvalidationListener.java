@@ -0,0 +1,48 @@
+package com.ecomerce.productservice.config.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Nhận invalidation message từ Redis pub/sub và xóa L1 (Caffeine) tương ứng
+ * Giữ L1 của tất cả replica product-service nhất quán sau khi update/delete
+ *
+ * Format message: "{cacheName}|{key}" (key rỗng = clear toàn bộ cache)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CacheInvalidationListener implements MessageListener {
+
+    private static final char SEPARATOR = '|';
+
+    private final TwoLevelCacheManager cacheManager;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separatorIndex = body.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            log.warn("⚠️ Invalidation message không hợp lệ: {}", body);
+            return;
+        }
+
+        String cacheName = body.substring(0, separatorIndex);
+        String key = body.substring(separatorIndex + 1);
+
+        TwoLevelCache cache = cacheManager.getExistingCache(cacheName);
+        if (cache == null) {
+            // Cache chưa từng được dùng trên instance này => không có gì để xóa
+            return;
+        }
+        cache.evictLocal(key.isEmpty() ? null : key);
+        log.debug("🧹 Đã xóa L1 cache '{}' key '{}'", cacheName, key);
+    }
+
+    static String encode(String cacheName, String key) {
+        return cacheName + SEPARATOR + (key != null ? key : "");
+    }
+}
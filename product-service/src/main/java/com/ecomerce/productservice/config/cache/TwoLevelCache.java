@@ -0,0 +1,189 @@
+package com.ecomerce.productservice.config.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Cache 2 tầng:
+ * - L1: Caffeine trong process (bounded, TTL ngắn) - không tốn network hop
+ * - L2: Redis dùng chung giữa các replica
+ *
+ * Khi evict/clear sẽ publish message lên Redis channel để các replica khác
+ * xóa L1 của chúng (xem {@link CacheInvalidationListener}).
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache;
+    private final Cache remoteCache;
+    private final StringRedisTemplate redisTemplate;
+    private final String invalidationChannel;
+
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter localInvalidations;
+    private final Counter remoteInvalidations;
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache,
+                         Cache remoteCache,
+                         StringRedisTemplate redisTemplate,
+                         String invalidationChannel,
+                         MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.redisTemplate = redisTemplate;
+        this.invalidationChannel = invalidationChannel;
+        this.remoteHits = Counter.builder("cache.l2.gets")
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.remoteMisses = Counter.builder("cache.l2.gets")
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.localInvalidations = Counter.builder("cache.invalidations")
+                .tag("cache", name)
+                .tag("source", "local")
+                .register(meterRegistry);
+        this.remoteInvalidations = Counter.builder("cache.invalidations")
+                .tag("cache", name)
+                .tag("source", "pubsub")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = toCacheKey(key);
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null) {
+            return value;
+        }
+
+        Object remoteValue = lookupRemote(cacheKey);
+        if (remoteValue != null) {
+            localCache.put(cacheKey, remoteValue);
+        }
+        return remoteValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Caffeine đảm bảo chỉ 1 thread load cho mỗi key trên instance này (tránh cache stampede)
+        Object value = localCache.get(toCacheKey(key), cacheKey -> {
+            Object remoteValue = lookupRemote(cacheKey);
+            if (remoteValue != null) {
+                return remoteValue;
+            }
+
+            T loaded;
+            try {
+                loaded = valueLoader.call();
+            } catch (Exception ex) {
+                throw new ValueRetrievalException(key, valueLoader, ex);
+            }
+            Object storeValue = toStoreValue(loaded);
+            putRemote(cacheKey, storeValue);
+            return storeValue;
+        });
+        return (T) fromStoreValue(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = toCacheKey(key);
+        Object storeValue = toStoreValue(value);
+        putRemote(cacheKey, storeValue);
+        localCache.put(cacheKey, storeValue);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = toCacheKey(key);
+        remoteCache.evict(cacheKey);
+        localCache.invalidate(cacheKey);
+        localInvalidations.increment();
+        publishInvalidation(cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        localCache.invalidateAll();
+        localInvalidations.increment();
+        publishInvalidation(null);
+    }
+
+    /**
+     * Chỉ xóa L1 (được gọi khi nhận invalidation message từ replica khác)
+     * @param key key cần xóa, null = xóa toàn bộ
+     */
+    public void evictLocal(String key) {
+        if (key == null) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(key);
+        }
+        remoteInvalidations.increment();
+    }
+
+    private Object lookupRemote(Object cacheKey) {
+        try {
+            ValueWrapper wrapper = remoteCache.get(cacheKey);
+            if (wrapper != null && wrapper.get() != null) {
+                remoteHits.increment();
+                return wrapper.get();
+            }
+        } catch (Exception e) {
+            // Redis lỗi không được làm hỏng request - fallback về DB
+            log.warn("⚠️ Không thể đọc L2 cache '{}' key {}: {}", name, cacheKey, e.getMessage());
+        }
+        remoteMisses.increment();
+        return null;
+    }
+
+    private void putRemote(Object cacheKey, Object storeValue) {
+        try {
+            remoteCache.put(cacheKey, storeValue);
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể ghi L2 cache '{}' key {}: {}", name, cacheKey, e.getMessage());
+        }
+    }
+
+    private void publishInvalidation(String cacheKey) {
+        try {
+            redisTemplate.convertAndSend(invalidationChannel,
+                    CacheInvalidationListener.encode(name, cacheKey));
+        } catch (Exception e) {
+            // Replica khác sẽ tự hết hạn L1 theo TTL
+            log.warn("⚠️ Không thể publish invalidation cho cache '{}' key {}: {}", name, cacheKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Chuẩn hóa key về String để L1 khớp với key nhận được qua pub/sub
+     */
+    private String toCacheKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,75 @@
+package com.ecomerce.productservice.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CacheManager tạo {@link TwoLevelCache} cho mỗi cache name:
+ * Caffeine (L1) phía trước RedisCacheManager (L2)
+ * Metrics của L1 (hit/miss/eviction/size) được bind vào MeterRegistry (Prometheus)
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String invalidationChannel;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager,
+                                StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                String invalidationChannel,
+                                long localMaximumSize,
+                                Duration localTtl) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.invalidationChannel = invalidationChannel;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Lấy cache đã khởi tạo (không tạo mới) - dùng khi nhận invalidation message
+     */
+    public TwoLevelCache getExistingCache(String name) {
+        return caches.get(name);
+    }
+
+    private TwoLevelCache createCache(String name) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, name, "level", "l1");
+
+        Cache remoteCache = redisCacheManager.getCache(name);
+        return new TwoLevelCache(name, localCache, remoteCache, redisTemplate, invalidationChannel, meterRegistry);
+    }
+}
@@ -8,8 +8,12 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
+import java.net.URI;
+
 @Configuration
 @ConditionalOnExpression("!'${aws.access-key:}'.isEmpty() && !'${aws.secret-key:}'.isEmpty()")
 public class S3Config {
@@ -22,23 +26,48 @@ public class S3Config {
     private String region;
     @Value("${aws.s3.bucket-name:}")
     private String awsBucketName;
+    // Endpoint S3-compatible (MinIO, LocalStack...) cho môi trường local/test - để trống = AWS S3
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
 
     @Bean
     public S3Client s3Client() {
         AwsBasicCredentials credentials = AwsBasicCredentials.create(accesskey, secretkey);
-        return S3Client.builder()
+        S3ClientBuilder builder = S3Client.builder()
                 .region(Region.of(region))
-                .credentialsProvider(StaticCredentialsProvider.create(credentials))
-                .build();
+                .credentialsProvider(StaticCredentialsProvider.create(credentials));
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint))
+                    .forcePathStyle(true);
+        }
+        return builder.build();
     }
 
     @Bean
     public S3Presigner s3Presigner() {
         AwsBasicCredentials credentials = AwsBasicCredentials.create(accesskey, secretkey);
-        return S3Presigner.builder()
+        S3Presigner.Builder builder = S3Presigner.builder()
                 .region(Region.of(region))
-                .credentialsProvider(StaticCredentialsProvider.create(credentials))
-                .build();
+                .credentialsProvider(StaticCredentialsProvider.create(credentials));
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint))
+                    .serviceConfiguration(S3Configuration.builder()
+                            .pathStyleAccessEnabled(true)
+                            .build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Prefix URL public của object: AWS virtual-hosted style hoặc {endpoint}/{bucket}/ khi dùng S3-compatible
+     */
+    @Bean
+    public String s3ObjectBaseUrl() {
+        if (!endpoint.isBlank()) {
+            String base = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+            return String.format("%s/%s/", base, awsBucketName);
+        }
+        return String.format("https://%s.s3.%s.amazonaws.com/", awsBucketName, region);
     }
 
     @Bean
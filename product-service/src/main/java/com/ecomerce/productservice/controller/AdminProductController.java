@@ -1,9 +1,11 @@
 package com.ecomerce.productservice.controller;
 
+import com.ecomerce.productservice.dto.request.PresignedUploadRequest;
 import com.ecomerce.productservice.dto.request.ProductCreateRequest;
 import com.ecomerce.productservice.dto.request.ProductUpdateRequest;
 import com.ecomerce.productservice.dto.response.ApiResponse;
 import com.ecomerce.productservice.dto.response.PageResponseDto;
+import com.ecomerce.productservice.dto.response.PresignedUploadResponse;
 import com.ecomerce.productservice.dto.response.ProductAdminResponse;
 import com.ecomerce.productservice.dto.response.ProductListResponse;
 import com.ecomerce.productservice.model.Product;
@@ -120,5 +122,15 @@ public class AdminProductController {
         return ResponseEntity.ok(new ApiResponse<>("Upload ảnh thành công", null, 
                 productService.uploadImages(imageFiles, productId)));
     }
-}
 
+    @PostMapping("/presigned-upload")
+    @PreAuthorize("hasAuthority('POST /api/admin/products/presigned-upload')")
+    @Operation(summary = "Tạo presigned URL để upload ảnh trực tiếp lên S3",
+               description = "Client PUT file lên uploadUrl (Content-Type khớp contentType), sau đó dùng fileUrl trong ProductCreateRequest/UpdateRequest")
+    public ResponseEntity<ApiResponse<PresignedUploadResponse>> createPresignedImageUpload(
+            @Valid @RequestBody PresignedUploadRequest request
+    ) {
+        return ResponseEntity.ok(new ApiResponse<>("Tạo presigned URL thành công", null,
+                productService.createPresignedImageUpload(request)));
+    }
+}
@@ -1,6 +1,7 @@
 package com.ecomerce.productservice.controller;
 
 import com.ecomerce.productservice.dto.response.ApiResponse;
+import com.ecomerce.productservice.dto.response.CursorPageResponseDto;
 import com.ecomerce.productservice.dto.response.PageResponseDto;
 import com.ecomerce.productservice.dto.response.ProductDetailResponse;
 import com.ecomerce.productservice.dto.response.ProductSummaryResponse;
@@ -14,9 +15,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Tag(name = "Product", description = "Quản lý sản phẩm")
 @RestController
 @RequestMapping("/api/products")
@@ -88,6 +92,60 @@ public class ProductController {
         return ResponseEntity.ok(new ApiResponse<>("Lấy sản phẩm nổi bật thành công", null, products));
     }
 
+    // ==================== PUBLIC ENDPOINTS (Cursor mode - keyset pagination) ====================
+
+    /**
+     * Lấy danh sách sản phẩm theo cursor (PUBLIC - GET không cần JWT)
+     * Không COUNT(*), latency trang sâu không tăng theo offset
+     * Trang đầu: ?size=20&sort=price,asc - các trang sau: ?cursor={nextCursor}&size=20
+     */
+    @GetMapping("/cursor")
+    @Operation(summary = "Lấy danh sách sản phẩm (cursor mode)",
+               description = "Public endpoint - keyset pagination, không trả về tổng số. Sort hỗ trợ: id, price, createdAt. Ví dụ: ?size=20&sort=price,asc rồi ?cursor={nextCursor}&size=20")
+    public ResponseEntity<ApiResponse<CursorPageResponseDto<ProductSummaryResponse>>> getAllProductsByCursor(
+            @Filter Specification<Product> spec,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @SortDefault(sort = "id", direction = Sort.Direction.DESC) Sort sort
+    ) {
+        CursorPageResponseDto<ProductSummaryResponse> products = productService.getAllProductsByCursor(spec, cursor, sort, size);
+        return ResponseEntity.ok(new ApiResponse<>("Lấy danh sách sản phẩm thành công", null, products));
+    }
+
+    /**
+     * Lấy sản phẩm theo category theo cursor (PUBLIC - GET không cần JWT)
+     * Seek trên index (category_id, active)
+     */
+    @GetMapping("/category/{categoryId}/cursor")
+    @Operation(summary = "Lấy sản phẩm theo danh mục (cursor mode)",
+               description = "Public endpoint - keyset pagination. Ví dụ: ?size=20 rồi ?cursor={nextCursor}&size=20")
+    public ResponseEntity<ApiResponse<CursorPageResponseDto<ProductSummaryResponse>>> getProductsByCategoryByCursor(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @SortDefault(sort = "id", direction = Sort.Direction.DESC) Sort sort
+    ) {
+        CursorPageResponseDto<ProductSummaryResponse> products =
+                productService.getProductsByCategoryByCursor(categoryId, cursor, sort, size);
+        return ResponseEntity.ok(new ApiResponse<>("Lấy sản phẩm theo danh mục thành công", null, products));
+    }
+
+    /**
+     * Lấy featured products theo cursor (PUBLIC - GET không cần JWT)
+     * Seek trên index (active, featured)
+     */
+    @GetMapping("/featured/cursor")
+    @Operation(summary = "Lấy sản phẩm nổi bật (cursor mode)",
+               description = "Public endpoint - keyset pagination. Ví dụ: ?size=20 rồi ?cursor={nextCursor}&size=20")
+    public ResponseEntity<ApiResponse<CursorPageResponseDto<ProductSummaryResponse>>> getFeaturedProductsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @SortDefault(sort = "id", direction = Sort.Direction.DESC) Sort sort
+    ) {
+        CursorPageResponseDto<ProductSummaryResponse> products = productService.getFeaturedProductsByCursor(cursor, sort, size);
+        return ResponseEntity.ok(new ApiResponse<>("Lấy sản phẩm nổi bật thành công", null, products));
+    }
+
     // ==================== PUBLIC ENDPOINTS (Detail - đầy đủ thông tin) ====================
 
     /**
@@ -101,6 +159,19 @@ public class ProductController {
         return ResponseEntity.ok(new ApiResponse<>("Lấy sản phẩm thành công", null, product));
     }
 
+    /**
+     * Lấy nhiều sản phẩm theo danh sách ID (PUBLIC - GET không cần JWT)
+     * Dùng cho cart/order/inventory: 1 request thay vì gọi /{id} cho từng sản phẩm
+     * Ví dụ: ?ids=1,2,3 - chỉ trả về sản phẩm active, ID không hợp lệ sẽ bị bỏ qua
+     */
+    @GetMapping("/batch")
+    @Operation(summary = "Lấy chi tiết nhiều sản phẩm theo danh sách ID",
+               description = "Public endpoint - trả về detail của các sản phẩm active. Ví dụ: ?ids=1,2,3")
+    public ResponseEntity<ApiResponse<List<ProductDetailResponse>>> getProductsByIds(@RequestParam List<Long> ids) {
+        List<ProductDetailResponse> products = productService.getProductsByIds(ids);
+        return ResponseEntity.ok(new ApiResponse<>("Lấy danh sách sản phẩm thành công", null, products));
+    }
+
     /**
      * Lấy sản phẩm theo slug (PUBLIC - GET không cần JWT)
      * Trả về ProductDetailResponse - đầy đủ thông tin (cho trang chi tiết)
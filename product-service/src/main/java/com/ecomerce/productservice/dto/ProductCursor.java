@@ -0,0 +1,93 @@
+package com.ecomerce.productservice.dto;
+
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Cursor cho keyset pagination: sort field + direction + giá trị sort key và ID của phần tử cuối trang trước
+ * Encode thành chuỗi Base64 URL-safe để client xem như opaque token
+ *
+ * @param sortField field sắp xếp (id, price, createdAt)
+ * @param direction chiều sắp xếp
+ * @param lastValue giá trị sort key của phần tử cuối (null = trang đầu tiên)
+ * @param lastId ID của phần tử cuối (null = trang đầu tiên), dùng làm tie-breaker
+ */
+public record ProductCursor(String sortField, Sort.Direction direction, String lastValue, Long lastId) {
+
+    /** Các field được phép sort ở cursor mode (đều NOT NULL và có index chứa id) */
+    public static final Set<String> SORTABLE_FIELDS = Set.of("id", "price", "createdAt");
+
+    private static final String SEPARATOR = "|";
+
+    public ProductCursor {
+        if (!SORTABLE_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Không hỗ trợ sắp xếp theo '" + sortField
+                    + "' ở cursor mode. Chỉ hỗ trợ: " + SORTABLE_FIELDS);
+        }
+    }
+
+    /**
+     * Cursor trang đầu tiên từ Sort của request (chỉ dùng order đầu tiên)
+     */
+    public static ProductCursor first(Sort sort) {
+        Sort.Order order = sort.stream().findFirst()
+                .orElse(Sort.Order.desc("id"));
+        return new ProductCursor(order.getProperty(), order.getDirection(), null, null);
+    }
+
+    /**
+     * Parse cursor từ request; cursor rỗng => trang đầu tiên theo sort của request
+     */
+    public static ProductCursor decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return first(sort);
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+            }
+            return new ProductCursor(parts[0], Sort.Direction.fromString(parts[1]), parts[2], Long.valueOf(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ", e);
+        }
+    }
+
+    /**
+     * Tạo cursor trỏ tới sau phần tử cuối cùng của trang hiện tại
+     */
+    public ProductCursor next(Object lastSortValue, Long lastElementId) {
+        return new ProductCursor(sortField, direction, String.valueOf(lastSortValue), lastElementId);
+    }
+
+    public String encode() {
+        String raw = sortField + SEPARATOR + direction.name() + SEPARATOR + lastValue + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirstPage() {
+        return lastId == null;
+    }
+
+    public boolean isAscending() {
+        return direction.isAscending();
+    }
+
+    /**
+     * Giá trị sort key đã convert đúng kiểu của field
+     */
+    public Comparable<?> typedLastValue() {
+        return switch (sortField) {
+            case "id" -> Long.valueOf(lastValue);
+            case "price" -> new BigDecimal(lastValue);
+            case "createdAt" -> Instant.parse(lastValue);
+            default -> throw new IllegalStateException("Unexpected sort field: " + sortField);
+        };
+    }
+}
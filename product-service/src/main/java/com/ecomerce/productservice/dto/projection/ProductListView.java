@@ -0,0 +1,19 @@
+package com.ecomerce.productservice.dto.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection cho danh sách admin (ProductListResponse)
+ * Category chỉ lấy tên qua LEFT JOIN, không load entity Category
+ */
+public record ProductListView(
+        Long id,
+        String name,
+        BigDecimal price,
+        BigDecimal discountPrice,
+        String thumbnail,
+        String categoryName,
+        Boolean active,
+        Boolean featured
+) {
+}
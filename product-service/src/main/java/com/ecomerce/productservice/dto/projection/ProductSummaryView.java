@@ -0,0 +1,19 @@
+package com.ecomerce.productservice.dto.projection;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Projection cho danh sách public (ProductSummaryResponse)
+ * Chỉ select các cột cần thiết - không load description (TEXT), images, category
+ * createdAt được select thêm để làm sort key cho cursor pagination
+ */
+public record ProductSummaryView(
+        Long id,
+        String name,
+        String thumbnail,
+        BigDecimal price,
+        BigDecimal discountPrice,
+        Instant createdAt
+) {
+}
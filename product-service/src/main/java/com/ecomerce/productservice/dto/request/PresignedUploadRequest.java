@@ -0,0 +1,18 @@
+package com.ecomerce.productservice.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class PresignedUploadRequest {
+    @NotBlank(message = "Tên file không được để trống")
+    private String fileName;
+
+    @NotBlank(message = "Content type không được để trống")
+    @Pattern(regexp = "^image/[a-zA-Z0-9.+-]+$", message = "Chỉ hỗ trợ upload file ảnh")
+    private String contentType;
+
+    // null nếu upload ảnh trước khi tạo product
+    private Long productId;
+}
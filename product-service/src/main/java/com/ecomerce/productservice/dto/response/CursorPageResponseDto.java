@@ -0,0 +1,25 @@
+package com.ecomerce.productservice.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response cho cursor (keyset) pagination
+ * Không có totalElements/totalPages => không cần COUNT(*) query
+ * Client gửi lại nextCursor để lấy trang tiếp theo
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class CursorPageResponseDto<T> {
+
+    private List<T> content;
+
+    private int size;
+    private String nextCursor; // null nếu đã hết dữ liệu
+    private boolean hasNext;
+
+}
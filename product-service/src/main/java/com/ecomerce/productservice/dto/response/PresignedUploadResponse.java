@@ -0,0 +1,25 @@
+package com.ecomerce.productservice.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Presigned PUT URL để browser upload trực tiếp lên S3
+ * - uploadUrl: PUT file lên URL này (header Content-Type phải khớp contentType)
+ * - fileUrl: URL của ảnh sau khi upload xong (dùng trong ProductCreateRequest/UpdateRequest)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadResponse {
+    private String uploadUrl;
+    private String fileUrl;
+    private String key;
+    private String contentType;
+    private Instant expiresAt;
+}
@@ -1,8 +1,10 @@
 package com.ecomerce.productservice.dto.response;
 
 import com.ecomerce.productservice.dto.CategoryInfo;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -14,6 +16,8 @@ import java.util.List;
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ProductDetailResponse {
     private Long id;
     private String name;
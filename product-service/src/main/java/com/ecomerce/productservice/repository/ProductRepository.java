@@ -1,8 +1,14 @@
 package com.ecomerce.productservice.repository;
 
+import com.ecomerce.productservice.dto.ProductCursor;
+import com.ecomerce.productservice.dto.projection.ProductSummaryView;
 import com.ecomerce.productservice.model.Product;
+import com.ecomerce.productservice.search.ProductSearchDocument;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -10,12 +16,15 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends
         JpaRepository<Product, Long>,
-        JpaSpecificationExecutor<Product> {
+        JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
 
     /**
      * Tìm product theo ID với JOIN FETCH category để tránh N+1
@@ -30,18 +39,16 @@ public interface ProductRepository extends
     Optional<Product> findBySlugWithCategory(@Param("slug") String slug);
 
     /**
-     * Tìm tất cả products đang active (không có JOIN FETCH - dùng cho pagination)
+     * Lấy nhiều products theo danh sách ID trong 1 query (batch lookup cho cart/order/inventory)
+     * JOIN FETCH category + images để không phát sinh thêm query khi map sang ProductDetailResponse
      */
-    Page<Product> findByCategoryIdAndActiveTrue(Long categoryId, Pageable pageable);
-    
-    /**
-    /**
-     * Tìm products featured (không có JOIN FETCH - dùng cho pagination)
-     */
-    Page<Product> findByFeaturedTrueAndActiveTrue(Pageable pageable);
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.images " +
+           "WHERE p.id IN :ids AND p.active = true")
+    List<Product> findActiveByIdInWithCategory(@Param("ids") Collection<Long> ids);
 
     /**
      * Tìm kiếm products theo tên (case-insensitive) với JOIN FETCH category
+     * Chỉ dùng làm fallback khi search index chưa sẵn sàng (xem ProductSearchIndex)
      */
     @Query(value = "SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.category WHERE " +
            "LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
@@ -51,6 +58,23 @@ public interface ProductRepository extends
                    "AND p.active = true")
     Page<Product> searchByName(@Param("keyword") String keyword, Pageable pageable);
 
+    /**
+     * Load dữ liệu cho search index theo batch (keyset theo ID, chỉ products active)
+     * Chỉ lấy id/name/description - không load images, category
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description FROM Product p " +
+           "WHERE p.active = true AND p.id > :lastId ORDER BY p.id ASC")
+    List<ProductSearchDocument> findActiveSearchDocumentsAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * Hydrate 1 trang kết quả search (theo danh sách ID từ search index)
+     * Constructor projection - không load description/images
+     */
+    @Query("SELECT new com.ecomerce.productservice.dto.projection.ProductSummaryView(" +
+           "p.id, p.name, p.thumbnail, p.price, p.discountPrice, p.createdAt) " +
+           "FROM Product p WHERE p.id IN :ids AND p.active = true")
+    List<ProductSummaryView> findActiveSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Kiểm tra slug đã tồn tại chưa (loại trừ product hiện tại khi update)
      */
@@ -92,5 +116,77 @@ public interface ProductRepository extends
         return findAll(combined, pageable);
     }
 
-}
+    /**
+     * Giống findActiveWithFilter nhưng trả về projection cho listing public
+     * (không hydrate entity Product, không load description/images)
+     */
+    default Page<ProductSummaryView> findActiveSummaries(
+            Specification<Product> filterSpec,
+            Pageable pageable
+    ) {
+        Specification<Product> activeSpec = (root, query, cb) ->
+                cb.equal(root.get("active"), true);
 
+        Specification<Product> combined = activeSpec;
+        if (filterSpec != null) {
+            combined = activeSpec.and(filterSpec);
+        }
+
+        return findSummaryViews(combined, pageable);
+    }
+
+    // ==================== KEYSET (CURSOR) PAGINATION ====================
+
+    /**
+     * Lấy products active theo cursor (keyset pagination) - không có COUNT query
+     * Seek predicate: (sortKey, id) > (lastValue, lastId) theo chiều sort
+     * => MySQL range scan trên index (category_id, active) / (active, featured) / (price) + PK,
+     * latency không tăng theo độ sâu của trang như OFFSET
+     *
+     * @param filterSpec điều kiện filter thêm (category, featured, @Filter...) - có thể null
+     * @param cursor cursor của trang cần lấy
+     * @param limit số phần tử tối đa (thường là size + 1 để biết còn trang sau)
+     */
+    default List<ProductSummaryView> findActiveByCursor(
+            Specification<Product> filterSpec,
+            ProductCursor cursor,
+            int limit
+    ) {
+        Specification<Product> combined = (root, query, cb) ->
+                cb.equal(root.get("active"), true);
+        if (filterSpec != null) {
+            combined = combined.and(filterSpec);
+        }
+        if (!cursor.isFirstPage()) {
+            combined = combined.and(seekAfter(cursor));
+        }
+
+        Sort sort = Sort.by(cursor.direction(), cursor.sortField());
+        if (!"id".equals(cursor.sortField())) {
+            // ID làm tie-breaker để thứ tự ổn định khi sort key trùng nhau
+            sort = sort.and(Sort.by(cursor.direction(), "id"));
+        }
+        return findSummaryViews(combined, sort, limit);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Specification<Product> seekAfter(ProductCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Long> idPath = root.get("id");
+            Predicate idAfter = cursor.isAscending()
+                    ? cb.greaterThan(idPath, cursor.lastId())
+                    : cb.lessThan(idPath, cursor.lastId());
+            if ("id".equals(cursor.sortField())) {
+                return idAfter;
+            }
+
+            Path<Comparable> keyPath = root.get(cursor.sortField());
+            Comparable lastValue = cursor.typedLastValue();
+            Predicate keyAfter = cursor.isAscending()
+                    ? cb.greaterThan(keyPath, lastValue)
+                    : cb.lessThan(keyPath, lastValue);
+            return cb.or(keyAfter, cb.and(cb.equal(keyPath, lastValue), idAfter));
+        };
+    }
+
+}
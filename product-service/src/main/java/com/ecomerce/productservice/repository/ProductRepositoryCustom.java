@@ -0,0 +1,33 @@
+package com.ecomerce.productservice.repository;
+
+import com.ecomerce.productservice.dto.projection.ProductListView;
+import com.ecomerce.productservice.dto.projection.ProductSummaryView;
+import com.ecomerce.productservice.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Các query listing trả về projection (constructor expression) thay vì entity
+ * Vẫn hỗ trợ Specification từ @Filter, nhưng không tạo managed entity nào trong persistence context
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Listing public có phân trang (offset) - select id, name, thumbnail, price, discountPrice
+     */
+    Page<ProductSummaryView> findSummaryViews(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Listing public không COUNT (dùng cho cursor pagination)
+     */
+    List<ProductSummaryView> findSummaryViews(Specification<Product> spec, Sort sort, int limit);
+
+    /**
+     * Listing admin có phân trang - select thêm category name, active, featured
+     */
+    Page<ProductListView> findListViews(Specification<Product> spec, Pageable pageable);
+}
@@ -0,0 +1,124 @@
+package com.ecomerce.productservice.repository;
+
+import com.ecomerce.productservice.dto.projection.ProductListView;
+import com.ecomerce.productservice.dto.projection.ProductSummaryView;
+import com.ecomerce.productservice.model.Category;
+import com.ecomerce.productservice.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+/**
+ * Implementation của {@link ProductRepositoryCustom} bằng Criteria API
+ * Dùng cb.construct(...) => Hibernate chỉ select đúng các cột cần và trả về record (không phải entity)
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductSummaryView> findSummaryViews(Specification<Product> spec, Pageable pageable) {
+        TypedQuery<ProductSummaryView> query = createSummaryQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<ProductSummaryView> content = query.getResultList();
+        // Bỏ qua COUNT nếu trang đầu chưa đầy / đang ở trang cuối
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<ProductSummaryView> findSummaryViews(Specification<Product> spec, Sort sort, int limit) {
+        return createSummaryQuery(spec, sort)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Page<ProductListView> findListViews(Specification<Product> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductListView> cq = cb.createQuery(ProductListView.class);
+        Root<Product> root = cq.from(Product.class);
+        Join<Product, Category> category = root.join("category", JoinType.LEFT);
+
+        cq.select(cb.construct(ProductListView.class,
+                root.get("id"),
+                root.get("name"),
+                root.get("price"),
+                root.get("discountPrice"),
+                root.get("thumbnail"),
+                category.get("name"),
+                root.get("active"),
+                root.get("featured")));
+        applySpecification(spec, root, cq, cb);
+        applySort(pageable.getSort(), root, cq, cb);
+
+        TypedQuery<ProductListView> query = entityManager.createQuery(cq);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<ProductListView> content = query.getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    private TypedQuery<ProductSummaryView> createSummaryQuery(Specification<Product> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummaryView> cq = cb.createQuery(ProductSummaryView.class);
+        Root<Product> root = cq.from(Product.class);
+
+        cq.select(cb.construct(ProductSummaryView.class,
+                root.get("id"),
+                root.get("name"),
+                root.get("thumbnail"),
+                root.get("price"),
+                root.get("discountPrice"),
+                root.get("createdAt")));
+        applySpecification(spec, root, cq, cb);
+        applySort(sort, root, cq, cb);
+
+        return entityManager.createQuery(cq);
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Product> root = cq.from(Product.class);
+        applySpecification(spec, root, cq, cb);
+        cq.select(cq.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+
+    private void applySpecification(Specification<Product> spec, Root<Product> root,
+                                    CriteriaQuery<?> cq, CriteriaBuilder cb) {
+        if (spec == null) {
+            return;
+        }
+        Predicate predicate = spec.toPredicate(root, cq, cb);
+        if (predicate != null) {
+            cq.where(predicate);
+        }
+    }
+
+    private void applySort(Sort sort, Root<Product> root, CriteriaQuery<?> cq, CriteriaBuilder cb) {
+        if (sort != null && sort.isSorted()) {
+            cq.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+    }
+}
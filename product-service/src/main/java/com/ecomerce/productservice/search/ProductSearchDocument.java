@@ -0,0 +1,10 @@
+package com.ecomerce.productservice.search;
+
+/**
+ * Projection chỉ lấy các field cần index (không load images, category)
+ */
+public interface ProductSearchDocument {
+    Long getId();
+    String getName();
+    String getDescription();
+}
@@ -0,0 +1,287 @@
+package com.ecomerce.productservice.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Inverted index trong memory cho product search (chỉ chứa products active)
+ * - Token được bỏ dấu bằng {@link SearchTextNormalizer}
+ * - Xếp hạng theo BM25, token trong tên được nhân trọng số cao hơn description
+ * - Mọi token của keyword phải khớp trọn 1 term trong tên hoặc description (AND), token cuối cùng được match
+ *   theo prefix (search-as-you-type). Khác fallback LIKE '%keyword%' trên tên: không match chuỗi con giữa từ
+ *
+ * Đọc nhiều - ghi ít (chỉ khi admin tạo/sửa/xóa product) => dùng ReadWriteLock
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Token xuất hiện trong tên quan trọng hơn trong description
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /** term -> (productId -> weighted term frequency) - TreeMap để hỗ trợ prefix lookup */
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    /** productId -> thông tin document (độ dài + danh sách term để remove) */
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long totalLength;
+    private volatile boolean ready;
+
+    /**
+     * Thay đổi nhận được trong lúc rebuild đang đọc snapshot từ DB (productId -> nội dung mới, null = đã xóa)
+     * null khi không rebuild; chỉ đọc/ghi khi giữ write lock
+     */
+    private Map<Long, PendingDocument> pendingChanges;
+
+    private final Object rebuildMonitor = new Object();
+
+    /**
+     * Kết quả search: danh sách ID của trang hiện tại (đã xếp hạng) + tổng số kết quả
+     */
+    public record SearchResult(List<Long> productIds, long totalElements) {
+    }
+
+    private record IndexedDocument(int length, Set<String> terms) {
+    }
+
+    private record PendingDocument(String name, String description) {
+    }
+
+    /**
+     * Index đã được build xong lúc startup chưa
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Build lại toàn bộ index (dùng lúc startup)
+     * Snapshot được đọc ngoài lock; index()/remove() gọi trong lúc đọc vẫn áp dụng ngay và được ghi lại,
+     * sau khi thay index bằng snapshot sẽ áp dụng lại => snapshot cũ không xóa mất thay đổi mới hơn
+     * @param loader đọc toàn bộ products active từ DB
+     */
+    public void rebuild(Supplier<? extends Collection<ProductSearchDocument>> loader) {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = new LinkedHashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Collection<ProductSearchDocument> products;
+            try {
+                products = loader.get();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingChanges = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                postings.clear();
+                documents.clear();
+                totalLength = 0;
+                for (ProductSearchDocument product : products) {
+                    addDocument(product.getId(), product.getName(), product.getDescription());
+                }
+                replayed = pendingChanges.size();
+                for (Map.Entry<Long, PendingDocument> change : pendingChanges.entrySet()) {
+                    removeDocument(change.getKey());
+                    if (change.getValue() != null) {
+                        addDocument(change.getKey(), change.getValue().name(), change.getValue().description());
+                    }
+                }
+                pendingChanges = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("🔎 Đã build search index: {} sản phẩm, áp dụng lại {} thay đổi trong lúc build", products.size(), replayed);
+        }
+    }
+
+    /**
+     * Thêm hoặc cập nhật 1 product trong index
+     */
+    public void index(Long productId, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.put(productId, new PendingDocument(name, description));
+            }
+            removeDocument(productId);
+            addDocument(productId, name, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Xóa product khỏi index (product bị xóa hoặc không còn active)
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.put(productId, null);
+            }
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm kiếm và phân trang theo độ liên quan (BM25)
+     * @param keyword từ khóa (có dấu hoặc không dấu đều được)
+     * @param page số trang (0-indexed)
+     * @param size số phần tử mỗi trang
+     */
+    public SearchResult search(String keyword, int page, int size) {
+        List<String> queryTokens = new ArrayList<>(new LinkedHashSet<>(SearchTextNormalizer.tokenize(keyword)));
+        if (queryTokens.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        List<Map.Entry<Long, Double>> ranked;
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return new SearchResult(List.of(), 0);
+            }
+
+            Map<Long, Double> scores = null;
+            for (int i = 0; i < queryTokens.size(); i++) {
+                boolean prefix = i == queryTokens.size() - 1;
+                Map<Long, Double> tokenScores = scoreToken(queryTokens.get(i), prefix);
+
+                // Mọi token trong keyword đều phải match (AND)
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return new SearchResult(List.of(), 0);
+                }
+            }
+            ranked = new ArrayList<>(scores.entrySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Score cao trước, cùng score thì product mới hơn (ID lớn hơn) trước
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+
+        int from = (int) Math.min((long) page * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (Map.Entry<Long, Double> entry : ranked.subList(from, to)) {
+            pageIds.add(entry.getKey());
+        }
+        return new SearchResult(pageIds, ranked.size());
+    }
+
+    // ==================== INTERNAL (gọi khi đã giữ lock) ====================
+
+    /**
+     * Tính BM25 score cho 1 token của query
+     * Token prefix được mở rộng thành mọi term cùng prefix (không cắt bớt => totalElements đúng), mỗi document lấy score cao nhất
+     */
+    private Map<Long, Double> scoreToken(String token, boolean prefix) {
+        Map<Long, Double> result = new HashMap<>();
+        Collection<Map.Entry<String, Map<Long, Integer>>> matchedTerms;
+        if (prefix) {
+            matchedTerms = postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet();
+        } else {
+            Map<Long, Integer> exact = postings.get(token);
+            matchedTerms = exact != null ? List.of(Map.entry(token, exact)) : List.of();
+        }
+
+        double avgLength = (double) totalLength / documents.size();
+        for (Map.Entry<String, Map<Long, Integer>> term : matchedTerms) {
+            Map<Long, Integer> termPostings = term.getValue();
+            double idf = Math.log(1 + (documents.size() - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+            for (Map.Entry<Long, Integer> posting : termPostings.entrySet()) {
+                int tf = posting.getValue();
+                int length = documents.get(posting.getKey()).length();
+                double score = idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / avgLength));
+                result.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return result;
+    }
+
+    private void addDocument(Long productId, String name, String description) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        int length = 0;
+        for (String token : SearchTextNormalizer.tokenize(name)) {
+            termFrequencies.merge(token, NAME_WEIGHT, Integer::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String token : SearchTextNormalizer.tokenize(description)) {
+            termFrequencies.merge(token, DESCRIPTION_WEIGHT, Integer::sum);
+            length += DESCRIPTION_WEIGHT;
+        }
+        if (termFrequencies.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                    .put(productId, entry.getValue());
+        }
+        documents.put(productId, new IndexedDocument(length, termFrequencies.keySet()));
+        totalLength += length;
+    }
+
+    private void removeDocument(Long productId) {
+        IndexedDocument existing = documents.remove(productId);
+        if (existing == null) {
+            return;
+        }
+        for (String term : existing.terms()) {
+            Map<Long, Integer> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= existing.length();
+    }
+}
@@ -0,0 +1,120 @@
+package com.ecomerce.productservice.search;
+
+import com.ecomerce.productservice.model.Product;
+import com.ecomerce.productservice.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Đồng bộ {@link ProductSearchIndex} với database:
+ * - Build toàn bộ index khi application sẵn sàng (load theo batch, chỉ id/name/description)
+ * - Cập nhật incremental khi product được tạo/sửa/xóa trên instance này
+ * - Publish productId lên Redis channel để các replica khác reload product đó
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndexer implements MessageListener {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final char SEPARATOR = '|';
+
+    // Bỏ qua message do chính instance này publish (đã cập nhật local rồi)
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductRepository productRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${search.index-channel:product-search-index}")
+    private String indexChannel;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(indexChannel));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        try {
+            // Thay đổi product trong lúc đọc snapshot được index ghi lại và áp dụng sau khi build
+            productSearchIndex.rebuild(this::loadActiveDocuments);
+        } catch (Exception e) {
+            // Search sẽ fallback về database cho tới khi index sẵn sàng
+            log.error("❌ Không thể build search index: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<ProductSearchDocument> loadActiveDocuments() {
+        List<ProductSearchDocument> documents = new ArrayList<>();
+        Long lastId = 0L;
+        List<ProductSearchDocument> batch;
+        do {
+            // Keyset pagination theo ID - không bị chậm dần như offset
+            batch = productRepository.findActiveSearchDocumentsAfter(lastId, PageRequest.ofSize(REBUILD_BATCH_SIZE));
+            documents.addAll(batch);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        return documents;
+    }
+
+    /**
+     * Cập nhật index sau khi product thay đổi (gọi sau khi transaction commit)
+     */
+    public void onProductChanged(Long productId, String name, String description, boolean active) {
+        if (active) {
+            productSearchIndex.index(productId, name, description);
+        } else {
+            productSearchIndex.remove(productId);
+        }
+
+        try {
+            stringRedisTemplate.convertAndSend(indexChannel, instanceId + SEPARATOR + productId);
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể publish search index update cho product {}: {}", productId, e.getMessage());
+        }
+    }
+
+    /**
+     * Nhận thông báo product thay đổi từ replica khác => reload từ DB và index lại
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separatorIndex = body.indexOf(SEPARATOR);
+        if (separatorIndex < 0 || body.substring(0, separatorIndex).equals(instanceId)) {
+            return;
+        }
+
+        try {
+            Long productId = Long.valueOf(body.substring(separatorIndex + 1));
+            Product product = productRepository.findById(productId).orElse(null);
+            if (product == null || !product.isActive()) {
+                productSearchIndex.remove(productId);
+            } else {
+                productSearchIndex.index(product.getId(), product.getName(), product.getDescription());
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể cập nhật search index từ message '{}': {}", body, e.getMessage());
+        }
+    }
+}
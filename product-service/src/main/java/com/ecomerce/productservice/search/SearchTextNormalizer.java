@@ -0,0 +1,52 @@
+package com.ecomerce.productservice.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa text cho search index (Vietnamese friendly)
+ * Dùng cùng cách NFD normalization như generateSlug:
+ * "Điện Thoại Thông Minh" -> ["dien", "thoai", "thong", "minh"]
+ */
+public final class SearchTextNormalizer {
+
+    private static final Pattern NONLATIN = Pattern.compile("[^\\p{ASCII}]");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^a-z0-9]+");
+
+    private SearchTextNormalizer() {
+    }
+
+    /**
+     * Bỏ dấu tiếng Việt + chuyển về chữ thường
+     * Ví dụ: "Thiết Bị Điện Tử" -> "thiet bi dien tu"
+     */
+    public static String fold(String input) {
+        if (input == null || input.isEmpty()) {
+            return "";
+        }
+        // "Đ"/"đ" không tách được bằng NFD => thay trước khi loại bỏ ký tự non-ASCII
+        String replaced = input.replace('Đ', 'D').replace('đ', 'd');
+        String normalized = Normalizer.normalize(replaced, Normalizer.Form.NFD);
+        return NONLATIN.matcher(normalized).replaceAll("").toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Tách text thành danh sách token đã chuẩn hóa (giữ thứ tự, có thể trùng)
+     */
+    public static List<String> tokenize(String input) {
+        List<String> tokens = new ArrayList<>();
+        String folded = fold(input);
+        if (folded.isEmpty()) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
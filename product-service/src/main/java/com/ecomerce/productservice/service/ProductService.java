@@ -1,17 +1,22 @@
 package com.ecomerce.productservice.service;
 
+import com.ecomerce.productservice.dto.request.PresignedUploadRequest;
 import com.ecomerce.productservice.dto.request.ProductCreateRequest;
 import com.ecomerce.productservice.dto.request.ProductUpdateRequest;
+import com.ecomerce.productservice.dto.response.CursorPageResponseDto;
 import com.ecomerce.productservice.dto.response.PageResponseDto;
+import com.ecomerce.productservice.dto.response.PresignedUploadResponse;
 import com.ecomerce.productservice.dto.response.ProductAdminResponse;
 import com.ecomerce.productservice.dto.response.ProductDetailResponse;
 import com.ecomerce.productservice.dto.response.ProductListResponse;
 import com.ecomerce.productservice.dto.response.ProductSummaryResponse;
 import com.ecomerce.productservice.model.Product;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
 import java.util.Map;
 
 public interface ProductService {
@@ -39,6 +44,27 @@ public interface ProductService {
      */
     PageResponseDto<ProductSummaryResponse> getFeaturedProducts(Pageable pageable);
     
+    // ==================== PUBLIC ENDPOINTS (Cursor / Keyset pagination) ====================
+
+    /**
+     * Lấy danh sách products theo cursor (không COUNT, latency không phụ thuộc độ sâu trang)
+     * @param cursor cursor từ response trước (null/rỗng = trang đầu tiên)
+     * @param sort sort của trang đầu tiên (id, price, createdAt) - các trang sau dùng sort trong cursor
+     */
+    CursorPageResponseDto<ProductSummaryResponse> getAllProductsByCursor(
+            Specification<Product> spec, String cursor, Sort sort, int size);
+
+    /**
+     * Lấy products theo category theo cursor
+     */
+    CursorPageResponseDto<ProductSummaryResponse> getProductsByCategoryByCursor(
+            Long categoryId, String cursor, Sort sort, int size);
+
+    /**
+     * Lấy featured products theo cursor
+     */
+    CursorPageResponseDto<ProductSummaryResponse> getFeaturedProductsByCursor(String cursor, Sort sort, int size);
+
     // ==================== PUBLIC ENDPOINTS (Detail) ====================
     
     /**
@@ -50,6 +76,12 @@ public interface ProductService {
      * Lấy product theo slug (chi tiết đầy đủ)
      */
     ProductDetailResponse getProductBySlug(String slug);
+
+    /**
+     * Lấy nhiều products theo danh sách ID (chi tiết đầy đủ) - dùng cho internal call từ cart/order/inventory
+     * Chỉ trả về products active, giữ thứ tự theo ids; ID không tồn tại/không active sẽ bị bỏ qua
+     */
+    List<ProductDetailResponse> getProductsByIds(List<Long> ids);
     
     // ==================== ADMIN ENDPOINTS (Admin Response) ====================
     
@@ -118,5 +150,11 @@ public interface ProductService {
      * @return Danh sách URL của các ảnh đã upload lên S3
      */
     java.util.List<String> uploadImages(MultipartFile[] imageFiles, Long productId);
-}
 
+    /**
+     * Tạo presigned PUT URL để browser upload ảnh trực tiếp lên S3 (không đi qua service)
+     * @param request tên file gốc (lấy extension), content type và productId (có thể null)
+     * @return uploadUrl để PUT file + fileUrl dùng trong ProductCreateRequest/UpdateRequest
+     */
+    PresignedUploadResponse createPresignedImageUpload(PresignedUploadRequest request);
+}
@@ -1,12 +1,26 @@
 package com.ecomerce.productservice.service;
 
 
+import com.ecomerce.productservice.dto.response.PresignedUploadResponse;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 
 public interface S3Service {
     String uploadFile(MultipartFile file, String folder, String fileName, boolean getUrl);
 
+    /**
+     * Upload nhiều file song song (bounded executor), giữ thứ tự kết quả theo danh sách file
+     * Nếu 1 file lỗi, các file đã upload thành công sẽ bị xóa để không để lại rác trên S3
+     */
+    List<String> uploadFiles(List<MultipartFile> files, String folder, List<String> fileNames, boolean getUrl);
+
+    /**
+     * Tạo presigned PUT URL để client upload trực tiếp lên S3 (service không đọc bytes của file)
+     */
+    PresignedUploadResponse generatePresignedUploadUrl(String folder, String fileName, String contentType);
+
 //    String uploadFile(MultipartFile file, String key, boolean getUrl);
 //
 //    String generatePresignedUrl(String key, Duration expireDuration);
@@ -2,6 +2,7 @@ package com.ecomerce.productservice.service.impl;
 
 import com.ecomerce.productservice.advice.exeption.ResourceAlreadyExistsException;
 import com.ecomerce.productservice.advice.exeption.ResourceNotFoundException;
+import com.ecomerce.productservice.config.cache.CacheConfig;
 import com.ecomerce.productservice.dto.CategoryInfo;
 import com.ecomerce.productservice.dto.response.CategoryAdminResponse;
 import com.ecomerce.productservice.dto.response.PageResponseDto;
@@ -10,6 +11,7 @@ import com.ecomerce.productservice.repository.CategoryRepository;
 import com.ecomerce.productservice.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -122,6 +124,8 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     @Transactional
+    // Product detail cache có nhúng CategoryInfo => xóa toàn bộ khi category thay đổi
+    @CacheEvict(cacheNames = {CacheConfig.PRODUCT_DETAIL_CACHE, CacheConfig.PRODUCT_SLUG_CACHE}, allEntries = true)
     public CategoryAdminResponse updateCategory(Long id, String name, String description) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy danh mục với ID: " + id));
@@ -146,6 +150,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.PRODUCT_DETAIL_CACHE, CacheConfig.PRODUCT_SLUG_CACHE}, allEntries = true)
     public void deleteCategory(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy danh mục với ID: " + id));
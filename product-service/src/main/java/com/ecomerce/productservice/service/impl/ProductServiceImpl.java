@@ -2,10 +2,17 @@ package com.ecomerce.productservice.service.impl;
 
 import com.ecomerce.productservice.advice.exeption.ResourceAlreadyExistsException;
 import com.ecomerce.productservice.advice.exeption.ResourceNotFoundException;
+import com.ecomerce.productservice.config.cache.CacheConfig;
 import com.ecomerce.productservice.dto.CategoryInfo;
+import com.ecomerce.productservice.dto.ProductCursor;
+import com.ecomerce.productservice.dto.projection.ProductListView;
+import com.ecomerce.productservice.dto.projection.ProductSummaryView;
+import com.ecomerce.productservice.dto.request.PresignedUploadRequest;
 import com.ecomerce.productservice.dto.request.ProductCreateRequest;
 import com.ecomerce.productservice.dto.request.ProductUpdateRequest;
+import com.ecomerce.productservice.dto.response.CursorPageResponseDto;
 import com.ecomerce.productservice.dto.response.PageResponseDto;
+import com.ecomerce.productservice.dto.response.PresignedUploadResponse;
 import com.ecomerce.productservice.dto.response.ProductAdminResponse;
 import com.ecomerce.productservice.dto.response.ProductDetailResponse;
 import com.ecomerce.productservice.dto.response.ProductListResponse;
@@ -14,22 +21,37 @@ import com.ecomerce.productservice.model.Category;
 import com.ecomerce.productservice.model.Product;
 import com.ecomerce.productservice.repository.CategoryRepository;
 import com.ecomerce.productservice.repository.ProductRepository;
+import com.ecomerce.productservice.search.ProductSearchIndex;
+import com.ecomerce.productservice.search.ProductSearchIndexer;
 import com.ecomerce.productservice.service.ProductService;
 import com.ecomerce.productservice.service.S3Service;
 import org.springframework.web.multipart.MultipartFile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.regex.Pattern;
 
 @Slf4j
@@ -40,27 +62,58 @@ public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final S3Service s3Service;
+    private final CacheManager cacheManager;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSearchIndexer productSearchIndexer;
     
     private static final Pattern NONLATIN = Pattern.compile("[^\\p{ASCII}]");
     private static final Pattern WHITESPACE = Pattern.compile("[\\s]");
     private static final Pattern DUPLICATE_DASHES = Pattern.compile("-+");
 
+    // Giống spring.data.web.pageable.max-page-size
+    private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+
+    // Giới hạn số ID cho batch lookup (tránh IN list quá dài / URL quá dài)
+    private static final int MAX_BATCH_SIZE = 200;
+
     // ==================== PUBLIC ENDPOINTS (Summary) ====================
 
     @Override
     @Transactional(readOnly = true)
     public PageResponseDto<ProductSummaryResponse> getAllProducts(Specification<Product> spec, Pageable pageable) {
-        // Logic filtering nằm ở Repository layer (findActiveWithFilter)
+        // Logic filtering nằm ở Repository layer (findActiveSummaries)
         // Tự động combine với active=true để chỉ lấy products đang hoạt động
-        Page<Product> products = productRepository.findActiveWithFilter(spec, pageable);
-        return convertToSummaryPageResponse(products);
+        // Projection - chỉ select các cột cần cho summary, không tạo managed entity
+        Page<ProductSummaryView> products = productRepository.findActiveSummaries(spec, pageable);
+        return convertToSummaryPageResponse(products.map(this::convertToSummaryResponse));
     }
 
     @Override
     @Transactional(readOnly = true)
     public PageResponseDto<ProductSummaryResponse> searchProducts(String keyword, Pageable pageable) {
-        Page<Product> products = productRepository.searchByName(keyword, pageable);
-        return convertToSummaryPageResponse(products);
+        if (!productSearchIndex.isReady()) {
+            // Index chưa build xong (vừa khởi động) => fallback query LIKE
+            Page<Product> products = productRepository.searchByName(keyword, pageable);
+            return convertToSummaryPageResponse(products.map(this::convertToSummaryResponse));
+        }
+
+        // Xếp hạng + phân trang hoàn toàn trong memory, DB chỉ hydrate đúng 1 trang
+        ProductSearchIndex.SearchResult result = productSearchIndex.search(
+                keyword, pageable.getPageNumber(), pageable.getPageSize());
+
+        List<ProductSummaryResponse> hydrated = List.of();
+        if (!result.productIds().isEmpty()) {
+            Map<Long, ProductSummaryResponse> productById = productRepository
+                    .findActiveSummariesByIdIn(result.productIds()).stream()
+                    .map(this::convertToSummaryResponse)
+                    .collect(Collectors.toMap(ProductSummaryResponse::getId, Function.identity()));
+            // Giữ nguyên thứ tự theo độ liên quan
+            hydrated = result.productIds().stream()
+                    .map(productById::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
+        return convertToSummaryPageResponse(new PageImpl<>(hydrated, pageable, result.totalElements()));
     }
 
     @Override
@@ -70,21 +123,91 @@ public class ProductServiceImpl implements ProductService {
         categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy danh mục với ID: " + categoryId));
         
-        Page<Product> products = productRepository.findByCategoryIdAndActiveTrue(categoryId, pageable);
-        return convertToSummaryPageResponse(products);
+        Page<ProductSummaryView> products = productRepository.findActiveSummaries(categorySpec(categoryId), pageable);
+        return convertToSummaryPageResponse(products.map(this::convertToSummaryResponse));
     }
 
     @Override
     @Transactional(readOnly = true)
     public PageResponseDto<ProductSummaryResponse> getFeaturedProducts(Pageable pageable) {
-        Page<Product> products = productRepository.findByFeaturedTrueAndActiveTrue(pageable);
-        return convertToSummaryPageResponse(products);
+        Page<ProductSummaryView> products = productRepository.findActiveSummaries(featuredSpec(), pageable);
+        return convertToSummaryPageResponse(products.map(this::convertToSummaryResponse));
+    }
+
+    // ==================== PUBLIC ENDPOINTS (Cursor / Keyset pagination) ====================
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponseDto<ProductSummaryResponse> getAllProductsByCursor(
+            Specification<Product> spec, String cursor, Sort sort, int size) {
+        return findSummaryPageByCursor(spec, ProductCursor.decode(cursor, sort), size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponseDto<ProductSummaryResponse> getProductsByCategoryByCursor(
+            Long categoryId, String cursor, Sort sort, int size) {
+        ProductCursor productCursor = ProductCursor.decode(cursor, sort);
+        // Chỉ kiểm tra category tồn tại ở trang đầu, các trang sau không tốn thêm query
+        if (productCursor.isFirstPage() && !categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Không tìm thấy danh mục với ID: " + categoryId);
+        }
+
+        return findSummaryPageByCursor(categorySpec(categoryId), productCursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponseDto<ProductSummaryResponse> getFeaturedProductsByCursor(String cursor, Sort sort, int size) {
+        return findSummaryPageByCursor(featuredSpec(), ProductCursor.decode(cursor, sort), size);
+    }
+
+    private Specification<Product> categorySpec(Long categoryId) {
+        // category.id dùng trực tiếp cột category_id, không JOIN bảng categories
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    private Specification<Product> featuredSpec() {
+        return (root, query, cb) -> cb.equal(root.get("featured"), true);
+    }
+
+    /**
+     * Lấy 1 trang theo cursor: query size + 1 phần tử để biết còn trang sau (thay cho COUNT)
+     */
+    private CursorPageResponseDto<ProductSummaryResponse> findSummaryPageByCursor(
+            Specification<Product> spec, ProductCursor cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        List<ProductSummaryView> products = productRepository.findActiveByCursor(spec, cursor, pageSize + 1);
+
+        boolean hasNext = products.size() > pageSize;
+        List<ProductSummaryView> pageContent = hasNext ? products.subList(0, pageSize) : products;
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductSummaryView last = pageContent.get(pageContent.size() - 1);
+            nextCursor = cursor.next(getSortValue(last, cursor.sortField()), last.id()).encode();
+        }
+
+        return new CursorPageResponseDto<>(
+                pageContent.stream().map(this::convertToSummaryResponse).toList(),
+                pageSize,
+                nextCursor,
+                hasNext);
+    }
+
+    private Object getSortValue(ProductSummaryView product, String sortField) {
+        return switch (sortField) {
+            case "price" -> product.price().toPlainString();
+            case "createdAt" -> product.createdAt();
+            default -> product.id();
+        };
     }
 
     // ==================== PUBLIC ENDPOINTS (Detail) ====================
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_DETAIL_CACHE, key = "#id", sync = true)
     public ProductDetailResponse getProductById(Long id) {
         Product product = productRepository.findByIdWithCategory(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm với ID: " + id));
@@ -98,6 +221,7 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_SLUG_CACHE, key = "#slug", sync = true)
     public ProductDetailResponse getProductBySlug(String slug) {
         Product product = productRepository.findBySlugWithCategory(slug)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm với slug: " + slug));
@@ -109,6 +233,35 @@ public class ProductServiceImpl implements ProductService {
         return convertToDetailResponse(product);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductDetailResponse> getProductsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Số lượng sản phẩm tối đa mỗi lần lấy là " + MAX_BATCH_SIZE);
+        }
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+
+        // 1 query IN (JOIN FETCH category + images), sau đó sắp xếp lại theo thứ tự ids được yêu cầu
+        Map<Long, Product> productsById = productRepository.findActiveByIdInWithCategory(distinctIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return distinctIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToDetailResponse)
+                .toList();
+    }
+
     // ==================== ADMIN ENDPOINTS (Admin Response) ====================
 
 
@@ -129,9 +282,9 @@ public class ProductServiceImpl implements ProductService {
             Specification<Product> spec,
             Pageable pageable
     ) {
-        // Sử dụng repository với Specification
-        Page<Product> products = productRepository.findAllWithFilter(spec, pageable);
-        return convertToListPageResponse(products);
+        // Projection - chỉ select các cột cho list view (category name qua LEFT JOIN)
+        Page<ProductListView> products = productRepository.findListViews(spec, pageable);
+        return convertToListPageResponse(products.map(this::convertToListResponse));
     }
 
     @Override
@@ -176,6 +329,7 @@ public class ProductServiceImpl implements ProductService {
         
         Product savedProduct = productRepository.save(product);
         log.info("✅ Đã tạo sản phẩm: {} - {}", savedProduct.getId(), savedProduct.getName());
+        reindexProductAfterCommit(savedProduct);
         
         return convertToAdminResponse(savedProduct);
     }
@@ -190,12 +344,15 @@ public class ProductServiceImpl implements ProductService {
         
         Product product = productRepository.findByIdWithCategory(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm với ID: " + id));
+        String oldSlug = product.getSlug();
         
         // Update fields (chỉ update nếu không null)
         updateProductFields(product, request);
         
         Product updatedProduct = productRepository.save(product);
         log.info("✅ Đã cập nhật sản phẩm: {} - {}", updatedProduct.getId(), updatedProduct.getName());
+        evictProductCacheAfterCommit(id, oldSlug, updatedProduct.getSlug());
+        reindexProductAfterCommit(updatedProduct);
         
         return convertToAdminResponse(updatedProduct);
     }
@@ -256,6 +413,7 @@ public class ProductServiceImpl implements ProductService {
         
         Product product = productRepository.findByIdWithCategory(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sản phẩm với ID: " + id));
+        String oldSlug = product.getSlug();
         
         // Chỉ update fields được gửi lên
         if (updates.containsKey("name")) {
@@ -306,6 +464,8 @@ public class ProductServiceImpl implements ProductService {
         
         Product updatedProduct = productRepository.save(product);
         log.info("✅ Đã partial update sản phẩm: {} - {}", updatedProduct.getId(), updatedProduct.getName());
+        evictProductCacheAfterCommit(id, oldSlug, updatedProduct.getSlug());
+        reindexProductAfterCommit(updatedProduct);
         
         return convertToAdminResponse(updatedProduct);
     }
@@ -320,6 +480,55 @@ public class ProductServiceImpl implements ProductService {
         product.setActive(false);
         productRepository.save(product);
         log.info("Đã xóa sản phẩm (soft delete): {}", id);
+        evictProductCacheAfterCommit(id, product.getSlug());
+        reindexProductAfterCommit(product);
+    }
+
+    // ==================== CACHE EVICTION & SEARCH INDEX ====================
+
+    /**
+     * Xóa cache chi tiết product (theo ID và các slug cũ/mới) sau khi transaction commit
+     * Evict sau commit để request đọc song song không nạp lại dữ liệu cũ vào cache
+     */
+    private void evictProductCacheAfterCommit(Long id, String... slugs) {
+        runAfterCommit(() -> {
+            Cache detailCache = cacheManager.getCache(CacheConfig.PRODUCT_DETAIL_CACHE);
+            if (detailCache != null) {
+                detailCache.evict(id);
+            }
+            Cache slugCache = cacheManager.getCache(CacheConfig.PRODUCT_SLUG_CACHE);
+            if (slugCache != null) {
+                for (String slug : slugs) {
+                    if (slug != null) {
+                        slugCache.evict(slug);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Cập nhật search index sau khi transaction commit (chụp giá trị ngay để không đọc entity sau commit)
+     */
+    private void reindexProductAfterCommit(Product product) {
+        Long id = product.getId();
+        String name = product.getName();
+        String description = product.getDescription();
+        boolean active = product.isActive();
+        runAfterCommit(() -> productSearchIndexer.onProductChanged(id, name, description, active));
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     // ==================== CONVERTER METHODS ====================
@@ -338,6 +547,19 @@ public class ProductServiceImpl implements ProductService {
                 .build();
     }
 
+    /**
+     * Chuyển đổi ProductSummaryView (projection) thành ProductSummaryResponse
+     */
+    private ProductSummaryResponse convertToSummaryResponse(ProductSummaryView product) {
+        return ProductSummaryResponse.builder()
+                .id(product.id())
+                .name(product.name())
+                .thumbnail(product.thumbnail())
+                .price(product.price())
+                .discountPrice(product.discountPrice())
+                .build();
+    }
+
     /**
      * Chuyển đổi Product thành ProductDetailResponse (đầy đủ thông tin)
      * Cho trang chi tiết sản phẩm
@@ -362,7 +584,8 @@ public class ProductServiceImpl implements ProductService {
                 .discountStartDate(product.getDiscountStartDate())
                 .discountEndDate(product.getDiscountEndDate())
                 .thumbnail(product.getThumbnail())
-                .images(product.getImages())
+                // Copy ra list thường: response được cache, không giữ lazy collection của Hibernate
+                .images(product.getImages() != null ? new ArrayList<>(product.getImages()) : null)
                 .category(categoryInfo)
                 .active(product.isActive())
                 .featured(product.getFeatured())
@@ -419,13 +642,11 @@ public class ProductServiceImpl implements ProductService {
     }
 
     /**
-     * Chuyển đổi Page<Product> thành PageResponseDto<ProductSummaryResponse>
+     * Chuyển đổi Page<ProductSummaryResponse> thành PageResponseDto<ProductSummaryResponse>
      */
-    private PageResponseDto<ProductSummaryResponse> convertToSummaryPageResponse(Page<Product> productPage) {
+    private PageResponseDto<ProductSummaryResponse> convertToSummaryPageResponse(Page<ProductSummaryResponse> productPage) {
         PageResponseDto<ProductSummaryResponse> response = new PageResponseDto<>();
-        response.setContent(productPage.getContent().stream()
-                .map(this::convertToSummaryResponse)
-                .toList());
+        response.setContent(productPage.getContent());
         response.setPage(productPage.getNumber() + 1); // 1-indexed
         response.setSize(productPage.getSize());
         response.setTotalElements(productPage.getTotalElements());
@@ -453,15 +674,13 @@ public class ProductServiceImpl implements ProductService {
     }
 
     /**
-     * Chuyển đổi Page<Product> thành PageResponseDto<ProductListResponse>
+     * Chuyển đổi Page<ProductListResponse> thành PageResponseDto<ProductListResponse>
      * Tối giản - chỉ thông tin cần thiết cho list view
      */
-    private PageResponseDto<ProductListResponse> convertToListPageResponse(Page<Product> productPage) {
+    private PageResponseDto<ProductListResponse> convertToListPageResponse(Page<ProductListResponse> productPage) {
         PageResponseDto<ProductListResponse> response = new PageResponseDto<>();
         
-        response.setContent(productPage.getContent().stream()
-                .map(this::convertToListResponse)
-                .toList());
+        response.setContent(productPage.getContent());
         
         response.setPage(productPage.getNumber() + 1); // 1-indexed
         response.setSize(productPage.getSize());
@@ -471,19 +690,19 @@ public class ProductServiceImpl implements ProductService {
     }
 
     /**
-     * Chuyển đổi Product thành ProductListResponse (tối giản)
+     * Chuyển đổi ProductListView (projection) thành ProductListResponse (tối giản)
      * Chỉ chứa thông tin cần thiết cho list view
      */
-    private ProductListResponse convertToListResponse(Product product) {
+    private ProductListResponse convertToListResponse(ProductListView product) {
         return ProductListResponse.builder()
-                .id(product.getId())
-                .name(product.getName())
-                .price(product.getPrice())
-                .discountPrice(product.getDiscountPrice())
-                .thumbnail(product.getThumbnail() != null ? product.getThumbnail() : "")
-                .categoryName(product.getCategory() != null ? product.getCategory().getName() : "")
-                .active(product.isActive())
-                .featured(product.getFeatured())
+                .id(product.id())
+                .name(product.name())
+                .price(product.price())
+                .discountPrice(product.discountPrice())
+                .thumbnail(product.thumbnail() != null ? product.thumbnail() : "")
+                .categoryName(product.categoryName() != null ? product.categoryName() : "")
+                .active(Boolean.TRUE.equals(product.active()))
+                .featured(product.featured())
                 .build();
     }
 
@@ -563,13 +782,13 @@ public class ProductServiceImpl implements ProductService {
     }
     
     @Override
-    @Transactional
     public java.util.List<String> uploadImages(MultipartFile[] imageFiles, Long productId) {
         if (imageFiles == null || imageFiles.length == 0) {
             throw new IllegalArgumentException("Danh sách file ảnh không được để trống");
         }
         
-        java.util.List<String> urls = new java.util.ArrayList<>();
+        java.util.List<MultipartFile> filesToUpload = new java.util.ArrayList<>();
+        java.util.List<String> fileNames = new java.util.ArrayList<>();
         
         for (int i = 0; i < imageFiles.length; i++) {
             MultipartFile imageFile = imageFiles[i];
@@ -579,34 +798,44 @@ public class ProductServiceImpl implements ProductService {
             }
             
             // Tạo tên file: product-{productId}-{index}-{timestamp}-{originalFilename}
-            String folder = "products";
-            String fileName;
+            String timestamp = String.valueOf(System.currentTimeMillis());
+            String extension = extractExtension(imageFile.getOriginalFilename());
             if (productId != null) {
-                String timestamp = String.valueOf(System.currentTimeMillis());
-                String originalFilename = imageFile.getOriginalFilename();
-                String extension = "";
-                if (originalFilename != null && originalFilename.contains(".")) {
-                    extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-                }
-                fileName = String.format("product-%d-%d-%s%s", productId, i, timestamp, extension);
+                fileNames.add(String.format("product-%d-%d-%s%s", productId, i, timestamp, extension));
             } else {
                 // Trường hợp upload ảnh trước khi tạo product
-                String timestamp = String.valueOf(System.currentTimeMillis());
-                String originalFilename = imageFile.getOriginalFilename();
-                String extension = "";
-                if (originalFilename != null && originalFilename.contains(".")) {
-                    extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-                }
-                fileName = String.format("temp-%d-%s%s", i, timestamp, extension);
+                fileNames.add(String.format("temp-%d-%s%s", i, timestamp, extension));
             }
-            
-            // Upload lên S3 và lấy URL
-            String url = s3Service.uploadFile(imageFile, folder, fileName, true);
-            urls.add(url);
-            log.info("✅ Đã upload ảnh {} lên S3: {}", i + 1, url);
+            filesToUpload.add(imageFile);
         }
         
+        // Upload song song lên S3 (bounded executor), kết quả giữ đúng thứ tự file gửi lên
+        java.util.List<String> urls = s3Service.uploadFiles(filesToUpload, "products", fileNames, true);
+        
         log.info("✅ Đã upload {} ảnh lên S3", urls.size());
         return urls;
     }
+
+    @Override
+    public PresignedUploadResponse createPresignedImageUpload(PresignedUploadRequest request) {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        String extension = extractExtension(request.getFileName());
+        // Thêm random suffix: nhiều ảnh được xin URL trong cùng 1 millisecond
+        String suffix = java.util.UUID.randomUUID().toString().substring(0, 8);
+        String fileName = request.getProductId() != null
+                ? String.format("product-%d-%s-%s%s", request.getProductId(), timestamp, suffix, extension)
+                : String.format("temp-%s-%s%s", timestamp, suffix, extension);
+
+        PresignedUploadResponse response = s3Service.generatePresignedUploadUrl(
+                "products", fileName, request.getContentType());
+        log.info("✅ Đã tạo presigned upload URL cho: {}", response.getKey());
+        return response;
+    }
+
+    private String extractExtension(String originalFilename) {
+        if (originalFilename != null && originalFilename.contains(".")) {
+            return originalFilename.substring(originalFilename.lastIndexOf("."));
+        }
+        return "";
+    }
 }
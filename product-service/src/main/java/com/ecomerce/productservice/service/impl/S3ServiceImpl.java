@@ -1,25 +1,96 @@
 package com.ecomerce.productservice.service.impl;
 
 import com.ecomerce.productservice.advice.exeption.S3UploadException;
+import com.ecomerce.productservice.dto.response.PresignedUploadResponse;
 import com.ecomerce.productservice.service.S3Service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-
+/**
+ * Upload file lên S3 không giữ toàn bộ file trong heap:
+ * - File nhỏ: stream thẳng từ MultipartFile (temp file trên disk) lên S3
+ * - File lớn (>= multipart-threshold): S3 multipart upload, chỉ giữ 1 part trong memory
+ * - Presigned PUT URL: browser upload trực tiếp lên S3, service không chạm vào bytes
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class S3ServiceImpl implements S3Service {
 
     private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
     private final String awsBucketName;
-    private final String awsRegion;
+    private final String s3ObjectBaseUrl;
+
+    @Value("${aws.s3.multipart-threshold:16MB}")
+    private DataSize multipartThreshold;
+
+    // S3 yêu cầu mỗi part (trừ part cuối) >= 5MB
+    @Value("${aws.s3.multipart-part-size:8MB}")
+    private DataSize multipartPartSize;
+
+    @Value("${aws.s3.upload-concurrency:4}")
+    private int uploadConcurrency;
+
+    @Value("${aws.s3.presign-expiration:10m}")
+    private Duration presignExpiration;
+
+    private ThreadPoolExecutor uploadExecutor;
+
+    @PostConstruct
+    public void initUploadExecutor() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        // Pool + queue có giới hạn; khi đầy thì thread của request tự upload (back-pressure)
+        uploadExecutor = new ThreadPoolExecutor(
+                uploadConcurrency, uploadConcurrency,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(uploadConcurrency * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "s3-upload-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        uploadExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdownUploadExecutor() {
+        uploadExecutor.shutdown();
+    }
 
     @Override
     public String uploadFile(MultipartFile file, String folder, String fileName, boolean getUrl) {
@@ -29,24 +100,166 @@ public class S3ServiceImpl implements S3Service {
 
             String key = String.format("%s/%s", folder, fileName);
 
-            PutObjectRequest putRequest = PutObjectRequest.builder()
-                    .bucket(awsBucketName)
-                    .key(key)
-                    .contentType(file.getContentType())
-                    .build();
+            if (file.getSize() >= multipartThreshold.toBytes()) {
+                uploadMultipart(file, key);
+            } else {
+                PutObjectRequest putRequest = PutObjectRequest.builder()
+                        .bucket(awsBucketName)
+                        .key(key)
+                        .contentType(file.getContentType())
+                        .contentLength(file.getSize())
+                        .build();
 
-            s3Client.putObject(putRequest, RequestBody.fromBytes(file.getBytes()));
+                // Mỗi lần SDK retry sẽ mở lại stream mới từ MultipartFile - không copy file vào heap
+                s3Client.putObject(putRequest, RequestBody.fromContentProvider(
+                        () -> openStream(file), file.getSize(), file.getContentType()));
+            }
 
             if (getUrl)
-                return String.format("https://%s.s3.%s.amazonaws.com/%s", awsBucketName, awsRegion, key);
+                return s3ObjectBaseUrl + key;
             else return key;
-        } catch (IOException e) {
+        } catch (S3UploadException e) {
+            throw e;
+        } catch (IOException | UncheckedIOException e) {
             throw new S3UploadException("Lỗi khi đọc dữ liệu từ tệp");
         } catch (Exception e) {
             throw new S3UploadException("Lỗi khi upload file lên S3");
         }
     }
 
+    @Override
+    public List<String> uploadFiles(List<MultipartFile> files, String folder, List<String> fileNames, boolean getUrl) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            String fileName = fileNames.get(i);
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> uploadFile(file, folder, fileName, getUrl), uploadExecutor));
+        }
+
+        try {
+            // allOf chỉ hoàn thành khi mọi upload đã kết thúc (thành công hoặc lỗi)
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            for (CompletableFuture<String> future : futures) {
+                if (!future.isCompletedExceptionally()) {
+                    deleteUploadedQuietly(future.join(), getUrl);
+                }
+            }
+            if (e.getCause() instanceof S3UploadException s3UploadException) {
+                throw s3UploadException;
+            }
+            throw new S3UploadException("Lỗi khi upload file lên S3");
+        }
+
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
+    @Override
+    public PresignedUploadResponse generatePresignedUploadUrl(String folder, String fileName, String contentType) {
+        String key = String.format("%s/%s", folder, fileName);
+
+        PutObjectRequest putRequest = PutObjectRequest.builder()
+                .bucket(awsBucketName)
+                .key(key)
+                .contentType(contentType)
+                .build();
+
+        PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
+                .putObjectRequest(putRequest)
+                .signatureDuration(presignExpiration)
+                .build();
+
+        PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(presignRequest);
+
+        return PresignedUploadResponse.builder()
+                .uploadUrl(presigned.url().toString())
+                .fileUrl(s3ObjectBaseUrl + key)
+                .key(key)
+                .contentType(contentType)
+                .expiresAt(presigned.expiration())
+                .build();
+    }
+
+    /**
+     * Multipart upload: đọc tuần tự từng part vào 1 buffer dùng lại => memory cố định = part size
+     */
+    private void uploadMultipart(MultipartFile file, String key) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(awsBucketName)
+                        .key(key)
+                        .contentType(file.getContentType())
+                        .build())
+                .uploadId();
+
+        try (InputStream inputStream = file.getInputStream()) {
+            byte[] buffer = new byte[(int) multipartPartSize.toBytes()];
+            List<CompletedPart> completedParts = new ArrayList<>();
+            int partNumber = 1;
+            int length;
+            while ((length = inputStream.readNBytes(buffer, 0, buffer.length)) > 0) {
+                int partLength = length;
+                String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(awsBucketName)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) partLength)
+                                .build(),
+                        RequestBody.fromContentProvider(
+                                () -> new ByteArrayInputStream(buffer, 0, partLength), partLength, file.getContentType()))
+                        .eTag();
+                completedParts.add(CompletedPart.builder()
+                        .partNumber(partNumber)
+                        .eTag(eTag)
+                        .build());
+                partNumber++;
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(awsBucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder()
+                            .parts(completedParts)
+                            .build())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            // Không để lại part dở dang (S3 vẫn tính phí storage cho multipart upload chưa complete)
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(awsBucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            throw e;
+        }
+    }
+
+    private InputStream openStream(MultipartFile file) {
+        try {
+            return file.getInputStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteUploadedQuietly(String urlOrKey, boolean isUrl) {
+        try {
+            if (isUrl) {
+                deleteFileByUrl(urlOrKey);
+            } else {
+                s3Client.deleteObject(DeleteObjectRequest.builder()
+                        .bucket(awsBucketName)
+                        .key(urlOrKey)
+                        .build());
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Không thể xóa file {} sau khi upload lỗi: {}", urlOrKey, e.getMessage());
+        }
+    }
+
 //    @Override
 //    public String uploadFile(MultipartFile file, String key, boolean getUrl) {
 //        try {
@@ -129,11 +342,10 @@ public class S3ServiceImpl implements S3Service {
 //    }
 
     private String extractObjectKeyFromUrl(String url) {
-        String base = String.format("https://%s.s3.%s.amazonaws.com/", awsBucketName, awsRegion);
-        if (!url.startsWith(base)) {
+        if (!url.startsWith(s3ObjectBaseUrl)) {
             throw new S3UploadException("URL không hợp lệ hoặc không thuộc bucket hiện tại");
         }
-        return url.substring(base.length());
+        return url.substring(s3ObjectBaseUrl.length());
     }
 
 
@@ -0,0 +1,80 @@
+package com.ecomerce.productservice.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rebuild không làm mất thay đổi xảy ra trong lúc đọc snapshot, prefix search không cắt bớt kết quả
+ */
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void changesDuringSnapshotReadSurviveRebuild() {
+        index.rebuild(() -> {
+            // Snapshot đọc trước khi admin sửa product 1, tạo product 3 và xóa product 2
+            List<ProductSearchDocument> snapshot = List.of(document(1L, "Điện thoại cũ"), document(2L, "Tai nghe"));
+            index.index(1L, "Máy tính bảng", null);
+            index.index(3L, "Tai nghe bluetooth", null);
+            index.remove(2L);
+            return snapshot;
+        });
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L), index.search("may tinh", 0, 10).productIds());
+        assertEquals(0, index.search("dien thoai", 0, 10).totalElements());
+        assertEquals(List.of(3L), index.search("tai nghe", 0, 10).productIds());
+    }
+
+    @Test
+    void failedSnapshotReadStopsRecordingChanges() {
+        assertThrows(IllegalStateException.class, () -> index.rebuild(() -> {
+            throw new IllegalStateException("DB down");
+        }));
+        assertFalse(index.isReady());
+
+        index.rebuild(() -> List.of(document(1L, "Tai nghe")));
+        assertEquals(1, index.search("tai", 0, 10).totalElements());
+    }
+
+    @Test
+    void prefixMatchingManyTermsCountsEveryProduct() {
+        List<ProductSearchDocument> products = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            products.add(document(id, "Mẫu sp" + id));
+        }
+        index.rebuild(() -> products);
+
+        ProductSearchIndex.SearchResult result = index.search("sp", 0, 20);
+
+        assertEquals(200, result.totalElements());
+        assertEquals(20, result.productIds().size());
+    }
+
+    private static ProductSearchDocument document(Long id, String name) {
+        return new ProductSearchDocument() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+        };
+    }
+}